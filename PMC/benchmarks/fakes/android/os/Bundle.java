@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Host fake of android.os.Bundle holding string values only.
+ */
+public class Bundle {
+    private final Map<String, String> mMap = new HashMap<>();
+
+    public boolean containsKey(String key) {
+        return mMap.containsKey(key);
+    }
+
+    public String getString(String key) {
+        return mMap.get(key);
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = mMap.get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    public void putString(String key, String value) {
+        mMap.put(key, value);
+    }
+
+    public Set<String> keySet() {
+        return mMap.keySet();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.util;
+
+/**
+ * Host fake of android.util.Log. Messages are dropped unless the system property
+ * "pmc.log" is set, in which case they are printed to stderr.
+ */
+public final class Log {
+    private static final boolean ENABLED = System.getProperty("pmc.log") != null;
+
+    private Log() {}
+
+    private static int println(String level, String tag, String msg) {
+        if (ENABLED) System.err.println(level + "/" + tag + ": " + msg);
+        return 0;
+    }
+
+    public static int v(String tag, String msg) {
+        return println("V", tag, msg);
+    }
+
+    public static int d(String tag, String msg) {
+        return println("D", tag, msg);
+    }
+
+    public static int i(String tag, String msg) {
+        return println("I", tag, msg);
+    }
+
+    public static int w(String tag, String msg) {
+        return println("W", tag, msg);
+    }
+
+    public static int e(String tag, String msg) {
+        return println("E", tag, msg);
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        return println("E", tag, msg + " " + tr);
+    }
+}
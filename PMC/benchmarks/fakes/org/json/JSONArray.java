@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Host fake of org.json.JSONArray.
+ */
+public class JSONArray {
+    private final List<Object> mValues = new ArrayList<>();
+
+    public JSONArray() {}
+
+    public JSONArray(String json) throws JSONException {
+        this(new JSONTokener(json));
+    }
+
+    public JSONArray(JSONTokener tokener) throws JSONException {
+        Object value = tokener.nextValue();
+        if (!(value instanceof JSONArray) || !tokener.isDone()) {
+            throw new JSONException("Value is not a JSONArray");
+        }
+        mValues.addAll(((JSONArray) value).mValues);
+    }
+
+    public JSONArray put(Object value) {
+        mValues.add(value);
+        return this;
+    }
+
+    public JSONArray put(int value) {
+        mValues.add(value);
+        return this;
+    }
+
+    public JSONArray put(long value) {
+        mValues.add(value);
+        return this;
+    }
+
+    public JSONArray put(double value) throws JSONException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new JSONException("Forbidden numeric value: " + value);
+        }
+        mValues.add(value);
+        return this;
+    }
+
+    public Object opt(int index) {
+        return index >= 0 && index < mValues.size() ? mValues.get(index) : null;
+    }
+
+    public Object get(int index) throws JSONException {
+        Object value = opt(index);
+        if (value == null) throw new JSONException("No value at " + index);
+        return value;
+    }
+
+    public JSONObject optJSONObject(int index) {
+        Object value = opt(index);
+        return value instanceof JSONObject ? (JSONObject) value : null;
+    }
+
+    public int length() {
+        return mValues.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        for (int i = 0; i < mValues.size(); i++) {
+            if (i > 0) sb.append(',');
+            JSONObject.appendValue(sb, mValues.get(i));
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Host fake of org.json.JSONObject. Keys keep their insertion order.
+ */
+public class JSONObject {
+    public static final Object NULL = new Object() {
+        @Override
+        public boolean equals(Object o) {
+            return o == this || o == null;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return "null";
+        }
+    };
+
+    private final Map<String, Object> mMap = new LinkedHashMap<>();
+
+    public JSONObject() {}
+
+    public JSONObject(String json) throws JSONException {
+        this(new JSONTokener(json));
+    }
+
+    public JSONObject(JSONTokener tokener) throws JSONException {
+        Object value = tokener.nextValue();
+        if (!(value instanceof JSONObject) || !tokener.isDone()) {
+            throw new JSONException("Value is not a JSONObject");
+        }
+        mMap.putAll(((JSONObject) value).mMap);
+    }
+
+    public JSONObject put(String name, Object value) throws JSONException {
+        if (name == null) throw new JSONException("Names must be non-null");
+        if (value == null) {
+            mMap.remove(name);
+        } else {
+            mMap.put(name, value);
+        }
+        return this;
+    }
+
+    public JSONObject put(String name, boolean value) throws JSONException {
+        return put(name, (Object) value);
+    }
+
+    public JSONObject put(String name, int value) throws JSONException {
+        return put(name, (Object) value);
+    }
+
+    public JSONObject put(String name, long value) throws JSONException {
+        return put(name, (Object) value);
+    }
+
+    public JSONObject put(String name, double value) throws JSONException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new JSONException("Forbidden numeric value: " + value);
+        }
+        return put(name, (Object) value);
+    }
+
+    public boolean has(String name) {
+        return mMap.containsKey(name);
+    }
+
+    public Object opt(String name) {
+        return mMap.get(name);
+    }
+
+    public boolean isNull(String name) {
+        Object value = mMap.get(name);
+        return value == null || value == NULL;
+    }
+
+    public Object get(String name) throws JSONException {
+        Object value = mMap.get(name);
+        if (value == null) throw new JSONException("No value for " + name);
+        return value;
+    }
+
+    public String getString(String name) throws JSONException {
+        return String.valueOf(get(name));
+    }
+
+    public String optString(String name) {
+        return optString(name, "");
+    }
+
+    public String optString(String name, String fallback) {
+        Object value = mMap.get(name);
+        return value == null || value == NULL ? fallback : String.valueOf(value);
+    }
+
+    public int getInt(String name) throws JSONException {
+        Object value = get(name);
+        if (value instanceof Number) return ((Number) value).intValue();
+        try {
+            return (int) Double.parseDouble(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            throw new JSONException("Value " + value + " at " + name + " is not an int");
+        }
+    }
+
+    public int optInt(String name, int fallback) {
+        try {
+            return has(name) ? getInt(name) : fallback;
+        } catch (JSONException e) {
+            return fallback;
+        }
+    }
+
+    public JSONObject getJSONObject(String name) throws JSONException {
+        Object value = get(name);
+        if (!(value instanceof JSONObject)) {
+            throw new JSONException("Value at " + name + " is not a JSONObject");
+        }
+        return (JSONObject) value;
+    }
+
+    public JSONObject optJSONObject(String name) {
+        Object value = mMap.get(name);
+        return value instanceof JSONObject ? (JSONObject) value : null;
+    }
+
+    public JSONArray optJSONArray(String name) {
+        Object value = mMap.get(name);
+        return value instanceof JSONArray ? (JSONArray) value : null;
+    }
+
+    public Iterator<String> keys() {
+        return mMap.keySet().iterator();
+    }
+
+    public int length() {
+        return mMap.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Object> entry : mMap.entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            quote(sb, entry.getKey());
+            sb.append(':');
+            appendValue(sb, entry.getValue());
+        }
+        return sb.append('}').toString();
+    }
+
+    static void appendValue(StringBuilder sb, Object value) {
+        if (value instanceof String) {
+            quote(sb, (String) value);
+        } else {
+            sb.append(value);
+        }
+    }
+
+    static void quote(StringBuilder sb, String str) {
+        sb.append('"');
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                    sb.append('\\').append(c);
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+/**
+ * Host fake of org.json.JSONTokener, parses the JSON text accepted by JSONObject
+ * and JSONArray.
+ */
+public class JSONTokener {
+    private final String mIn;
+    private int mPos;
+
+    public JSONTokener(String in) {
+        mIn = in;
+    }
+
+    /**
+     * Returns the next value: JSONObject, JSONArray, String, Boolean, Integer, Long,
+     * Double or JSONObject.NULL
+     */
+    public Object nextValue() throws JSONException {
+        char c = nextClean();
+        switch (c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            default:
+                mPos--;
+                return readLiteral();
+        }
+    }
+
+    /**
+     * Returns true if only whitespace is left
+     */
+    boolean isDone() {
+        while (mPos < mIn.length() && Character.isWhitespace(mIn.charAt(mPos))) mPos++;
+        return mPos >= mIn.length();
+    }
+
+    private char nextClean() throws JSONException {
+        if (isDone()) throw syntaxError("End of input");
+        return mIn.charAt(mPos++);
+    }
+
+    private JSONObject readObject() throws JSONException {
+        JSONObject obj = new JSONObject();
+        if (nextClean() == '}') return obj;
+        mPos--;
+        while (true) {
+            if (nextClean() != '"') throw syntaxError("Expected name");
+            String name = readString();
+            if (nextClean() != ':') throw syntaxError("Expected ':'");
+            obj.put(name, nextValue());
+            char c = nextClean();
+            if (c == '}') return obj;
+            if (c != ',') throw syntaxError("Expected ',' or '}'");
+        }
+    }
+
+    private JSONArray readArray() throws JSONException {
+        JSONArray array = new JSONArray();
+        if (nextClean() == ']') return array;
+        mPos--;
+        while (true) {
+            array.put(nextValue());
+            char c = nextClean();
+            if (c == ']') return array;
+            if (c != ',') throw syntaxError("Expected ',' or ']'");
+        }
+    }
+
+    private String readString() throws JSONException {
+        StringBuilder sb = new StringBuilder();
+        while (mPos < mIn.length()) {
+            char c = mIn.charAt(mPos++);
+            if (c == '"') return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (mPos >= mIn.length()) break;
+            c = mIn.charAt(mPos++);
+            switch (c) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'u':
+                    if (mPos + 4 > mIn.length()) throw syntaxError("Invalid escape");
+                    sb.append((char) Integer.parseInt(mIn.substring(mPos, mPos + 4), 16));
+                    mPos += 4;
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private Object readLiteral() throws JSONException {
+        int start = mPos;
+        while (mPos < mIn.length() && ",:]}".indexOf(mIn.charAt(mPos)) < 0
+                && !Character.isWhitespace(mIn.charAt(mPos))) {
+            mPos++;
+        }
+        String literal = mIn.substring(start, mPos);
+        if (literal.isEmpty()) throw syntaxError("Expected literal value");
+        if (literal.equals("true")) return Boolean.TRUE;
+        if (literal.equals("false")) return Boolean.FALSE;
+        if (literal.equals("null")) return JSONObject.NULL;
+        try {
+            if (literal.indexOf('.') < 0 && literal.indexOf('e') < 0
+                    && literal.indexOf('E') < 0) {
+                long value = Long.parseLong(literal);
+                if (value <= Integer.MAX_VALUE && value >= Integer.MIN_VALUE) {
+                    return (int) value;
+                }
+                return value;
+            }
+            return Double.valueOf(literal);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Invalid literal " + literal);
+        }
+    }
+
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + " at character " + mPos);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.benchmarks;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One benchmark case. A case is a named piece of work and a fixed set of parameters,
+ * e.g. "DownloadReader.read" with size=1mb and buffer=reused.
+ */
+abstract class Benchmark {
+    private final String mName;
+    private final Map<String, String> mParams = new TreeMap<>();
+
+    Benchmark(String name) {
+        mName = name;
+    }
+
+    /**
+     * Add a parameter describing this case, returns this for chaining
+     */
+    Benchmark param(String key, Object value) {
+        mParams.put(key, String.valueOf(value));
+        return this;
+    }
+
+    String getName() {
+        return mName;
+    }
+
+    Map<String, String> getParams() {
+        return Collections.unmodifiableMap(mParams);
+    }
+
+    /**
+     * Identifier used for filtering and sorting, e.g. "GattPayload.get[mode=prebuilt,size=244]"
+     */
+    String getId() {
+        StringBuilder sb = new StringBuilder(mName);
+        if (!mParams.isEmpty()) {
+            sb.append('[');
+            boolean first = true;
+            for (Map.Entry<String, String> entry : mParams.entrySet()) {
+                if (!first) sb.append(',');
+                first = false;
+                sb.append(entry.getKey()).append('=').append(entry.getValue());
+            }
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Prepare the state of the case, called once before warmup
+     */
+    void setUp() throws Exception {}
+
+    /**
+     * Release the state of the case, called once after measurement
+     */
+    void tearDown() throws Exception {}
+
+    /**
+     * Number of payload bytes processed by one operation, 0 if not applicable
+     */
+    long bytesPerOp() {
+        return 0;
+    }
+
+    /**
+     * Run the operation ops times
+     *
+     * @param ops - number of operations to run
+     * @return value derived from the results so the JIT can't drop the work
+     */
+    abstract long run(int ops) throws Exception;
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * Runs benchmark cases with time based warmup and measurement iterations.
+ *
+ * Before the first iteration the number of operations per iteration is calibrated
+ * so that one iteration takes about the configured time. Every iteration then runs
+ * the same number of operations, and its time per operation is one sample.
+ */
+class BenchmarkRunner {
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final int MAX_OPS = 1 << 30;
+
+    private final int mWarmupIterations;
+    private final int mMeasureIterations;
+    private final long mIterationNanos;
+    // Results of every run are folded in here so the work can't be eliminated
+    private long mSink;
+
+    /**
+     * Constructor
+     *
+     * @param warmupIterations - iterations run and discarded before measurement
+     * @param measureIterations - iterations measured
+     * @param iterationMillis - target time of one iteration
+     */
+    BenchmarkRunner(int warmupIterations, int measureIterations, long iterationMillis) {
+        mWarmupIterations = warmupIterations;
+        mMeasureIterations = measureIterations;
+        mIterationNanos = iterationMillis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Run one case and return its samples
+     */
+    Result run(Benchmark benchmark) throws Exception {
+        benchmark.setUp();
+        try {
+            int ops = calibrate(benchmark);
+            for (int i = 0; i < mWarmupIterations; i++) {
+                timeNanos(benchmark, ops);
+            }
+            double[] samples = new double[mMeasureIterations];
+            for (int i = 0; i < mMeasureIterations; i++) {
+                samples[i] = (double) timeNanos(benchmark, ops) / ops;
+            }
+            return new Result(benchmark, ops, samples);
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    long getSink() {
+        return mSink;
+    }
+
+    private int calibrate(Benchmark benchmark) throws Exception {
+        int ops = 1;
+        while (true) {
+            long nanos = timeNanos(benchmark, ops);
+            if (nanos >= mIterationNanos / 4 || ops >= MAX_OPS / 2) {
+                long scaled = ops * mIterationNanos / Math.max(1, nanos);
+                return (int) Math.max(1, Math.min(MAX_OPS, scaled));
+            }
+            ops *= 2;
+        }
+    }
+
+    private long timeNanos(Benchmark benchmark, int ops) throws Exception {
+        long start = System.nanoTime();
+        mSink += benchmark.run(ops);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Samples of one case in nanoseconds per operation
+     */
+    static class Result {
+        final Benchmark benchmark;
+        final int opsPerIteration;
+        final double[] samples;
+        final double score;
+        final double stdev;
+        final double min;
+        final double max;
+
+        Result(Benchmark benchmark, int opsPerIteration, double[] samples) {
+            this.benchmark = benchmark;
+            this.opsPerIteration = opsPerIteration;
+            this.samples = samples;
+            double[] sorted = samples.clone();
+            Arrays.sort(sorted);
+            double sum = 0;
+            for (double sample : sorted) {
+                sum += sample;
+            }
+            score = sum / sorted.length;
+            double squares = 0;
+            for (double sample : sorted) {
+                squares += (sample - score) * (sample - score);
+            }
+            stdev = sorted.length > 1 ? Math.sqrt(squares / (sorted.length - 1)) : 0;
+            min = sorted[0];
+            max = sorted[sorted.length - 1];
+        }
+
+        /**
+         * Throughput in bytes per second, 0 if the case does not process bytes
+         */
+        double bytesPerSec() {
+            long bytes = benchmark.bytesPerOp();
+            return bytes > 0 && score > 0 ? bytes * 1e9 / score : 0;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.benchmarks;
+
+import com.android.pmc.control.ControlClient;
+import com.android.pmc.control.ControlFrame;
+import com.android.pmc.control.ControlServer;
+import com.android.pmc.control.FrameDecoder;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Control socket protocol: frame encode and decode, and one command round trip over
+ * loopback with a dispatcher which answers immediately, i.e. the latency a host sees
+ * on top of the command itself.
+ */
+class ControlProtocolBenchmarks {
+    private static final String ACTION = "com.android.pmc.action.AUTOPOWER";
+
+    private ControlProtocolBenchmarks() {}
+
+    static void addTo(List<Benchmark> benchmarks) {
+        benchmarks.add(new CodecBenchmark());
+        benchmarks.add(new RoundTripBenchmark());
+    }
+
+    private static Map<String, String> extras() {
+        Map<String, String> extras = new HashMap<>();
+        extras.put("PowerAction", "GetDownloadRate");
+        return extras;
+    }
+
+    private static class CodecBenchmark extends Benchmark {
+        private final FrameDecoder mDecoder = new FrameDecoder();
+        private final Map<String, String> mExtras = extras();
+
+        CodecBenchmark() {
+            super("ControlFrame.codec");
+        }
+
+        @Override
+        long run(int ops) throws Exception {
+            long checksum = 0;
+            for (int i = 0; i < ops; i++) {
+                ByteBuffer buffer = ControlFrame.request(i, ACTION, mExtras).encode();
+                mDecoder.feed(buffer);
+                checksum += mDecoder.poll().getId();
+            }
+            return checksum;
+        }
+    }
+
+    private static class RoundTripBenchmark extends Benchmark {
+        private final Map<String, String> mExtras = extras();
+        private ControlServer mServer;
+        private ControlClient mClient;
+
+        RoundTripBenchmark() {
+            super("ControlServer.roundTrip");
+        }
+
+        @Override
+        void setUp() throws Exception {
+            mServer = new ControlServer(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                    new ControlServer.Dispatcher() {
+                        @Override
+                        public void dispatch(String action, Map<String, String> extras,
+                                ControlServer.Responder responder) {
+                            responder.respond(extras.get("PowerAction"));
+                        }
+                    });
+            mServer.start();
+            mClient = new ControlClient(new InetSocketAddress(
+                    InetAddress.getLoopbackAddress(), mServer.getPort()));
+        }
+
+        @Override
+        void tearDown() throws Exception {
+            mClient.close();
+            mServer.stop();
+        }
+
+        @Override
+        long run(int ops) throws Exception {
+            long checksum = 0;
+            for (int i = 0; i < ops; i++) {
+                checksum += mClient.call(ACTION, mExtras).length();
+            }
+            return checksum;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.benchmarks;
+
+import com.android.pmc.DownloadDecoder;
+import com.android.pmc.DownloadReader;
+import com.android.pmc.hal.DownloadTransport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Decompression of a 1mb download read out by the read loop of HttpDownloadTransport,
+ * for content which doesn't compress (random), compresses like prose (text) and
+ * compresses as far as it goes (zeros). bytesPerSec is in uncompressed bytes.
+ */
+class DownloadDecoderBenchmarks {
+    private static final int SIZE = 1024 * 1024;
+    private static final int DECODE_BUFFER_SIZE = 1024 * 64;
+    private static final int READ_BUFFER_SIZE = 1024 * 4;
+    private static final String[] CONTENTS = {"random", "text", "zeros"};
+    private static final String[] WORDS = {
+            "the", "of", "and", "to", "in", "a", "is", "that", "for", "it", "power", "device",
+            "network", "download", "battery", "signal", "packet", "server", "radio"};
+
+    private DownloadDecoderBenchmarks() {}
+
+    static void addTo(List<Benchmark> benchmarks) {
+        for (String content : CONTENTS) {
+            benchmarks.add(new DecodeBenchmark(content, DownloadTransport.ENCODING_GZIP));
+            benchmarks.add(new DecodeBenchmark(content, DownloadTransport.ENCODING_DEFLATE));
+        }
+    }
+
+    private static byte[] makeContent(String kind) {
+        byte[] content = new byte[SIZE];
+        Random random = new Random(1);
+        if (kind.equals("random")) {
+            random.nextBytes(content);
+        } else if (kind.equals("text")) {
+            int pos = 0;
+            while (pos < SIZE) {
+                byte[] word = WORDS[random.nextInt(WORDS.length)]
+                        .getBytes(StandardCharsets.US_ASCII);
+                for (int i = 0; i < word.length && pos < SIZE; i++) {
+                    content[pos++] = word[i];
+                }
+                if (pos < SIZE) content[pos++] = (byte) (random.nextInt(12) == 0 ? '\n' : ' ');
+            }
+        }
+        return content;
+    }
+
+    private static class DecodeBenchmark extends Benchmark {
+        private final String mContent;
+        private final int mEncoding;
+        private ByteArrayInputStream mStream;
+        private DownloadDecoder mDecoder;
+        private DownloadReader mReader;
+
+        DecodeBenchmark(String content, int encoding) {
+            super("DownloadDecoder.read");
+            param("content", content);
+            param("encoding", encoding == DownloadTransport.ENCODING_GZIP ? "gzip" : "deflate");
+            mContent = content;
+            mEncoding = encoding;
+        }
+
+        @Override
+        void setUp() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            OutputStream out = mEncoding == DownloadTransport.ENCODING_GZIP
+                    ? new GZIPOutputStream(bytes) : new DeflaterOutputStream(bytes);
+            out.write(makeContent(mContent));
+            out.close();
+            mStream = new ByteArrayInputStream(bytes.toByteArray());
+            mDecoder = new DownloadDecoder(DECODE_BUFFER_SIZE, DownloadDecoder.NANO_TIME);
+            mReader = new DownloadReader(READ_BUFFER_SIZE);
+        }
+
+        @Override
+        long bytesPerOp() {
+            return SIZE;
+        }
+
+        @Override
+        long run(int ops) throws Exception {
+            long total = 0;
+            for (int i = 0; i < ops; i++) {
+                mStream.reset();
+                mDecoder.start(mStream, mEncoding, null);
+                total += mReader.read(mDecoder);
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.benchmarks;
+
+import com.android.pmc.DownloadReader;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+/**
+ * Read loop of HttpDownloadTransport against in-memory downloads of the sizes used
+ * by the power tests. "reused" keeps one reader for all downloads like the transport
+ * does, "perDownload" allocates the read buffer for every download.
+ */
+class DownloadReaderBenchmarks {
+    private static final int BUFFER_SIZE = 8192;
+    private static final String[] SIZE_NAMES = {"1kb", "10kb", "100kb", "1mb"};
+    private static final int[] SIZES = {1024, 10 * 1024, 100 * 1024, 1024 * 1024};
+
+    private DownloadReaderBenchmarks() {}
+
+    static void addTo(List<Benchmark> benchmarks) {
+        for (int i = 0; i < SIZES.length; i++) {
+            benchmarks.add(new ReadBenchmark(SIZE_NAMES[i], SIZES[i], true));
+            benchmarks.add(new ReadBenchmark(SIZE_NAMES[i], SIZES[i], false));
+        }
+    }
+
+    private static class ReadBenchmark extends Benchmark {
+        private final int mSize;
+        private final boolean mReuse;
+        private ByteArrayInputStream mStream;
+        private DownloadReader mReader;
+
+        ReadBenchmark(String sizeName, int size, boolean reuse) {
+            super("DownloadReader.read");
+            param("size", sizeName);
+            param("buffer", reuse ? "reused" : "perDownload");
+            mSize = size;
+            mReuse = reuse;
+        }
+
+        @Override
+        void setUp() {
+            byte[] content = new byte[mSize];
+            for (int i = 0; i < content.length; i++) {
+                content[i] = (byte) i;
+            }
+            mStream = new ByteArrayInputStream(content);
+            mReader = new DownloadReader(BUFFER_SIZE);
+        }
+
+        @Override
+        long bytesPerOp() {
+            return mSize;
+        }
+
+        @Override
+        long run(int ops) throws Exception {
+            long total = 0;
+            for (int i = 0; i < ops; i++) {
+                mStream.reset();
+                DownloadReader reader = mReuse ? mReader : new DownloadReader(BUFFER_SIZE);
+                total += reader.read(mStream);
+            }
+            return total;
+        }
+    }
+}
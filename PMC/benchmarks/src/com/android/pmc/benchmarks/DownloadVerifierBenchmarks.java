@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.benchmarks;
+
+import com.android.pmc.DownloadVerifier;
+import com.android.pmc.hal.DownloadTransport;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Hashing of downloads as they stream, in the 4 KB reads of HttpDownloadTransport.
+ * "threads" above 1 checksums CRC32C segments of the 16mb download on a pool, smaller
+ * downloads are always hashed on the calling thread.
+ */
+class DownloadVerifierBenchmarks {
+    private static final int READ_SIZE = 4096;
+    private static final String[] SIZE_NAMES = {"1mb", "16mb"};
+    private static final int[] SIZES = {1024 * 1024, 16 * 1024 * 1024};
+    private static final int PARALLEL_THREADS = 4;
+
+    private DownloadVerifierBenchmarks() {}
+
+    static void addTo(List<Benchmark> benchmarks) {
+        for (int i = 0; i < SIZES.length; i++) {
+            benchmarks.add(new VerifyBenchmark(SIZE_NAMES[i], SIZES[i],
+                    DownloadTransport.DIGEST_SHA256, 1));
+            benchmarks.add(new VerifyBenchmark(SIZE_NAMES[i], SIZES[i],
+                    DownloadTransport.DIGEST_CRC32C, 1));
+        }
+        benchmarks.add(new VerifyBenchmark("16mb", 16 * 1024 * 1024,
+                DownloadTransport.DIGEST_CRC32C, PARALLEL_THREADS));
+    }
+
+    private static class VerifyBenchmark extends Benchmark {
+        private final int mSize;
+        private final int mAlgorithm;
+        private final int mThreads;
+        private byte[] mContent;
+        private ExecutorService mPool;
+        private DownloadVerifier mVerifier;
+
+        VerifyBenchmark(String sizeName, int size, int algorithm, int threads) {
+            super("DownloadVerifier.verify");
+            param("size", sizeName);
+            param("digest", DownloadVerifier.nameOf(algorithm));
+            param("threads", threads);
+            mSize = size;
+            mAlgorithm = algorithm;
+            mThreads = threads;
+        }
+
+        @Override
+        void setUp() {
+            mContent = new byte[mSize];
+            for (int i = 0; i < mContent.length; i++) {
+                mContent[i] = (byte) (i * 31);
+            }
+            mPool = mThreads > 1 ? Executors.newFixedThreadPool(mThreads) : null;
+            mVerifier = new DownloadVerifier(mAlgorithm, mPool, mThreads);
+        }
+
+        @Override
+        void tearDown() {
+            if (mPool != null) mPool.shutdown();
+        }
+
+        @Override
+        long bytesPerOp() {
+            return mSize;
+        }
+
+        @Override
+        long run(int ops) throws Exception {
+            long total = 0;
+            for (int i = 0; i < ops; i++) {
+                mVerifier.start(mSize);
+                for (int off = 0; off < mSize; off += READ_SIZE) {
+                    mVerifier.update(mContent, off, Math.min(READ_SIZE, mSize - off));
+                }
+                total += mVerifier.finish()[0];
+            }
+            return total;
+        }
+    }
+}
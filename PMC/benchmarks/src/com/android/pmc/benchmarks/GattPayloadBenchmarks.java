@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.benchmarks;
+
+import com.android.pmc.GattPayload;
+
+import java.util.List;
+
+/**
+ * Characteristic payload construction of the GATT client write loop. "prebuilt" is
+ * the GattPayload used by GattClientListener, "allocate" builds a new array for
+ * every write like the client did before.
+ */
+class GattPayloadBenchmarks {
+    // Payload sizes of the default MTU (23) and the largest MTU (517)
+    private static final int[] SIZES = {20, 244, 512};
+    // Payload value changes once every VALUE_PERIOD writes
+    private static final int VALUE_PERIOD = 1024;
+
+    private GattPayloadBenchmarks() {}
+
+    static void addTo(List<Benchmark> benchmarks) {
+        for (int size : SIZES) {
+            benchmarks.add(new PayloadBenchmark(size, true));
+            benchmarks.add(new PayloadBenchmark(size, false));
+        }
+    }
+
+    private static class PayloadBenchmark extends Benchmark {
+        private final int mSize;
+        private final boolean mPrebuilt;
+        private GattPayload mPayload;
+        private int mWrite;
+
+        PayloadBenchmark(int size, boolean prebuilt) {
+            super("GattPayload.get");
+            param("size", size);
+            param("mode", prebuilt ? "prebuilt" : "allocate");
+            mSize = size;
+            mPrebuilt = prebuilt;
+        }
+
+        @Override
+        void setUp() {
+            mPayload = new GattPayload(mSize);
+            mWrite = 0;
+        }
+
+        @Override
+        long bytesPerOp() {
+            return mSize;
+        }
+
+        @Override
+        long run(int ops) {
+            long checksum = 0;
+            for (int i = 0; i < ops; i++) {
+                int value = mWrite++ / VALUE_PERIOD;
+                byte[] payload;
+                if (mPrebuilt) {
+                    payload = mPayload.get(value);
+                } else {
+                    payload = new byte[mSize];
+                    for (int j = 0; j < mSize; j++) {
+                        payload[j] = (byte) value;
+                    }
+                }
+                checksum += payload[mSize - 1];
+            }
+            return checksum;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.android.pmc.benchmarks;
+
+import com.android.pmc.GattPayload;
+import com.android.pmc.GattTestService;
+import com.android.pmc.hal.GattTransport;
+import com.android.pmc.hal.sim.LatencyModel;
+import com.android.pmc.hal.sim.SimClock;
+import com.android.pmc.hal.sim.SimGattTransport;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Client side cost of one GATT characteristic write through GattTransport. "cached"
+ * is the write path of GattClientListener: the characteristic is looked up once after
+ * service discovery and the payload is prebuilt. "lookup" parses the UUIDs, looks the
+ * characteristic up and builds a new payload for every write like the client did
+ * before. Writes go to a SimGattTransport, whose write response is delivered after
+ * every write in both modes.
+ */
+class GattWritePathBenchmarks {
+    // Payload sizes of the default MTU (23), a common MTU (247) and the largest one (517)
+    private static final int[] SIZES = {20, 244, 508};
+    private static final int MAX_MTU = 517;
+    // Payload value changes once every VALUE_PERIOD writes
+    private static final int VALUE_PERIOD = 1024;
+    private static final int MAX_SETUP_EVENTS = 100;
+
+    private GattWritePathBenchmarks() {}
+
+    static void addTo(List<Benchmark> benchmarks) {
+        for (int size : SIZES) {
+            benchmarks.add(new WritePathBenchmark(size, true));
+            benchmarks.add(new WritePathBenchmark(size, false));
+        }
+    }
+
+    private static class WritePathBenchmark extends Benchmark {
+        private final int mSize;
+        private final boolean mCached;
+        private SimClock mClock;
+        private GattTransport mTransport;
+        private GattPayload mPayload;
+        private int mWrite;
+
+        WritePathBenchmark(int size, boolean cached) {
+            super("GattTransport.write");
+            param("size", size);
+            param("path", cached ? "cached" : "lookup");
+            mSize = size;
+            mCached = cached;
+        }
+
+        @Override
+        void setUp() {
+            mClock = new SimClock();
+            mTransport = new SimGattTransport(mClock, LatencyModel.fixed(0),
+                    LatencyModel.fixed(0));
+            mTransport.connect("00:00:00:00:00:00", false, new GattTransport.Callback() {
+                @Override
+                public void onConnectionStateChange(int status, boolean connected) {}
+
+                @Override
+                public void onServicesDiscovered(int status) {}
+
+                @Override
+                public void onMtuChanged(int mtu, int status) {}
+
+                @Override
+                public void onCharacteristicWrite(int status) {}
+
+                @Override
+                public void onPhyRead(int txPhy, int rxPhy, int status) {}
+
+                @Override
+                public void onConnectionUpdated(int interval, int latency, int timeout,
+                        int status) {}
+            });
+            mClock.runUntilIdle(MAX_SETUP_EVENTS);
+            mTransport.discoverServices();
+            mTransport.requestMtu(MAX_MTU);
+            mClock.runUntilIdle(MAX_SETUP_EVENTS);
+            if (!mTransport.findCharacteristic(
+                    UUID.fromString(GattTestService.TEST_SERVICE_UUID),
+                    UUID.fromString(GattTestService.WRITABLE_CHAR_UUID))) {
+                throw new IllegalStateException("Characteristic not found");
+            }
+            mPayload = new GattPayload(mSize);
+            mWrite = 0;
+        }
+
+        @Override
+        void tearDown() {
+            mTransport.disconnect();
+            mClock.runUntilIdle(MAX_SETUP_EVENTS);
+            mTransport.close();
+        }
+
+        @Override
+        long bytesPerOp() {
+            return mSize;
+        }
+
+        @Override
+        long run(int ops) {
+            long checksum = 0;
+            for (int i = 0; i < ops; i++) {
+                int value = mWrite++ / VALUE_PERIOD;
+                byte[] payload;
+                if (mCached) {
+                    payload = mPayload.get(value);
+                } else {
+                    UUID service = UUID.fromString(GattTestService.TEST_SERVICE_UUID);
+                    UUID characteristic = UUID.fromString(GattTestService.WRITABLE_CHAR_UUID);
+                    if (!mTransport.findCharacteristic(service, characteristic)) return checksum;
+                    payload = new byte[mSize];
+                    for (int j = 0; j < mSize; j++) {
+                        payload[j] = (byte) value;
+                    }
+                }
+                if (mTransport.writeCharacteristic(payload)) checksum += payload[mSize - 1];
+                checksum += mClock.runUntilIdle(1);
+            }
+            return checksum;
+        }
+    }
+}
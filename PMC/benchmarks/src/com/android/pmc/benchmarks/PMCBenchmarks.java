@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.benchmarks;
+
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Host benchmarks for the parts of PMC which don't need a device.
+ *
+ * Usage: PMCBenchmarks [--out FILE] [--filter SUBSTRING] [--warmup N]
+ *                      [--iterations N] [--time-ms N]
+ *
+ * Results are printed as a table and written as JSON to FILE, or to stdout if no
+ * file is given. See README.md for the JSON format.
+ */
+public class PMCBenchmarks {
+    private static final int DEFAULT_WARMUP = 5;
+    private static final int DEFAULT_ITERATIONS = 10;
+    private static final int DEFAULT_TIME_MS = 200;
+
+    public static void main(String[] args) throws Exception {
+        String out = null;
+        String filter = null;
+        int warmup = DEFAULT_WARMUP;
+        int iterations = DEFAULT_ITERATIONS;
+        int timeMs = DEFAULT_TIME_MS;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--out":
+                    out = value;
+                    break;
+                case "--filter":
+                    filter = value;
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "--time-ms":
+                    timeMs = Integer.parseInt(value);
+                    break;
+                default:
+                    usage("Unknown option " + arg);
+            }
+        }
+        if (warmup < 0 || iterations < 1 || timeMs < 1) {
+            usage("Invalid iteration settings");
+        }
+
+        List<Benchmark> benchmarks = new ArrayList<>();
+        DownloadDecoderBenchmarks.addTo(benchmarks);
+        DownloadReaderBenchmarks.addTo(benchmarks);
+        DownloadVerifierBenchmarks.addTo(benchmarks);
+        StatusLoggerBenchmarks.addTo(benchmarks);
+        ScanParamsBenchmarks.addTo(benchmarks);
+        GattPayloadBenchmarks.addTo(benchmarks);
+        GattWritePathBenchmarks.addTo(benchmarks);
+        ControlProtocolBenchmarks.addTo(benchmarks);
+        benchmarks.sort(Comparator.comparing(Benchmark::getId));
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, timeMs);
+        List<BenchmarkRunner.Result> results = new ArrayList<>();
+        for (Benchmark benchmark : benchmarks) {
+            if (filter != null && !benchmark.getId().contains(filter)) continue;
+            BenchmarkRunner.Result result = runner.run(benchmark);
+            results.add(result);
+            System.err.println(String.format("%-60s %14.1f ns/op +- %.1f",
+                    benchmark.getId(), result.score, result.stdev));
+        }
+
+        Map<String, String> environment = new LinkedHashMap<>();
+        environment.put("javaVersion", System.getProperty("java.version"));
+        environment.put("javaVm", System.getProperty("java.vm.name"));
+        environment.put("osName", System.getProperty("os.name"));
+        environment.put("osArch", System.getProperty("os.arch"));
+        environment.put("processors",
+                String.valueOf(Runtime.getRuntime().availableProcessors()));
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("warmupIterations", warmup);
+        config.put("measureIterations", iterations);
+        config.put("iterationTimeMs", timeMs);
+
+        Writer writer = out == null
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : new OutputStreamWriter(new FileOutputStream(out), StandardCharsets.UTF_8);
+        try {
+            ResultWriter.write(writer, environment, config, results);
+        } finally {
+            if (out != null) writer.close();
+        }
+        // Keep the sink alive until all cases are done
+        if (runner.getSink() == 42) System.err.println();
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: PMCBenchmarks [--out FILE] [--filter SUBSTRING]"
+                + " [--warmup N] [--iterations N] [--time-ms N]");
+        System.exit(1);
+    }
+}
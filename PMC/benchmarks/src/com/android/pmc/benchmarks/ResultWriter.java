@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes benchmark results in the "pmc-benchmarks/1" JSON format.
+ *
+ * The output is meant to be diffed between releases: keys are always written in the
+ * same order, results are sorted by id and numbers use a fixed precision. Anything
+ * that changes this layout must bump the schema version.
+ */
+class ResultWriter {
+    static final String SCHEMA = "pmc-benchmarks/1";
+
+    private ResultWriter() {}
+
+    static void write(Writer out, Map<String, String> environment, Map<String, Object> config,
+            List<BenchmarkRunner.Result> results) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"schema\": ");
+        quote(sb, SCHEMA);
+        sb.append(",\n  \"environment\": ");
+        appendMap(sb, environment);
+        sb.append(",\n  \"config\": ");
+        appendMap(sb, config);
+        sb.append(",\n  \"results\": [");
+        for (int i = 0; i < results.size(); i++) {
+            BenchmarkRunner.Result result = results.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"benchmark\": ");
+            quote(sb, result.benchmark.getName());
+            sb.append(", \"params\": ");
+            appendMap(sb, result.benchmark.getParams());
+            sb.append(", \"unit\": \"ns/op\"");
+            sb.append(", \"score\": ").append(number(result.score));
+            sb.append(", \"stdev\": ").append(number(result.stdev));
+            sb.append(", \"min\": ").append(number(result.min));
+            sb.append(", \"max\": ").append(number(result.max));
+            sb.append(", \"samples\": ").append(result.samples.length);
+            sb.append(", \"opsPerIteration\": ").append(result.opsPerIteration);
+            if (result.benchmark.bytesPerOp() > 0) {
+                sb.append(", \"bytesPerSec\": ").append(number(result.bytesPerSec()));
+            }
+            sb.append('}');
+        }
+        sb.append(results.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        out.write(sb.toString());
+        out.flush();
+    }
+
+    private static void appendMap(StringBuilder sb, Map<String, ?> map) {
+        sb.append('{');
+        boolean first = true;
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            if (!first) sb.append(", ");
+            first = false;
+            quote(sb, entry.getKey());
+            sb.append(": ");
+            Object value = entry.getValue();
+            if (value instanceof Number || value instanceof Boolean) {
+                sb.append(value);
+            } else {
+                quote(sb, String.valueOf(value));
+            }
+        }
+        sb.append('}');
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.US, "%.3f", value);
+    }
+
+    private static void quote(StringBuilder sb, String str) {
+        sb.append('"');
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.benchmarks;
+
+import android.os.Bundle;
+
+import com.android.pmc.BleScanParams;
+
+import java.util.List;
+
+/**
+ * Parsing of the BLESCAN intent extras done by BleScanReceiver.onReceive
+ */
+class ScanParamsBenchmarks {
+    private static final String TAG = "PMCBenchmarks";
+
+    private ScanParamsBenchmarks() {}
+
+    static void addTo(List<Benchmark> benchmarks) {
+        benchmarks.add(new ParseBenchmark(false));
+        benchmarks.add(new ParseBenchmark(true));
+    }
+
+    private static class ParseBenchmark extends Benchmark {
+        private final Bundle mExtras = new Bundle();
+
+        ParseBenchmark(boolean repetitions) {
+            super("BleScanParams.parse");
+            param("extras", repetitions ? "repeated" : "single");
+            mExtras.putString("ScanMode", "2");
+            mExtras.putString("StartTime", "1500000000");
+            mExtras.putString("ScanTime", "600");
+            if (repetitions) {
+                mExtras.putString("Repetitions", "10");
+                mExtras.putString("NoScanTime", "60");
+            }
+        }
+
+        @Override
+        long run(int ops) {
+            long checksum = 0;
+            for (int i = 0; i < ops; i++) {
+                BleScanParams params = BleScanParams.parse(mExtras, TAG);
+                checksum += params.getScanTime() + params.getRepetitions();
+            }
+            return checksum;
+        }
+    }
+}
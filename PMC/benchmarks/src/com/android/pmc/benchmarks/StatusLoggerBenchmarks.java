@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.benchmarks;
+
+import com.android.pmc.PMCStatusLogger;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * PMCStatusLogger status writes and the JSON flush done at the end of every test.
+ * Log files go to a temporary directory instead of /mnt/sdcard/Download.
+ */
+class StatusLoggerBenchmarks {
+    private static final String LOG_FILE = "PMCBenchmarks.log";
+    private static final int[] ALARM_COUNTS = {10, 100, 1000};
+
+    private StatusLoggerBenchmarks() {}
+
+    static void addTo(List<Benchmark> benchmarks) {
+        benchmarks.add(new LogStatusBenchmark());
+        for (int count : ALARM_COUNTS) {
+            benchmarks.add(new FlashBenchmark(count));
+        }
+    }
+
+    private abstract static class LoggerBenchmark extends Benchmark {
+        private File mDir;
+        private String mOldLogDir;
+
+        LoggerBenchmark(String name) {
+            super(name);
+        }
+
+        @Override
+        void setUp() throws Exception {
+            mDir = Files.createTempDirectory("pmc-bench").toFile();
+            mOldLogDir = PMCStatusLogger.LOG_DIR;
+            PMCStatusLogger.LOG_DIR = mDir.getPath();
+        }
+
+        @Override
+        void tearDown() {
+            PMCStatusLogger.LOG_DIR = mOldLogDir;
+            new File(mDir, LOG_FILE).delete();
+            mDir.delete();
+        }
+    }
+
+    private static class LogStatusBenchmark extends LoggerBenchmark {
+        private PMCStatusLogger mLogger;
+
+        LogStatusBenchmark() {
+            super("PMCStatusLogger.logStatus");
+        }
+
+        @Override
+        void setUp() throws Exception {
+            super.setUp();
+            mLogger = new PMCStatusLogger(LOG_FILE, "PMCBenchmarks");
+        }
+
+        @Override
+        long run(int ops) {
+            for (int i = 0; i < ops; i++) {
+                mLogger.logStatus("READY");
+            }
+            return ops;
+        }
+    }
+
+    /**
+     * Full logger life cycle of one test: create the log file, add the alarm times
+     * of every cycle and flash the JSON object.
+     */
+    private static class FlashBenchmark extends LoggerBenchmark {
+        private final int mAlarms;
+
+        FlashBenchmark(int alarms) {
+            super("PMCStatusLogger.flash");
+            param("alarms", alarms);
+            mAlarms = alarms;
+        }
+
+        @Override
+        long run(int ops) {
+            long checksum = 0;
+            for (int i = 0; i < ops; i++) {
+                PMCStatusLogger logger = new PMCStatusLogger(LOG_FILE, "PMCBenchmarks");
+                for (int j = 0; j < mAlarms; j++) {
+                    logger.logAlarmTimes(j * 1000.0, j * 1000.0 + 500.0);
+                }
+                logger.flash();
+                checksum += mAlarms;
+            }
+            return checksum;
+        }
+    }
+}
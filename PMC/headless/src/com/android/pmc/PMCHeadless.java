@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.os.Bundle;
+
+import com.android.pmc.hal.BleScanHal;
+import com.android.pmc.hal.DownloadTransport;
+import com.android.pmc.hal.UploadTransport;
+import com.android.pmc.hal.WifiScanHal;
+import com.android.pmc.hal.sim.SimDownloadTransport;
+import com.android.pmc.hal.sim.SimHal;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Runs one PMC workload on the simulated devices of SimHal in virtual time.
+ *
+ * Usage: PMCHeadless WORKLOAD [--duration-sec N] [--seed N] [--loss RATE]
+ *                    [--interval-sec N] [--file NAME] [--out DIR] [--https]
+ *                    [--tls-session-cache N] [--save none|file|N]
+ *                    [--digest crc32c|sha-256] [--hash-threads N]
+ *                    [--encoding gzip|deflate] [--content random|text|zeros]
+ *                    [--connections N] [--unaligned]
+ *
+ * WORKLOAD is one of download, upload, keepalive, connscan, gscan, blescan, gatt,
+ * gattsweep, gattstorm and a2dp. Results of the workload are written by PMCStatusLogger into DIR, a
+ * summary of the run is printed to stdout as JSON.
+ */
+public class PMCHeadless {
+    private static final int DEFAULT_DURATION_SEC = 3600;
+    private static final int DEFAULT_INTERVAL_SEC = 60;
+    private static final int[] SOCIAL_CHANNELS = {2412, 2437, 2462};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) usage("Missing workload");
+        String workload = args[0];
+        int durationSec = DEFAULT_DURATION_SEC;
+        int intervalSec = DEFAULT_INTERVAL_SEC;
+        long seed = 1;
+        double loss = 0;
+        String file = "100kb.txt";
+        boolean https = false;
+        int tlsSessionCache = 1;
+        String save = null;
+        int digest = DownloadTransport.DIGEST_NONE;
+        int hashThreads = 2;
+        int encoding = DownloadTransport.ENCODING_IDENTITY;
+        String content = null;
+        int connections = KeepaliveWorkload.DEFAULT_CONNECTIONS;
+        boolean aligned = true;
+
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--https")) {
+                https = true;
+                continue;
+            }
+            if (arg.equals("--unaligned")) {
+                aligned = false;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--duration-sec":
+                    durationSec = Integer.parseInt(value);
+                    break;
+                case "--interval-sec":
+                    intervalSec = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--loss":
+                    loss = Double.parseDouble(value);
+                    break;
+                case "--file":
+                    file = value;
+                    break;
+                case "--out":
+                    PMCStatusLogger.LOG_DIR = value;
+                    break;
+                case "--tls-session-cache":
+                    tlsSessionCache = Integer.parseInt(value);
+                    break;
+                case "--save":
+                    save = value;
+                    break;
+                case "--digest":
+                    if (value.equals("crc32c")) {
+                        digest = DownloadTransport.DIGEST_CRC32C;
+                    } else if (value.equals("sha-256")) {
+                        digest = DownloadTransport.DIGEST_SHA256;
+                    } else {
+                        usage("Unknown digest " + value);
+                    }
+                    break;
+                case "--hash-threads":
+                    hashThreads = Integer.parseInt(value);
+                    break;
+                case "--encoding":
+                    if (value.equals("gzip")) {
+                        encoding = DownloadTransport.ENCODING_GZIP;
+                    } else if (value.equals("deflate")) {
+                        encoding = DownloadTransport.ENCODING_DEFLATE;
+                    } else {
+                        usage("Unknown encoding " + value);
+                    }
+                    break;
+                case "--content":
+                    content = value;
+                    break;
+                case "--connections":
+                    connections = Integer.parseInt(value);
+                    break;
+                default:
+                    usage("Unknown option " + arg);
+            }
+        }
+        if (durationSec < 1 || intervalSec < 1 || loss < 0 || loss > 1 || tlsSessionCache < 0
+                || hashThreads < 1 || connections < 1) {
+            usage("Invalid run settings");
+        }
+
+        SimHal hal = new SimHal(seed, loss);
+        final int[] progressCount = new int[1];
+        ProgressListener listener = new ProgressListener() {
+            @Override
+            public void onProgress(String status) {
+                progressCount[0]++;
+            }
+        };
+        JSONObject stats = new JSONObject();
+        long wallStart = System.nanoTime();
+        long endMillis = hal.getClock().elapsedRealtime() + durationSec * 1000L;
+
+        switch (workload) {
+            case "download": {
+                hal.getDownloadTransport().setTls(tlsSessionCache, null);
+                setStorage(hal.getDownloadTransport(), save);
+                hal.getDownloadTransport().setVerify(digest, hashThreads);
+                hal.getDownloadTransport().setEncoding(encoding);
+                String url = (https ? "https://sim/" : "http://sim/") + file;
+                if (content != null) url += "?content=" + content;
+                DownloadWorkload download = new DownloadWorkload(hal, url, intervalSec * 1000,
+                        listener);
+                download.start();
+                hal.getSimClock().runUntil(endMillis);
+                stats.put("Files", download.getFileCount());
+                stats.put("DownloadRate", download.getDownloadRate());
+                stats.put("Phases", download.getPhaseStats());
+                download.stop();
+                stats.put("Lifecycle", download.getLifecycle().getStats());
+                break;
+            }
+            case "upload": {
+                UploadWorkload upload = new UploadWorkload(hal, "http://sim/upload/" + file,
+                        "POST", SimDownloadTransport.sizeOf(file),
+                        UploadTransport.MODE_FIXED_LENGTH, intervalSec * 1000, listener);
+                upload.start();
+                hal.getSimClock().runUntil(endMillis);
+                stats.put("Files", upload.getFileCount());
+                stats.put("UploadRate", upload.getUploadRate());
+                upload.stop();
+                stats.put("Lifecycle", upload.getLifecycle().getStats());
+                break;
+            }
+            case "keepalive": {
+                KeepaliveWorkload keepalive = new KeepaliveWorkload(hal, "sim", 80, connections,
+                        intervalSec * 1000, aligned, listener);
+                keepalive.start();
+                hal.getSimClock().runUntil(endMillis);
+                stats.put("Keepalive", keepalive.getStats());
+                keepalive.stop();
+                stats.put("Lifecycle", keepalive.getLifecycle().getStats());
+                break;
+            }
+            case "connscan":
+            case "gscan": {
+                boolean gscan = workload.equals("gscan");
+                WifiScanWorkload scan = new WifiScanWorkload(hal,
+                        gscan ? WifiScanWorkload.TYPE_GSCAN : WifiScanWorkload.TYPE_CONNECTIVITY,
+                        WifiScanHal.BAND_UNSPECIFIED, gscan ? SOCIAL_CHANNELS : null,
+                        intervalSec * 1000, listener);
+                scan.start();
+                hal.getSimClock().runUntil(endMillis);
+                stats.put("Scans", scan.getScanCount());
+                scan.stop();
+                stats.put("Lifecycle", scan.getLifecycle().getStats());
+                break;
+            }
+            case "blescan": {
+                // Same extras as the BLESCAN intent, one scan and one idle period per interval
+                Bundle extras = new Bundle();
+                extras.putString("ScanMode", String.valueOf(BleScanHal.SCAN_MODE_LOW_POWER));
+                extras.putString("StartTime", "1");
+                extras.putString("ScanTime", String.valueOf(intervalSec / 2));
+                extras.putString("NoScanTime", String.valueOf(intervalSec - intervalSec / 2));
+                extras.putString("Repetitions", String.valueOf(durationSec / intervalSec));
+                BleScanWorkload scan = new BleScanWorkload(hal);
+                scan.start(BleScanParams.parse(extras, BleScanWorkload.TAG),
+                        new PMCStatusLogger(BleScanWorkload.TAG + ".log", BleScanWorkload.TAG));
+                hal.getSimClock().runUntil(endMillis);
+                stats.put("ScanResults", hal.getSimBleScanHal().getResultCount());
+                scan.stop();
+                break;
+            }
+            case "gatt":
+            case "gattsweep":
+            case "gattstorm": {
+                GattClientListener client = new GattClientListener(hal);
+                if (workload.equals("gattsweep")) {
+                    client.startSweep(1, new GattSweep(GattSweep.DEFAULT_PRIORITIES,
+                            GattSweep.DEFAULT_PHYS, GattSweep.DEFAULT_MTUS,
+                            GattSweep.DEFAULT_BURST_WRITES));
+                } else if (workload.equals("gattstorm")) {
+                    client.startReconnectStorm(1,
+                            new GattReconnectStorm(GattReconnectStorm.DEFAULT_CYCLES, false));
+                } else {
+                    int writeTime = intervalSec / 2;
+                    client.startAlarm(1, writeTime, intervalSec - writeTime,
+                            durationSec / intervalSec);
+                }
+                hal.getSimClock().runUntil(endMillis);
+                stats.put("Busy", client.isBusy());
+                stats.put("Connections", hal.getSimGattTransport().getConnectCount());
+                stats.put("Writes", hal.getSimGattTransport().getWriteCount());
+                stats.put("BytesWritten", hal.getSimGattTransport().getBytesWritten());
+                break;
+            }
+            case "a2dp": {
+                A2dpPlaybackWorkload playback = new A2dpPlaybackWorkload(hal);
+                PMCStatusLogger logger = new PMCStatusLogger(
+                        A2dpPlaybackWorkload.TAG + ".log", A2dpPlaybackWorkload.TAG);
+                if (playback.play("file:///sim/music.mp3", false)) {
+                    logger.logStatus("READY");
+                    playback.stopAfter(durationSec, logger);
+                }
+                hal.getSimClock().runUntil(endMillis + 1000);
+                stats.put("PlayedMillis", hal.getSimMediaPlayerHal().getPlayedMillis());
+                playback.stop();
+                break;
+            }
+            default:
+                usage("Unknown workload " + workload);
+        }
+
+        long wallNanos = System.nanoTime() - wallStart;
+        putRunStats(stats, hal, workload, durationSec, seed, loss, progressCount[0], wallNanos);
+        System.out.println(stats.toString());
+    }
+
+    private static void putRunStats(JSONObject stats, SimHal hal, String workload,
+            int durationSec, long seed, double loss, int progressCount, long wallNanos)
+            throws JSONException {
+        stats.put("Workload", workload);
+        stats.put("Seed", seed);
+        stats.put("LossRate", loss);
+        stats.put("VirtualSec", durationSec);
+        stats.put("WallMs", wallNanos / 1000000.0);
+        stats.put("Events", hal.getSimClock().getEventCount());
+        stats.put("Wakeups", hal.getSimClock().getWakeupCount());
+        stats.put("WakeLockAcquires", hal.getSimPowerHal().getAcquireCount());
+        stats.put("WakeLockHeldMs", hal.getSimPowerHal().getHeldMillis());
+        stats.put("WakeLocksHeldAtEnd", hal.getSimPowerHal().getHeldCount());
+        stats.put("ProgressUpdates", progressCount);
+    }
+
+    /**
+     * Save the downloads with the sync policy "none", "file" or every N MB
+     */
+    private static void setStorage(DownloadTransport transport, String policy) {
+        if (policy == null) return;
+        if (policy.equals("none")) {
+            transport.setStorage("sim", DownloadTransport.SYNC_NONE, 0, false);
+        } else if (policy.equals("file")) {
+            transport.setStorage("sim", DownloadTransport.SYNC_PER_FILE, 0, false);
+        } else {
+            long megabytes = Long.parseLong(policy);
+            if (megabytes < 1) usage("Invalid save policy " + policy);
+            transport.setStorage("sim", DownloadTransport.SYNC_EVERY_BYTES,
+                    megabytes * 1024 * 1024, false);
+        }
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: PMCHeadless WORKLOAD [--duration-sec N] [--seed N]"
+                + " [--loss RATE] [--interval-sec N] [--file NAME] [--out DIR] [--https]"
+                + " [--tls-session-cache N] [--save none|file|N] [--digest crc32c|sha-256]"
+                + " [--hash-threads N] [--encoding gzip|deflate]"
+                + " [--content random|text|zeros] [--connections N] [--unaligned]");
+        System.err.println("WORKLOAD: download, upload, keepalive, connscan, gscan, blescan, gatt,"
+                + " gattsweep, gattstorm, a2dp");
+        System.exit(1);
+    }
+}
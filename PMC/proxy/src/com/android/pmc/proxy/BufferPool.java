@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.proxy;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of direct buffers for packets waiting in the proxy, used by the selector
+ * thread only.
+ */
+class BufferPool {
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED = 1024;
+
+    private final ArrayDeque<ByteBuffer> mFree = new ArrayDeque<>();
+
+    ByteBuffer get() {
+        ByteBuffer buffer = mFree.poll();
+        if (buffer == null) return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.clear();
+        return buffer;
+    }
+
+    void put(ByteBuffer buffer) {
+        if (mFree.size() < MAX_POOLED) mFree.push(buffer);
+    }
+}
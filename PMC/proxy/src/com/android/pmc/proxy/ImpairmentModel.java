@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.proxy;
+
+import java.util.Random;
+
+/**
+ * Impairments of one direction of one TCP connection or UDP flow.
+ *
+ * Every direction has its own generator derived from the proxy seed, so a run with the
+ * same seed and the same traffic makes the same decisions. Times are in nanoseconds.
+ */
+class ImpairmentModel {
+    private static final long NANOS_PER_SEC = 1000000000L;
+
+    /**
+     * Impairment settings shared by all models
+     */
+    static class Params {
+        long latencyNanos;
+        long jitterNanos;
+        double loss;
+        double reorder;
+        long reorderGapNanos;
+        long rateBitsPerSec;
+        // Delay of a TCP segment which is lost and sent again
+        long retransmitNanos;
+    }
+
+    private final Params mParams;
+    private final Random mRandom;
+    // Time when the link is free to send the next packet
+    private long mLinkFreeNanos;
+    // Release time of the last packet which kept its order
+    private long mLastReleaseNanos;
+    private boolean mLastReordered;
+
+    ImpairmentModel(Params params, long seed) {
+        mParams = params;
+        mRandom = new Random(seed);
+    }
+
+    Params getParams() {
+        return mParams;
+    }
+
+    /**
+     * Returns true if the packet is dropped
+     */
+    boolean lose() {
+        return mParams.loss > 0 && mRandom.nextDouble() < mParams.loss;
+    }
+
+    /**
+     * Returns the time when a packet may be delivered
+     *
+     * @param bytes - size of the packet
+     * @param nowNanos - time when the packet arrived at the proxy
+     * @param ordered - true to never release before an earlier packet, as a TCP stream
+     *                  needs; false to allow reordering of datagrams
+     */
+    long release(int bytes, long nowNanos, boolean ordered) {
+        long departure = nowNanos;
+        if (mParams.rateBitsPerSec > 0) {
+            // Packets queue up behind each other on the capped link
+            departure = Math.max(nowNanos, mLinkFreeNanos)
+                    + bytes * 8L * NANOS_PER_SEC / mParams.rateBitsPerSec;
+            mLinkFreeNanos = departure;
+        }
+        long release = departure + delay();
+        mLastReordered = !ordered && mParams.reorder > 0
+                && mRandom.nextDouble() < mParams.reorder;
+        if (mLastReordered) {
+            // Held back without holding back the packets behind it
+            return release + mParams.reorderGapNanos;
+        }
+        release = Math.max(release, mLastReleaseNanos);
+        mLastReleaseNanos = release;
+        return release;
+    }
+
+    /**
+     * Returns true if the last packet passed to release() was reordered
+     */
+    boolean wasReordered() {
+        return mLastReordered;
+    }
+
+    /**
+     * Push the release of all following ordered packets back, e.g. behind a
+     * retransmission
+     */
+    void holdUntil(long nanos) {
+        mLastReleaseNanos = Math.max(mLastReleaseNanos, nanos);
+    }
+
+    private long delay() {
+        if (mParams.jitterNanos == 0) return mParams.latencyNanos;
+        // Normal jitter around the latency, a packet can't arrive before it was sent
+        long delay = mParams.latencyNanos
+                + (long) (mRandom.nextGaussian() * mParams.jitterNanos);
+        return Math.max(0, delay);
+    }
+}
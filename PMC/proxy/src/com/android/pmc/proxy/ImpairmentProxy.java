@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.proxy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * TCP/UDP proxy adding network impairments between PMC and its server.
+ *
+ * Usage: PMCImpairmentProxy --target HOST:PORT [--listen PORT] [--udp]
+ *                           [--latency-ms N] [--jitter-ms N] [--loss RATE]
+ *                           [--reorder RATE] [--reorder-gap-ms N] [--rate-kbps N]
+ *                           [--retransmit-ms N] [--seed N] [--stats-sec N]
+ *
+ * All connections and datagrams are served by one selector thread. Delayed data waits
+ * on a timer wheel with a 1 ms tick. Every direction of every connection or UDP flow
+ * draws from its own generator seeded from --seed, so runs are repeatable.
+ * See README.md for the impairment model.
+ */
+public class ImpairmentProxy {
+    static final long TICK_NANOS = 1000000L;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final long NANOS_PER_SEC = 1000000000L;
+    private static final int WHEEL_SLOTS = 4096;
+    private static final int BACKLOG = 1024;
+    // Interval of closing idle UDP flows, also the longest the selector sleeps
+    private static final long EXPIRE_NANOS = 10 * NANOS_PER_SEC;
+    // Mixes the seed of every model, so neighboring models don't get similar sequences
+    private static final long SEED_STRIDE = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Counters of the proxy, only updated by the selector thread
+     */
+    static class Stats {
+        long tcpAccepted;
+        long tcpClosed;
+        long tcpRetransmits;
+        long udpDropped;
+        long udpReordered;
+        long bytesUp;
+        long bytesDown;
+
+        @Override
+        public String toString() {
+            return "tcp " + (tcpAccepted - tcpClosed) + " active, " + tcpAccepted
+                    + " accepted, " + tcpRetransmits + " retransmits; udp " + udpDropped
+                    + " dropped, " + udpReordered + " reordered; bytes up " + bytesUp
+                    + ", down " + bytesDown;
+        }
+    }
+
+    private final ImpairmentModel.Params mParams;
+    private final long mSeed;
+    private final InetSocketAddress mTarget;
+    private final Selector mSelector;
+    private final ServerSocketChannel mServerChannel;
+    private final UdpRelay mUdpRelay;
+    private final BufferPool mBufferPool = new BufferPool();
+    private final TimerWheel mTimerWheel;
+    private final Stats mStats = new Stats();
+    private long mModels;
+
+    ImpairmentProxy(ImpairmentModel.Params params, long seed, int listenPort,
+            InetSocketAddress target, boolean udp) throws IOException {
+        mParams = params;
+        mSeed = seed;
+        mTarget = target;
+        mSelector = Selector.open();
+        mTimerWheel = new TimerWheel(WHEEL_SLOTS, TICK_NANOS, System.nanoTime());
+        InetSocketAddress listen = new InetSocketAddress(listenPort);
+        mServerChannel = ServerSocketChannel.open();
+        mServerChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        mServerChannel.bind(listen, BACKLOG);
+        mServerChannel.configureBlocking(false);
+        mServerChannel.register(mSelector, SelectionKey.OP_ACCEPT, mServerChannel);
+        mUdpRelay = udp ? new UdpRelay(this, mSelector, listen, target) : null;
+    }
+
+    BufferPool getBufferPool() {
+        return mBufferPool;
+    }
+
+    TimerWheel getTimerWheel() {
+        return mTimerWheel;
+    }
+
+    Stats getStats() {
+        return mStats;
+    }
+
+    /**
+     * Returns the model of a new direction, in a repeatable sequence of seeds
+     */
+    ImpairmentModel newModel() {
+        return new ImpairmentModel(mParams, mSeed + SEED_STRIDE * ++mModels);
+    }
+
+    /**
+     * Serve until the process is killed
+     *
+     * @param statsNanos - interval of printing the counters, 0 for never
+     */
+    void run(long statsNanos) throws IOException {
+        long nextStats = System.nanoTime() + statsNanos;
+        long nextExpire = System.nanoTime() + EXPIRE_NANOS;
+        while (true) {
+            long now = System.nanoTime();
+            if (mTimerWheel.isEmpty()) {
+                long wait = statsNanos > 0 ? Math.min(statsNanos, EXPIRE_NANOS) : EXPIRE_NANOS;
+                mSelector.select(wait / NANOS_PER_MILLI);
+            } else {
+                long wait = mTimerWheel.nanosToNextTick(now);
+                if (wait == 0) {
+                    mSelector.selectNow();
+                } else {
+                    // Round up, sleeping less than a tick would only spin
+                    mSelector.select((wait + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI);
+                }
+            }
+            now = System.nanoTime();
+            Iterator<SelectionKey> keys = mSelector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (key.isValid()) handle(key, now);
+            }
+            mTimerWheel.advance(System.nanoTime());
+            if (statsNanos > 0 && now >= nextStats) {
+                System.out.println(mStats);
+                nextStats = now + statsNanos;
+            }
+            if (mUdpRelay != null && now >= nextExpire) {
+                mUdpRelay.expireFlows(now);
+                nextExpire = now + EXPIRE_NANOS;
+            }
+        }
+    }
+
+    private void handle(SelectionKey key, long nowNanos) throws IOException {
+        Object attachment = key.attachment();
+        if (attachment instanceof TcpConnection.Side) {
+            ((TcpConnection.Side) attachment).onReady(key.readyOps(), nowNanos);
+        } else if (attachment instanceof UdpRelay.Flow) {
+            ((UdpRelay.Flow) attachment).onReady(nowNanos);
+        } else if (attachment instanceof UdpRelay) {
+            mUdpRelay.onReady(nowNanos);
+        } else {
+            accept();
+        }
+    }
+
+    private void accept() {
+        SocketChannel client;
+        while (true) {
+            try {
+                client = mServerChannel.accept();
+                if (client == null) return;
+                client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                new TcpConnection(this, mSelector, client, mTarget, newModel(), newModel());
+                mStats.tcpAccepted++;
+            } catch (IOException e) {
+                // E.g. out of file descriptors, keep serving the open connections
+                System.err.println("Accept failed: " + e);
+                return;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        ImpairmentModel.Params params = new ImpairmentModel.Params();
+        params.reorderGapNanos = 10 * NANOS_PER_MILLI;
+        params.retransmitNanos = 200 * NANOS_PER_MILLI;
+        int listenPort = 8081;
+        InetSocketAddress target = null;
+        boolean udp = false;
+        long seed = 1;
+        int statsSec = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--udp")) {
+                udp = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--listen":
+                    listenPort = Integer.parseInt(value);
+                    break;
+                case "--target": {
+                    int colon = value.lastIndexOf(':');
+                    if (colon < 0) usage("Target must be HOST:PORT");
+                    target = new InetSocketAddress(value.substring(0, colon),
+                            Integer.parseInt(value.substring(colon + 1)));
+                    break;
+                }
+                case "--latency-ms":
+                    params.latencyNanos = Long.parseLong(value) * NANOS_PER_MILLI;
+                    break;
+                case "--jitter-ms":
+                    params.jitterNanos = Long.parseLong(value) * NANOS_PER_MILLI;
+                    break;
+                case "--loss":
+                    params.loss = Double.parseDouble(value);
+                    break;
+                case "--reorder":
+                    params.reorder = Double.parseDouble(value);
+                    break;
+                case "--reorder-gap-ms":
+                    params.reorderGapNanos = Long.parseLong(value) * NANOS_PER_MILLI;
+                    break;
+                case "--rate-kbps":
+                    params.rateBitsPerSec = Long.parseLong(value) * 1000;
+                    break;
+                case "--retransmit-ms":
+                    params.retransmitNanos = Long.parseLong(value) * NANOS_PER_MILLI;
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--stats-sec":
+                    statsSec = Integer.parseInt(value);
+                    break;
+                default:
+                    usage("Unknown option " + arg);
+            }
+        }
+        if (target == null) usage("Missing --target");
+        if (target.isUnresolved()) usage("Unknown host " + target.getHostString());
+        if (params.latencyNanos < 0 || params.jitterNanos < 0 || params.loss < 0
+                || params.loss > 1 || params.reorder < 0 || params.reorder > 1
+                || params.reorderGapNanos < 0 || params.rateBitsPerSec < 0
+                || params.retransmitNanos < 0 || statsSec < 0) {
+            usage("Invalid impairment settings");
+        }
+
+        ImpairmentProxy proxy = new ImpairmentProxy(params, seed, listenPort, target, udp);
+        System.out.println("Proxying port " + listenPort + (udp ? " (TCP and UDP)" : " (TCP)")
+                + " to " + target);
+        proxy.run(statsSec * NANOS_PER_SEC);
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: PMCImpairmentProxy --target HOST:PORT [--listen PORT] [--udp]"
+                + " [--latency-ms N] [--jitter-ms N] [--loss RATE] [--reorder RATE]"
+                + " [--reorder-gap-ms N] [--rate-kbps N] [--retransmit-ms N] [--seed N]"
+                + " [--stats-sec N]");
+        System.exit(1);
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.proxy;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * One proxied TCP connection: the client side accepted by the proxy, the server side
+ * connected by it, and a pipe for each direction.
+ *
+ * TCP can't lose or reorder bytes, so a lost segment is modeled as a retransmission:
+ * it is delivered after the retransmit delay and holds back everything behind it.
+ */
+class TcpConnection {
+    // Bytes a pipe holds before it stops reading, like a receive window
+    private static final long MAX_QUEUED = 4 * 1024 * 1024;
+
+    private final ImpairmentProxy mProxy;
+    private final SocketChannel mClient;
+    private final SocketChannel mServer;
+    private final SelectionKey mClientKey;
+    private final SelectionKey mServerKey;
+    private final Pipe mUp;
+    private final Pipe mDown;
+    private boolean mConnected;
+    private boolean mClosed;
+
+    TcpConnection(ImpairmentProxy proxy, Selector selector, SocketChannel client,
+            SocketAddress target, ImpairmentModel up, ImpairmentModel down) throws IOException {
+        mProxy = proxy;
+        mClient = client;
+        mServer = SocketChannel.open();
+        try {
+            mClient.configureBlocking(false);
+            mServer.configureBlocking(false);
+            mConnected = mServer.connect(target);
+            mClientKey = mClient.register(selector, 0, new Side(true));
+            mServerKey = mServer.register(selector, 0, new Side(false));
+        } catch (IOException e) {
+            mServer.close();
+            throw e;
+        }
+        mUp = new Pipe(mClient, mServer, up);
+        mDown = new Pipe(mServer, mClient, down);
+        updateInterest();
+    }
+
+    /**
+     * Selector attachment telling which side of the connection is ready
+     */
+    class Side {
+        final boolean client;
+
+        Side(boolean client) {
+            this.client = client;
+        }
+
+        void onReady(int readyOps, long nowNanos) {
+            try {
+                if ((readyOps & SelectionKey.OP_CONNECT) != 0) {
+                    mServer.finishConnect();
+                    mConnected = true;
+                }
+                Pipe in = client ? mUp : mDown;
+                Pipe out = client ? mDown : mUp;
+                if ((readyOps & SelectionKey.OP_WRITE) != 0) out.flush(nowNanos);
+                if ((readyOps & SelectionKey.OP_READ) != 0) in.read(nowNanos);
+                updateInterest();
+            } catch (IOException e) {
+                close();
+            }
+        }
+    }
+
+    void close() {
+        if (mClosed) return;
+        mClosed = true;
+        mUp.release();
+        mDown.release();
+        try {
+            mClient.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close client: " + e);
+        }
+        try {
+            mServer.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close server: " + e);
+        }
+        mProxy.getStats().tcpClosed++;
+    }
+
+    private void updateInterest() {
+        if (mClosed) return;
+        if (mUp.isDone() && mDown.isDone()) {
+            close();
+            return;
+        }
+        if (!mConnected) {
+            mServerKey.interestOps(SelectionKey.OP_CONNECT);
+            return;
+        }
+        mClientKey.interestOps((mUp.wantsRead() ? SelectionKey.OP_READ : 0)
+                | (mDown.wantsWrite() ? SelectionKey.OP_WRITE : 0));
+        mServerKey.interestOps((mDown.wantsRead() ? SelectionKey.OP_READ : 0)
+                | (mUp.wantsWrite() ? SelectionKey.OP_WRITE : 0));
+    }
+
+    /**
+     * Data waiting for its release time
+     */
+    private static class Segment {
+        final ByteBuffer buffer;
+        final long releaseNanos;
+
+        Segment(ByteBuffer buffer, long releaseNanos) {
+            this.buffer = buffer;
+            this.releaseNanos = releaseNanos;
+        }
+    }
+
+    /**
+     * One direction of the connection
+     */
+    private class Pipe implements TimerWheel.Task {
+        private final SocketChannel mFrom;
+        private final SocketChannel mTo;
+        private final ImpairmentModel mModel;
+        private final int mReadSize;
+        private final ArrayDeque<Segment> mQueue = new ArrayDeque<>();
+        private long mQueuedBytes;
+        private boolean mEofRead;
+        // Release time of the end of stream, behind the data read before it
+        private long mEofReleaseNanos;
+        private boolean mEofSent;
+        private boolean mWriteBlocked;
+        private TimerWheel.Timeout mTimeout;
+
+        Pipe(SocketChannel from, SocketChannel to, ImpairmentModel model) {
+            mFrom = from;
+            mTo = to;
+            mModel = model;
+            long rate = model.getParams().rateBitsPerSec / 8;
+            // With a bandwidth cap read about 10 ms at a time, so the link isn't bursty
+            mReadSize = rate > 0
+                    ? (int) Math.max(1500, Math.min(BufferPool.BUFFER_SIZE, rate / 100))
+                    : BufferPool.BUFFER_SIZE;
+        }
+
+        boolean wantsRead() {
+            return !mEofRead && mQueuedBytes < MAX_QUEUED;
+        }
+
+        boolean wantsWrite() {
+            return mWriteBlocked;
+        }
+
+        boolean isDone() {
+            return mEofSent;
+        }
+
+        void read(long nowNanos) throws IOException {
+            BufferPool pool = mProxy.getBufferPool();
+            while (wantsRead()) {
+                ByteBuffer buffer = pool.get();
+                buffer.limit(mReadSize);
+                int n = mFrom.read(buffer);
+                if (n <= 0) {
+                    pool.put(buffer);
+                    if (n < 0) {
+                        mEofRead = true;
+                        mEofReleaseNanos = mModel.release(0, nowNanos, true);
+                    }
+                    break;
+                }
+                buffer.flip();
+                long release = mModel.release(n, nowNanos, true);
+                if (mModel.lose()) {
+                    release += mModel.getParams().retransmitNanos;
+                    mModel.holdUntil(release);
+                    mProxy.getStats().tcpRetransmits++;
+                }
+                mQueue.add(new Segment(buffer, release));
+                mQueuedBytes += n;
+                if (n < mReadSize) break;
+            }
+            flush(nowNanos);
+        }
+
+        /**
+         * Write all segments due until now, schedule a timer for the next one
+         */
+        void flush(long nowNanos) throws IOException {
+            mWriteBlocked = false;
+            Segment head;
+            while ((head = mQueue.peek()) != null && head.releaseNanos <= nowNanos) {
+                int n = mTo.write(head.buffer);
+                mQueuedBytes -= n;
+                if (mFrom == mClient) {
+                    mProxy.getStats().bytesUp += n;
+                } else {
+                    mProxy.getStats().bytesDown += n;
+                }
+                if (head.buffer.hasRemaining()) {
+                    mWriteBlocked = true;
+                    return;
+                }
+                mQueue.poll();
+                mProxy.getBufferPool().put(head.buffer);
+            }
+            if (head != null) {
+                schedule(head.releaseNanos);
+            } else if (mEofRead && !mEofSent) {
+                if (mEofReleaseNanos <= nowNanos) {
+                    mTo.shutdownOutput();
+                    mEofSent = true;
+                } else {
+                    schedule(mEofReleaseNanos);
+                }
+            }
+        }
+
+        @Override
+        public void run(long nowNanos) {
+            mTimeout = null;
+            try {
+                flush(nowNanos);
+                updateInterest();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void release() {
+            if (mTimeout != null) mProxy.getTimerWheel().cancel(mTimeout);
+            mTimeout = null;
+            for (Segment segment : mQueue) {
+                mProxy.getBufferPool().put(segment.buffer);
+            }
+            mQueue.clear();
+        }
+
+        private void schedule(long nanos) {
+            if (mTimeout != null) {
+                // Still waiting for the same segment
+                if (mTimeout.tick * ImpairmentProxy.TICK_NANOS >= nanos) return;
+                mProxy.getTimerWheel().cancel(mTimeout);
+            }
+            mTimeout = mProxy.getTimerWheel().schedule(this, nanos);
+        }
+    }
+}
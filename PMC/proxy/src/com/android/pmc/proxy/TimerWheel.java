@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.proxy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Hashed timer wheel for delayed forwarding, used by the selector thread only.
+ *
+ * Scheduling and cancelling are O(1), and the wheel is advanced once per selector
+ * wakeup, so thousands of delayed packets don't need a sorted queue. Timers fire on
+ * the first tick at or after their deadline, the tick is the timer resolution.
+ */
+class TimerWheel {
+    /**
+     * Work to run when a timer fires
+     */
+    interface Task {
+        void run(long nowNanos) throws IOException;
+    }
+
+    /**
+     * A scheduled task, can be cancelled until it fires
+     */
+    static class Timeout {
+        final Task task;
+        final long tick;
+        boolean cancelled;
+
+        Timeout(Task task, long tick) {
+            this.task = task;
+            this.tick = tick;
+        }
+    }
+
+    private final long mTickNanos;
+    private final ArrayList<Timeout>[] mSlots;
+    private final int mMask;
+    private long mCurrentTick;
+    private int mPending;
+
+    /**
+     * Constructor
+     *
+     * @param slots - number of slots, a power of two; deadlines further away than one
+     *                turn of the wheel stay in their slot for several turns
+     * @param tickNanos - length of a tick
+     * @param nowNanos - current time
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimerWheel(int slots, long tickNanos, long nowNanos) {
+        if (Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("Slots must be a power of two: " + slots);
+        }
+        mTickNanos = tickNanos;
+        mSlots = new ArrayList[slots];
+        for (int i = 0; i < slots; i++) {
+            mSlots[i] = new ArrayList<>();
+        }
+        mMask = slots - 1;
+        mCurrentTick = nowNanos / tickNanos;
+    }
+
+    /**
+     * Run a task at a given time, at the next tick if the time has passed
+     */
+    Timeout schedule(Task task, long deadlineNanos) {
+        long tick = Math.max(mCurrentTick + 1, (deadlineNanos + mTickNanos - 1) / mTickNanos);
+        Timeout timeout = new Timeout(task, tick);
+        mSlots[(int) (tick & mMask)].add(timeout);
+        mPending++;
+        return timeout;
+    }
+
+    /**
+     * Cancel a timeout, it is dropped from its slot when the slot is next visited
+     */
+    void cancel(Timeout timeout) {
+        timeout.cancelled = true;
+    }
+
+    boolean isEmpty() {
+        return mPending == 0;
+    }
+
+    /**
+     * Returns the time until the next tick, the longest the selector may sleep
+     */
+    long nanosToNextTick(long nowNanos) {
+        return Math.max(0, (mCurrentTick + 1) * mTickNanos - nowNanos);
+    }
+
+    /**
+     * Fire all timers due until now
+     */
+    void advance(long nowNanos) throws IOException {
+        long target = nowNanos / mTickNanos;
+        if (target <= mCurrentTick) return;
+        if (mPending == 0) {
+            mCurrentTick = target;
+            return;
+        }
+        // After a long stall every slot is visited once, all due timers are in one of them
+        long steps = Math.min(target - mCurrentTick, mSlots.length);
+        long first = mCurrentTick + 1;
+        mCurrentTick = target;
+        for (long tick = first; tick < first + steps; tick++) {
+            ArrayList<Timeout> slot = mSlots[(int) (tick & mMask)];
+            int kept = 0;
+            int size = slot.size();
+            for (int i = 0; i < size; i++) {
+                Timeout timeout = slot.get(i);
+                if (timeout.tick > target && !timeout.cancelled) {
+                    // Due in a later turn of the wheel
+                    slot.set(kept++, timeout);
+                    continue;
+                }
+                mPending--;
+                if (!timeout.cancelled) timeout.task.run(nowNanos);
+            }
+            // Tasks may have scheduled into this slot while it was visited
+            for (int i = size; i < slot.size(); i++) {
+                slot.set(kept++, slot.get(i));
+            }
+            slot.subList(kept, slot.size()).clear();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.proxy;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * UDP side of the proxy.
+ *
+ * Datagrams from every client address go to the target through their own connected
+ * socket, so the replies can be told apart and sent back to the right client. Every
+ * datagram is dropped, delayed or reordered on its own.
+ */
+class UdpRelay {
+    private static final long IDLE_NANOS = 60 * 1000000000L;
+
+    private final ImpairmentProxy mProxy;
+    private final Selector mSelector;
+    private final DatagramChannel mListen;
+    private final SocketAddress mTarget;
+    private final HashMap<SocketAddress, Flow> mFlows = new HashMap<>();
+
+    UdpRelay(ImpairmentProxy proxy, Selector selector, SocketAddress listen,
+            SocketAddress target) throws IOException {
+        mProxy = proxy;
+        mSelector = selector;
+        mTarget = target;
+        mListen = DatagramChannel.open();
+        mListen.bind(listen);
+        mListen.configureBlocking(false);
+        mListen.register(selector, SelectionKey.OP_READ, this);
+    }
+
+    /**
+     * Called when datagrams from clients are waiting
+     */
+    void onReady(long nowNanos) throws IOException {
+        BufferPool pool = mProxy.getBufferPool();
+        while (true) {
+            ByteBuffer buffer = pool.get();
+            SocketAddress client = mListen.receive(buffer);
+            if (client == null) {
+                pool.put(buffer);
+                return;
+            }
+            Flow flow = mFlows.get(client);
+            if (flow == null) {
+                flow = new Flow(client);
+                mFlows.put(client, flow);
+            }
+            buffer.flip();
+            flow.lastActiveNanos = nowNanos;
+            flow.up.submit(buffer, nowNanos);
+        }
+    }
+
+    /**
+     * Close the flows which saw no traffic for a minute
+     */
+    void expireFlows(long nowNanos) {
+        Iterator<Flow> flows = mFlows.values().iterator();
+        while (flows.hasNext()) {
+            Flow flow = flows.next();
+            if (nowNanos - flow.lastActiveNanos < IDLE_NANOS) continue;
+            try {
+                flow.channel.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close UDP flow: " + e);
+            }
+            flows.remove();
+        }
+    }
+
+    /**
+     * Datagrams between one client address and the target
+     */
+    class Flow {
+        final SocketAddress client;
+        final DatagramChannel channel;
+        final DatagramPipe up;
+        final DatagramPipe down;
+        long lastActiveNanos;
+
+        Flow(SocketAddress client) throws IOException {
+            this.client = client;
+            channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.connect(mTarget);
+            channel.register(mSelector, SelectionKey.OP_READ, this);
+            up = new DatagramPipe(mProxy.newModel(), true);
+            down = new DatagramPipe(mProxy.newModel(), false);
+        }
+
+        /**
+         * Called when replies from the target are waiting
+         */
+        void onReady(long nowNanos) throws IOException {
+            BufferPool pool = mProxy.getBufferPool();
+            while (true) {
+                ByteBuffer buffer = pool.get();
+                int n;
+                try {
+                    n = channel.read(buffer);
+                } catch (IOException e) {
+                    // E.g. ICMP port unreachable while the target is not up yet
+                    pool.put(buffer);
+                    return;
+                }
+                if (n <= 0) {
+                    pool.put(buffer);
+                    return;
+                }
+                buffer.flip();
+                lastActiveNanos = nowNanos;
+                down.submit(buffer, nowNanos);
+            }
+        }
+
+        /**
+         * One direction of the flow
+         */
+        class DatagramPipe {
+            private final ImpairmentModel mModel;
+            private final boolean mUp;
+
+            DatagramPipe(ImpairmentModel model, boolean up) {
+                mModel = model;
+                mUp = up;
+            }
+
+            void submit(final ByteBuffer buffer, long nowNanos) throws IOException {
+                ImpairmentProxy.Stats stats = mProxy.getStats();
+                if (mModel.lose()) {
+                    stats.udpDropped++;
+                    mProxy.getBufferPool().put(buffer);
+                    return;
+                }
+                long release = mModel.release(buffer.remaining(), nowNanos, false);
+                if (mModel.wasReordered()) stats.udpReordered++;
+                if (release <= nowNanos) {
+                    send(buffer);
+                    return;
+                }
+                mProxy.getTimerWheel().schedule(new TimerWheel.Task() {
+                    @Override
+                    public void run(long nowNanos) throws IOException {
+                        send(buffer);
+                    }
+                }, release);
+            }
+
+            private void send(ByteBuffer buffer) throws IOException {
+                ImpairmentProxy.Stats stats = mProxy.getStats();
+                int n = buffer.remaining();
+                try {
+                    int sent = mUp ? channel.write(buffer) : mListen.send(buffer, client);
+                    if (sent == 0) {
+                        stats.udpDropped++;
+                    } else if (mUp) {
+                        stats.bytesUp += n;
+                    } else {
+                        stats.bytesDown += n;
+                    }
+                } catch (IOException e) {
+                    // A flow that expired or a target that is not listening
+                    stats.udpDropped++;
+                }
+                mProxy.getBufferPool().put(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Content-Digest of responses (RFC 9530), for clients which verify what they download.
+ *
+ * A client asks with "Want-Content-Digest: sha-256=10, crc32c=5", the supported
+ * algorithm with the highest preference is used. The digest of the whole range has to be
+ * known before the headers are sent, so it is computed up front on a worker thread of
+ * the server. Digests are cached, so that only the first request of a size and range of
+ * generated content, or of a version of a file, pays for it.
+ */
+class ContentDigest {
+    static final String SHA256 = "sha-256";
+    static final String CRC32C = "crc32c";
+    // Enough for every size and range of a test run, cleared when full
+    private static final int MAX_CACHED = 1024;
+    private static final ConcurrentHashMap<String, String> sCache = new ConcurrentHashMap<>();
+
+    private ContentDigest() {}
+
+    /**
+     * Returns the supported algorithm a Want-Content-Digest header prefers, null if none
+     */
+    static String choose(String want) {
+        String best = null;
+        int bestWeight = 0;
+        for (String member : want.split(",")) {
+            int eq = member.indexOf('=');
+            if (eq < 0) continue;
+            String name = member.substring(0, eq).trim().toLowerCase(Locale.US);
+            if (!name.equals(SHA256) && !name.equals(CRC32C)) continue;
+            int weight;
+            try {
+                weight = Integer.parseInt(member.substring(eq + 1).trim());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (weight > bestWeight) {
+                best = name;
+                bestWeight = weight;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the value of the Content-Digest header for a range of a source
+     *
+     * @param source - content of the response
+     * @param start - offset of the first byte
+     * @param count - number of bytes
+     * @param algorithm - SHA256 or CRC32C
+     */
+    static String of(ContentSource source, long start, long count, String algorithm)
+            throws IOException {
+        String key = source.digestKey();
+        if (key != null) {
+            key = key + " " + start + "+" + count + " " + algorithm;
+            String cached = sCache.get(key);
+            if (cached != null) return cached;
+        }
+        byte[] digest = compute(source, start, count, algorithm);
+        String value = algorithm + "=:" + Base64.getEncoder().encodeToString(digest) + ":";
+        if (key != null) {
+            if (sCache.size() >= MAX_CACHED) sCache.clear();
+            sCache.put(key, value);
+        }
+        return value;
+    }
+
+    private static byte[] compute(ContentSource source, long start, long count,
+            String algorithm) throws IOException {
+        final MessageDigest sha256;
+        final CRC32C crc;
+        if (algorithm.equals(SHA256)) {
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException("SHA-256 is not available", e);
+            }
+            crc = null;
+        } else {
+            sha256 = null;
+            crc = new CRC32C();
+        }
+        // Let the source write into the hash, the same path as the response body
+        WritableByteChannel sink = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) {
+                int n = src.remaining();
+                if (sha256 != null) {
+                    sha256.update(src);
+                } else {
+                    crc.update(src);
+                }
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        long done = 0;
+        while (done < count) {
+            long n = source.writeTo(start + done, count - done, sink);
+            if (n <= 0) throw new IOException("Content ended at " + (start + done));
+            done += n;
+        }
+        if (sha256 != null) return sha256.digest();
+        long value = crc.getValue();
+        return new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8),
+                (byte) value};
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+/**
+ * Synthetic HTTP content server for the PMC download workloads.
+ *
+ * Usage: PMCContentServer [--port N] [--threads N] [--root DIR] [--seed N]
+ *                         [--rate BYTES_PER_SEC] [--latency-ms N] [--chunk-size N]
+ *                         [--stats-sec N] [--tls-port N --tls-keystore FILE
+ *                         --tls-password PASSWORD]
+ *
+ * Serves files of any size named by their size, e.g. "/1mb.txt", generated from a
+ * seed, and the files under DIR sent with zero-copy transfers. Every selector thread
+ * serves many keep-alive connections, so one host can feed a rack of devices.
+ * With a TLS port, the same content is served over HTTPS with the key and certificate
+ * of a PKCS12 keystore, e.g. signed by a test CA. See README.md for the supported
+ * requests.
+ */
+public class ContentServer {
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+    private static final int BACKLOG = 1024;
+
+    /**
+     * Server settings, rate, latency and seed are defaults which requests can override
+     */
+    static class Config {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        File root;
+        long seed = 1;
+        long rateBytesPerSec;
+        long latencyMs;
+        int chunkSize = DEFAULT_CHUNK_SIZE;
+        // HTTPS port and context, tlsPort is -1 without HTTPS
+        int tlsPort = -1;
+        SSLContext sslContext;
+    }
+
+    private final Config mConfig;
+    private final ServerStats mStats = new ServerStats();
+    private final SelectorLoop[] mLoops;
+    // Digests and compression of the loops, one worker per loop
+    private final ExecutorService mWorkers;
+    private ServerSocketChannel mServerChannel;
+    private ServerSocketChannel mTlsServerChannel;
+    private Thread mAcceptThread;
+    private Thread mTlsAcceptThread;
+
+    ContentServer(Config config) throws IOException {
+        mConfig = config;
+        ContentStore store = new ContentStore(config.root);
+        mWorkers = Executors.newFixedThreadPool(config.threads, new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ContentServer-worker-" + mCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mLoops = new SelectorLoop[config.threads];
+        for (int i = 0; i < mLoops.length; i++) {
+            mLoops[i] = new SelectorLoop("ContentServer-" + i, store, config, mStats, mWorkers);
+        }
+    }
+
+    /**
+     * Bind the port and start serving
+     */
+    void start() throws IOException {
+        mServerChannel = bind(mConfig.port);
+        if (mConfig.tlsPort >= 0) mTlsServerChannel = bind(mConfig.tlsPort);
+        for (SelectorLoop loop : mLoops) {
+            loop.start();
+        }
+        mAcceptThread = startAcceptThread(mServerChannel, false, "ContentServer-accept");
+        if (mTlsServerChannel != null) {
+            mTlsAcceptThread = startAcceptThread(mTlsServerChannel, true,
+                    "ContentServer-accept-tls");
+        }
+    }
+
+    private static ServerSocketChannel bind(int port) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.bind(new InetSocketAddress(port), BACKLOG);
+        return channel;
+    }
+
+    private Thread startAcceptThread(final ServerSocketChannel serverChannel, final boolean tls,
+            String name) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptLoop(serverChannel, tls);
+            }
+        }, name);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Stop accepting and close all connections
+     */
+    void stop() throws IOException, InterruptedException {
+        mServerChannel.close();
+        mAcceptThread.join();
+        if (mTlsServerChannel != null) {
+            mTlsServerChannel.close();
+            mTlsAcceptThread.join();
+        }
+        for (SelectorLoop loop : mLoops) {
+            loop.shutdown();
+        }
+        mWorkers.shutdownNow();
+    }
+
+    int getPort() {
+        return mServerChannel.socket().getLocalPort();
+    }
+
+    int getTlsPort() {
+        return mTlsServerChannel != null ? mTlsServerChannel.socket().getLocalPort() : -1;
+    }
+
+    ServerStats getStats() {
+        return mStats;
+    }
+
+    private void acceptLoop(ServerSocketChannel serverChannel, boolean tls) {
+        int next = 0;
+        while (true) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                // Spread connections over the loops round robin
+                mLoops[next].add(channel, tls);
+                next = (next + 1) % mLoops.length;
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                // E.g. out of file descriptors, keep serving the open connections
+                System.err.println("Accept failed: " + e);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Create the server side TLS context with the first key of a PKCS12 keystore
+     */
+    static SSLContext createSslContext(File keystore, String password)
+            throws IOException, GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        InputStream in = new FileInputStream(keystore);
+        try {
+            keyStore.load(in, password.toCharArray());
+        } finally {
+            in.close();
+        }
+        KeyManagerFactory kmf =
+                KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        kmf.init(keyStore, password.toCharArray());
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(kmf.getKeyManagers(), null, null);
+        return context;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = new Config();
+        int statsSec = 0;
+        File keystore = null;
+        String password = "";
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--port":
+                    config.port = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    config.threads = Integer.parseInt(value);
+                    break;
+                case "--root":
+                    config.root = new File(value);
+                    break;
+                case "--seed":
+                    config.seed = Long.parseLong(value);
+                    break;
+                case "--rate":
+                    config.rateBytesPerSec = Long.parseLong(value);
+                    break;
+                case "--latency-ms":
+                    config.latencyMs = Long.parseLong(value);
+                    break;
+                case "--chunk-size":
+                    config.chunkSize = Integer.parseInt(value);
+                    break;
+                case "--stats-sec":
+                    statsSec = Integer.parseInt(value);
+                    break;
+                case "--tls-port":
+                    config.tlsPort = Integer.parseInt(value);
+                    break;
+                case "--tls-keystore":
+                    keystore = new File(value);
+                    break;
+                case "--tls-password":
+                    password = value;
+                    break;
+                default:
+                    usage("Unknown option " + arg);
+            }
+        }
+        if (config.threads < 1 || config.rateBytesPerSec < 0 || config.latencyMs < 0
+                || config.chunkSize < 1 || statsSec < 0) {
+            usage("Invalid server settings");
+        }
+        if (config.root != null && !config.root.isDirectory()) {
+            usage("Not a directory: " + config.root);
+        }
+        if ((config.tlsPort >= 0) != (keystore != null)) {
+            usage("--tls-port and --tls-keystore go together");
+        }
+        if (keystore != null) config.sslContext = createSslContext(keystore, password);
+
+        ContentServer server = new ContentServer(config);
+        server.start();
+        System.out.println("Serving on port " + server.getPort()
+                + (keystore != null ? ", TLS port " + server.getTlsPort() : "") + " with "
+                + config.threads + " threads");
+        while (true) {
+            Thread.sleep(statsSec > 0 ? statsSec * 1000L : Long.MAX_VALUE);
+            System.out.println(server.getStats());
+        }
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: PMCContentServer [--port N] [--threads N] [--root DIR]"
+                + " [--seed N] [--rate BYTES_PER_SEC] [--latency-ms N] [--chunk-size N]"
+                + " [--stats-sec N] [--tls-port N --tls-keystore FILE --tls-password PASSWORD]");
+        System.exit(1);
+    }
+}
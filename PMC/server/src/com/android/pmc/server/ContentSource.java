@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Body of one response. Sources are opened per request and read from any position,
+ * so that ranges and partial writes can be served without buffering.
+ */
+interface ContentSource {
+    /**
+     * Returns the length of the content in bytes
+     */
+    long length();
+
+    /**
+     * Returns the Content-Type of the content
+     */
+    String contentType();
+
+    /**
+     * Write content to a non-blocking channel
+     *
+     * @param position - offset of the first byte to write
+     * @param count - maximum number of bytes to write
+     * @param target - channel to write to
+     * @return number of bytes written, 0 if the channel can't take more right now
+     */
+    long writeTo(long position, long count, WritableByteChannel target) throws IOException;
+
+    /**
+     * Returns a key which identifies the bytes of the content, so that digests can be
+     * cached, null if the content may change
+     */
+    String digestKey();
+
+    /**
+     * Release the resources of the source
+     */
+    void close();
+}
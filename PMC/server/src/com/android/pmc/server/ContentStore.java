@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maps request paths to content.
+ *
+ * A path names a file under the root directory if there is one. Otherwise its size is
+ * taken from the name, e.g. "100kb.txt", "1mb.txt" or "5000.bin", the same names as
+ * the files PMC downloads, and the content is generated.
+ */
+class ContentStore {
+    private static final Pattern SIZE_NAME =
+            Pattern.compile("(\\d+)(b|kb|mb|gb)?(\\.\\w+)?", Pattern.CASE_INSENSITIVE);
+
+    private final File mRoot;
+
+    /**
+     * Constructor
+     *
+     * @param root - directory of files to serve, null to only serve generated content
+     */
+    ContentStore(File root) throws IOException {
+        mRoot = root == null ? null : root.getCanonicalFile();
+    }
+
+    /**
+     * Open the content of a path
+     *
+     * @param path - request path without query
+     * @param seed - seed of generated content
+     * @param kind - kind of generated content, GeneratedContent.KIND_*
+     * @return content, null if the path names neither a file nor a size
+     */
+    ContentSource open(String path, long seed, String kind) throws IOException {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        String contentType = name.toLowerCase(Locale.US).endsWith(".txt")
+                ? "text/plain" : "application/octet-stream";
+        if (mRoot != null) {
+            File file = new File(mRoot, path).getCanonicalFile();
+            // Don't serve anything outside of the root
+            if (file.getPath().startsWith(mRoot.getPath() + File.separator)
+                    && file.isFile()) {
+                return FileContent.open(file, contentType);
+            }
+        }
+        long size = sizeOf(name);
+        if (size < 0) return null;
+        return new GeneratedContent(size, contentType, seed, kind);
+    }
+
+    /**
+     * Returns the size of a file name like "100kb.txt", -1 if the name has no size
+     */
+    static long sizeOf(String name) {
+        Matcher matcher = SIZE_NAME.matcher(name);
+        if (!matcher.matches()) return -1;
+        long size;
+        try {
+            size = Long.parseLong(matcher.group(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        String unit = matcher.group(2) == null ? "b" : matcher.group(2).toLowerCase(Locale.US);
+        switch (unit) {
+            case "kb":
+                return size << 10;
+            case "mb":
+                return size << 20;
+            case "gb":
+                return size << 30;
+            default:
+                return size;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content compressed with gzip or deflate for clients which send Accept-Encoding.
+ *
+ * The compressed length has to be known for Content-Length and ranges of the body have
+ * to be served on partial writes, so the whole content is compressed up front into
+ * memory on a worker thread of the server. Compressed content is cached, so that only
+ * the first request of a size, kind and encoding of generated content, or of a version
+ * of a file, pays for it.
+ */
+class EncodedContent implements ContentSource {
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+    // Larger content is sent without encoding
+    static final long MAX_LENGTH = 32L << 20;
+    // Cached bytes, cleared when more would be cached
+    private static final long MAX_CACHED_BYTES = 256L << 20;
+    private static final ConcurrentHashMap<String, EncodedContent> sCache =
+            new ConcurrentHashMap<>();
+    private static long sCachedBytes;
+
+    private final ByteBuffer mBytes;
+    private final String mContentType;
+    private final String mEncoding;
+    private final String mDigestKey;
+
+    private EncodedContent(ByteBuffer bytes, String contentType, String encoding,
+            String digestKey) {
+        mBytes = bytes;
+        mContentType = contentType;
+        mEncoding = encoding;
+        mDigestKey = digestKey;
+    }
+
+    /**
+     * Returns the encoding an Accept-Encoding header prefers, null for identity
+     */
+    static String choose(String accept) {
+        if (accept == null) return null;
+        String best = null;
+        double bestQ = 0;
+        for (String member : accept.split(",")) {
+            String[] parts = member.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.US);
+            if (name.equals("x-gzip")) name = GZIP;
+            if (!name.equals(GZIP) && !name.equals(DEFLATE)) continue;
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (!param.startsWith("q=")) continue;
+                try {
+                    q = Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    q = 0;
+                }
+            }
+            // gzip wins a tie, it's listed first by most clients anyway
+            if (q > bestQ || (q == bestQ && q > 0 && name.equals(GZIP))) {
+                best = name;
+                bestQ = q;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the cached compressed content of a source, null if it has to be compressed
+     * with of(). The source is closed when the cached content is returned.
+     */
+    static EncodedContent cached(ContentSource source, String encoding) {
+        String key = source.digestKey();
+        if (key == null) return null;
+        EncodedContent cached = sCache.get(key + " " + source.length() + " " + encoding);
+        if (cached == null) return null;
+        source.close();
+        return cached.duplicate();
+    }
+
+    /**
+     * Returns the content compressed with an encoding, the source is closed
+     *
+     * @param source - content to compress, at most MAX_LENGTH bytes
+     * @param encoding - GZIP or DEFLATE
+     */
+    static EncodedContent of(ContentSource source, String encoding) throws IOException {
+        String key = source.digestKey();
+        if (key != null) {
+            key = key + " " + source.length() + " " + encoding;
+            EncodedContent cached = sCache.get(key);
+            if (cached != null) {
+                source.close();
+                return cached.duplicate();
+            }
+        }
+        EncodedContent content;
+        try {
+            content = new EncodedContent(compress(source, encoding), source.contentType(),
+                    encoding, key);
+        } finally {
+            source.close();
+        }
+        if (key != null) cache(key, content);
+        return content.duplicate();
+    }
+
+    private static synchronized void cache(String key, EncodedContent content) {
+        long size = content.mBytes.capacity();
+        if (sCachedBytes + size > MAX_CACHED_BYTES) {
+            sCache.clear();
+            sCachedBytes = 0;
+        }
+        if (size <= MAX_CACHED_BYTES && sCache.putIfAbsent(key, content) == null) {
+            sCachedBytes += size;
+        }
+    }
+
+    private static ByteBuffer compress(ContentSource source, String encoding)
+            throws IOException {
+        Buffer bytes = new Buffer((int) Math.min(source.length() + 64, MAX_LENGTH));
+        OutputStream out = encoding.equals(GZIP)
+                ? new GZIPOutputStream(bytes, 1 << 16) : new DeflaterOutputStream(bytes);
+        WritableByteChannel sink = Channels.newChannel(out);
+        long done = 0;
+        while (done < source.length()) {
+            long n = source.writeTo(done, source.length() - done, sink);
+            if (n <= 0) throw new IOException("Content ended at " + done);
+            done += n;
+        }
+        out.close();
+        return bytes.toByteBuffer().asReadOnlyBuffer();
+    }
+
+    /**
+     * Output buffer whose bytes are wrapped rather than copied, so that compressing
+     * doesn't need twice the compressed length
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+        Buffer(int size) {
+            super(size);
+        }
+
+        ByteBuffer toByteBuffer() {
+            // Well compressed content would keep most of the array for nothing, copy it
+            if (count < buf.length / 2) return ByteBuffer.wrap(Arrays.copyOf(buf, count));
+            return ByteBuffer.wrap(buf, 0, count).slice();
+        }
+    }
+
+    /**
+     * Returns a source over the same bytes, with its own position and limit
+     */
+    private EncodedContent duplicate() {
+        return new EncodedContent(mBytes.duplicate(), mContentType, mEncoding, mDigestKey);
+    }
+
+    /**
+     * Returns the value of the Content-Encoding header
+     */
+    String encoding() {
+        return mEncoding;
+    }
+
+    @Override
+    public long length() {
+        return mBytes.capacity();
+    }
+
+    @Override
+    public String contentType() {
+        return mContentType;
+    }
+
+    @Override
+    public long writeTo(long position, long count, WritableByteChannel target)
+            throws IOException {
+        mBytes.limit((int) (position + count)).position((int) position);
+        return target.write(mBytes);
+    }
+
+    @Override
+    public String digestKey() {
+        return mDigestKey;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Content of a file, sent with FileChannel.transferTo() so that the kernel copies it
+ * from the page cache to the socket. Files are identified by path, size and modification
+ * time, so that their digests can be cached until they are replaced.
+ */
+class FileContent implements ContentSource {
+    private final FileChannel mChannel;
+    private final long mLength;
+    private final String mContentType;
+    private final String mDigestKey;
+
+    private FileContent(FileChannel channel, String contentType, File file)
+            throws IOException {
+        mChannel = channel;
+        mLength = channel.size();
+        mContentType = contentType;
+        mDigestKey = "file " + file.getAbsolutePath() + " " + mLength + " "
+                + file.lastModified();
+    }
+
+    /**
+     * Open a file for one response
+     */
+    static FileContent open(File file, String contentType) throws IOException {
+        return new FileContent(FileChannel.open(file.toPath(), StandardOpenOption.READ),
+                contentType, file);
+    }
+
+    @Override
+    public long length() {
+        return mLength;
+    }
+
+    @Override
+    public String contentType() {
+        return mContentType;
+    }
+
+    @Override
+    public long writeTo(long position, long count, WritableByteChannel target)
+            throws IOException {
+        return mChannel.transferTo(position, count, target);
+    }
+
+    @Override
+    public String digestKey() {
+        return mDigestKey;
+    }
+
+    @Override
+    public void close() {
+        try {
+            mChannel.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close file: " + e);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content of any size generated from a seed.
+ *
+ * The content is a random pattern generated once per seed and repeated, so every byte
+ * is a function of seed and offset: ranges of one file fit together and a client can
+ * verify what it received. The pattern lives in a read-only direct buffer shared by all
+ * connections, writes go from there to the socket without copying.
+ *
+ * The kind of pattern sets how well the content compresses: random bytes don't
+ * compress at all, text made of common words compresses like prose, zeros compress
+ * as far as the encoding goes.
+ */
+class GeneratedContent implements ContentSource {
+    static final int PATTERN_SIZE = 1 << 20;
+    static final String KIND_RANDOM = "random";
+    static final String KIND_TEXT = "text";
+    static final String KIND_ZEROS = "zeros";
+    private static final String[] WORDS = {
+            "the", "of", "and", "to", "in", "a", "is", "that", "for", "it", "as", "was",
+            "with", "be", "by", "on", "not", "he", "this", "are", "or", "his", "from", "at",
+            "which", "but", "have", "an", "had", "they", "you", "were", "their", "one", "all",
+            "we", "can", "her", "has", "there", "been", "if", "more", "when", "will", "would",
+            "who", "so", "no", "power", "device", "network", "download", "battery", "signal",
+            "packet", "server", "radio", "energy", "measurement", "interval", "alarm",
+            "connection", "transfer"};
+    private static final int LINE_LENGTH = 72;
+    private static final ConcurrentHashMap<String, ByteBuffer> sPatterns =
+            new ConcurrentHashMap<>();
+
+    private final long mLength;
+    private final String mContentType;
+    private final ByteBuffer mPattern;
+    private final long mSeed;
+    private final String mKind;
+
+    /**
+     * Constructor
+     *
+     * @param length - length of the content in bytes
+     * @param contentType - Content-Type of the content
+     * @param seed - seed of the pattern
+     * @param kind - KIND_RANDOM, KIND_TEXT or KIND_ZEROS
+     */
+    GeneratedContent(long length, String contentType, long seed, String kind) {
+        mLength = length;
+        mContentType = contentType;
+        mSeed = seed;
+        mKind = kind;
+        // Duplicate so that position and limit are private to this source
+        mPattern = getPattern(seed, kind).duplicate();
+    }
+
+    /**
+     * Returns true if kind names a kind of pattern
+     */
+    static boolean isKind(String kind) {
+        return kind.equals(KIND_RANDOM) || kind.equals(KIND_TEXT) || kind.equals(KIND_ZEROS);
+    }
+
+    /**
+     * Returns the pattern of a seed and kind, generating it on first use
+     */
+    static ByteBuffer getPattern(long seed, String kind) {
+        String key = kind + ":" + seed;
+        ByteBuffer pattern = sPatterns.get(key);
+        if (pattern != null) return pattern;
+        byte[] bytes = new byte[PATTERN_SIZE];
+        if (kind.equals(KIND_TEXT)) {
+            fillText(bytes, new Random(seed));
+        } else if (!kind.equals(KIND_ZEROS)) {
+            new Random(seed).nextBytes(bytes);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(PATTERN_SIZE);
+        buffer.put(bytes).flip();
+        pattern = sPatterns.putIfAbsent(key, buffer.asReadOnlyBuffer());
+        return pattern != null ? pattern : sPatterns.get(key);
+    }
+
+    /**
+     * Fill with lines of random words
+     */
+    private static void fillText(byte[] bytes, Random random) {
+        int pos = 0;
+        int column = 0;
+        while (pos < bytes.length) {
+            String next = WORDS[random.nextInt(WORDS.length)];
+            byte[] word = next.getBytes(StandardCharsets.US_ASCII);
+            for (int i = 0; i < word.length && pos < bytes.length; i++) {
+                bytes[pos++] = word[i];
+            }
+            column += word.length + 1;
+            if (pos < bytes.length) {
+                bytes[pos++] = (byte) (column >= LINE_LENGTH ? '\n' : ' ');
+            }
+            if (column >= LINE_LENGTH) column = 0;
+        }
+    }
+
+    @Override
+    public long length() {
+        return mLength;
+    }
+
+    @Override
+    public String contentType() {
+        return mContentType;
+    }
+
+    @Override
+    public long writeTo(long position, long count, WritableByteChannel target)
+            throws IOException {
+        long written = 0;
+        while (written < count) {
+            int offset = (int) ((position + written) % PATTERN_SIZE);
+            int size = (int) Math.min(count - written, PATTERN_SIZE - offset);
+            mPattern.limit(offset + size).position(offset);
+            int n = target.write(mPattern);
+            written += n;
+            if (n < size) break;
+        }
+        return written;
+    }
+
+    @Override
+    public String digestKey() {
+        // Bytes only depend on kind, seed and offset, the length is part of the range
+        return mKind + ":" + mSeed;
+    }
+
+    @Override
+    public void close() {
+    }
+}
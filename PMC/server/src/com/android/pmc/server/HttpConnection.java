@@ -0,0 +1,673 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * State of one client connection, only used by the thread of its selector loop.
+ *
+ * A connection alternates between reading a request head, reading the body of an
+ * upload, and writing a response. Pipelined requests wait in the input buffer until
+ * the response before them is complete. POST and PUT bodies are read and discarded,
+ * the response tells how many bytes arrived. While a response waits for its added
+ * latency or its rate limit, the connection has no interest ops and is woken up by a
+ * timer of the loop. TLS connections read and write through a TlsChannel, which adds
+ * the interest ops its handshake and queued records need. Requests with
+ * Want-Content-Digest get the digest of their range in Content-Digest. Digests and
+ * compressed bodies which aren't cached yet are computed on a worker thread, meanwhile
+ * the connection has no interest ops and is resumed by the loop once the headers can be
+ * sent.
+ *
+ * Query parameters of a request override the server defaults:
+ *   seed=N        seed of generated content
+ *   rate=N        body rate limit in bytes per second, 0 for no limit
+ *   latency_ms=N  delay before the response is sent
+ *   chunked=1     send the body with chunked transfer encoding
+ *   content=KIND  random, text or zeros, the compressibility of generated content
+ *
+ * Whole responses are compressed with gzip or deflate when Accept-Encoding asks for it,
+ * ranges are always served from the uncompressed content.
+ */
+class HttpConnection {
+    private static final int MAX_HEAD_SIZE = 8192;
+    // Bytes written per wakeup, so that one fast client can't starve the others of a loop
+    private static final long WRITE_BUDGET = 1 << 20;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final byte[] CONTINUE =
+            "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int STATE_READ = 0;
+    private static final int STATE_BODY = 1;
+    private static final int STATE_PREPARE = 2;
+    private static final int STATE_DELAY = 3;
+    private static final int STATE_WRITE = 4;
+    private static final int STATE_FLUSH = 5;
+    private static final int STATE_CLOSED = 6;
+
+    private final SelectorLoop mLoop;
+    private final SocketChannel mChannel;
+    // mChannel, or the TLS channel over it
+    private final ByteChannel mIo;
+    private final TlsChannel mTls;
+    private final SelectionKey mKey;
+    private final ByteBuffer mIn = ByteBuffer.allocate(MAX_HEAD_SIZE);
+    // Chunk size line and the CRLF closing the previous chunk
+    private final ByteBuffer mChunkFraming = ByteBuffer.allocate(32);
+    private int mState = STATE_READ;
+    private int mInterest = SelectionKey.OP_READ;
+    // Wakeup time set by the loop, -1 if none
+    long wakeNanos = -1;
+
+    // Upload being read
+    private RequestBody mBody;
+    private long mBodyStartNanos;
+    private long mBodyLatencyMs;
+
+    // Response being written
+    private ByteBuffer mOut;
+    private ContentSource mSource;
+    private long mPosition;
+    private long mRemaining;
+    private boolean mChunked;
+    private long mChunkLeft;
+    private boolean mChunkOpen;
+    private boolean mChunksDone;
+    private RateLimiter mLimiter;
+    private boolean mKeepAlive;
+
+    /**
+     * Constructor
+     *
+     * @param loop - selector loop of the connection
+     * @param channel - accepted channel
+     * @param key - key of the channel with the selector of the loop
+     * @param tls - TLS over the channel, null for plain HTTP
+     */
+    HttpConnection(SelectorLoop loop, SocketChannel channel, SelectionKey key, TlsChannel tls) {
+        mLoop = loop;
+        mChannel = channel;
+        mKey = key;
+        mTls = tls;
+        mIo = tls != null ? tls : channel;
+    }
+
+    boolean isClosed() {
+        return mState == STATE_CLOSED;
+    }
+
+    /**
+     * Called when the channel is ready for the selected operations
+     */
+    void onReady(int readyOps, long nowNanos) throws IOException {
+        boolean readable = (readyOps & SelectionKey.OP_READ) != 0;
+        if (mTls != null) {
+            if ((readyOps & SelectionKey.OP_WRITE) != 0 && mTls.flush()
+                    && mState == STATE_FLUSH) {
+                close();
+                return;
+            }
+            // The handshake may go on after a flush without new input
+            readable = true;
+        }
+        if (mState == STATE_READ && readable) {
+            if (mIo.read(mIn) < 0) {
+                close();
+                return;
+            }
+        }
+        if (mState == STATE_BODY && readable) {
+            readBody(nowNanos);
+        }
+        if (mState == STATE_WRITE && (readyOps & SelectionKey.OP_WRITE) != 0) {
+            write(nowNanos);
+        }
+        serviceRequests(nowNanos);
+        updateInterest();
+    }
+
+    /**
+     * Called when the wakeup set with SelectorLoop.schedule() is due
+     */
+    void onTimer(long nowNanos) throws IOException {
+        if (mState == STATE_DELAY) {
+            mState = STATE_WRITE;
+        }
+        if (mState == STATE_WRITE) {
+            write(nowNanos);
+        }
+        serviceRequests(nowNanos);
+        updateInterest();
+    }
+
+    void close() {
+        if (mState == STATE_CLOSED) return;
+        mState = STATE_CLOSED;
+        closeSource();
+        try {
+            mChannel.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close connection: " + e);
+        }
+        mLoop.getStats().closed.increment();
+    }
+
+    /**
+     * Start responses for complete requests in the input buffer, until one of them
+     * can't be written at once
+     */
+    private void serviceRequests(long nowNanos) throws IOException {
+        while (mState == STATE_READ) {
+            int headEnd = findHeadEnd();
+            if (headEnd < 0) {
+                // Pipelined requests may wait in the TLS buffers without the socket
+                // becoming readable again
+                if (mTls != null && mIn.hasRemaining()) {
+                    int n = mTls.read(mIn);
+                    if (n < 0) {
+                        close();
+                        return;
+                    }
+                    if (n > 0) continue;
+                }
+                if (!mIn.hasRemaining()) {
+                    sendError(431, "Request Header Fields Too Large", nowNanos);
+                }
+                return;
+            }
+            HttpRequest request = HttpRequest.parse(mIn.array(), headEnd);
+            // Drop the head, keep pipelined bytes behind it
+            mIn.flip().position(headEnd);
+            mIn.compact();
+            mLoop.getStats().requests.increment();
+            if (request == null) {
+                sendError(400, "Bad Request", nowNanos);
+            } else {
+                startResponse(request, nowNanos);
+            }
+        }
+    }
+
+    /**
+     * Returns the offset behind the empty line ending the request head, -1 if the head
+     * is not complete
+     */
+    private int findHeadEnd() {
+        byte[] buf = mIn.array();
+        for (int i = 3; i < mIn.position(); i++) {
+            if (buf[i] == '\n' && buf[i - 1] == '\r' && buf[i - 2] == '\n'
+                    && buf[i - 3] == '\r') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private void startResponse(HttpRequest request, long nowNanos) throws IOException {
+        mKeepAlive = request.keepAlive();
+        boolean head = request.method.equals("HEAD");
+        boolean upload = request.method.equals("POST") || request.method.equals("PUT");
+        if (!head && !upload && !request.method.equals("GET")) {
+            sendError(405, "Method Not Allowed", nowNanos);
+            return;
+        }
+        ContentServer.Config config = mLoop.getConfig();
+        long rate;
+        long latencyMs;
+        long seed;
+        try {
+            rate = request.longParam("rate", config.rateBytesPerSec);
+            latencyMs = request.longParam("latency_ms", config.latencyMs);
+            seed = request.longParam("seed", config.seed);
+        } catch (NumberFormatException e) {
+            sendError(400, "Bad Request", nowNanos);
+            return;
+        }
+        if (upload) {
+            startUpload(request, latencyMs, nowNanos);
+            return;
+        }
+        String kind = request.param("content", GeneratedContent.KIND_RANDOM);
+        if (!GeneratedContent.isKind(kind)) {
+            sendError(400, "Bad Request", nowNanos);
+            return;
+        }
+        ContentSource source = mLoop.getStore().open(request.path, seed, kind);
+        if (source == null) {
+            sendError(404, "Not Found", nowNanos);
+            return;
+        }
+        String range = request.header("range");
+        String encoding = range == null
+                ? EncodedContent.choose(request.header("accept-encoding")) : null;
+        if (encoding != null && source.length() > EncodedContent.MAX_LENGTH) encoding = null;
+        String want = head ? null : request.header("want-content-digest");
+        PreparedResponse response = new PreparedResponse(source, range, encoding,
+                want == null ? null : ContentDigest.choose(want));
+        response.head = head;
+        // Chunked encoding only exists in HTTP/1.1
+        response.chunked = !head && request.isHttp11() && request.flagParam("chunked");
+        response.rate = rate;
+        response.latencyMs = latencyMs;
+        if (encoding != null) {
+            EncodedContent cached = EncodedContent.cached(source, encoding);
+            if (cached != null) {
+                response.source = cached;
+                response.encoded = true;
+            }
+        }
+        if (response.algorithm == null && (encoding == null || response.encoded)) {
+            response.prepare();
+            sendResponse(response, nowNanos);
+        } else {
+            prepareInBackground(response);
+        }
+    }
+
+    /**
+     * Response whose headers need the content, i.e. its compressed length or its digest,
+     * which take a full pass over it. The parts of the request it needs are copied, so that it can be
+     * prepared on a worker thread while the loop serves the other connections.
+     */
+    private static class PreparedResponse {
+        ContentSource source;
+        final String range;
+        final String encoding;
+        final String algorithm;
+        boolean encoded;
+        boolean head;
+        boolean chunked;
+        long rate;
+        long latencyMs;
+        // Set by prepare(), bounds is null without a usable range
+        long length;
+        long[] bounds;
+        String digest;
+
+        PreparedResponse(ContentSource source, String range, String encoding,
+                String algorithm) {
+            this.source = source;
+            this.range = range;
+            this.encoding = encoding;
+            this.algorithm = algorithm;
+        }
+
+        /**
+         * Compress the content, resolve the range and compute the digest, on any thread
+         */
+        void prepare() throws IOException {
+            if (encoding != null && !encoded) {
+                source = EncodedContent.of(source, encoding);
+                encoded = true;
+            }
+            length = source.length();
+            bounds = range == null ? null : parseRange(range, length);
+            if (algorithm == null || (bounds != null && bounds[0] > bounds[1])) return;
+            long start = bounds != null ? bounds[0] : 0;
+            long end = bounds != null ? bounds[1] : length - 1;
+            digest = ContentDigest.of(source, start, end - start + 1, algorithm);
+        }
+    }
+
+    /**
+     * Prepare a response on a worker thread. The connection has no interest ops until
+     * the loop resumes it with the result.
+     */
+    private void prepareInBackground(final PreparedResponse response) {
+        mState = STATE_PREPARE;
+        setInterest(0);
+        mLoop.getWorkers().execute(new Runnable() {
+            @Override
+            public void run() {
+                IOException error = null;
+                try {
+                    response.prepare();
+                } catch (IOException e) {
+                    error = e;
+                } catch (RuntimeException e) {
+                    error = new IOException(e);
+                }
+                final IOException failure = error;
+                mLoop.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onPrepared(response, failure);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Called on the loop thread when a response is prepared
+     */
+    private void onPrepared(PreparedResponse response, IOException error) {
+        if (mState != STATE_PREPARE) {
+            // Closed while the response was prepared
+            response.source.close();
+            return;
+        }
+        long nowNanos = System.nanoTime();
+        try {
+            if (error != null) {
+                response.source.close();
+                throw error;
+            }
+            sendResponse(response, nowNanos);
+            serviceRequests(nowNanos);
+            updateInterest();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    private void sendResponse(PreparedResponse response, long nowNanos) throws IOException {
+        ContentSource source = response.source;
+        long length = response.length;
+        long[] bounds = response.bounds;
+        long start = 0;
+        long end = length - 1;
+        if (bounds != null && bounds[0] > bounds[1]) {
+            source.close();
+            mOut = textResponse(416, "Range Not Satisfiable",
+                    "Content-Range: bytes */" + length + "\r\n", "text/plain",
+                    "416 Range Not Satisfiable\n");
+            beginWrite(0, nowNanos);
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        if (bounds != null) {
+            start = bounds[0];
+            end = bounds[1];
+            sb.append("HTTP/1.1 206 Partial Content\r\n");
+            sb.append("Content-Range: bytes ").append(start).append('-').append(end)
+                    .append('/').append(length).append("\r\n");
+        } else {
+            sb.append("HTTP/1.1 200 OK\r\n");
+        }
+        sb.append("Content-Type: ").append(source.contentType()).append("\r\n");
+        sb.append("Accept-Ranges: bytes\r\n");
+        if (response.range == null) sb.append("Vary: Accept-Encoding\r\n");
+        if (response.encoding != null) {
+            sb.append("Content-Encoding: ").append(response.encoding).append("\r\n");
+        }
+        if (response.digest != null) {
+            sb.append("Content-Digest: ").append(response.digest).append("\r\n");
+        }
+        mChunked = response.chunked;
+        if (mChunked) {
+            sb.append("Transfer-Encoding: chunked\r\n");
+        } else {
+            sb.append("Content-Length: ").append(end - start + 1).append("\r\n");
+        }
+        sb.append("Connection: ").append(mKeepAlive ? "keep-alive" : "close").append("\r\n\r\n");
+        mOut = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+        mSource = source;
+        mPosition = start;
+        mRemaining = response.head ? 0 : end - start + 1;
+        mChunkLeft = 0;
+        mChunkOpen = false;
+        mChunksDone = false;
+        mLimiter = response.rate > 0 ? new RateLimiter(response.rate, nowNanos) : null;
+        beginWrite(response.latencyMs, nowNanos);
+    }
+
+    /**
+     * Parse a single range "bytes=first-last", "bytes=first-" or "bytes=-suffix"
+     *
+     * @return first and last byte, first > last if not satisfiable, null to ignore the
+     *         header because it's not a single byte range
+     */
+    static long[] parseRange(String range, long length) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) return null;
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+        try {
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix == 0) return new long[] {1, 0};
+                return new long[] {Math.max(0, length - suffix), length - 1};
+            }
+            long first = Long.parseLong(spec.substring(0, dash));
+            long last = dash == spec.length() - 1
+                    ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+            if (last < first) return null;
+            if (first >= length) return new long[] {1, 0};
+            return new long[] {first, Math.min(last, length - 1)};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void startUpload(HttpRequest request, long latencyMs, long nowNanos)
+            throws IOException {
+        try {
+            mBody = RequestBody.of(request);
+        } catch (IllegalArgumentException e) {
+            sendError(400, "Bad Request", nowNanos);
+            return;
+        }
+        mBodyStartNanos = nowNanos;
+        mBodyLatencyMs = latencyMs;
+        mState = STATE_BODY;
+        if ("100-continue".equalsIgnoreCase(request.header("expect"))) {
+            // Fits into the empty socket buffer of a connection waiting for its request
+            mIo.write(ByteBuffer.wrap(CONTINUE));
+        }
+        // Body bytes which arrived together with the head
+        mIn.flip();
+        boolean done;
+        try {
+            done = mBody.consume(mIn);
+        } catch (IllegalArgumentException e) {
+            sendError(400, "Bad Request", nowNanos);
+            return;
+        } finally {
+            mIn.compact();
+        }
+        if (done) {
+            finishUpload(nowNanos);
+        } else {
+            setInterest(SelectionKey.OP_READ);
+            // More of the body may already be unwrapped by the TLS channel
+            if (mTls != null) readBody(nowNanos);
+        }
+    }
+
+    /**
+     * Read and discard upload body bytes through the scratch buffer of the loop
+     */
+    private void readBody(long nowNanos) throws IOException {
+        ByteBuffer scratch = mLoop.getScratch();
+        long budget = WRITE_BUDGET;
+        while (budget > 0) {
+            scratch.clear();
+            int n = mIo.read(scratch);
+            if (n < 0) {
+                close();
+                return;
+            }
+            if (n == 0) return;
+            budget -= n;
+            scratch.flip();
+            boolean done;
+            try {
+                done = mBody.consume(scratch);
+            } catch (IllegalArgumentException e) {
+                sendError(400, "Bad Request", nowNanos);
+                return;
+            }
+            if (done) {
+                // Keep a pipelined request behind the body
+                if (scratch.remaining() > mIn.remaining()) {
+                    close();
+                    return;
+                }
+                mIn.put(scratch);
+                finishUpload(nowNanos);
+                return;
+            }
+        }
+    }
+
+    private void finishUpload(long nowNanos) throws IOException {
+        long durationNanos = nowNanos - mBodyStartNanos;
+        mLoop.getStats().uploadBytes.add(mBody.getBytes());
+        String json = "{\"bytes\":" + mBody.getBytes() + ",\"chunked\":" + mBody.isChunked()
+                + ",\"durationMs\":" + durationNanos / NANOS_PER_MILLI + "}\n";
+        mBody = null;
+        mOut = textResponse(200, "OK", "", "application/json", json);
+        beginWrite(mBodyLatencyMs, nowNanos);
+    }
+
+    private void sendError(int status, String reason, long nowNanos) throws IOException {
+        mLoop.getStats().errors.increment();
+        // The rest of the input can't be trusted after a bad request
+        mKeepAlive = false;
+        mBody = null;
+        mOut = textResponse(status, reason, "", "text/plain", status + " " + reason + "\n");
+        beginWrite(0, nowNanos);
+    }
+
+    /**
+     * Returns a complete response with a small body, and clears the body source
+     */
+    private ByteBuffer textResponse(int status, String reason, String headers,
+            String contentType, String body) {
+        mSource = null;
+        mRemaining = 0;
+        mChunked = false;
+        mLimiter = null;
+        String response = "HTTP/1.1 " + status + " " + reason + "\r\n" + headers
+                + "Content-Type: " + contentType + "\r\nContent-Length: " + body.length()
+                + "\r\nConnection: " + (mKeepAlive ? "keep-alive" : "close") + "\r\n\r\n"
+                + body;
+        return ByteBuffer.wrap(response.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private void beginWrite(long latencyMs, long nowNanos) throws IOException {
+        if (latencyMs > 0) {
+            mState = STATE_DELAY;
+            setInterest(0);
+            mLoop.schedule(this, nowNanos + latencyMs * NANOS_PER_MILLI);
+            return;
+        }
+        mState = STATE_WRITE;
+        // Most responses fit into the socket buffer, try before waiting for OP_WRITE
+        write(nowNanos);
+    }
+
+    private void write(long nowNanos) throws IOException {
+        long budget = WRITE_BUDGET;
+        while (true) {
+            if (mOut != null) {
+                mIo.write(mOut);
+                if (mOut.hasRemaining()) {
+                    setInterest(SelectionKey.OP_WRITE);
+                    return;
+                }
+                mOut = null;
+            }
+            if (mChunked && mChunkLeft == 0 && !mChunksDone) {
+                mOut = nextChunkFraming();
+                continue;
+            }
+            if (mRemaining == 0) {
+                finishResponse();
+                return;
+            }
+            long count = Math.min(mRemaining, budget);
+            if (mChunked) count = Math.min(count, mChunkLeft);
+            if (mLimiter != null) {
+                long available = mLimiter.available(nowNanos);
+                if (available <= 0) {
+                    setInterest(0);
+                    mLoop.schedule(this, mLimiter.nextNanos(nowNanos));
+                    return;
+                }
+                count = Math.min(count, available);
+            }
+            long n = mSource.writeTo(mPosition, count, mIo);
+            mPosition += n;
+            mRemaining -= n;
+            mChunkLeft -= n;
+            budget -= n;
+            if (mLimiter != null) mLimiter.consume(n);
+            mLoop.getStats().bodyBytes.add(n);
+            if (n < count || budget == 0) {
+                // Socket buffer is full, or give the other connections a turn
+                setInterest(SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+    }
+
+    private ByteBuffer nextChunkFraming() {
+        mChunkFraming.clear();
+        if (mChunkOpen) mChunkFraming.put((byte) '\r').put((byte) '\n');
+        if (mRemaining == 0) {
+            mChunkFraming.put("0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            mChunksDone = true;
+        } else {
+            mChunkLeft = Math.min(mLoop.getConfig().chunkSize, mRemaining);
+            mChunkFraming.put((Long.toHexString(mChunkLeft) + "\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            mChunkOpen = true;
+        }
+        mChunkFraming.flip();
+        return mChunkFraming;
+    }
+
+    private void finishResponse() throws IOException {
+        closeSource();
+        if (!mKeepAlive) {
+            if (mTls != null && !mTls.shutdownOutput()) {
+                // Wait until the last records and close_notify are written
+                mState = STATE_FLUSH;
+                setInterest(0);
+                return;
+            }
+            close();
+            return;
+        }
+        mState = STATE_READ;
+        setInterest(SelectionKey.OP_READ);
+    }
+
+    private void setInterest(int ops) {
+        mInterest = ops;
+        mKey.interestOps(mTls != null ? mTls.interestOps(ops) : ops);
+    }
+
+    /**
+     * Add the interest ops of the TLS channel, whose state changes with every read and
+     * write
+     */
+    private void updateInterest() {
+        if (mTls != null && mState != STATE_CLOSED) setInterest(mInterest);
+    }
+
+    private void closeSource() {
+        if (mSource != null) mSource.close();
+        mSource = null;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Request line, headers and query parameters of one HTTP/1.x request.
+ */
+class HttpRequest {
+    final String method;
+    final String path;
+    final String version;
+    private final Map<String, String> mHeaders = new HashMap<>();
+    private final Map<String, String> mParams = new HashMap<>();
+
+    private HttpRequest(String method, String target, String version) {
+        this.method = method;
+        this.version = version;
+        int query = target.indexOf('?');
+        path = query < 0 ? target : target.substring(0, query);
+        if (query < 0) return;
+        for (String param : target.substring(query + 1).split("&")) {
+            int eq = param.indexOf('=');
+            if (eq < 0) {
+                mParams.put(param, "");
+            } else {
+                mParams.put(param.substring(0, eq), param.substring(eq + 1));
+            }
+        }
+    }
+
+    /**
+     * Parse the head of a request
+     *
+     * @param buf - buffer holding the head
+     * @param length - length of the head, including the empty line at its end
+     * @return request, null if the head is malformed
+     */
+    static HttpRequest parse(byte[] buf, int length) {
+        String[] lines = new String(buf, 0, length, StandardCharsets.ISO_8859_1).split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        if (requestLine.length != 3 || !requestLine[2].startsWith("HTTP/1.")) return null;
+        HttpRequest request = new HttpRequest(requestLine[0], requestLine[1], requestLine[2]);
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon <= 0) return null;
+            request.mHeaders.put(lines[i].substring(0, colon).trim().toLowerCase(Locale.US),
+                    lines[i].substring(colon + 1).trim());
+        }
+        return request;
+    }
+
+    /**
+     * Returns the value of a header, null if not present
+     *
+     * @param name - header name in lower case
+     */
+    String header(String name) {
+        return mHeaders.get(name);
+    }
+
+    /**
+     * Returns the value of a numeric query parameter
+     *
+     * @throws NumberFormatException if the value is not a number
+     */
+    long longParam(String name, long defaultValue) {
+        String value = mParams.get(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    /**
+     * Returns the value of a query parameter
+     */
+    String param(String name, String defaultValue) {
+        String value = mParams.get(name);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Returns true if a query parameter is present and not "0" or "false"
+     */
+    boolean flagParam(String name) {
+        String value = mParams.get(name);
+        return value != null && !value.equals("0") && !value.equalsIgnoreCase("false");
+    }
+
+    boolean isHttp11() {
+        return version.equals("HTTP/1.1");
+    }
+
+    /**
+     * Returns true if the client wants to keep the connection open after the response
+     */
+    boolean keepAlive() {
+        String connection = header("connection");
+        if (isHttp11()) return !"close".equalsIgnoreCase(connection);
+        return "keep-alive".equalsIgnoreCase(connection);
+    }
+}
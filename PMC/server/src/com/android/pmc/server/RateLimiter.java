@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+/**
+ * Token bucket limiting the body bytes sent on one connection.
+ *
+ * The bucket holds up to 50 ms of bytes, so the rate is kept over short intervals
+ * while writes stay large enough to be efficient.
+ */
+class RateLimiter {
+    private static final long NANOS_PER_SEC = 1000000000L;
+    private static final long MIN_BURST = 1024;
+    private static final long BURST_DIVISOR = 20;
+
+    private final long mBytesPerSec;
+    private final long mBurst;
+    private long mTokens;
+    private long mLastNanos;
+
+    /**
+     * Constructor
+     *
+     * @param bytesPerSec - rate limit
+     * @param nowNanos - current time, the bucket starts full
+     */
+    RateLimiter(long bytesPerSec, long nowNanos) {
+        mBytesPerSec = bytesPerSec;
+        mBurst = Math.max(MIN_BURST, bytesPerSec / BURST_DIVISOR);
+        mTokens = mBurst;
+        mLastNanos = nowNanos;
+    }
+
+    /**
+     * Returns the number of bytes which can be sent now
+     */
+    long available(long nowNanos) {
+        long elapsed = nowNanos - mLastNanos;
+        if (elapsed >= NANOS_PER_SEC) {
+            // Idle for long enough to fill the bucket, this also keeps the math in range
+            mTokens = mBurst;
+            mLastNanos = nowNanos;
+            return mTokens;
+        }
+        long refill = elapsed * mBytesPerSec / NANOS_PER_SEC;
+        if (refill > 0) {
+            mTokens = Math.min(mBurst, mTokens + refill);
+            // Keep the remainder of the elapsed time for the next refill
+            mLastNanos = mTokens == mBurst
+                    ? nowNanos : mLastNanos + refill * NANOS_PER_SEC / mBytesPerSec;
+        }
+        return mTokens;
+    }
+
+    void consume(long bytes) {
+        mTokens -= bytes;
+    }
+
+    /**
+     * Returns the time when a full burst can be sent again
+     */
+    long nextNanos(long nowNanos) {
+        long missing = mBurst - mTokens;
+        return nowNanos + (missing * NANOS_PER_SEC + mBytesPerSec - 1) / mBytesPerSec;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Discards the body of an upload as it arrives, counting its bytes.
+ *
+ * Bodies with Content-Length and chunked bodies are supported. The parser keeps its
+ * state between calls, so the body can be fed in buffers of any size.
+ */
+class RequestBody {
+    private static final int STATE_SIZE = 0;
+    private static final int STATE_DATA = 1;
+    private static final int STATE_DATA_END = 2;
+    private static final int STATE_TRAILER = 3;
+    private static final int STATE_DONE = 4;
+    // Longest chunk size line accepted, including extensions
+    private static final int MAX_LINE = 1024;
+
+    private final boolean mChunked;
+    private int mState;
+    private long mRemaining;
+    private long mBytes;
+    private long mChunkSize;
+    private int mLineLength;
+    private boolean mSizeSeen;
+    private boolean mSizeDone;
+
+    private RequestBody(boolean chunked, long length) {
+        mChunked = chunked;
+        mRemaining = length;
+        mState = chunked ? STATE_SIZE : (length > 0 ? STATE_DATA : STATE_DONE);
+    }
+
+    /**
+     * Returns the body of a request
+     *
+     * @throws IllegalArgumentException if the body length is malformed
+     */
+    static RequestBody of(HttpRequest request) {
+        String encoding = request.header("transfer-encoding");
+        if (encoding != null && encoding.toLowerCase(Locale.US).contains("chunked")) {
+            return new RequestBody(true, 0);
+        }
+        String length = request.header("content-length");
+        long contentLength = length == null ? 0 : Long.parseLong(length);
+        if (contentLength < 0) {
+            throw new IllegalArgumentException("Negative Content-Length " + contentLength);
+        }
+        return new RequestBody(false, contentLength);
+    }
+
+    /**
+     * Returns the number of body bytes received, without chunk framing
+     */
+    long getBytes() {
+        return mBytes;
+    }
+
+    boolean isChunked() {
+        return mChunked;
+    }
+
+    /**
+     * Consume body bytes from the buffer, stopping at the end of the body
+     *
+     * @return true if the body is complete
+     * @throws IllegalArgumentException if the chunk framing is malformed
+     */
+    boolean consume(ByteBuffer buffer) {
+        while (mState != STATE_DONE && buffer.hasRemaining()) {
+            switch (mState) {
+                case STATE_DATA: {
+                    int n = (int) Math.min(mRemaining, buffer.remaining());
+                    buffer.position(buffer.position() + n);
+                    mRemaining -= n;
+                    mBytes += n;
+                    if (mRemaining == 0) {
+                        mState = mChunked ? STATE_DATA_END : STATE_DONE;
+                    }
+                    break;
+                }
+                case STATE_SIZE:
+                    parseSize(buffer.get());
+                    break;
+                case STATE_DATA_END:
+                    // CRLF after the chunk data
+                    if (buffer.get() == '\n') mState = STATE_SIZE;
+                    break;
+                case STATE_TRAILER:
+                    // Trailer fields are skipped up to the empty line
+                    byte b = buffer.get();
+                    if (b == '\n') {
+                        if (mLineLength == 0) mState = STATE_DONE;
+                        mLineLength = 0;
+                    } else if (b != '\r') {
+                        mLineLength++;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return mState == STATE_DONE;
+    }
+
+    private void parseSize(byte b) {
+        if (++mLineLength > MAX_LINE) {
+            throw new IllegalArgumentException("Chunk size line too long");
+        }
+        if (b == '\n') {
+            if (!mSizeSeen) throw new IllegalArgumentException("Missing chunk size");
+            mLineLength = 0;
+            mSizeSeen = false;
+            mSizeDone = false;
+            mRemaining = mChunkSize;
+            mChunkSize = 0;
+            // The last chunk has size 0 and is followed by the trailer
+            mState = mRemaining == 0 ? STATE_TRAILER : STATE_DATA;
+            return;
+        }
+        if (mSizeDone || b == '\r') return;
+        int digit = Character.digit(b, 16);
+        if (digit < 0) {
+            // Chunk extensions after the size are ignored
+            if (b != ';' && b != ' ' && b != '\t') {
+                throw new IllegalArgumentException("Bad chunk size");
+            }
+            mSizeDone = true;
+            return;
+        }
+        if (mChunkSize > (Long.MAX_VALUE >> 4)) {
+            throw new IllegalArgumentException("Chunk size too large");
+        }
+        mChunkSize = (mChunkSize << 4) | digit;
+        mSizeSeen = true;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+import javax.net.ssl.SSLEngine;
+
+/**
+ * One selector thread serving many connections.
+ *
+ * Accepted channels are handed over through queues, one for plain HTTP and one for
+ * channels accepted on the TLS port. Connections waiting for added
+ * latency or for their rate limit are parked on a timer queue, which bounds the
+ * selector timeout, instead of holding a thread. Work that takes a pass over the
+ * content runs on the shared workers, which hand the result back with post().
+ */
+class SelectorLoop implements Runnable {
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final int SCRATCH_SIZE = 64 * 1024;
+
+    private final Selector mSelector;
+    private final ContentStore mStore;
+    private final ContentServer.Config mConfig;
+    private final ServerStats mStats;
+    private final Executor mWorkers;
+    private final Thread mThread;
+    private final ConcurrentLinkedQueue<SocketChannel> mPending = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<SocketChannel> mPendingTls =
+            new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Runnable> mTasks = new ConcurrentLinkedQueue<>();
+    private final PriorityQueue<Timer> mTimers = new PriorityQueue<>();
+    // Upload bodies are read through here and discarded, connections take turns
+    private final ByteBuffer mScratch = ByteBuffer.allocateDirect(SCRATCH_SIZE);
+    private volatile boolean mRunning = true;
+
+    SelectorLoop(String name, ContentStore store, ContentServer.Config config, ServerStats stats,
+            Executor workers) throws IOException {
+        mSelector = Selector.open();
+        mStore = store;
+        mConfig = config;
+        mStats = stats;
+        mWorkers = workers;
+        mThread = new Thread(this, name);
+    }
+
+    void start() {
+        mThread.start();
+    }
+
+    void shutdown() throws InterruptedException {
+        mRunning = false;
+        mSelector.wakeup();
+        mThread.join();
+    }
+
+    /**
+     * Hand over an accepted channel, called from the accept threads
+     *
+     * @param channel - accepted channel
+     * @param tls - true to serve the channel with TLS
+     */
+    void add(SocketChannel channel, boolean tls) {
+        (tls ? mPendingTls : mPending).add(channel);
+        mSelector.wakeup();
+    }
+
+    /**
+     * Run a task on the loop thread, called from the workers
+     */
+    void post(Runnable task) {
+        mTasks.add(task);
+        mSelector.wakeup();
+    }
+
+    /**
+     * Wake a connection up at a given time, called from the loop thread only.
+     * A connection has at most one wakeup, a new one replaces the old one.
+     */
+    void schedule(HttpConnection connection, long nanos) {
+        connection.wakeNanos = nanos;
+        mTimers.add(new Timer(connection, nanos));
+    }
+
+    ByteBuffer getScratch() {
+        return mScratch;
+    }
+
+    ContentStore getStore() {
+        return mStore;
+    }
+
+    ContentServer.Config getConfig() {
+        return mConfig;
+    }
+
+    ServerStats getStats() {
+        return mStats;
+    }
+
+    Executor getWorkers() {
+        return mWorkers;
+    }
+
+    @Override
+    public void run() {
+        while (mRunning) {
+            try {
+                Timer next = mTimers.peek();
+                if (next == null) {
+                    mSelector.select();
+                } else {
+                    long waitNanos = next.nanos - System.nanoTime();
+                    if (waitNanos <= 0) {
+                        mSelector.selectNow();
+                    } else {
+                        mSelector.select((waitNanos + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI);
+                    }
+                }
+                registerPending();
+                runTasks();
+                handleSelected();
+                runTimers();
+            } catch (IOException e) {
+                System.err.println("Selector failed: " + e);
+                break;
+            }
+        }
+        for (SelectionKey key : mSelector.keys()) {
+            ((HttpConnection) key.attachment()).close();
+        }
+        try {
+            mSelector.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close selector: " + e);
+        }
+    }
+
+    private void registerPending() throws IOException {
+        SocketChannel channel;
+        while ((channel = mPending.poll()) != null) {
+            register(channel, false);
+        }
+        while ((channel = mPendingTls.poll()) != null) {
+            register(channel, true);
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = mTasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Task failed: " + e);
+            }
+        }
+    }
+
+    private void register(SocketChannel channel, boolean tls) throws IOException {
+        try {
+            channel.configureBlocking(false);
+            TlsChannel tlsChannel = null;
+            if (tls) {
+                SSLEngine engine = mConfig.sslContext.createSSLEngine();
+                engine.setUseClientMode(false);
+                tlsChannel = new TlsChannel(channel, engine, mStats);
+            }
+            SelectionKey key = channel.register(mSelector, SelectionKey.OP_READ);
+            key.attach(new HttpConnection(this, channel, key, tlsChannel));
+            mStats.accepted.increment();
+        } catch (IOException e) {
+            System.err.println("Failed to register connection: " + e);
+            channel.close();
+        }
+    }
+
+    private void handleSelected() {
+        long now = System.nanoTime();
+        Iterator<SelectionKey> keys = mSelector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            HttpConnection connection = (HttpConnection) key.attachment();
+            if (!key.isValid()) continue;
+            try {
+                connection.onReady(key.readyOps(), now);
+            } catch (IOException e) {
+                // Mostly clients going away in the middle of a response
+                connection.close();
+            } catch (RuntimeException e) {
+                // A bug with one connection must not take down the others of the loop
+                System.err.println("Connection failed: " + e);
+                connection.close();
+            }
+        }
+    }
+
+    private void runTimers() {
+        long now = System.nanoTime();
+        while (!mTimers.isEmpty() && mTimers.peek().nanos <= now) {
+            Timer timer = mTimers.poll();
+            HttpConnection connection = timer.connection;
+            // Skip wakeups replaced by a newer one or of closed connections
+            if (connection.wakeNanos != timer.nanos || connection.isClosed()) continue;
+            connection.wakeNanos = -1;
+            try {
+                connection.onTimer(now);
+            } catch (IOException e) {
+                connection.close();
+            } catch (RuntimeException e) {
+                System.err.println("Connection failed: " + e);
+                connection.close();
+            }
+        }
+    }
+
+    private static class Timer implements Comparable<Timer> {
+        final HttpConnection connection;
+        final long nanos;
+
+        Timer(HttpConnection connection, long nanos) {
+            this.connection = connection;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public int compareTo(Timer other) {
+            return Long.compare(nanos, other.nanos);
+        }
+    }
+}
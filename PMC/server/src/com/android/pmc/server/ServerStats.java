@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of all connections of the server, updated by every selector thread.
+ */
+class ServerStats {
+    final LongAdder accepted = new LongAdder();
+    final LongAdder closed = new LongAdder();
+    final LongAdder requests = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder bodyBytes = new LongAdder();
+    final LongAdder uploadBytes = new LongAdder();
+    final LongAdder tlsFull = new LongAdder();
+    final LongAdder tlsResumed = new LongAdder();
+
+    long active() {
+        return accepted.sum() - closed.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "connections " + active() + " active, " + accepted.sum() + " accepted; requests "
+                + requests.sum() + ", errors " + errors.sum() + ", body bytes "
+                + bodyBytes.sum() + ", upload bytes " + uploadBytes.sum() + "; TLS handshakes "
+                + tlsFull.sum() + " full, " + tlsResumed.sum() + " resumed";
+    }
+}
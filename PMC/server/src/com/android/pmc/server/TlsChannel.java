@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+/**
+ * Non-blocking TLS over a socket channel with an SSLEngine.
+ *
+ * read() and write() behave like the ones of a non-blocking SocketChannel and drive the
+ * handshake as needed. Records which didn't fit into the socket buffer stay queued, so
+ * the owner has to ask interestOps() for what to wait for and call flush() when the
+ * channel is writable. All buffers are kept in write mode between calls.
+ */
+class TlsChannel implements ByteChannel {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final SocketChannel mChannel;
+    private final SSLEngine mEngine;
+    private final ServerStats mStats;
+    // Records received from the socket and not unwrapped yet
+    private final ByteBuffer mNetIn;
+    // Records wrapped and not written to the socket yet
+    private final ByteBuffer mNetOut;
+    // Plain bytes unwrapped and not read yet
+    private final ByteBuffer mAppIn;
+    private final long mStartMillis;
+    private boolean mHandshakeDone;
+
+    /**
+     * Constructor
+     *
+     * @param channel - connected non-blocking channel
+     * @param engine - server mode engine for the connection
+     * @param stats - counters for the handshakes
+     */
+    TlsChannel(SocketChannel channel, SSLEngine engine, ServerStats stats) throws SSLException {
+        mChannel = channel;
+        mEngine = engine;
+        mStats = stats;
+        SSLSession session = engine.getSession();
+        mNetIn = ByteBuffer.allocate(session.getPacketBufferSize());
+        mNetOut = ByteBuffer.allocate(session.getPacketBufferSize());
+        mAppIn = ByteBuffer.allocate(session.getApplicationBufferSize());
+        mStartMillis = System.currentTimeMillis();
+        engine.beginHandshake();
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (mAppIn.position() == 0 && fill() < 0) return -1;
+        mAppIn.flip();
+        int n = Math.min(mAppIn.remaining(), dst.remaining());
+        int limit = mAppIn.limit();
+        mAppIn.limit(mAppIn.position() + n);
+        dst.put(mAppIn);
+        mAppIn.limit(limit);
+        mAppIn.compact();
+        return n;
+    }
+
+    /**
+     * Unwrap records until there are plain bytes to read
+     *
+     * @return number of plain bytes, 0 if more records have to arrive, -1 at the end of
+     *         the stream
+     */
+    private int fill() throws IOException {
+        while (true) {
+            if (!handshake()) return 0;
+            mNetIn.flip();
+            SSLEngineResult result;
+            try {
+                result = mEngine.unwrap(mNetIn, mAppIn);
+            } finally {
+                mNetIn.compact();
+            }
+            switch (result.getStatus()) {
+                case OK:
+                    if (mAppIn.position() > 0) return mAppIn.position();
+                    break;
+                case BUFFER_UNDERFLOW:
+                    int n = mChannel.read(mNetIn);
+                    if (n < 0) return -1;
+                    if (n == 0) return 0;
+                    break;
+                case CLOSED:
+                    // close_notify of the client
+                    return -1;
+                default:
+                    throw new SSLException("Unexpected unwrap result " + result);
+            }
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int start = src.remaining();
+        while (src.hasRemaining() && handshake() && flush()) {
+            SSLEngineResult result = mEngine.wrap(src, mNetOut);
+            if (result.getStatus() != SSLEngineResult.Status.OK) {
+                throw new SSLException("Unexpected wrap result " + result);
+            }
+        }
+        flush();
+        return start - src.remaining();
+    }
+
+    /**
+     * Write queued records to the socket
+     *
+     * @return true if nothing is queued anymore
+     */
+    boolean flush() throws IOException {
+        if (mNetOut.position() == 0) return true;
+        mNetOut.flip();
+        try {
+            mChannel.write(mNetOut);
+        } finally {
+            mNetOut.compact();
+        }
+        return mNetOut.position() == 0;
+    }
+
+    /**
+     * Queue close_notify and write as much as possible
+     *
+     * @return true if everything has been written and the socket can be closed
+     */
+    boolean shutdownOutput() throws IOException {
+        mEngine.closeOutbound();
+        while (!mEngine.isOutboundDone() && flush()) {
+            SSLEngineResult result = mEngine.wrap(EMPTY, mNetOut);
+            if (result.getStatus() != SSLEngineResult.Status.CLOSED) break;
+        }
+        return flush();
+    }
+
+    /**
+     * Run the handshake as far as the socket allows
+     *
+     * @return true if the handshake is done, false if it waits for the socket
+     */
+    private boolean handshake() throws IOException {
+        while (true) {
+            switch (mEngine.getHandshakeStatus()) {
+                case NEED_TASK:
+                    Runnable task;
+                    while ((task = mEngine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                    break;
+                case NEED_WRAP:
+                    if (!flush()) return false;
+                    checkFinished(mEngine.wrap(EMPTY, mNetOut));
+                    break;
+                case NEED_UNWRAP:
+                case NEED_UNWRAP_AGAIN:
+                    mNetIn.flip();
+                    SSLEngineResult result;
+                    try {
+                        result = mEngine.unwrap(mNetIn, mAppIn);
+                    } finally {
+                        mNetIn.compact();
+                    }
+                    checkFinished(result);
+                    if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                        throw new EOFException("Closed during handshake");
+                    }
+                    if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                        if (!flush()) return false;
+                        int n = mChannel.read(mNetIn);
+                        if (n < 0) throw new EOFException("Closed during handshake");
+                        if (n == 0) return false;
+                    }
+                    break;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    private void checkFinished(SSLEngineResult result) {
+        if (mHandshakeDone
+                || result.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.FINISHED) {
+            return;
+        }
+        mHandshakeDone = true;
+        // A resumed session was created by an earlier connection
+        if (mEngine.getSession().getCreationTime() < mStartMillis) {
+            mStats.tlsResumed.increment();
+        } else {
+            mStats.tlsFull.increment();
+        }
+    }
+
+    /**
+     * Returns the interest ops for the socket when the owner waits for ops
+     */
+    int interestOps(int ops) {
+        if (mNetOut.position() > 0) ops |= SelectionKey.OP_WRITE;
+        SSLEngineResult.HandshakeStatus status = mEngine.getHandshakeStatus();
+        if (status == SSLEngineResult.HandshakeStatus.NEED_UNWRAP) ops |= SelectionKey.OP_READ;
+        return ops;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return mChannel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mChannel.close();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.util.Log;
+
+import com.android.pmc.hal.Clock;
+import com.android.pmc.hal.MediaPlayerHal;
+import com.android.pmc.hal.PmcHal;
+
+/**
+ * Music playback for A2DP codec power testing, the music is stopped by an alarm
+ * after the play time.
+ */
+public class A2dpPlaybackWorkload {
+    public static final String TAG = "A2DPPOWER";
+    public static final int THOUSAND = 1000;
+    public static final float NORMAL_VOLUME = 0.3f;
+    public static final float ZERO_VOLUME = 0.0f;
+    private static final String ALARM_NAME = "A2dp";
+
+    private final Clock mClock;
+    private final WorkloadLifecycle mLifecycle;
+    private final MediaPlayerHal mPlayer;
+
+    /**
+     * Constructor
+     *
+     * @param hal - devices to be used for playback and alarms
+     */
+    public A2dpPlaybackWorkload(PmcHal hal) {
+        mClock = hal.getClock();
+        mLifecycle = new WorkloadLifecycle(hal, "A2dp");
+        mPlayer = hal.getMediaPlayerHal();
+    }
+
+    /**
+     * Play music in a loop
+     *
+     * @param musicURL - Music URL
+     * @param mute - true is to mute speakers
+     * @return true if the music is playing
+     */
+    public boolean play(String musicURL, boolean mute) {
+        float volume;
+        if (mute) {
+            Log.v(TAG, "Mute Speakers for Bluetooth off baseline case");
+            volume = ZERO_VOLUME;
+        } else {
+            Log.d(TAG, "Set Normal Volume for speakers");
+            volume = NORMAL_VOLUME;
+        }
+        if (!mPlayer.start(musicURL, volume, true) || !mPlayer.isPlaying()) {
+            Log.e(TAG, "Media Player is not playing");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Start the alarm to stop playing
+     *
+     * @param playTime - time (sec) how long the music is played
+     * @param logger - logger to report the end of the test to Python client
+     */
+    public void stopAfter(int playTime, final PMCStatusLogger logger) {
+        long triggerTime = mClock.elapsedRealtime() + playTime * THOUSAND;
+        mLifecycle.setAlarm(ALARM_NAME, triggerTime, true, new Runnable() {
+            @Override
+            public void run() {
+                Log.v(TAG, "Alarm Message to Stop playing");
+                logger.logStatus("SUCCEED");
+                mPlayer.stop();
+            }
+        });
+    }
+
+    /**
+     * Stop playing and cancel the pending alarm
+     */
+    public void stop() {
+        mLifecycle.cancelAlarm(ALARM_NAME);
+        mPlayer.stop();
+        mLifecycle.close();
+    }
+}
@@ -16,8 +16,6 @@
 
 package com.android.pmc;
 
-import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.bluetooth.BluetoothA2dp;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothCodecConfig;
@@ -28,35 +26,29 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.media.MediaPlayer;
-import android.net.Uri;
 import android.os.Bundle;
-import android.os.SystemClock;
 import android.util.Log;
 
+import com.android.pmc.hal.PmcHal;
+
 import java.util.ArrayList;
 import java.util.Set;
 
 /**
  * Bluetooth A2DP Receiver functions for codec power testing.
  */
-public class A2dpReceiver extends BroadcastReceiver {
-    public static final String TAG = "A2DPPOWER";
+public class A2dpReceiver extends BroadcastReceiver implements PMCSubsystem {
+    public static final String TAG = A2dpPlaybackWorkload.TAG;
     public static final String A2DP_INTENT = "com.android.pmc.A2DP";
-    public static final String A2DP_ALARM = "com.android.pmc.A2DP.Alarm";
     public static final int THOUSAND = 1000;
     public static final int WAIT_SECONDS = 10;
-    public static final int ALARM_MESSAGE = 1;
-
-    public static final float NORMAL_VOLUME = 0.3f;
-    public static final float ZERO_VOLUME = 0.0f;
 
     private final Context mContext;
-    private final AlarmManager mAlarmManager;
     private final BluetoothAdapter mBluetoothAdapter;
+    private final A2dpPlaybackWorkload mPlayback;
 
-    private MediaPlayer mPlayer;
     private BluetoothA2dp mBluetoothA2dp;
+    private boolean mCodecReceiverRegistered = false;
 
     private PMCStatusLogger mPMCStatusLogger;
 
@@ -99,12 +91,11 @@ public class A2dpReceiver extends BroadcastReceiver {
      * Constructor to be called by PMC
      *
      * @param context - PMC will provide a context
-     * @param alarmManager - PMC will provide alarmManager
+     * @param hal - PMC will provide the devices to be used for playback and alarms
      */
-    public A2dpReceiver(Context context, AlarmManager alarmManager) {
-        // Prepare for setting alarm service
+    public A2dpReceiver(Context context, PmcHal hal) {
         mContext = context;
-        mAlarmManager = alarmManager;
+        mPlayback = new A2dpPlaybackWorkload(hal);
 
         mBluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
         if (mBluetoothAdapter == null) {
@@ -131,10 +122,27 @@ public class A2dpReceiver extends BroadcastReceiver {
         filter = new IntentFilter();
         filter.addAction(BluetoothA2dp.ACTION_CODEC_CONFIG_CHANGED);
         mContext.registerReceiver(mBluetoothA2dpReceiver, filter);
+        mCodecReceiverRegistered = true;
 
         Log.d(TAG, "A2dpReceiver()");
     }
 
+    /**
+     * Stop playing, unregister the codec receiver and close the A2DP profile proxy
+     */
+    @Override
+    public void release() {
+        mPlayback.stop();
+        if (mCodecReceiverRegistered) {
+            mContext.unregisterReceiver(mBluetoothA2dpReceiver);
+            mCodecReceiverRegistered = false;
+        }
+        if (mBluetoothA2dp != null) {
+            mBluetoothAdapter.closeProfileProxy(BluetoothProfile.A2DP, mBluetoothA2dp);
+            mBluetoothA2dp = null;
+        }
+    }
+
     /**
      * initialize() to setup Bluetooth adapters and check if Bluetooth device is connected
      *              it is called when PMC command is received to start streaming
@@ -166,7 +174,7 @@ public class A2dpReceiver extends BroadcastReceiver {
     }
 
     /**
-     * Method to receive the broadcast from Python client or AlarmManager
+     * Method to receive the broadcast from Python client
      *
      * @param context - system will provide a context to this function
      * @param intent - system will provide an intent to this function
@@ -174,17 +182,8 @@ public class A2dpReceiver extends BroadcastReceiver {
     @Override
     public void onReceive(Context context, Intent intent) {
         if (!intent.getAction().equals(A2DP_INTENT)) return;
-        boolean alarm = intent.hasExtra(A2DP_ALARM);
-        if (alarm) {
-            Log.v(TAG, "Alarm Message to Stop playing");
-            mPMCStatusLogger.logStatus("SUCCEED");
-            mPlayer.stop();
-            // Release the Media Player
-            mPlayer.release();
-        } else {
-            Log.d(TAG, "Received PMC command message");
-            processParameters(intent);
-        }
+        Log.d(TAG, "Received PMC command message");
+        processParameters(intent);
     }
 
     /**
@@ -324,7 +323,7 @@ public class A2dpReceiver extends BroadcastReceiver {
             }
         }
 
-        if (playMusic(musicUrl, bt_off_mute)) {
+        if (mPlayback.play(musicUrl, bt_off_mute)) {
             // Set the requested Codecs on the device for normal codec cases
             if (!bt_off_mute) {
                 if (!setCodecValue(codecType, sampleRate, bitsPerSample, channelMode,
@@ -333,65 +332,13 @@ public class A2dpReceiver extends BroadcastReceiver {
                 }
             }
             mPMCStatusLogger.logStatus("READY");
-            startAlarm(playTime);
+            mPlayback.stopAfter(playTime, mPMCStatusLogger);
         } else {
             mPMCStatusLogger.logStatus("playMusic() Failed");
         }
     }
 
 
-    /**
-     * Function to setup MediaPlayer and play music
-     *
-     * @param musicURL - Music URL
-     * @param btOffMute - true is to mute speakers
-     *
-     */
-    private boolean playMusic(String musicURL, boolean btOffMute) {
-
-        mPlayer = MediaPlayer.create(mContext, Uri.parse(musicURL));
-        if (mPlayer == null) {
-            Log.e(TAG, "Failed to create Media Player");
-            return false;
-        }
-        Log.d(TAG, "Media Player created: " + musicURL);
-
-        if (btOffMute) {
-            Log.v(TAG, "Mute Speakers for Bluetooth off baseline case");
-            mPlayer.setVolume(ZERO_VOLUME, ZERO_VOLUME);
-        } else {
-            Log.d(TAG, "Set Normal Volume for speakers");
-            mPlayer.setVolume(NORMAL_VOLUME, NORMAL_VOLUME);
-        }
-        // Play Music now and setup looping
-        mPlayer.start();
-        mPlayer.setLooping(true);
-        if (!mPlayer.isPlaying()) {
-            Log.e(TAG, "Media Player is not playing");
-            return false;
-        }
-
-        return true;
-    }
-
-    /**
-     * Function to be called to start alarm
-     *
-     * @param alarmStartTime - time when the music needs to be started or stopped
-     */
-    private void startAlarm(int alarmStartTime) {
-
-        Intent alarmIntent = new Intent(A2DP_INTENT);
-        alarmIntent.putExtra(A2DP_ALARM, ALARM_MESSAGE);
-
-        long triggerTime = SystemClock.elapsedRealtime()
-                               + alarmStartTime * THOUSAND;
-        mAlarmManager.setExactAndAllowWhileIdle(
-                          AlarmManager.ELAPSED_REALTIME_WAKEUP, triggerTime,
-                          PendingIntent.getBroadcast(mContext, 0,
-                                        alarmIntent, PendingIntent.FLAG_UPDATE_CURRENT));
-    }
-
     /**
      * Function to get current codec config
      * @param printCapabilities - Flag to indicate if to print local and selectable capabilities
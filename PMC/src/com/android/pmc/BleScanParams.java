@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.os.Bundle;
+import android.util.Log;
+
+/**
+ * Parameters of a BLE scan test sent by the Python client as intent extras.
+ */
+public class BleScanParams {
+    private final int mScanMode;
+    private final int mStartTime;
+    private final int mScanTime;
+    private final int mNoScanTime;
+    private final int mRepetitions;
+
+    private BleScanParams(int scanMode, int startTime, int scanTime, int noScanTime,
+            int repetitions) {
+        mScanMode = scanMode;
+        mStartTime = startTime;
+        mScanTime = scanTime;
+        mNoScanTime = noScanTime;
+        mRepetitions = repetitions;
+    }
+
+    /**
+     * Parse BLE scan parameters from the intent extras
+     *
+     * @param extras - extras of the BLESCAN intent
+     * @param tag - tag to be used for logging
+     * @return parsed parameters, null if a parameter is missing or invalid
+     */
+    public static BleScanParams parse(Bundle extras, String tag) {
+        int scanMode = -1, startTime = 0, scanTime = 0, noScanTime = 0;
+        int repetitions = 1;
+        String str;
+
+        if (extras == null) {
+            Log.e(tag, "No parameters specified");
+            return null;
+        }
+
+        if (!extras.containsKey("ScanMode")) {
+            Log.e(tag, "No scan mode specified");
+            return null;
+        }
+        str = extras.getString("ScanMode");
+        Log.d(tag, "Scan Mode = " + str);
+        scanMode = Integer.valueOf(str);
+
+        if (!extras.containsKey("StartTime")) {
+            Log.e(tag, "No Start Time specified");
+            return null;
+        }
+        str = extras.getString("StartTime");
+        Log.d(tag, "Start Time = " + str);
+        startTime = Integer.valueOf(str);
+
+        if (!extras.containsKey("ScanTime")) {
+            Log.e(tag, "No Scan Time specified");
+            return null;
+        }
+        str = extras.getString("ScanTime");
+        Log.d(tag, "Scan Time = " + str);
+        scanTime = Integer.valueOf(str);
+
+        if (extras.containsKey("Repetitions")) {
+
+            str = extras.getString("Repetitions");
+            Log.d(tag, "Repetitions = " + str);
+            repetitions = Integer.valueOf(str);
+
+            if (!extras.containsKey("NoScanTime")) {
+                Log.e(tag, "No NoScan Time specified");
+                return null;
+            }
+            str = extras.getString("NoScanTime");
+            Log.d(tag, "NoScan Time = " + str);
+            noScanTime = Integer.valueOf(str);
+        }
+        if (scanTime == 0 || startTime == 0 || scanMode == -1) {
+            Log.d(tag, "Invalid paramters");
+            return null;
+        }
+        return new BleScanParams(scanMode, startTime, scanTime, noScanTime, repetitions);
+    }
+
+    public int getScanMode() {
+        return mScanMode;
+    }
+
+    public int getStartTime() {
+        return mStartTime;
+    }
+
+    public int getScanTime() {
+        return mScanTime;
+    }
+
+    public int getNoScanTime() {
+        return mNoScanTime;
+    }
+
+    public int getRepetitions() {
+        return mRepetitions;
+    }
+}
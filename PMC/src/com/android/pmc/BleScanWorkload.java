@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.util.Log;
+
+import com.android.pmc.hal.BleScanHal;
+import com.android.pmc.hal.Clock;
+import com.android.pmc.hal.PmcHal;
+
+/**
+ * Bluetooth LE scan workload for power testing, alarms start and stop the scan
+ * for a number of cycles.
+ */
+public class BleScanWorkload implements BleScanHal.ScanListener {
+    public static final String TAG = "BLEPOWER";
+    public static final int START_SCAN = 1;
+    public static final int STOP_SCAN = 2;
+    public static final int INIT_ALARM_NO = 1;
+    private static final String ALARM_NAME = "BleScan";
+    private static final String SCAN_REGISTRATION = "Scan";
+    // Filter on a device name, to force scan even with screen OFF
+    private static final String FILTER_DEVICE_NAME = "dummy";
+
+    private final Clock mClock;
+    private final WorkloadLifecycle mLifecycle;
+    private final BleScanHal mBleScanner;
+    // Use PMCStatusLogger to send status and start & end times back to Python client
+    private PMCStatusLogger mPMCStatusLogger;
+    // Test start time is set when receiving the broadcast message from Python client
+    private long mStartTestTime;
+    private int mScanMode;
+    private int mScanTime;
+    private int mNoScanTime;
+    private int mNumAlarms;
+    private int mFirstScanTime;
+    private long mScanStartTime;
+    private long mScanEndTime;
+
+    /**
+     * Constructor
+     *
+     * @param hal - devices to be used for scanning and alarms
+     */
+    public BleScanWorkload(PmcHal hal) {
+        mClock = hal.getClock();
+        mLifecycle = new WorkloadLifecycle(hal, "BleScan");
+        mBleScanner = hal.getBleScanHal();
+    }
+
+    /**
+     * Start the scan cycles of a test
+     *
+     * @param params - parameters of the test
+     * @param logger - logger to send status and scan times back to Python client
+     * @return true if the BLE scanner is ready to start the test
+     */
+    public boolean start(BleScanParams params, PMCStatusLogger logger) {
+        mStartTestTime = mClock.currentTimeMillis();
+        mPMCStatusLogger = logger;
+        firstAlarm(params.getScanMode(), params.getStartTime(), params.getScanTime(),
+                params.getNoScanTime(), params.getRepetitions() * 2);
+        return mBleScanner.isReady();
+    }
+
+    /**
+     * Stop the running scan and cancel pending alarms
+     */
+    public void stop() {
+        mLifecycle.cancelAlarm(ALARM_NAME);
+        mLifecycle.removeRegistration(SCAN_REGISTRATION);
+        mLifecycle.close();
+    }
+
+    /**
+     * Start the initial Bluetooth scan alarm
+     *
+     * @param scanMode - scan mode
+     * @param startTime - time when the first scan needs to be started
+     * @param scanTime - time for the scan is lasted
+     * @param noScanTime - time when the scan is stopped
+     * @param numAlarms - number of alarms to start and to stop scan
+     */
+    private void firstAlarm(int scanMode, int startTime, int scanTime,
+                            int noScanTime, int numAlarms) {
+        Log.d(TAG, "First Alarm for scan mode: " + scanMode);
+        mScanMode = scanMode;
+        mScanTime = scanTime;
+        mNoScanTime = noScanTime;
+        mNumAlarms = numAlarms;
+        mFirstScanTime = startTime;
+        setAlarm(startTime, START_SCAN, INIT_ALARM_NO);
+    }
+
+    /**
+     * Start subsequent alarm
+     *
+     * @param currentAlarm - number of the alarm which just fired
+     * @param timeInterval - time for alarm to trigger next alarm
+     * @param nextAction - next action for the alarm
+     */
+    private void repeatAlarm(int currentAlarm, int timeInterval, int nextAction) {
+        Log.d(TAG, "repeatAlarm() currentAlarm: " + currentAlarm);
+        if (currentAlarm >= mNumAlarms) {
+            mPMCStatusLogger.flash();  // To flash out timestamps into log file
+            Log.d(TAG, "All alarms are done");
+            return;
+        }
+        Log.d(TAG, "Next Action: " + nextAction);
+        setAlarm(timeInterval, nextAction, currentAlarm + 1);
+    }
+
+    private void setAlarm(int delay, final int action, final int alarmNo) {
+        long triggerTime = mClock.elapsedRealtime() + delay * 1000;
+        mLifecycle.setAlarm(ALARM_NAME, triggerTime, true, new Runnable() {
+            @Override
+            public void run() {
+                onAlarm(action, alarmNo);
+            }
+        });
+    }
+
+    /**
+     * Called by the alarm to start or stop Bluetooth LE scan
+     *
+     * @param action - START_SCAN or STOP_SCAN
+     * @param currentAlarm - number of this alarm
+     */
+    private void onAlarm(int action, int currentAlarm) {
+        Log.d(TAG, "onAlarm() Action: " + action);
+        if (action == START_SCAN) {
+            Log.v(TAG, "Before Start Scan");
+            mScanStartTime = mClock.currentTimeMillis();
+            if (mBleScanner.startScan(mScanMode, FILTER_DEVICE_NAME, this)) {
+                mLifecycle.addRegistration(SCAN_REGISTRATION, new WorkloadLifecycle.Registration() {
+                    @Override
+                    public void unregister() {
+                        mBleScanner.stopScan(BleScanWorkload.this);
+                    }
+                });
+            }
+            repeatAlarm(currentAlarm, mScanTime, STOP_SCAN);
+        } else if (action == STOP_SCAN) {
+            Log.v(TAG, "Before Stop scan");
+            mScanEndTime = mClock.currentTimeMillis();
+            mPMCStatusLogger.logAlarmTimes(mScanStartTime / 1000.0, mScanEndTime / 1000.0);
+            mLifecycle.removeRegistration(SCAN_REGISTRATION);
+            if ((mScanEndTime - mStartTestTime)
+                    < ((mScanTime + mNoScanTime) * mNumAlarms / 2 + mFirstScanTime) * 1000) {
+                repeatAlarm(currentAlarm, mNoScanTime, START_SCAN);
+            } else {
+                mPMCStatusLogger.flash();  // To flash out timestamps into log file
+                Log.d(TAG, "Time is up to end");
+            }
+        } else {
+            Log.e(TAG, "Unknown Action");
+        }
+    }
+
+    @Override
+    public void onScanResult(String address, int rssi) {
+        Log.e(TAG, "Bluetooth scan result: " + address + " rssi: " + rssi);
+    }
+
+    @Override
+    public void onScanFailed(int errorCode) {
+        Log.e(TAG, "Scan Failed: " + errorCode);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.Checksum;
+
+/**
+ * CRC-32C (Castagnoli) checksum.
+ *
+ * The table driven update processes 8 bytes per step (slicing-by-8). combine() joins
+ * the checksums of two adjacent segments, so that segments of one download can be
+ * checksummed in parallel. This class has no Android dependencies so that it can be
+ * benchmarked on the host.
+ */
+public class Crc32c implements Checksum {
+    // Reflected polynomial 0x1EDC6F41
+    private static final int POLY = 0x82F63B78;
+    private static final int[][] TABLES = makeTables();
+
+    private int mCrc = 0xFFFFFFFF;
+
+    private static int[][] makeTables() {
+        int[][] tables = new int[8][256];
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc >>> 1) ^ (POLY & -(crc & 1));
+            }
+            tables[0][i] = crc;
+        }
+        for (int i = 0; i < 256; i++) {
+            for (int t = 1; t < 8; t++) {
+                int crc = tables[t - 1][i];
+                tables[t][i] = (crc >>> 8) ^ tables[0][crc & 0xFF];
+            }
+        }
+        return tables;
+    }
+
+    @Override
+    public void update(int b) {
+        mCrc = (mCrc >>> 8) ^ TABLES[0][(mCrc ^ b) & 0xFF];
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        int[] t0 = TABLES[0];
+        int[] t1 = TABLES[1];
+        int[] t2 = TABLES[2];
+        int[] t3 = TABLES[3];
+        int[] t4 = TABLES[4];
+        int[] t5 = TABLES[5];
+        int[] t6 = TABLES[6];
+        int[] t7 = TABLES[7];
+        int crc = mCrc;
+        int end = off + len;
+        for (; off + 8 <= end; off += 8) {
+            crc ^= (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16
+                    | b[off + 3] << 24;
+            crc = t7[crc & 0xFF] ^ t6[(crc >>> 8) & 0xFF] ^ t5[(crc >>> 16) & 0xFF]
+                    ^ t4[crc >>> 24] ^ t3[b[off + 4] & 0xFF] ^ t2[b[off + 5] & 0xFF]
+                    ^ t1[b[off + 6] & 0xFF] ^ t0[b[off + 7] & 0xFF];
+        }
+        for (; off < end; off++) {
+            crc = (crc >>> 8) ^ t0[(crc ^ b[off]) & 0xFF];
+        }
+        mCrc = crc;
+    }
+
+    public void update(byte[] b) {
+        update(b, 0, b.length);
+    }
+
+    /**
+     * Update with the remaining bytes of a buffer, the position is moved to the limit
+     */
+    public void update(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        // Direct buffers are read 8 bytes at a time, in the byte order of the CRC
+        ByteBuffer le = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int[] t0 = TABLES[0];
+        int[] t1 = TABLES[1];
+        int[] t2 = TABLES[2];
+        int[] t3 = TABLES[3];
+        int[] t4 = TABLES[4];
+        int[] t5 = TABLES[5];
+        int[] t6 = TABLES[6];
+        int[] t7 = TABLES[7];
+        int crc = mCrc;
+        while (le.remaining() >= 8) {
+            long v = le.getLong();
+            int high = (int) (v >>> 32);
+            crc ^= (int) v;
+            crc = t7[crc & 0xFF] ^ t6[(crc >>> 8) & 0xFF] ^ t5[(crc >>> 16) & 0xFF]
+                    ^ t4[crc >>> 24] ^ t3[high & 0xFF] ^ t2[(high >>> 8) & 0xFF]
+                    ^ t1[(high >>> 16) & 0xFF] ^ t0[high >>> 24];
+        }
+        while (le.hasRemaining()) {
+            crc = (crc >>> 8) ^ t0[(crc ^ le.get()) & 0xFF];
+        }
+        mCrc = crc;
+        buffer.position(buffer.limit());
+    }
+
+    @Override
+    public long getValue() {
+        return ~mCrc & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+        mCrc = 0xFFFFFFFF;
+    }
+
+    /**
+     * Returns the checksum of two adjacent segments
+     *
+     * @param crc1 - checksum of the first segment
+     * @param crc2 - checksum of the second segment
+     * @param len2 - length of the second segment in bytes
+     */
+    public static long combine(long crc1, long crc2, long len2) {
+        if (len2 <= 0) return crc1;
+        // Shift crc1 through len2 zero bytes with the operator matrix of one zero bit,
+        // squared to 2, 4, 8... bits, then add crc2. Same as zlib's crc32_combine().
+        int[] odd = new int[32];
+        int[] even = new int[32];
+        odd[0] = POLY;
+        int row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        square(even, odd);
+        square(odd, even);
+        int crc = (int) crc1;
+        do {
+            square(even, odd);
+            if ((len2 & 1) != 0) crc = times(even, crc);
+            len2 >>= 1;
+            if (len2 == 0) break;
+            square(odd, even);
+            if ((len2 & 1) != 0) crc = times(odd, crc);
+            len2 >>= 1;
+        } while (len2 != 0);
+        return (crc ^ (int) crc2) & 0xFFFFFFFFL;
+    }
+
+    private static int times(int[] matrix, int vec) {
+        int sum = 0;
+        for (int i = 0; vec != 0; i++, vec >>>= 1) {
+            if ((vec & 1) != 0) sum ^= matrix[i];
+        }
+        return sum;
+    }
+
+    private static void square(int[] square, int[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import com.android.pmc.hal.DownloadTransport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses gzip or deflate bodies as they stream.
+ *
+ * Unlike GZIPInputStream, the compressed bytes are read from the network apart from
+ * inflating them, so that decompression can be timed without the network: every run
+ * of inflate() over the input at hand is timed with the thread CPU clock and the wall
+ * clock. Input and output buffers and the Inflaters are allocated once and reused for
+ * every download. This class has no Android dependencies so that it can be benchmarked
+ * on the host.
+ */
+public class DownloadDecoder extends InputStream {
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int GZIP_DEFLATE = 8;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    /**
+     * CPU time of the calling thread
+     */
+    public interface CpuClock {
+        long threadCpuNanos();
+    }
+
+    /**
+     * Wall time, for hosts without a thread CPU clock. inflate() does no I/O, so this is
+     * close to CPU time unless the thread is preempted.
+     */
+    public static final CpuClock NANO_TIME = new CpuClock() {
+        @Override
+        public long threadCpuNanos() {
+            return System.nanoTime();
+        }
+    };
+
+    private final byte[] mInput;
+    private final byte[] mOutput;
+    private final CpuClock mCpuClock;
+    private final Inflater mGzipInflater = new Inflater(true);
+    private final Inflater mZlibInflater = new Inflater();
+    private final CRC32 mCrc = new CRC32();
+    private InputStream mIn;
+    private DownloadVerifier mVerifier;
+    private Inflater mInflater;
+    private boolean mGzip;
+    private int mInputPos;
+    private int mInputEnd;
+    private int mOutputPos;
+    private int mOutputEnd;
+    private boolean mFinished;
+    private long mCompressedBytes;
+    private long mUncompressedBytes;
+    private long mCpuNanos;
+    private long mWallNanos;
+
+    /**
+     * Constructor
+     *
+     * @param bufferSize - size of the input and of the output buffer
+     * @param cpuClock - clock for the decompression CPU time
+     */
+    public DownloadDecoder(int bufferSize, CpuClock cpuClock) {
+        mInput = new byte[bufferSize];
+        mOutput = new byte[bufferSize];
+        mCpuClock = cpuClock;
+    }
+
+    /**
+     * Returns the DownloadTransport.ENCODING_* of a Content-Encoding header,
+     * ENCODING_IDENTITY if it isn't one this class decodes
+     */
+    public static int encodingOf(String contentEncoding) {
+        if ("gzip".equalsIgnoreCase(contentEncoding)
+                || "x-gzip".equalsIgnoreCase(contentEncoding)) {
+            return DownloadTransport.ENCODING_GZIP;
+        }
+        if ("deflate".equalsIgnoreCase(contentEncoding)) {
+            return DownloadTransport.ENCODING_DEFLATE;
+        }
+        return DownloadTransport.ENCODING_IDENTITY;
+    }
+
+    /**
+     * Start decoding a body
+     *
+     * @param in - compressed body
+     * @param encoding - DownloadTransport.ENCODING_GZIP or ENCODING_DEFLATE
+     * @param verifier - verifier of the compressed bytes, which is started by the
+     *                   caller, null to not hash
+     */
+    public void start(InputStream in, int encoding, DownloadVerifier verifier)
+            throws IOException {
+        mIn = in;
+        mVerifier = verifier;
+        mGzip = encoding == DownloadTransport.ENCODING_GZIP;
+        mInflater = mGzip ? mGzipInflater : mZlibInflater;
+        mInflater.reset();
+        mCrc.reset();
+        mInputPos = 0;
+        mInputEnd = 0;
+        mOutputPos = 0;
+        mOutputEnd = 0;
+        mFinished = false;
+        mCompressedBytes = 0;
+        mUncompressedBytes = 0;
+        mCpuNanos = 0;
+        mWallNanos = 0;
+        if (mGzip) readGzipHeader();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (mOutputPos == mOutputEnd && !inflateOutput()) return -1;
+        return mOutput[mOutputPos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (mOutputPos == mOutputEnd && !inflateOutput()) return -1;
+        int count = Math.min(len, mOutputEnd - mOutputPos);
+        System.arraycopy(mOutput, mOutputPos, b, off, count);
+        mOutputPos += count;
+        return count;
+    }
+
+    /**
+     * Inflate into the output buffer
+     *
+     * @return false at the end of the body
+     */
+    private boolean inflateOutput() throws IOException {
+        if (mFinished) return false;
+        mOutputPos = 0;
+        mOutputEnd = 0;
+        while (mOutputEnd == 0) {
+            if (mInflater.needsInput()) {
+                if (fill() < 0) throw new EOFException("Compressed body ended early");
+                mInflater.setInput(mInput, 0, mInputEnd);
+                mInputPos = mInputEnd;
+            }
+            long cpu = mCpuClock.threadCpuNanos();
+            long wall = System.nanoTime();
+            int count;
+            try {
+                count = mInflater.inflate(mOutput);
+            } catch (DataFormatException e) {
+                throw new ZipException("Invalid compressed body: " + e.getMessage());
+            }
+            if (mGzip) mCrc.update(mOutput, 0, count);
+            mCpuNanos += mCpuClock.threadCpuNanos() - cpu;
+            mWallNanos += System.nanoTime() - wall;
+            mOutputEnd = count;
+            mUncompressedBytes += count;
+            if (mInflater.finished()) {
+                finish();
+                return mOutputEnd > 0;
+            }
+            if (count == 0 && mInflater.needsDictionary()) {
+                throw new ZipException("Compressed body needs a preset dictionary");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check the gzip trailer and read out the rest of the body
+     */
+    private void finish() throws IOException {
+        mFinished = true;
+        // Input the inflater didn't use starts the trailer
+        mInputPos = mInputEnd - mInflater.getRemaining();
+        if (mGzip) {
+            long crc = readInt();
+            long size = readInt();
+            if (crc != mCrc.getValue()) throw new ZipException("Corrupt gzip trailer");
+            if (size != (mUncompressedBytes & 0xFFFFFFFFL)) {
+                throw new ZipException("Wrong gzip size");
+            }
+        }
+        // Count and hash anything after the end, e.g. padding
+        while (fill() >= 0) {
+            // Discarded
+        }
+    }
+
+    /**
+     * Read the next input from the body into the input buffer
+     *
+     * @return number of bytes read, -1 at the end of the body
+     */
+    private int fill() throws IOException {
+        int count = mIn.read(mInput);
+        if (count < 0) return -1;
+        mInputPos = 0;
+        mInputEnd = count;
+        mCompressedBytes += count;
+        if (mVerifier != null) mVerifier.update(mInput, 0, count);
+        return count;
+    }
+
+    private int readByte() throws IOException {
+        while (mInputPos == mInputEnd) {
+            if (fill() < 0) throw new EOFException("Compressed body ended early");
+        }
+        return mInput[mInputPos++] & 0xFF;
+    }
+
+    private int readShort() throws IOException {
+        return readByte() | readByte() << 8;
+    }
+
+    private long readInt() throws IOException {
+        return (readShort() | (long) readShort() << 16) & 0xFFFFFFFFL;
+    }
+
+    private void readGzipHeader() throws IOException {
+        if (readShort() != GZIP_MAGIC) throw new ZipException("Not in gzip format");
+        if (readByte() != GZIP_DEFLATE) throw new ZipException("Unsupported gzip method");
+        int flags = readByte();
+        // Modification time, extra flags and OS
+        for (int i = 0; i < 6; i++) {
+            readByte();
+        }
+        if ((flags & FEXTRA) != 0) {
+            for (int n = readShort(); n > 0; n--) {
+                readByte();
+            }
+        }
+        if ((flags & FNAME) != 0) {
+            while (readByte() != 0) {
+                // Skip the file name
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (readByte() != 0) {
+                // Skip the comment
+            }
+        }
+        if ((flags & FHCRC) != 0) readShort();
+        // Rest of the input is deflate data
+        mInflater.setInput(mInput, mInputPos, mInputEnd - mInputPos);
+        mInputPos = mInputEnd;
+    }
+
+    /**
+     * Returns true if the whole body was decoded and checked
+     */
+    public boolean isFinished() {
+        return mFinished;
+    }
+
+    public long getCompressedBytes() {
+        return mCompressedBytes;
+    }
+
+    public long getUncompressedBytes() {
+        return mUncompressedBytes;
+    }
+
+    /**
+     * Returns the thread CPU time spent inflating
+     */
+    public long getCpuNanos() {
+        return mCpuNanos;
+    }
+
+    /**
+     * Returns the wall time spent inflating
+     */
+    public long getWallNanos() {
+        return mWallNanos;
+    }
+}
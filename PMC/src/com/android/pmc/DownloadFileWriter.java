@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.util.Log;
+
+import com.android.pmc.hal.DownloadPhases;
+import com.android.pmc.hal.DownloadTransport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write loop for downloads saved to storage.
+ *
+ * The body is read into a direct buffer, which is allocated once and reused for every
+ * download, and written to the file with a FileChannel once the buffer is full, so the
+ * file gets large writes without another copy. Time spent reading from the network,
+ * writing and syncing is measured separately. This class has no Android dependencies
+ * so that it can be benchmarked on the host.
+ */
+public class DownloadFileWriter {
+    private static final String TAG = "PMC";
+    private static final String FILE_PREFIX = "pmc_download_";
+
+    /**
+     * Allocates the blocks of a file before it is written
+     */
+    public interface Preallocator {
+        void preallocate(RandomAccessFile file, long length) throws IOException;
+    }
+
+    /**
+     * Extends the file to its length. On most file systems this leaves a sparse file
+     * without allocating blocks, devices should use posix_fallocate() instead.
+     */
+    public static final Preallocator SET_LENGTH = new Preallocator() {
+        @Override
+        public void preallocate(RandomAccessFile file, long length) throws IOException {
+            file.setLength(length);
+        }
+    };
+
+    private final File mDir;
+    private final ByteBuffer mBuffer;
+    private final int mSyncPolicy;
+    private final long mSyncBytes;
+    private final Preallocator mPreallocator;
+    private final List<File> mFiles = new ArrayList<>();
+
+    /**
+     * Constructor
+     *
+     * @param dir - directory for the files, created if it doesn't exist
+     * @param bufferSize - size of the direct buffer, the size of the file writes
+     * @param syncPolicy - DownloadTransport.SYNC_*
+     * @param syncBytes - bytes written between two syncs for SYNC_EVERY_BYTES
+     * @param preallocator - allocates the files when the length is known, null to not
+     *                       preallocate
+     */
+    public DownloadFileWriter(File dir, int bufferSize, int syncPolicy, long syncBytes,
+            Preallocator preallocator) {
+        mDir = dir;
+        mBuffer = ByteBuffer.allocateDirect(bufferSize);
+        mSyncPolicy = syncPolicy;
+        mSyncBytes = syncBytes;
+        mPreallocator = preallocator;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Log.e(TAG, "Can't create download directory " + dir);
+        }
+    }
+
+    /**
+     * Read the input stream until the end of stream and save it to a new file
+     *
+     * @param inputStream - stream to be saved
+     * @param length - expected length, -1 if unknown
+     * @param phases - receives the network, write and sync times
+     * @param verifier - verifier which is started by the caller, null to not hash. Time
+     *                   spent hashing is neither network nor write time.
+     * @return total number of bytes read
+     */
+    public int write(InputStream inputStream, long length, DownloadPhases phases,
+            DownloadVerifier verifier) throws IOException {
+        File file = new File(mDir, FILE_PREFIX + mFiles.size() + ".bin");
+        mFiles.add(file);
+        long networkNanos = 0;
+        long writeNanos = 0;
+        long syncNanos = 0;
+        long totalBytes = 0;
+        long unsyncedBytes = 0;
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            long start = System.nanoTime();
+            channel.truncate(0);
+            if (mPreallocator != null && length > 0) {
+                mPreallocator.preallocate(raf, length);
+            }
+            writeNanos += System.nanoTime() - start;
+
+            ReadableByteChannel source = Channels.newChannel(inputStream);
+            boolean eof = false;
+            while (!eof) {
+                mBuffer.clear();
+                start = System.nanoTime();
+                // Fill the whole buffer, so that the file only sees large writes
+                while (mBuffer.hasRemaining()) {
+                    if (source.read(mBuffer) < 0) {
+                        eof = true;
+                        break;
+                    }
+                }
+                long read = System.nanoTime();
+                networkNanos += read - start;
+                mBuffer.flip();
+                int count = mBuffer.remaining();
+                if (verifier != null) {
+                    verifier.update(mBuffer);
+                    mBuffer.rewind();
+                }
+                long hashed = System.nanoTime();
+                while (mBuffer.hasRemaining()) {
+                    channel.write(mBuffer);
+                }
+                long written = System.nanoTime();
+                writeNanos += written - hashed;
+                totalBytes += count;
+                unsyncedBytes += count;
+                if (mSyncPolicy == DownloadTransport.SYNC_EVERY_BYTES
+                        && unsyncedBytes >= mSyncBytes) {
+                    // Data only, the size is synced with the file
+                    channel.force(false);
+                    syncNanos += System.nanoTime() - written;
+                    unsyncedBytes = 0;
+                }
+            }
+            start = System.nanoTime();
+            // A preallocated file is longer than a short download
+            if (channel.size() > totalBytes) channel.truncate(totalBytes);
+            long truncated = System.nanoTime();
+            writeNanos += truncated - start;
+            if (mSyncPolicy != DownloadTransport.SYNC_NONE && (unsyncedBytes > 0
+                    || mSyncPolicy == DownloadTransport.SYNC_PER_FILE)) {
+                channel.force(true);
+                syncNanos += System.nanoTime() - truncated;
+            }
+        } finally {
+            raf.close();
+            phases.setStorage(networkNanos, writeNanos, syncNanos);
+        }
+        return (int) totalBytes;
+    }
+
+    /**
+     * Delete all files written so far
+     *
+     * @return number of files deleted
+     */
+    public int deleteFiles() {
+        int deleted = 0;
+        for (File file : mFiles) {
+            if (file.delete()) deleted++;
+        }
+        mFiles.clear();
+        return deleted;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.util.Log;
+
+import com.android.pmc.hal.DownloadPhases;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Per-phase histograms of the downloads of one workload.
+ *
+ * Shows whether time, and so power, goes into setting up the requests (DNS, connect,
+ * TLS, waiting for the response) or into transferring the bodies. TLS handshakes are
+ * also counted and timed by type, to compare full and resumed handshakes. Downloads
+ * saved to storage split the body into network, write and sync time.
+ *
+ * Verified downloads add the time spent hashing. Network throughput leaves out the part
+ * of the body phase which waited for hashing, and is reported next to hash throughput,
+ * so verification neither hides in the network numbers nor goes unnoticed.
+ *
+ * Compressed downloads count the bytes on the wire against the bytes after decompression
+ * and time the decompression, to weigh the radio time saved against the CPU time spent.
+ */
+class DownloadPhaseStats {
+    private final LatencyHistogram[] mPhases = new LatencyHistogram[DownloadPhases.NUM_PHASES];
+    private final LatencyHistogram mTotal = new LatencyHistogram();
+    private final LatencyHistogram mTlsFull = new LatencyHistogram();
+    private final LatencyHistogram mTlsResumed = new LatencyHistogram();
+    private final LatencyHistogram mNetwork = new LatencyHistogram();
+    private final LatencyHistogram mWrite = new LatencyHistogram();
+    private final LatencyHistogram mSync = new LatencyHistogram();
+    private final LatencyHistogram mHash = new LatencyHistogram();
+    private final LatencyHistogram mDecompressCpu = new LatencyHistogram();
+    private final LatencyHistogram mDecompressWall = new LatencyHistogram();
+    private int mDownloads;
+    private int mFailed;
+    private int mFullHandshakes;
+    private int mResumedHandshakes;
+    private int mSaved;
+    private int mVerified;
+    private int mUnverified;
+    private int mDigestMismatches;
+    private long mNetworkBytes;
+    private long mNetworkNanos;
+    private long mHashedBytes;
+    private long mHashNanos;
+    private int mCompressed;
+    private long mCompressedBytes;
+    private long mUncompressedBytes;
+    private long mDecompressCpuNanos;
+
+    DownloadPhaseStats() {
+        for (int i = 0; i < mPhases.length; i++) {
+            mPhases[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Record the phases of one download, only successful downloads go into the histograms
+     *
+     * @param phases - phases of the download
+     * @param bytes - bytes of the body, after decompression
+     * @param success - true if the download succeeded
+     */
+    void record(DownloadPhases phases, long bytes, boolean success) {
+        if (phases.getVerify() == DownloadPhases.VERIFY_MISMATCH) mDigestMismatches++;
+        if (!success) {
+            mFailed++;
+            return;
+        }
+        mDownloads++;
+        for (int i = 0; i < mPhases.length; i++) {
+            mPhases[i].record(phases.get(i));
+        }
+        mTotal.record(phases.total());
+        if (phases.getHandshake() == DownloadPhases.HANDSHAKE_FULL) {
+            mFullHandshakes++;
+            mTlsFull.record(phases.get(DownloadPhases.PHASE_TLS));
+        } else if (phases.getHandshake() == DownloadPhases.HANDSHAKE_RESUMED) {
+            mResumedHandshakes++;
+            mTlsResumed.record(phases.get(DownloadPhases.PHASE_TLS));
+        }
+        if (phases.isSaved()) {
+            mSaved++;
+            mNetwork.record(phases.getNetworkNanos());
+            mWrite.record(phases.getWriteNanos());
+            mSync.record(phases.getSyncNanos());
+        }
+        // Bytes as sent by the server
+        long wireBytes = bytes;
+        if (phases.isCompressed()) {
+            mCompressed++;
+            wireBytes = phases.getCompressedBytes();
+            mCompressedBytes += wireBytes;
+            mUncompressedBytes += phases.getUncompressedBytes();
+            mDecompressCpuNanos += phases.getDecompressCpuNanos();
+            mDecompressCpu.record(phases.getDecompressCpuNanos());
+            mDecompressWall.record(phases.getDecompressWallNanos());
+        }
+        if (phases.getVerify() != DownloadPhases.VERIFY_NONE) {
+            if (phases.getVerify() == DownloadPhases.VERIFY_OK) {
+                mVerified++;
+            } else {
+                mUnverified++;
+            }
+            mHash.record(phases.getHashNanos());
+            mHashedBytes += wireBytes;
+            mHashNanos += phases.getHashNanos();
+        }
+        recordNetwork(phases, wireBytes);
+    }
+
+    /**
+     * Add the body to the network throughput, without the time spent on the bytes after
+     * they were received
+     */
+    private void recordNetwork(DownloadPhases phases, long wireBytes) {
+        long body = phases.get(DownloadPhases.PHASE_BODY);
+        // Saved downloads time reading apart from writing, and from hashing unless the
+        // decoder hashes while it is read
+        boolean hashedWhileRead = true;
+        if (phases.isSaved()) {
+            body = phases.getNetworkNanos();
+            hashedWhileRead = phases.isCompressed();
+        }
+        if (phases.isCompressed()) body -= phases.getDecompressWallNanos();
+        if (hashedWhileRead && phases.getVerify() != DownloadPhases.VERIFY_NONE) {
+            body -= phases.getHashBlockedNanos();
+        }
+        if (body > 0) {
+            mNetworkBytes += wireBytes;
+            mNetworkNanos += body;
+        }
+    }
+
+    JSONObject toJson() {
+        JSONObject obj = new JSONObject();
+        try {
+            obj.put("Downloads", mDownloads);
+            obj.put("Failed", mFailed);
+            for (int i = 0; i < mPhases.length; i++) {
+                obj.put(DownloadPhases.nameOf(i), mPhases[i].toJson());
+            }
+            obj.put("Total", mTotal.toJson());
+            obj.put("FullHandshakes", mFullHandshakes);
+            obj.put("ResumedHandshakes", mResumedHandshakes);
+            obj.put("TlsFull", mTlsFull.toJson());
+            obj.put("TlsResumed", mTlsResumed.toJson());
+            obj.put("Saved", mSaved);
+            obj.put("Network", mNetwork.toJson());
+            obj.put("Write", mWrite.toJson());
+            obj.put("Sync", mSync.toJson());
+            obj.put("Verified", mVerified);
+            obj.put("Unverified", mUnverified);
+            obj.put("DigestMismatches", mDigestMismatches);
+            obj.put("Hash", mHash.toJson());
+            obj.put("NetworkBytesPerSec", bytesPerSec(mNetworkBytes, mNetworkNanos));
+            obj.put("HashBytesPerSec", bytesPerSec(mHashedBytes, mHashNanos));
+            obj.put("Compressed", mCompressed);
+            obj.put("CompressedBytes", mCompressedBytes);
+            obj.put("UncompressedBytes", mUncompressedBytes);
+            obj.put("CompressionRatio", mUncompressedBytes > 0
+                    ? (double) mCompressedBytes / mUncompressedBytes : 0);
+            obj.put("DecompressCpu", mDecompressCpu.toJson());
+            obj.put("DecompressWall", mDecompressWall.toJson());
+            obj.put("DecompressBytesPerSec",
+                    bytesPerSec(mUncompressedBytes, mDecompressCpuNanos));
+        } catch (JSONException e) {
+            Log.e(DownloadWorkload.TAG, "Exception to put download phases into JSON object: " + e);
+        }
+        return obj;
+    }
+
+    private static double bytesPerSec(long bytes, long nanos) {
+        return nanos > 0 ? bytes * 1e9 / nanos : 0;
+    }
+}
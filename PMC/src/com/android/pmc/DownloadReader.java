@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Read loop for downloads. The bytes are only counted, they are not saved anywhere.
+ *
+ * The read buffer is allocated once and reused for every download. This class has no
+ * Android dependencies so that it can be benchmarked on the host.
+ */
+public class DownloadReader {
+    private final byte[] mBuffer;
+
+    /**
+     * Constructor
+     *
+     * @param bufferSize - size of the read buffer in bytes
+     */
+    public DownloadReader(int bufferSize) {
+        mBuffer = new byte[bufferSize];
+    }
+
+    /**
+     * Read the input stream until the end of stream
+     *
+     * @param inputStream - stream to be read out
+     * @return total number of bytes read
+     */
+    public int read(InputStream inputStream) throws IOException {
+        return read(inputStream, null);
+    }
+
+    /**
+     * Read the input stream until the end of stream, hashing the bytes as they arrive
+     *
+     * @param inputStream - stream to be read out
+     * @param verifier - verifier which is started by the caller, null to not hash
+     * @return total number of bytes read
+     */
+    public int read(InputStream inputStream, DownloadVerifier verifier) throws IOException {
+        int totalBytesRead = 0;
+        int bytesRead;
+        while ((bytesRead = inputStream.read(mBuffer)) != -1) {
+            if (verifier != null) verifier.update(mBuffer, 0, bytesRead);
+            totalBytesRead += bytesRead;
+        }
+        return totalBytesRead;
+    }
+}
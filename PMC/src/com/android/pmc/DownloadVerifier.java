@@ -0,0 +1,326 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import com.android.pmc.hal.DownloadPhases;
+import com.android.pmc.hal.DownloadTransport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computes the digest of a download while it streams and checks it against the
+ * Content-Digest header of the response (RFC 9530).
+ *
+ * CRC32C of large bodies is computed in parallel: the body is copied into segments which
+ * are checksummed on a pool and combined in order. At most one segment per pool thread
+ * plus the one being filled exist, so the pool can't fall behind by more than that and
+ * the segments are reused for every download. SHA-256 can't be split without changing
+ * the digest, so it is always computed on the download thread.
+ *
+ * The verifier notes the time spent hashing and the time the download thread was held
+ * up by it, so that verification can be reported apart from network time. This class
+ * has no Android dependencies so that it can be benchmarked on the host.
+ */
+public class DownloadVerifier {
+    public static final int SEGMENT_SIZE = 1024 * 1024;
+    // Smaller bodies are hashed on the download thread, copying them isn't worth it
+    public static final long PARALLEL_MIN_LENGTH = 4L * SEGMENT_SIZE;
+
+    private final int mAlgorithm;
+    private final Crc32c mCrc = new Crc32c();
+    private final MessageDigest mSha256;
+    private final ExecutorService mPool;
+    private final BlockingQueue<byte[]> mFreeSegments;
+    private final List<byte[]> mSegments = new ArrayList<>();
+    private final List<Future<Long>> mPending = new ArrayList<>();
+    private final List<Integer> mPendingLengths = new ArrayList<>();
+    private final AtomicLong mPoolHashNanos = new AtomicLong();
+    private final int mPoolThreads;
+    private boolean mParallel;
+    private byte[] mSegment;
+    private int mSegmentFill;
+    private long mHashNanos;
+    private long mBlockedNanos;
+    private byte[] mDigest;
+
+    /**
+     * Constructor
+     *
+     * @param algorithm - DownloadTransport.DIGEST_CRC32C or DIGEST_SHA256
+     * @param pool - pool for CRC32C segments, null to hash every body on the download
+     *               thread
+     * @param poolThreads - number of threads of the pool
+     */
+    public DownloadVerifier(int algorithm, ExecutorService pool, int poolThreads) {
+        mAlgorithm = algorithm;
+        mPool = algorithm == DownloadTransport.DIGEST_CRC32C ? pool : null;
+        mPoolThreads = poolThreads;
+        mFreeSegments = new ArrayBlockingQueue<>(poolThreads + 1);
+        try {
+            mSha256 = algorithm == DownloadTransport.DIGEST_SHA256
+                    ? MessageDigest.getInstance("SHA-256") : null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Returns the name of an algorithm in Want-Content-Digest and Content-Digest
+     */
+    public static String nameOf(int algorithm) {
+        return algorithm == DownloadTransport.DIGEST_SHA256 ? "sha-256" : "crc32c";
+    }
+
+    public int getAlgorithm() {
+        return mAlgorithm;
+    }
+
+    /**
+     * Start a new body
+     *
+     * @param length - expected length, -1 if unknown
+     */
+    public void start(long length) {
+        drain();
+        mCrc.reset();
+        if (mSha256 != null) mSha256.reset();
+        mParallel = mPool != null && length >= PARALLEL_MIN_LENGTH;
+        mSegment = null;
+        mSegmentFill = 0;
+        mHashNanos = 0;
+        mBlockedNanos = 0;
+        mPoolHashNanos.set(0);
+        mDigest = null;
+    }
+
+    /**
+     * Wait for segments left behind by a failed body and return them to the free queue
+     */
+    private void drain() {
+        for (Future<Long> future : mPending) {
+            try {
+                future.get();
+            } catch (InterruptedException | ExecutionException e) {
+                // Result isn't needed
+            }
+        }
+        mPending.clear();
+        mPendingLengths.clear();
+        mFreeSegments.clear();
+        mFreeSegments.addAll(mSegments);
+    }
+
+    public void update(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        if (!mParallel) {
+            if (mSha256 != null) {
+                mSha256.update(b, off, len);
+            } else {
+                mCrc.update(b, off, len);
+            }
+            long elapsed = System.nanoTime() - start;
+            mHashNanos += elapsed;
+            mBlockedNanos += elapsed;
+            return;
+        }
+        while (len > 0) {
+            if (mSegment == null) mSegment = takeSegment();
+            int count = Math.min(len, SEGMENT_SIZE - mSegmentFill);
+            System.arraycopy(b, off, mSegment, mSegmentFill, count);
+            mSegmentFill += count;
+            off += count;
+            len -= count;
+            if (mSegmentFill == SEGMENT_SIZE) submitSegment();
+        }
+        mBlockedNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Update with the remaining bytes of a buffer, the position is moved to the limit
+     */
+    public void update(ByteBuffer buffer) throws IOException {
+        long start = System.nanoTime();
+        if (!mParallel) {
+            if (mSha256 != null) {
+                mSha256.update(buffer);
+            } else {
+                mCrc.update(buffer);
+            }
+            long elapsed = System.nanoTime() - start;
+            mHashNanos += elapsed;
+            mBlockedNanos += elapsed;
+            return;
+        }
+        while (buffer.hasRemaining()) {
+            if (mSegment == null) mSegment = takeSegment();
+            int count = Math.min(buffer.remaining(), SEGMENT_SIZE - mSegmentFill);
+            buffer.get(mSegment, mSegmentFill, count);
+            mSegmentFill += count;
+            if (mSegmentFill == SEGMENT_SIZE) submitSegment();
+        }
+        mBlockedNanos += System.nanoTime() - start;
+    }
+
+    private byte[] takeSegment() throws IOException {
+        byte[] segment = mFreeSegments.poll();
+        if (segment != null) return segment;
+        if (mSegments.size() < mPoolThreads + 1) {
+            segment = new byte[SEGMENT_SIZE];
+            mSegments.add(segment);
+            return segment;
+        }
+        try {
+            // Every segment is queued, wait for the pool to catch up
+            return mFreeSegments.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download cancelled");
+        }
+    }
+
+    private void submitSegment() {
+        final byte[] segment = mSegment;
+        final int length = mSegmentFill;
+        mSegment = null;
+        mSegmentFill = 0;
+        mPendingLengths.add(length);
+        mPending.add(mPool.submit(new Callable<Long>() {
+            @Override
+            public Long call() {
+                long start = System.nanoTime();
+                Crc32c crc = new Crc32c();
+                crc.update(segment, 0, length);
+                mPoolHashNanos.addAndGet(System.nanoTime() - start);
+                mFreeSegments.add(segment);
+                return crc.getValue();
+            }
+        }));
+    }
+
+    /**
+     * Finish the body, waits for the segments still being hashed
+     *
+     * @return the digest, 4 bytes big-endian for CRC32C
+     */
+    public byte[] finish() throws IOException {
+        long start = System.nanoTime();
+        if (mSha256 != null) {
+            mDigest = mSha256.digest();
+        } else {
+            long crc = mCrc.getValue();
+            if (mParallel) {
+                if (mSegmentFill > 0) submitSegment();
+                crc = combineSegments();
+            }
+            mDigest = new byte[] {(byte) (crc >>> 24), (byte) (crc >>> 16),
+                    (byte) (crc >>> 8), (byte) crc};
+        }
+        long elapsed = System.nanoTime() - start;
+        mBlockedNanos += elapsed;
+        mHashNanos += mParallel ? mPoolHashNanos.get() : elapsed;
+        return mDigest;
+    }
+
+    private long combineSegments() throws IOException {
+        long crc = 0;
+        try {
+            for (int i = 0; i < mPending.size(); i++) {
+                long length = mPendingLengths.get(i);
+                crc = i == 0 ? mPending.get(i).get()
+                        : Crc32c.combine(crc, mPending.get(i).get(), length);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download cancelled");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to checksum segment", e.getCause());
+        }
+        mPending.clear();
+        mPendingLengths.clear();
+        return crc;
+    }
+
+    /**
+     * Compare the digest of finish() with a Content-Digest header
+     *
+     * @param header - Content-Digest header of the response, null if there was none
+     * @return DownloadPhases.VERIFY_OK, VERIFY_MISMATCH, VERIFY_NO_DIGEST if the
+     *         header has no digest of this algorithm, or VERIFY_NONE if the body wasn't
+     *         finished
+     */
+    public int verify(String header) {
+        if (mDigest == null) return DownloadPhases.VERIFY_NONE;
+        byte[] expected = parseDigest(header, nameOf(mAlgorithm));
+        if (expected == null) return DownloadPhases.VERIFY_NO_DIGEST;
+        return Arrays.equals(expected, mDigest)
+                ? DownloadPhases.VERIFY_OK : DownloadPhases.VERIFY_MISMATCH;
+    }
+
+    /**
+     * Returns the digest of one algorithm in a header like "sha-256=:AbC=:, crc32c=:xyz=:",
+     * null if it's missing or malformed
+     */
+    static byte[] parseDigest(String header, String name) {
+        if (header == null) return null;
+        for (String member : header.split(",")) {
+            int eq = member.indexOf('=');
+            if (eq < 0 || !member.substring(0, eq).trim().equalsIgnoreCase(name)) continue;
+            String value = member.substring(eq + 1).trim();
+            if (value.length() < 2 || value.charAt(0) != ':'
+                    || value.charAt(value.length() - 1) != ':') {
+                return null;
+            }
+            try {
+                return Base64.getDecoder().decode(value.substring(1, value.length() - 1));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the time spent hashing the last body, summed over the pool threads when it
+     * was hashed in parallel
+     */
+    public long getHashNanos() {
+        return mHashNanos;
+    }
+
+    /**
+     * Returns the time the download thread spent hashing, copying segments or waiting
+     * for the pool during the last body
+     */
+    public long getBlockedNanos() {
+        return mBlockedNanos;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.util.Log;
+
+import com.android.pmc.hal.Clock;
+import com.android.pmc.hal.DownloadPhases;
+import com.android.pmc.hal.DownloadTransport;
+import com.android.pmc.hal.PmcHal;
+
+import org.json.JSONObject;
+
+/**
+ * Download a file from the PMC server whenever the alarm fires.
+ */
+public class DownloadWorkload implements DownloadTransport.Callback {
+    public static final String TAG = "PMC";
+    private static final String ALARM_NAME = "Download";
+    // Wakelock is held for a while after every download, like the device staying awake
+    private static final int HOLD_MILLIS = 10000;
+
+    private final Clock mClock;
+    private final WorkloadLifecycle mLifecycle;
+    private final DownloadTransport mTransport;
+    private final String mDownloadURL;
+    private final int mAlarmInterval;
+    private final ProgressListener mListener;
+    private final DownloadPhaseStats mPhaseStats = new DownloadPhaseStats();
+    private int mFileCount;
+    private int mBytesCount;
+    private long mDownloadStartTime;
+    private boolean mRunning;
+    private boolean mDownloading;
+
+    private final Runnable mAlarm = new Runnable() {
+        @Override
+        public void run() {
+            onAlarm();
+        }
+    };
+
+    private final Runnable mReleaseWakeLock = new Runnable() {
+        @Override
+        public void run() {
+            mLifecycle.releaseWakeLock();
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param hal - devices to be used for alarms, wakelocks and downloads
+     * @param url - URL of the file to be downloaded
+     * @param interval - time (ms) between two downloads
+     * @param listener - listener for the progress of the downloads
+     */
+    public DownloadWorkload(PmcHal hal, String url, int interval, ProgressListener listener) {
+        mClock = hal.getClock();
+        mLifecycle = new WorkloadLifecycle(hal, "Download");
+        mTransport = hal.getDownloadTransport();
+        mDownloadURL = url;
+        mAlarmInterval = interval;
+        mListener = listener;
+        mFileCount = 0;
+        mBytesCount = 0;
+        mDownloadStartTime = -1;
+    }
+
+    /**
+     * Schedule the first download.
+     */
+    public synchronized void start() {
+        mRunning = true;
+        scheduleDownload();
+    }
+
+    /**
+     * Cancel the downloads.
+     *
+     * @throws IllegalStateException if a wakelock or an alarm is leaked
+     */
+    public synchronized void stop() {
+        mRunning = false;
+        mLifecycle.cancelAlarm(ALARM_NAME);
+        mLifecycle.removeCallbacks(mReleaseWakeLock);
+        if (mDownloading) mTransport.cancel();
+        mDownloading = false;
+        mTransport.deleteFiles();
+        mLifecycle.releaseWakeLock();
+        mLifecycle.close();
+    }
+
+    /**
+     * Schedule the next download.
+     */
+    private void scheduleDownload() {
+        if (mDownloadStartTime == -1) {
+            // Note down the start of all download activity
+            mDownloadStartTime = mClock.currentTimeMillis();
+        }
+        Log.i(TAG, "Scheduling the next download after " + mAlarmInterval);
+        mLifecycle.setAlarm(ALARM_NAME, mClock.elapsedRealtime() + mAlarmInterval, false, mAlarm);
+    }
+
+    private synchronized void onAlarm() {
+        if (!mRunning) return;
+        if (mDownloading) {
+            Log.e(TAG, "Previous download still running.");
+        } else {
+            mLifecycle.removeCallbacks(mReleaseWakeLock);
+            mLifecycle.acquireWakeLock();
+            Log.i(TAG, "Starting Download Task");
+            mDownloading = true;
+            mTransport.fetch(mDownloadURL, this);
+        }
+        scheduleDownload();
+    }
+
+    @Override
+    public void onComplete(int contentLength, int bytesRead, DownloadPhases phases,
+            String error) {
+        String status;
+        synchronized (this) {
+            if (!mRunning) return;
+            mDownloading = false;
+            if (error == null && contentLength != bytesRead) {
+                error = "Expected file of size " + contentLength + " but only received "
+                        + bytesRead;
+            }
+            mPhaseStats.record(phases, bytesRead, error == null);
+            if (error != null) {
+                Log.e(TAG, error);
+                status = error;
+                mLifecycle.releaseWakeLock();
+            } else {
+                Log.d(TAG, "Downloaded file size " + contentLength);
+                mFileCount += 1;
+                mBytesCount += contentLength;
+                status = "Total file downloaded :: " + mFileCount + ", Data rate :: "
+                        + getDownloadRate() + " bytes/sec";
+                mLifecycle.postDelayed(mReleaseWakeLock, HOLD_MILLIS);
+            }
+        }
+        if (mListener != null) mListener.onProgress(status);
+    }
+
+    /**
+     * Returns an approximate data rate at which we're downloading the files.
+     */
+    public synchronized int getDownloadRate() {
+        long durationInMilliSeconds = mClock.currentTimeMillis() - mDownloadStartTime;
+        int durationInSeconds = (int) (durationInMilliSeconds / 1000);
+        if (mDownloadStartTime == -1 || durationInSeconds == 0) return 0;
+        return mBytesCount / durationInSeconds;
+    }
+
+    /**
+     * Returns histograms of the DNS, connect, TLS, time to first byte and body phases
+     * of the downloads so far.
+     */
+    public synchronized JSONObject getPhaseStats() {
+        return mPhaseStats.toJson();
+    }
+
+    public synchronized int getFileCount() {
+        return mFileCount;
+    }
+
+    public WorkloadLifecycle getLifecycle() {
+        return mLifecycle;
+    }
+}
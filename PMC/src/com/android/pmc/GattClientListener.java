@@ -16,86 +16,81 @@
 
 package com.android.pmc;
 
-import android.app.AlarmManager;
-import android.app.PendingIntent;
-import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothDevice;
-import android.bluetooth.BluetoothGatt;
-import android.bluetooth.BluetoothGattCallback;
-import android.bluetooth.BluetoothGattCharacteristic;
-import android.bluetooth.BluetoothGattDescriptor;
-import android.bluetooth.BluetoothGattService;
-import android.bluetooth.BluetoothProfile;
-import android.bluetooth.le.BluetoothLeScanner;
-import android.bluetooth.le.ScanCallback;
-import android.bluetooth.le.ScanFilter;
-import android.bluetooth.le.ScanResult;
-import android.bluetooth.le.ScanSettings;
-import android.content.BroadcastReceiver;
-import android.content.Context;
-import android.content.Intent;
-import android.os.SystemClock;
 import android.util.Log;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.android.pmc.hal.AlarmScheduler;
+import com.android.pmc.hal.BleScanHal;
+import com.android.pmc.hal.Clock;
+import com.android.pmc.hal.GattTransport;
+import com.android.pmc.hal.PmcHal;
+
 import java.util.UUID;
 
 /**
- * Class to provide Receiver for AlarmManager to start Gatt Client alarms
+ * Class to provide alarms to start Gatt Client writing
  */
-public class GattClientListener extends BroadcastReceiver {
+public class GattClientListener {
 
     public static final String TAG = "GATTC";
-    public static final String GATTCLIENT_ALARM =
-                           "com.android.pmc.GATTClient.ALARM";
+    private static final String ALARM_NAME = "GattClient";
     private static final int MILLSEC = 1000;
     private static final int INIT_VALUE = 0;
-    private Context mContext;
-    private final AlarmManager mAlarmManager;
-
-    private BluetoothAdapter mBluetoothAdapter;
-
-    private BluetoothGatt mBluetoothGatt;
-    private GattCallback mGattCallback;
-
-    private MyBleScanner mMyBleScanner;
+    // Time for connection priority and PHY updates to settle before a sweep burst starts
+    private static final int SWEEP_SETTLE_MILLSEC = 500;
+    // Longest time a sweep burst may take before the point is given up
+    private static final int SWEEP_BURST_TIMEOUT_MILLSEC = 30 * MILLSEC;
+    // Longest time a reconnect cycle may take from connect to the first write response
+    private static final int STORM_CYCLE_TIMEOUT_MILLSEC = 30 * MILLSEC;
+    private static final UUID SERVICE_UUID = UUID.fromString(GattTestService.TEST_SERVICE_UUID);
+    private static final UUID WRITABLE_CHAR_UUID =
+            UUID.fromString(GattTestService.WRITABLE_CHAR_UUID);
+    private final Clock mClock;
+    private final AlarmScheduler mAlarmScheduler;
+    private final GattTransport mTransport;
+
+    // True from connect until the connection is closed
+    private boolean mGattOpen;
+    private final GattCallback mGattCallback;
+
+    private final MyBleScanner mMyBleScanner;
     private String mMacAddress;
-    private BluetoothDevice mDevice;
     private int mWriteTime;
     private int mIdleTime;
     private int mCycles;
+    // Non-null while a connection parameter sweep is running
+    private GattSweep mSweep;
+    private PMCStatusLogger mSweepLogger;
+    // True while the write burst of a sweep point is running
+    private boolean mSweepBurst;
+    private final Runnable mSweepBurstTimeout = new Runnable() {
+        @Override
+        public void run() {
+            onSweepBurstTimeout();
+        }
+    };
+    // Non-null while a reconnect storm benchmark is running
+    private GattReconnectStorm mStorm;
+    private PMCStatusLogger mStormLogger;
+    private final Runnable mStormCycleTimeout = new Runnable() {
+        @Override
+        public void run() {
+            onStormCycleTimeout();
+        }
+    };
 
     /**
      * Constructor
-     * @param context - system will provide a context to this function
-     * @param alarmManager - system will provide a AlarmManager to this function
+     * @param hal - devices to be used for scanning, connecting and alarms
      */
-    public GattClientListener(Context context, AlarmManager alarmManager) {
+    public GattClientListener(PmcHal hal) {
         Log.d(TAG, "Start GattClientListener()");
-        mContext = context;
-        mAlarmManager = alarmManager;
-        mBluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-
-        if (mBluetoothAdapter == null) {
-            Log.e(TAG, "BluetoothAdapter is Null");
-            return;
-        } else {
-            if (!mBluetoothAdapter.isEnabled()) {
-                Log.d(TAG, "BluetoothAdapter is NOT enabled, enable now");
-                mBluetoothAdapter.enable();
-                if (!mBluetoothAdapter.isEnabled()) {
-                    Log.e(TAG, "Can't enable Bluetooth");
-                    return;
-                }
-            }
-        }
-
-        mMyBleScanner = new MyBleScanner(mBluetoothAdapter);
+        mClock = hal.getClock();
+        mAlarmScheduler = hal.getAlarmScheduler();
+        mTransport = hal.getGattTransport();
+        mMyBleScanner = new MyBleScanner(hal.getBleScanHal());
         mGattCallback = new GattCallback();
-        mBluetoothGatt = null;
+        mGattOpen = false;
         mMacAddress = null;
-        mDevice = null;
         Log.d(TAG, "End GattClientListener");
     }
 
@@ -107,222 +102,423 @@ public class GattClientListener extends BroadcastReceiver {
      * @param idleTime - how long (sec) it doesn't need to wait
      * @param numCycles - how many of cycles of writing with idle time
      */
-    public void startAlarm(int startTime, int writeTime, int idleTime, int numCycles,
-                    Intent intent) {
-
-        int currentAlarm = 0;
+    public void startAlarm(int startTime, int writeTime, int idleTime, int numCycles) {
+        // Start Scan here when this func is called for the first time
+        mMyBleScanner.startScan();
+        mWriteTime = writeTime;
+        mIdleTime = idleTime;
+        mCycles = numCycles;
+        scheduleAlarm(startTime, 0);
+    }
 
-        if (intent == null) {
-            // Start Scan here when this func is called for the first time
-            mMyBleScanner.startScan();
-            mWriteTime = writeTime;
-            mIdleTime = idleTime;
-            mCycles = numCycles;
-        } else {
-            // Get alarm number inside the intent
-            currentAlarm = intent.getIntExtra("com.android.pmc.GATTClient.CurrentAlarm", 0);
-        }
+    /**
+     * Schedule the alarm of the next cycle
+     *
+     * @param delay - time (sec) until the alarm
+     * @param currentAlarm - number of alarms fired so far
+     */
+    private void scheduleAlarm(int delay, final int currentAlarm) {
         Log.d(TAG, "Current Cycle Num: " + currentAlarm);
         if (currentAlarm >= mCycles) {
             Log.d(TAG, "All alarms are done");
             return;
         }
+        mAlarmScheduler.setExact(ALARM_NAME, mClock.elapsedRealtime() + delay * MILLSEC,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        onAlarm(currentAlarm + 1);
+                    }
+                });
+    }
+
+    /**
+     * Function to be called by PMC to start a connection parameter sweep. The sweep
+     * connects once after startTime and then runs a write burst for every combination
+     * of connection priority, preferred PHY and MTU.
+     *
+     * @param startTime - time (sec) when the sweep needs to be started
+     * @param sweep - sweep points to be measured
+     */
+    public void startSweep(int startTime, GattSweep sweep) {
+        mSweep = sweep;
+        mSweepLogger = new PMCStatusLogger(TAG + "_sweep.log", TAG);
+        // A single alarm to connect, the sweep itself is driven by GATT callbacks
+        startAlarm(startTime, 0, 0, 1);
+        mSweepLogger.logStatus("READY");
+    }
 
-        Intent alarmIntent = new Intent(GattClientListener.GATTCLIENT_ALARM);
-        alarmIntent.putExtra("com.android.pmc.GATTClient.CurrentAlarm", ++currentAlarm);
+    /**
+     * Apply connection priority and preferred PHY of the current sweep point, then
+     * read back the PHY in effect to start the write burst.
+     */
+    private void applySweepPoint() {
+        int phyMask = GattSweep.phyToMask(mSweep.getPhy());
+        Log.d(TAG, "Sweep point priority: " + mSweep.getPriority() + " phy: "
+                + mSweep.getPhy() + " mtu: " + mSweep.getMtu());
+        mTransport.requestConnectionPriority(mSweep.getPriority());
+        mTransport.setPreferredPhy(phyMask, phyMask);
+        mAlarmScheduler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                mTransport.readPhy();
+            }
+        }, SWEEP_SETTLE_MILLSEC);
+    }
 
-        long triggerTime = SystemClock.elapsedRealtime() + startTime * MILLSEC;
-        mAlarmManager.setExactAndAllowWhileIdle(
-                              AlarmManager.ELAPSED_REALTIME_WAKEUP, triggerTime,
-                              PendingIntent.getBroadcast(mContext, 0,
-                                            alarmIntent, PendingIntent.FLAG_UPDATE_CURRENT));
+    /**
+     * Start the write burst of the current sweep point once its PHY is known
+     */
+    private void startSweepBurst() {
+        mSweepBurst = true;
+        mAlarmScheduler.removeCallbacks(mSweepBurstTimeout);
+        mAlarmScheduler.postDelayed(mSweepBurstTimeout, SWEEP_BURST_TIMEOUT_MILLSEC);
+        writeSweep(mSweep.startBurst(mClock.elapsedRealtimeNanos()));
     }
 
     /**
-     * Receive function will be called for AlarmManager to connect GATT
-     *    and then to write characteristic
+     * Issue the next write of a sweep burst. A write which cannot be issued is recorded
+     * as failed and the burst moves on, so the point ends even if the link is gone.
      *
-     * @param context - system will provide a context to this function
-     * @param intent - system will provide an intent to this function
+     * @param value - payload to be written, null when the burst is complete
      */
-    @Override
-    public void onReceive(Context context, Intent intent) {
-        Log.d(TAG, "onReceiver: " + intent.getAction());
-        if (!intent.getAction().equals(GATTCLIENT_ALARM)) {
-            return;
+    private void writeSweep(byte[] value) {
+        while (value != null && !mTransport.writeCharacteristic(value)) {
+            Log.e(TAG, "Sweep write could not be issued");
+            value = mSweep.onWriteDone(mClock.elapsedRealtimeNanos(), false);
         }
+        if (value == null) {
+            mSweepBurst = false;
+            mAlarmScheduler.removeCallbacks(mSweepBurstTimeout);
+            nextSweepPoint();
+        }
+    }
+
+    /**
+     * Give up the current sweep point when its burst does not finish in time. The
+     * connection is dropped so that a late write response cannot be counted for the
+     * next point, the sweep goes on after reconnecting.
+     */
+    private void onSweepBurstTimeout() {
+        if (mSweep == null || !mSweepBurst) return;
+        mSweepBurst = false;
+        mSweep.abortBurst(mClock.elapsedRealtimeNanos());
+        if (mSweep.isDone()) {
+            nextSweepPoint();
+        } else {
+            mTransport.disconnect();
+        }
+    }
+
+    /**
+     * Move to the next sweep point after a burst is complete
+     */
+    private void nextSweepPoint() {
+        if (mSweep.isDone()) {
+            Log.d(TAG, "Sweep is done");
+            mSweepLogger.logResult("SweepResults", mSweep.getResults());
+            mSweepLogger.flash();
+            mSweep = null;
+            mTransport.disconnect();
+        } else if (mSweep.needsReconnect()) {
+            // New MTU value can only be negotiated on a new connection
+            Log.d(TAG, "Reconnect for MTU " + mSweep.getMtu());
+            mTransport.disconnect();
+        } else {
+            applySweepPoint();
+        }
+    }
+
+    /**
+     * Function to be called by PMC to start the reconnect storm benchmark. After
+     * startTime the client repeatedly connects, discovers services, negotiates MTU,
+     * writes one characteristic and disconnects, timing every phase.
+     *
+     * @param startTime - time (sec) when the first connection needs to be started
+     * @param storm - reconnect cycles to be measured
+     */
+    public void startReconnectStorm(int startTime, GattReconnectStorm storm) {
+        mStorm = storm;
+        mStormLogger = new PMCStatusLogger(TAG + "_reconnect.log", TAG);
+        // A single alarm to connect, the following cycles are driven by GATT callbacks
+        startAlarm(startTime, 0, 0, 1);
+        mStormLogger.logStatus("READY");
+    }
+
+    /**
+     * Cancel pending alarms, stop scanning and close the connection
+     */
+    public void release() {
+        mSweep = null;
+        mSweepBurst = false;
+        mStorm = null;
+        mAlarmScheduler.cancel(ALARM_NAME);
+        mAlarmScheduler.removeCallbacks(mSweepBurstTimeout);
+        mAlarmScheduler.removeCallbacks(mStormCycleTimeout);
+        mMyBleScanner.stopScan();
+        if (mGattOpen) {
+            mTransport.disconnect();
+            mTransport.close();
+            mGattOpen = false;
+        }
+    }
+
+    /**
+     * Returns true while a sweep or a reconnect storm is still running
+     */
+    public boolean isBusy() {
+        return mSweep != null || mStorm != null;
+    }
+
+    /**
+     * Start a new GATT connection to the remote device
+     */
+    private void connectGatt() {
+        boolean autoConnect = false;
+        if (mStorm != null) {
+            mStorm.mark(GattReconnectStorm.MARK_CONNECT_START, mClock.elapsedRealtimeNanos());
+            autoConnect = mStorm.isAutoConnect();
+            mAlarmScheduler.removeCallbacks(mStormCycleTimeout);
+            mAlarmScheduler.postDelayed(mStormCycleTimeout, STORM_CYCLE_TIMEOUT_MILLSEC);
+        }
+        mGattOpen = mTransport.connect(mMacAddress, autoConnect, mGattCallback);
+        if (!mGattOpen && mStorm != null) {
+            // No callback follows a connection which cannot be started
+            Log.e(TAG, "Reconnect cycle " + mStorm.getCycle() + " could not connect");
+            nextReconnectCycle();
+        }
+    }
+
+    /**
+     * Finish the current reconnect cycle when the connection is dropped and start
+     * the next one, or save the results when all cycles are done.
+     */
+    private void nextReconnectCycle() {
+        mAlarmScheduler.removeCallbacks(mStormCycleTimeout);
+        mStorm.endCycle();
+        if (mStorm.isDone()) {
+            if (mStorm.isAborted()) {
+                Log.e(TAG, "Reconnect storm stopped after " + mStorm.getCycle() + " cycles");
+            } else {
+                Log.d(TAG, "Reconnect storm is done");
+            }
+            mStormLogger.logResult("ReconnectResults", mStorm.getResults());
+            mStormLogger.flash();
+            mStorm = null;
+        } else {
+            Log.d(TAG, "Reconnect cycle " + mStorm.getCycle());
+            connectGatt();
+        }
+    }
+
+    /**
+     * Give up a reconnect cycle when a phase doesn't call back in time, e.g. an
+     * autoConnect connection which never completes. The connection is closed right
+     * away, since a disconnect of a connection which is not up may not call back
+     * either, and the cycle is counted as failed.
+     */
+    private void onStormCycleTimeout() {
+        if (mStorm == null) return;
+        Log.e(TAG, "Reconnect cycle " + mStorm.getCycle() + " timed out");
+        mStorm.onTimeout();
+        mTransport.disconnect();
+        mTransport.close();
+        mGattOpen = false;
+        nextReconnectCycle();
+    }
+
+    /**
+     * End the current reconnect cycle as failed when one of its phases fails
+     *
+     * @param phase - what failed, for the log
+     */
+    private void failReconnectCycle(String phase) {
+        Log.e(TAG, "Reconnect cycle " + mStorm.getCycle() + ": " + phase + " failed");
+        // The next cycle starts when it is disconnected
+        mTransport.disconnect();
+    }
+
+    /**
+     * Function will be called by the alarm to connect GATT and then to write
+     * characteristic
+     *
+     * @param currentAlarm - number of this alarm, starting from 1
+     */
+    private void onAlarm(int currentAlarm) {
+        Log.d(TAG, "onAlarm: " + currentAlarm);
 
         if (mMacAddress == null) mMacAddress = mMyBleScanner.getAdvMacAddress();
         if (mMacAddress == null || mMacAddress.isEmpty()) {
             Log.e(TAG, "Remote device Mac Address is not set");
             return;
         }
-        if (mDevice == null) mDevice = mBluetoothAdapter.getRemoteDevice(mMacAddress);
 
-        if (mBluetoothGatt == null) {
-            mBluetoothGatt = mDevice.connectGatt(mContext,
-                        false, mGattCallback, BluetoothDevice.TRANSPORT_LE);
+        if (!mGattOpen) {
+            connectGatt();
         } else {
-            mBluetoothGatt.discoverServices();
+            mTransport.discoverServices();
         }
         // Start next alarm to connect again then to write
-        startAlarm((mWriteTime + mIdleTime), mWriteTime, mIdleTime, mCycles, intent);
+        scheduleAlarm(mWriteTime + mIdleTime, currentAlarm);
     }
 
     /**
      * Callback for GATT Writing
      */
-    class GattCallback extends BluetoothGattCallback {
+    class GattCallback implements GattTransport.Callback {
 
         public static final int MAX_MTU = 511;
         public static final int MAX_BYTES = 508;
         private long mStartWriteTime;
+        // Payload reused for every write, refilled only when the value changes
+        private final GattPayload mPayload = new GattPayload(MAX_BYTES);
 
         GattCallback() {}
 
         @Override
-        public void onConnectionStateChange(BluetoothGatt gatt, int status,
-                    int newState) {
+        public void onConnectionStateChange(int status, boolean connected) {
             Log.d(TAG, "onConnectionStateChange " + status);
-            if (newState == BluetoothProfile.STATE_CONNECTED) {
-                Log.d(TAG, "State Connected to mac address "
-                            + gatt.getDevice().getAddress() + " status " + status);
+            if (connected) {
+                Log.d(TAG, "State Connected to mac address " + mMacAddress
+                            + " status " + status);
+                if (mStorm != null) {
+                    if (status != GattTransport.GATT_SUCCESS) {
+                        failReconnectCycle("Connect");
+                        return;
+                    }
+                    mStorm.mark(GattReconnectStorm.MARK_CONNECTED,
+                            mClock.elapsedRealtimeNanos());
+                }
                 // Discover services in advertiser, callback will be called
-                mBluetoothGatt.discoverServices();
-
-            } else if (newState == BluetoothProfile.STATE_DISCONNECTED) {
-                Log.d(TAG, "State Disconnected from mac address "
-                            + gatt.getDevice().getAddress() + " status " + status);
-                try {
-                    mBluetoothGatt.close();
-                } catch (Exception e) {
-                    Log.e(TAG, "Close Gatt: " + e);
+                if (!mTransport.discoverServices() && mStorm != null) {
+                    failReconnectCycle("Starting service discovery");
+                }
+            } else {
+                Log.d(TAG, "State Disconnected from mac address " + mMacAddress
+                            + " status " + status);
+                mTransport.close();
+                mGattOpen = false;
+                if (mSweep != null) {
+                    mSweep.resetConnectionParams();
+                    connectGatt();
+                } else if (mStorm != null) {
+                    nextReconnectCycle();
                 }
-                mBluetoothGatt = null;
-
-            } else if (newState == BluetoothProfile.STATE_CONNECTING) {
-                Log.d(TAG, "State Connecting to mac address "
-                            + gatt.getDevice().getAddress() + " status " + status);
-            } else if (newState == BluetoothProfile.STATE_DISCONNECTING) {
-                Log.d(TAG, "State Disconnecting from mac address "
-                            + gatt.getDevice().getAddress() + " status " + status);
             }
         }
 
         @Override
-        public void onServicesDiscovered(BluetoothGatt gatt, int status) {
+        public void onServicesDiscovered(int status) {
             Log.d(TAG, "onServicesDiscovered Status " + status);
-            mBluetoothGatt.requestMtu(MAX_MTU);
-        }
-
-        @Override
-        public void onCharacteristicRead(BluetoothGatt gatt,
-                BluetoothGattCharacteristic characteristic, int status) {
-            Log.d(TAG, "onCharacteristicRead: " + status);
+            if (mStorm != null) {
+                if (status != GattTransport.GATT_SUCCESS) {
+                    failReconnectCycle("Service discovery");
+                    return;
+                }
+                mStorm.mark(GattReconnectStorm.MARK_SERVICES_DISCOVERED,
+                        mClock.elapsedRealtimeNanos());
+            }
+            // Handle is looked up once and cached by the transport for every write
+            mTransport.findCharacteristic(SERVICE_UUID, WRITABLE_CHAR_UUID);
+            if (!mTransport.requestMtu(mSweep != null ? mSweep.getMtu() : MAX_MTU)
+                    && mStorm != null) {
+                failReconnectCycle("Starting MTU exchange");
+            }
         }
 
         @Override
-        public void onCharacteristicWrite(BluetoothGatt gatt,
-                    BluetoothGattCharacteristic characteristic, int status) {
+        public void onCharacteristicWrite(int status) {
             Log.d(TAG, "onCharacteristicWrite: " + status);
-            long timeElapse = SystemClock.elapsedRealtime() - mStartWriteTime;
+            if (mStorm != null) {
+                if (status == GattTransport.GATT_SUCCESS) {
+                    mStorm.mark(GattReconnectStorm.MARK_FIRST_WRITE_ACKED,
+                            mClock.elapsedRealtimeNanos());
+                }
+                // Drop the connection, the next cycle starts when it is disconnected
+                mTransport.disconnect();
+                return;
+            }
+            if (mSweep != null) {
+                // Ignore a late response of a burst which already timed out
+                if (!mSweepBurst) return;
+                writeSweep(mSweep.onWriteDone(mClock.elapsedRealtimeNanos(),
+                        status == GattTransport.GATT_SUCCESS));
+                return;
+            }
+            long timeElapse = mClock.elapsedRealtime() - mStartWriteTime;
             if (timeElapse < (mWriteTime * MILLSEC)) {
-                writeCharacteristic(gatt, (int) (timeElapse / MILLSEC));
+                writeCharacteristic((int) (timeElapse / MILLSEC));
             }
         }
 
         @Override
-        public void onCharacteristicChanged(BluetoothGatt gatt,
-                    BluetoothGattCharacteristic characteristic) {
-            Log.d(TAG, "onCharacteristicChanged");
-        }
-
-        @Override
-        public void onDescriptorRead(BluetoothGatt gatt, BluetoothGattDescriptor descriptor,
-                    int status) {
-            Log.d(TAG, "onServicesDiscovered: " + status);
-        }
-
-        @Override
-        public void onDescriptorWrite(BluetoothGatt gatt, BluetoothGattDescriptor descriptor,
-                int status) {
-            Log.d(TAG, "onDescriptorWrite: " + status);
-        }
-
-        @Override
-        public void onReliableWriteCompleted(BluetoothGatt gatt, int status) {
-            Log.d(TAG, "onReliableWriteCompleted: " + status);
+        public void onMtuChanged(int mtu, int status) {
+            // Every time it disconnects/reconnects it needs to re-set MTU
+            Log.d(TAG, "onMtuChanged " + mtu + " status: " + status);
+            if (mStorm != null) {
+                if (status != GattTransport.GATT_SUCCESS) {
+                    failReconnectCycle("MTU exchange");
+                    return;
+                }
+                mStorm.mark(GattReconnectStorm.MARK_MTU_CHANGED, mClock.elapsedRealtimeNanos());
+            }
+            if (mSweep != null) {
+                mSweep.setNegotiatedMtu(mtu);
+                applySweepPoint();
+                return;
+            }
+            // First time to write a characteristic to GATT server
+            mStartWriteTime = mClock.elapsedRealtime();
+            if (!writeCharacteristic(INIT_VALUE)) {
+                // Nothing would be acknowledged, drop the connection to try again
+                Log.e(TAG, "First write could not be issued, disconnecting");
+                mTransport.disconnect();
+            }
         }
 
         @Override
-        public void onReadRemoteRssi(BluetoothGatt gatt, int rssi, int status) {
-            Log.d(TAG, "onReadRemoteRssi: " + rssi + " status: " + status);
+        public void onPhyRead(int txPhy, int rxPhy, int status) {
+            Log.d(TAG, "onPhyRead tx: " + txPhy + " rx: " + rxPhy + " status: " + status);
+            if (mSweep != null) {
+                mSweep.setPhy(txPhy, rxPhy);
+                startSweepBurst();
+            }
         }
 
         @Override
-        public void onMtuChanged(BluetoothGatt gatt, int mtu, int status) {
-            // Every time it disconnects/reconnects it needs to re-set MTU
-            Log.d(TAG, "onMtuChanged " + mtu + " status: " + status);
-            // First time to write a characteristic to GATT server
-            mStartWriteTime = SystemClock.elapsedRealtime();
-            writeCharacteristic(gatt, INIT_VALUE);
+        public void onConnectionUpdated(int interval, int latency, int timeout, int status) {
+            Log.d(TAG, "onConnectionUpdated interval: " + interval + " latency: " + latency
+                    + " timeout: " + timeout + " status: " + status);
+            if (mSweep != null) {
+                mSweep.setConnectionParams(interval, latency, timeout);
+            }
         }
 
         /**
          * Function to be called to write a new GATT characteristic
          *
-         * @param gatt - BluetoothGatt object to write
          * @param value - value to be set inside GATT characteristic
+         * @return true if the write is issued
          */
-        private void writeCharacteristic(BluetoothGatt gatt, int value) {
-            UUID sUuid = UUID.fromString(GattServer.TEST_SERVICE_UUID);
-            BluetoothGattService service = gatt.getService(sUuid);
-            if (service == null) {
-                Log.e(TAG, "service not found!");
-                return;
-            }
-            UUID cUuid = UUID.fromString(GattServer.WRITABLE_CHAR_UUID);
-            BluetoothGattCharacteristic characteristic = service.getCharacteristic(cUuid);
-
-            if (characteristic == null) {
-                Log.e(TAG, "Characteristic not found!");
-                return;
-            }
-
-            byte[] byteValue = new byte[MAX_BYTES];
-
-            for (int i = 0; i < MAX_BYTES; i++) {
-                byteValue[i] = (byte) value;
-            }
-
-            characteristic.setValue(byteValue);
-            characteristic.setWriteType(BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT);
-            gatt.writeCharacteristic(characteristic);
+        private boolean writeCharacteristic(int value) {
+            return mTransport.writeCharacteristic(mPayload.get(value));
         }
     }
 
     /**
      * Class to provide Ble Scanner functionalities
      */
-    class MyBleScanner {
+    class MyBleScanner implements BleScanHal.ScanListener {
 
-        private BluetoothLeScanner mBLEScanner;
-        private ScanSettings mScanSettings;
-        private List<ScanFilter> mScanFilterList;
-        private MyScanCallback mScanCallback;
+        private final BleScanHal mBLEScanner;
         private String mAdvMacAddress = null;
 
         /**
          * Constructor
-         * @param context - system will provide a context to this function
+         * @param bleScanner - scanner to find the advertiser
          */
-        MyBleScanner(BluetoothAdapter bluetoothAdapter) {
-
-            mBLEScanner = bluetoothAdapter.getBluetoothLeScanner();
-            mScanFilterList = new ArrayList<ScanFilter>();
-            mScanSettings = new ScanSettings.Builder().setScanMode(
-                                            ScanSettings.SCAN_MODE_LOW_LATENCY).build();
-            mScanCallback = new MyScanCallback();
+        MyBleScanner(BleScanHal bleScanner) {
+            mBLEScanner = bleScanner;
         }
 
         /**
@@ -330,23 +526,16 @@ public class GattClientListener extends BroadcastReceiver {
          */
         public void startScan() {
             // Start Scan here when this func is called for the first time
-            if (mBLEScanner != null) {
-                mBLEScanner.startScan(mScanFilterList, mScanSettings, mScanCallback);
-            } else {
+            if (!mBLEScanner.startScan(BleScanHal.SCAN_MODE_LOW_LATENCY, null, this)) {
                 Log.e(TAG, "BLEScanner is null");
             }
-
         }
 
         /**
          * Wrapper function to stop BLE Scanning
          */
         public void stopScan() {
-            if (mBLEScanner != null) {
-                mBLEScanner.stopScan(mScanCallback);
-            } else {
-                Log.e(TAG, "BLEScanner is null");
-            }
+            mBLEScanner.stopScan(this);
         }
 
         /**
@@ -357,28 +546,20 @@ public class GattClientListener extends BroadcastReceiver {
             return mAdvMacAddress;
         }
 
-        /**
-         * Class to provide callback for BLE Scanning
-         */
-        class MyScanCallback extends ScanCallback {
-
-            @Override
-            public void onScanResult(int callbackType, ScanResult result) {
-                Log.d(TAG, "Bluetooth scan result: " + result.toString());
-                BluetoothDevice device = result.getDevice();
-                if (mAdvMacAddress == null) {
-                    mAdvMacAddress = device.getAddress();
-                    Log.d(TAG, "Bluetooth Address: " + mAdvMacAddress);
-                }
-                mBLEScanner.stopScan(mScanCallback);
-                Log.d(TAG, "Bluetooth scan result: end ");
+        @Override
+        public void onScanResult(String address, int rssi) {
+            Log.d(TAG, "Bluetooth scan result: " + address + " rssi: " + rssi);
+            if (mAdvMacAddress == null) {
+                mAdvMacAddress = address;
+                Log.d(TAG, "Bluetooth Address: " + mAdvMacAddress);
             }
+            stopScan();
+            Log.d(TAG, "Bluetooth scan result: end ");
+        }
 
-            @Override
-            public void onScanFailed(int errorCode) {
-                Log.e(TAG, "Scan Failed: " + errorCode);
-            }
+        @Override
+        public void onScanFailed(int errorCode) {
+            Log.e(TAG, "Scan Failed: " + errorCode);
         }
     }
 }
-
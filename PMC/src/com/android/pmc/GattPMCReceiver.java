@@ -16,18 +16,18 @@
 
 package com.android.pmc;
 
-import android.app.AlarmManager;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.os.Bundle;
 import android.util.Log;
 
+import com.android.pmc.hal.PmcHal;
+
 /**
  * PMC Receiver functions for GATT Client and Server.
  */
-public class GattPMCReceiver extends BroadcastReceiver {
+public class GattPMCReceiver extends BroadcastReceiver implements PMCSubsystem {
     public static final String TAG = "GATTPMC";
     public static final String GATTPMC_INTENT = "com.android.pmc.GATT";
     private final GattClientListener mGattClientListener;
@@ -37,18 +37,13 @@ public class GattPMCReceiver extends BroadcastReceiver {
      * Constructor to be called by PMC
      *
      * @param context - PMC will provide a context
-     * @param alarmManager - PMC will provide alarmManager
+     * @param hal - PMC will provide the devices to be used for GATT and alarms
      */
-    public GattPMCReceiver(Context context, AlarmManager alarmManager) {
+    public GattPMCReceiver(Context context, PmcHal hal) {
         Log.d(TAG, "Start GattPMCReceiver()");
 
-        // Prepare for setting alarm service
-        mGattClientListener = new GattClientListener(context, alarmManager);
+        mGattClientListener = new GattClientListener(hal);
         mGattServer = new GattServer(context);
-
-        // RegisterAlarmReceiver for GattListener
-        context.registerReceiver(mGattClientListener,
-                new IntentFilter(GattClientListener.GATTCLIENT_ALARM));
         Log.d(TAG, "Start GattPMCReceiver()");
     }
 
@@ -86,6 +81,42 @@ public class GattPMCReceiver extends BroadcastReceiver {
             Log.d(TAG, "Start Time = " + str);
             startTime = Integer.valueOf(str);
 
+            if (extras.containsKey("Sweep")) {
+                // this is for connection priority / PHY / MTU sweep of Gatt Client
+                int burstWrites = GattSweep.DEFAULT_BURST_WRITES;
+                if (extras.containsKey("BurstWrites")) {
+                    str = extras.getString("BurstWrites");
+                    Log.d(TAG, "Burst Writes = " + str);
+                    burstWrites = Integer.valueOf(str);
+                }
+                GattSweep sweep = new GattSweep(
+                        GattSweep.parseList(extras.getString("Priorities"),
+                                GattSweep.DEFAULT_PRIORITIES),
+                        GattSweep.parseList(extras.getString("Phys"), GattSweep.DEFAULT_PHYS),
+                        GattSweep.parseList(extras.getString("Mtus"), GattSweep.DEFAULT_MTUS),
+                        burstWrites);
+                mGattClientListener.startSweep(startTime, sweep);
+                return;
+            }
+
+            if (extras.containsKey("ReconnectStorm")) {
+                // this is for connect / discover / MTU cost benchmark of Gatt Client
+                int cycles = GattReconnectStorm.DEFAULT_CYCLES;
+                boolean autoConnect = false;
+                if (extras.containsKey("Cycles")) {
+                    str = extras.getString("Cycles");
+                    Log.d(TAG, "Cycles = " + str);
+                    cycles = Integer.valueOf(str);
+                }
+                if (extras.containsKey("AutoConnect")) {
+                    str = extras.getString("AutoConnect");
+                    Log.d(TAG, "AutoConnect = " + str);
+                    autoConnect = Boolean.valueOf(str);
+                }
+                mGattClientListener.startReconnectStorm(startTime,
+                        new GattReconnectStorm(cycles, autoConnect));
+                return;
+            }
 
             if (!extras.containsKey("WriteTime")) {
                 Log.e(TAG, "No WriteTime specified for GATT write");
@@ -111,7 +142,13 @@ public class GattPMCReceiver extends BroadcastReceiver {
             Log.d(TAG, "Repetitions = " + str);
             Repetitions = Integer.valueOf(str);
 
-            mGattClientListener.startAlarm(startTime, writeTime, idleTime, Repetitions, null);
+            mGattClientListener.startAlarm(startTime, writeTime, idleTime, Repetitions);
         }
     }
+
+    @Override
+    public void release() {
+        mGattClientListener.release();
+        mGattServer.stopGattServer();
+    }
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import java.util.Arrays;
+
+/**
+ * Prebuilt payload for GATT characteristic writes. Every byte of the payload holds the
+ * same value, the buffer is only refilled when the value changes.
+ */
+public class GattPayload {
+    private final byte[] mPayload;
+    private int mValue;
+
+    /**
+     * Constructor
+     *
+     * @param size - payload size in bytes
+     */
+    public GattPayload(int size) {
+        mPayload = new byte[size];
+        mValue = -1;
+    }
+
+    /**
+     * Returns the payload filled with value. The returned array is reused by the next
+     * call, so it must be consumed before that.
+     *
+     * @param value - value to be set into every byte of the payload
+     */
+    public byte[] get(int value) {
+        if (value != mValue) {
+            Arrays.fill(mPayload, (byte) value);
+            mValue = value;
+        }
+        return mPayload;
+    }
+
+    public int size() {
+        return mPayload.length;
+    }
+}
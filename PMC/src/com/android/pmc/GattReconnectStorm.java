@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Timestamps and latency distribution for the GATT client reconnect storm benchmark.
+ *
+ * Every cycle connects, discovers services, negotiates MTU, writes one characteristic
+ * and disconnects again. The time of every step is saved into primitive arrays so
+ * that hundreds of cycles can be recorded without allocating in the callbacks.
+ */
+class GattReconnectStorm {
+    public static final String TAG = GattClientListener.TAG;
+    public static final int DEFAULT_CYCLES = 200;
+    // Failed cycles in a row after which the remote device is considered gone
+    public static final int MAX_CONSECUTIVE_FAILURES = 10;
+
+    // Timestamp marks of one cycle, phase N is the time between mark N and mark N + 1
+    public static final int MARK_CONNECT_START = 0;
+    public static final int MARK_CONNECTED = 1;
+    public static final int MARK_SERVICES_DISCOVERED = 2;
+    public static final int MARK_MTU_CHANGED = 3;
+    public static final int MARK_FIRST_WRITE_ACKED = 4;
+    private static final int NUM_MARKS = 5;
+    private static final String[] PHASE_NAMES = {
+            "Connect", "ServiceDiscovery", "MtuExchange", "FirstWrite"};
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final int mCycles;
+    private final boolean mAutoConnect;
+    private final long[][] mMarks;
+    private int mCycle;
+    private int mFailedCycles;
+    // Failed cycles by the phase which didn't complete, indexes of PHASE_NAMES
+    private final int[] mPhaseFailures = new int[PHASE_NAMES.length];
+    private int mTimedOutCycles;
+    private int mConsecutiveFailures;
+    private boolean mAborted;
+
+    /**
+     * Constructor
+     *
+     * @param cycles - number of disconnect / reconnect cycles
+     * @param autoConnect - autoConnect parameter to be used for connectGatt()
+     */
+    GattReconnectStorm(int cycles, boolean autoConnect) {
+        mCycles = cycles;
+        mAutoConnect = autoConnect;
+        mMarks = new long[NUM_MARKS][cycles];
+        mCycle = 0;
+        mFailedCycles = 0;
+        mConsecutiveFailures = 0;
+        mAborted = false;
+    }
+
+    public boolean isAutoConnect() {
+        return mAutoConnect;
+    }
+
+    /**
+     * Returns true when all cycles are measured or the storm is given up
+     */
+    public boolean isDone() {
+        return mCycle >= mCycles || mAborted;
+    }
+
+    public boolean isAborted() {
+        return mAborted;
+    }
+
+    /**
+     * Save the timestamp of a mark for the current cycle
+     *
+     * @param mark - one of MARK_*
+     * @param nowNanos - SystemClock.elapsedRealtimeNanos() of the event
+     */
+    public void mark(int mark, long nowNanos) {
+        if (isDone()) return;
+        // Only the first occurrence in a cycle counts, e.g. the first write acked
+        if (mMarks[mark][mCycle] == 0) mMarks[mark][mCycle] = nowNanos;
+    }
+
+    /**
+     * Count the current cycle as timed out, it is still to be ended with endCycle()
+     */
+    public void onTimeout() {
+        if (!isDone()) mTimedOutCycles++;
+    }
+
+    /**
+     * Finish the current cycle when the connection is dropped. A cycle which did not
+     * reach the first acknowledged write is counted as failed and measured again,
+     * unless MAX_CONSECUTIVE_FAILURES cycles failed in a row which stops the storm
+     * with the cycles measured so far.
+     */
+    public void endCycle() {
+        if (isDone()) return;
+        if (mMarks[MARK_FIRST_WRITE_ACKED][mCycle] == 0) {
+            mFailedCycles++;
+            mConsecutiveFailures++;
+            // Marks are only set on success, the first missing one is the failed phase
+            int phase = 0;
+            while (phase < PHASE_NAMES.length - 1 && mMarks[phase + 1][mCycle] != 0) {
+                phase++;
+            }
+            mPhaseFailures[phase]++;
+            for (int i = 0; i < NUM_MARKS; i++) {
+                mMarks[i][mCycle] = 0;
+            }
+            if (mConsecutiveFailures >= MAX_CONSECUTIVE_FAILURES) {
+                Log.e(TAG, "Reconnect cycle " + mCycle + " failed " + mConsecutiveFailures
+                        + " times in a row, stopping");
+                mAborted = true;
+            } else {
+                Log.e(TAG, "Reconnect cycle " + mCycle + " failed, repeating");
+            }
+            return;
+        }
+        mConsecutiveFailures = 0;
+        mCycle++;
+    }
+
+    public int getCycle() {
+        return mCycle;
+    }
+
+    /**
+     * Returns latency distribution of every phase as JSON
+     */
+    public JSONObject getResults() {
+        JSONObject results = new JSONObject();
+        try {
+            results.put("Cycles", mCycle);
+            results.put("FailedCycles", mFailedCycles);
+            results.put("Aborted", mAborted);
+            results.put("TimedOutCycles", mTimedOutCycles);
+            JSONObject failures = new JSONObject();
+            for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+                failures.put(PHASE_NAMES[phase], mPhaseFailures[phase]);
+            }
+            results.put("PhaseFailures", failures);
+            results.put("AutoConnect", mAutoConnect);
+            long[] latencies = new long[mCycle];
+            for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+                for (int i = 0; i < mCycle; i++) {
+                    latencies[i] = mMarks[phase + 1][i] - mMarks[phase][i];
+                }
+                results.put(PHASE_NAMES[phase], distribution(latencies));
+            }
+            for (int i = 0; i < mCycle; i++) {
+                latencies[i] = mMarks[MARK_FIRST_WRITE_ACKED][i] - mMarks[MARK_CONNECT_START][i];
+            }
+            results.put("Total", distribution(latencies));
+        } catch (JSONException e) {
+            Log.e(TAG, "Exception to put reconnect results into JSON object: " + e);
+        }
+        return results;
+    }
+
+    private static JSONObject distribution(long[] latencies) throws JSONException {
+        JSONObject obj = new JSONObject();
+        if (latencies.length == 0) return obj;
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        long sum = 0;
+        for (long latency : sorted) {
+            sum += latency;
+        }
+        obj.put("MinMs", sorted[0] / NANOS_PER_MILLI);
+        obj.put("AvgMs", sum / NANOS_PER_MILLI / sorted.length);
+        obj.put("P50Ms", LatencyHistogram.percentile(sorted, 50) / NANOS_PER_MILLI);
+        obj.put("P90Ms", LatencyHistogram.percentile(sorted, 90) / NANOS_PER_MILLI);
+        obj.put("P99Ms", LatencyHistogram.percentile(sorted, 99) / NANOS_PER_MILLI);
+        obj.put("MaxMs", sorted[sorted.length - 1] / NANOS_PER_MILLI);
+        return obj;
+    }
+}
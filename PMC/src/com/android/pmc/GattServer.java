@@ -49,9 +49,6 @@ public class GattServer {
     private BluetoothGattServer mGattServer;
     private MyGattServerCallback mGattServerCallBack;
     private BluetoothGattService mGattService;
-    private static final String READABLE_DESC_UUID = "76d5ed92-ca81-4edb-bb6b-9f019665fb32";
-    public static final String WRITABLE_CHAR_UUID = "aa7edd5a-4d1d-4f0e-883a-d145616a1630";
-    public static final String TEST_SERVICE_UUID = "3846D7A0-69C8-11E4-BA00-0002A5D5C51B";
 
     /**
      * Constructor
@@ -85,19 +82,22 @@ public class GattServer {
         mGattServerCallBack = new MyGattServerCallback();
 
         BluetoothGattCharacteristic characteristic =
-                    new BluetoothGattCharacteristic(UUID.fromString(WRITABLE_CHAR_UUID),
+                    new BluetoothGattCharacteristic(
+                    UUID.fromString(GattTestService.WRITABLE_CHAR_UUID),
                     BluetoothGattCharacteristic.PROPERTY_WRITE
                     | BluetoothGattCharacteristic.PROPERTY_WRITE_NO_RESPONSE,
                     BluetoothGattCharacteristic.PERMISSION_WRITE);
 
         BluetoothGattDescriptor descriptor =
-                    new BluetoothGattDescriptor(UUID.fromString(READABLE_DESC_UUID),
+                    new BluetoothGattDescriptor(
+                    UUID.fromString(GattTestService.READABLE_DESC_UUID),
                     BluetoothGattDescriptor.PERMISSION_READ
                     | BluetoothGattDescriptor.PERMISSION_WRITE);
 
         characteristic.addDescriptor(descriptor);
 
-        mGattService = new BluetoothGattService(UUID.fromString(TEST_SERVICE_UUID),
+        mGattService = new BluetoothGattService(
+                    UUID.fromString(GattTestService.TEST_SERVICE_UUID),
                     BluetoothGattService.SERVICE_TYPE_PRIMARY);
         mGattService.addCharacteristic(characteristic);
 
@@ -119,6 +119,17 @@ public class GattServer {
         Log.d(TAG, "startGattServer finished");
     }
 
+    /**
+     * Function to be called to stop advertising and close Gatt Server
+     */
+    public void stopGattServer() {
+        if (mGattServer == null) return;
+        mBleAdvertiser.stopAdvertising();
+        mGattServer.close();
+        mGattServer = null;
+        Log.d(TAG, "stopGattServer finished");
+    }
+
     /**
      * Class to provide callback for GATT server to handle GATT requests
      */
@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.util.Log;
+
+import com.android.pmc.hal.GattTransport;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Sweep plan and results for GATT client connection parameters.
+ *
+ * Every combination of connection priority, preferred PHY and MTU is one sweep point.
+ * Points are ordered with MTU as the outermost loop because ATT MTU can only be
+ * exchanged once per connection, so a new MTU value needs a reconnect.
+ */
+class GattSweep {
+    public static final String TAG = GattClientListener.TAG;
+    public static final int[] DEFAULT_PRIORITIES = {
+            GattTransport.CONNECTION_PRIORITY_LOW_POWER,
+            GattTransport.CONNECTION_PRIORITY_BALANCED,
+            GattTransport.CONNECTION_PRIORITY_HIGH};
+    public static final int[] DEFAULT_PHYS = {
+            GattTransport.PHY_LE_1M,
+            GattTransport.PHY_LE_2M,
+            GattTransport.PHY_LE_CODED};
+    public static final int[] DEFAULT_MTUS = {23, 185, 247, 511};
+    public static final int DEFAULT_BURST_WRITES = 200;
+    // ATT write request header: 1 byte opcode + 2 bytes handle
+    private static final int ATT_WRITE_HEADER = 3;
+    private static final int NANOS_PER_MILLI = 1000000;
+    private static final int UNKNOWN = -1;
+
+    private final int[] mPriorities;
+    private final int[] mPhys;
+    private final int[] mMtus;
+    private final int mBurstWrites;
+    private final int mNumPoints;
+    private final long[] mWriteLatencyNanos;
+    private final JSONArray mResults = new JSONArray();
+
+    private int mPoint;
+    private int mNegotiatedMtu;
+    private int mTxPhy;
+    private int mRxPhy;
+    private int mConnInterval;
+    private int mConnLatency;
+    private int mConnTimeout;
+    private byte[] mPayload;
+    private int mWritesDone;
+    private int mWritesFailed;
+    private boolean mTimedOut;
+    private long mBurstStartNanos;
+    private long mWriteStartNanos;
+
+    /**
+     * Constructor
+     *
+     * @param priorities - connection priorities to sweep, GattTransport.CONNECTION_PRIORITY_*
+     * @param phys - preferred PHYs to sweep, GattTransport.PHY_LE_*
+     * @param mtus - MTU values to request
+     * @param burstWrites - number of characteristic writes for every sweep point
+     */
+    GattSweep(int[] priorities, int[] phys, int[] mtus, int burstWrites) {
+        mPriorities = priorities;
+        mPhys = phys;
+        mMtus = mtus;
+        mBurstWrites = burstWrites;
+        mNumPoints = mPriorities.length * mPhys.length * mMtus.length;
+        mWriteLatencyNanos = new long[burstWrites];
+        mPoint = 0;
+        resetConnectionParams();
+    }
+
+    /**
+     * Parse a comma separated list of integers, e.g. "1,2,3"
+     *
+     * @param str - string to parse, null or empty to use the default values
+     * @param defaults - values to be returned when str is not specified
+     */
+    static int[] parseList(String str, int[] defaults) {
+        if (str == null || str.isEmpty()) return defaults;
+        String[] items = str.split(",");
+        int[] values = new int[items.length];
+        for (int i = 0; i < items.length; i++) {
+            values[i] = Integer.valueOf(items[i].trim());
+        }
+        return values;
+    }
+
+    /**
+     * Convert a PHY value (GattTransport.PHY_LE_*) into PHY mask for setPreferredPhy()
+     */
+    static int phyToMask(int phy) {
+        switch (phy) {
+            case GattTransport.PHY_LE_2M:
+                return GattTransport.PHY_LE_2M_MASK;
+            case GattTransport.PHY_LE_CODED:
+                return GattTransport.PHY_LE_CODED_MASK;
+            default:
+                return GattTransport.PHY_LE_1M_MASK;
+        }
+    }
+
+    public boolean isDone() {
+        return mPoint >= mNumPoints;
+    }
+
+    public int getPriority() {
+        return mPriorities[mPoint % mPriorities.length];
+    }
+
+    public int getPhy() {
+        return mPhys[(mPoint / mPriorities.length) % mPhys.length];
+    }
+
+    public int getMtu() {
+        return mMtus[mPoint / (mPriorities.length * mPhys.length)];
+    }
+
+    /**
+     * Returns true if the current sweep point needs a new connection to apply its MTU
+     */
+    public boolean needsReconnect() {
+        return mPoint > 0 && mPoint < mNumPoints
+                && mPoint % (mPriorities.length * mPhys.length) == 0;
+    }
+
+    /**
+     * Connection parameters are only valid within one connection, forget them when
+     * the connection is dropped.
+     */
+    public void resetConnectionParams() {
+        mNegotiatedMtu = UNKNOWN;
+        mTxPhy = UNKNOWN;
+        mRxPhy = UNKNOWN;
+        mConnInterval = UNKNOWN;
+        mConnLatency = UNKNOWN;
+        mConnTimeout = UNKNOWN;
+    }
+
+    public void setNegotiatedMtu(int mtu) {
+        mNegotiatedMtu = mtu;
+        // Payload is built once per MTU and reused for every write of the burst
+        int size = Math.max(1, mtu - ATT_WRITE_HEADER);
+        if (mPayload == null || mPayload.length != size) {
+            mPayload = new byte[size];
+        }
+    }
+
+    public void setPhy(int txPhy, int rxPhy) {
+        mTxPhy = txPhy;
+        mRxPhy = rxPhy;
+    }
+
+    public void setConnectionParams(int interval, int latency, int timeout) {
+        mConnInterval = interval;
+        mConnLatency = latency;
+        mConnTimeout = timeout;
+    }
+
+    /**
+     * Start the write burst of the current point, returns the payload for the first write
+     */
+    public byte[] startBurst(long nowNanos) {
+        mWritesDone = 0;
+        mWritesFailed = 0;
+        mTimedOut = false;
+        mBurstStartNanos = nowNanos;
+        mWriteStartNanos = nowNanos;
+        Arrays.fill(mPayload, (byte) 0);
+        return mPayload;
+    }
+
+    /**
+     * Record the completion of one characteristic write
+     *
+     * @param nowNanos - time when the write is acknowledged
+     * @param success - true if the write was acknowledged with GATT_SUCCESS
+     * @return payload for the next write, null when the burst is complete
+     */
+    public byte[] onWriteDone(long nowNanos, boolean success) {
+        mWriteLatencyNanos[mWritesDone++] = nowNanos - mWriteStartNanos;
+        if (!success) mWritesFailed++;
+        if (mWritesDone >= mBurstWrites) {
+            finishPoint(nowNanos);
+            return null;
+        }
+        mWriteStartNanos = nowNanos;
+        Arrays.fill(mPayload, (byte) mWritesDone);
+        return mPayload;
+    }
+
+    /**
+     * End the burst of the current point before all writes are acknowledged, e.g. when
+     * the remote device stops responding. Writes done so far are saved as its result.
+     *
+     * @param nowNanos - time when the burst is given up
+     */
+    public void abortBurst(long nowNanos) {
+        Log.e(TAG, "Sweep point " + mPoint + " timed out after " + mWritesDone + " writes");
+        mTimedOut = true;
+        finishPoint(nowNanos);
+    }
+
+    private void finishPoint(long nowNanos) {
+        long durationNanos = nowNanos - mBurstStartNanos;
+        long bytes = (long) (mWritesDone - mWritesFailed) * mPayload.length;
+        long[] sorted = Arrays.copyOf(mWriteLatencyNanos, mWritesDone);
+        Arrays.sort(sorted);
+        long sum = 0;
+        for (long latency : sorted) {
+            sum += latency;
+        }
+        double throughput = durationNanos > 0 ? bytes * 1e9 / durationNanos : 0;
+
+        JSONObject obj = new JSONObject();
+        try {
+            obj.put("Priority", getPriority());
+            obj.put("Phy", getPhy());
+            obj.put("Mtu", getMtu());
+            obj.put("NegotiatedMtu", mNegotiatedMtu);
+            obj.put("TxPhy", mTxPhy);
+            obj.put("RxPhy", mRxPhy);
+            obj.put("ConnInterval", mConnInterval);
+            obj.put("ConnLatency", mConnLatency);
+            obj.put("ConnTimeout", mConnTimeout);
+            obj.put("Writes", mWritesDone);
+            obj.put("FailedWrites", mWritesFailed);
+            obj.put("TimedOut", mTimedOut);
+            obj.put("Bytes", bytes);
+            obj.put("DurationMs", (double) durationNanos / NANOS_PER_MILLI);
+            obj.put("ThroughputBytesPerSec", throughput);
+            if (mWritesDone > 0) {
+                obj.put("WriteLatencyAvgMs", (double) sum / mWritesDone / NANOS_PER_MILLI);
+                obj.put("WriteLatencyP50Ms",
+                        (double) LatencyHistogram.percentile(sorted, 50) / NANOS_PER_MILLI);
+                obj.put("WriteLatencyP95Ms",
+                        (double) LatencyHistogram.percentile(sorted, 95) / NANOS_PER_MILLI);
+                obj.put("WriteLatencyMaxMs",
+                        (double) sorted[sorted.length - 1] / NANOS_PER_MILLI);
+            }
+            mResults.put(obj);
+        } catch (JSONException e) {
+            Log.e(TAG, "Exception to put sweep point into JSONArray: " + e);
+        }
+        Log.d(TAG, "Sweep point " + mPoint + "/" + mNumPoints + ": " + obj.toString());
+        mPoint++;
+    }
+
+    public JSONArray getResults() {
+        return mResults;
+    }
+}
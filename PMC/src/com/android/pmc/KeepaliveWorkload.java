@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.util.Log;
+
+import com.android.pmc.hal.Clock;
+import com.android.pmc.hal.KeepaliveTransport;
+import com.android.pmc.hal.PmcHal;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Keep idle connections to the PMC server open with periodic heartbeats.
+ *
+ * Aligned heartbeats go out on all connections together from one inexact alarm, which
+ * fires on multiples of the interval so AlarmManager can batch it with other alarms.
+ * Unaligned heartbeats have an exact alarm per connection, spread evenly over the
+ * interval, the way independent apps keep their own connections alive. The wakelock is
+ * held from an alarm until all heartbeats it sent are answered or timed out.
+ */
+public class KeepaliveWorkload implements KeepaliveTransport.Callback {
+    public static final String TAG = "PMC";
+    public static final int DEFAULT_CONNECTIONS = 4;
+    // A GET of a 16 byte file generated by the server
+    public static final String HEARTBEAT_PATH = "/heartbeat/16b";
+    private static final String ALARM_NAME = "Heartbeat";
+    // Heartbeats not answered within this time are counted as timed out
+    private static final int TIMEOUT_MILLIS = 10000;
+    // Time the radio stays connected after the last packet, a heartbeat later than this
+    // after any other network activity has to wake the radio up again
+    private static final int RADIO_TAIL_MILLIS = 5000;
+
+    private final Clock mClock;
+    private final WorkloadLifecycle mLifecycle;
+    private final KeepaliveTransport mTransport;
+    private final String mHost;
+    private final int mPort;
+    private final int mConnections;
+    private final int mAlarmInterval;
+    private final boolean mAligned;
+    private final ProgressListener mListener;
+    private final Runnable[] mAlarms;
+    private final long[] mSentMillis;
+    private final LatencyHistogram mRtt = new LatencyHistogram();
+    private int mPendingCount;
+    private long mLastNetworkMillis;
+    private int mHeartbeats;
+    private int mAnswered;
+    private int mFailed;
+    private int mTimeouts;
+    private int mSkipped;
+    private int mAlarmWakeups;
+    private int mRadioWakeups;
+    private boolean mRunning;
+
+    private final Runnable mTimeout = new Runnable() {
+        @Override
+        public void run() {
+            onTimeout();
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param hal - devices to be used for alarms, wakelocks and connections
+     * @param host - host of the PMC server
+     * @param port - port of the PMC server
+     * @param connections - number of idle connections
+     * @param interval - time (ms) between two heartbeats of a connection
+     * @param aligned - true to send the heartbeats of all connections from one alarm
+     * @param listener - listener for the progress of the heartbeats
+     */
+    public KeepaliveWorkload(PmcHal hal, String host, int port, int connections, int interval,
+            boolean aligned, ProgressListener listener) {
+        mClock = hal.getClock();
+        mLifecycle = new WorkloadLifecycle(hal, "Keepalive");
+        mTransport = hal.getKeepaliveTransport();
+        mHost = host;
+        mPort = port;
+        mConnections = connections;
+        mAlarmInterval = interval;
+        mAligned = aligned;
+        mListener = listener;
+        mSentMillis = new long[connections];
+        Arrays.fill(mSentMillis, -1);
+        // Aligned heartbeats only use the first alarm, for all connections
+        mAlarms = new Runnable[aligned ? 1 : connections];
+        for (int i = 0; i < mAlarms.length; i++) {
+            final int connection = aligned ? -1 : i;
+            mAlarms[i] = new Runnable() {
+                @Override
+                public void run() {
+                    onAlarm(connection);
+                }
+            };
+        }
+    }
+
+    /**
+     * Open the connections and schedule the first heartbeats.
+     */
+    public synchronized void start() {
+        mRunning = true;
+        mTransport.open(mHost, mPort, mConnections, HEARTBEAT_PATH, this);
+        // Opening the connections keeps the radio up like a heartbeat
+        long now = mClock.elapsedRealtime();
+        mLastNetworkMillis = now;
+        if (mAligned) {
+            scheduleHeartbeat(-1, now);
+        } else {
+            for (int i = 0; i < mConnections; i++) {
+                // Spread the connections evenly over the first interval
+                mLifecycle.setAlarm(ALARM_NAME + i,
+                        now + (long) mAlarmInterval * (i + 1) / mConnections, true, mAlarms[i]);
+            }
+        }
+    }
+
+    /**
+     * Cancel the heartbeats and close the connections.
+     *
+     * @throws IllegalStateException if a wakelock or an alarm is leaked
+     */
+    public synchronized void stop() {
+        mRunning = false;
+        if (mAligned) {
+            mLifecycle.cancelAlarm(ALARM_NAME);
+        } else {
+            for (int i = 0; i < mConnections; i++) {
+                mLifecycle.cancelAlarm(ALARM_NAME + i);
+            }
+        }
+        mLifecycle.removeCallbacks(mTimeout);
+        mTransport.close();
+        mPendingCount = 0;
+        mLifecycle.releaseWakeLock();
+        mLifecycle.close();
+    }
+
+    /**
+     * Schedule the next heartbeat of a connection, -1 for the aligned heartbeat of all
+     * connections
+     */
+    private void scheduleHeartbeat(int connection, long now) {
+        if (connection < 0) {
+            // Next multiple of the interval, so every aligned alarm lands on the same grid
+            long next = (now / mAlarmInterval + 1) * mAlarmInterval;
+            mLifecycle.setAlarm(ALARM_NAME, next, false, mAlarms[0]);
+        } else {
+            mLifecycle.setAlarm(ALARM_NAME + connection, now + mAlarmInterval, true,
+                    mAlarms[connection]);
+        }
+    }
+
+    private synchronized void onAlarm(int connection) {
+        if (!mRunning) return;
+        long now = mClock.elapsedRealtime();
+        mAlarmWakeups++;
+        if (now - mLastNetworkMillis >= RADIO_TAIL_MILLIS) mRadioWakeups++;
+        mLastNetworkMillis = now;
+        mLifecycle.acquireWakeLock();
+        if (connection < 0) {
+            for (int i = 0; i < mConnections; i++) {
+                sendHeartbeat(i, now);
+            }
+        } else {
+            sendHeartbeat(connection, now);
+        }
+        if (mPendingCount > 0) {
+            mLifecycle.postDelayed(mTimeout, nextTimeout(now));
+        } else {
+            mLifecycle.releaseWakeLock();
+        }
+        scheduleHeartbeat(connection, now);
+    }
+
+    private void sendHeartbeat(int connection, long now) {
+        if (mSentMillis[connection] >= 0) {
+            Log.e(TAG, "Previous heartbeat of connection " + connection + " still pending.");
+            mSkipped++;
+            return;
+        }
+        mSentMillis[connection] = now;
+        mPendingCount++;
+        mHeartbeats++;
+        mTransport.heartbeat(connection);
+    }
+
+    /**
+     * Returns the time (ms) until the first pending heartbeat times out
+     */
+    private long nextTimeout(long now) {
+        long first = Long.MAX_VALUE;
+        for (long sent : mSentMillis) {
+            if (sent >= 0) first = Math.min(first, sent);
+        }
+        return Math.max(0, first + TIMEOUT_MILLIS - now);
+    }
+
+    private synchronized void onTimeout() {
+        if (!mRunning) return;
+        long now = mClock.elapsedRealtime();
+        for (int i = 0; i < mConnections; i++) {
+            if (mSentMillis[i] >= 0 && now - mSentMillis[i] >= TIMEOUT_MILLIS) {
+                Log.e(TAG, "Heartbeat of connection " + i + " timed out");
+                mSentMillis[i] = -1;
+                mPendingCount--;
+                mTimeouts++;
+            }
+        }
+        if (mPendingCount > 0) {
+            mLifecycle.postDelayed(mTimeout, nextTimeout(now));
+        } else {
+            mLifecycle.releaseWakeLock();
+        }
+    }
+
+    @Override
+    public void onHeartbeat(int connection, long rttNanos, String error) {
+        String status = null;
+        synchronized (this) {
+            // Answers after stop() or after the timeout are dropped
+            if (!mRunning || mSentMillis[connection] < 0) return;
+            mSentMillis[connection] = -1;
+            mPendingCount--;
+            mLastNetworkMillis = mClock.elapsedRealtime();
+            if (error != null) {
+                Log.e(TAG, "Heartbeat of connection " + connection + " failed: " + error);
+                mFailed++;
+            } else {
+                mRtt.record(rttNanos);
+                mAnswered++;
+            }
+            if (mPendingCount == 0) {
+                mLifecycle.removeCallbacks(mTimeout);
+                mLifecycle.releaseWakeLock();
+                status = "Heartbeats answered :: " + mAnswered + ", failed :: "
+                        + (mFailed + mTimeouts) + ", wakeups :: " + mAlarmWakeups;
+            }
+        }
+        if (status != null && mListener != null) mListener.onProgress(status);
+    }
+
+    /**
+     * Returns heartbeat counts, round trip times and the wakeups they caused so far.
+     */
+    public synchronized JSONObject getStats() {
+        JSONObject obj = new JSONObject();
+        try {
+            obj.put("Connections", mConnections);
+            obj.put("IntervalMs", mAlarmInterval);
+            obj.put("Aligned", mAligned);
+            obj.put("Heartbeats", mHeartbeats);
+            obj.put("Answered", mAnswered);
+            obj.put("Failed", mFailed);
+            obj.put("TimedOut", mTimeouts);
+            obj.put("Skipped", mSkipped);
+            obj.put("AlarmWakeups", mAlarmWakeups);
+            obj.put("RadioWakeups", mRadioWakeups);
+            obj.put("NetworkThreadWakeups", mTransport.getWakeupCount());
+            obj.put("Connects", mTransport.getConnectCount());
+            obj.put("Rtt", mRtt.toJson());
+        } catch (JSONException e) {
+            Log.e(TAG, "Exception to put keepalive stats into JSON object: " + e);
+        }
+        return obj;
+    }
+
+    public WorkloadLifecycle getLifecycle() {
+        return mLifecycle;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Histogram of durations with log-linear buckets of microseconds.
+ *
+ * Every power of two is split into four buckets, so a bucket is at most 25% wide and
+ * percentiles are accurate to that. Recording only updates a long[], nothing is
+ * allocated, so it can be done on every download or packet.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Covers up to 2^40 us, about 12 days
+    private static final int MAX_EXPONENT = 40;
+    private static final int NUM_BUCKETS = MAX_EXPONENT * SUB_BUCKETS;
+    private static final long NANOS_PER_MICRO = 1000;
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final long[] mCounts = new long[NUM_BUCKETS];
+    private long mCount;
+    private long mSumMicros;
+    private long mMinMicros = Long.MAX_VALUE;
+    private long mMaxMicros;
+
+    /**
+     * Record one duration
+     *
+     * @param nanos - duration in nanoseconds, negative values are ignored
+     */
+    public void record(long nanos) {
+        if (nanos < 0) return;
+        long micros = nanos / NANOS_PER_MICRO;
+        mCounts[bucketOf(micros)]++;
+        mCount++;
+        mSumMicros += micros;
+        if (micros < mMinMicros) mMinMicros = micros;
+        if (micros > mMaxMicros) mMaxMicros = micros;
+    }
+
+    public long getCount() {
+        return mCount;
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return Math.min(NUM_BUCKETS - 1, (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub);
+    }
+
+    /**
+     * Returns the smallest value in microseconds which falls into a bucket
+     */
+    private static long lowerBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Returns the given percentile in microseconds, the upper bound of its bucket
+     * clamped to the recorded minimum and maximum
+     */
+    public long percentileMicros(double pct) {
+        if (mCount == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(pct / 100.0 * mCount));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += mCounts[i];
+            if (seen >= rank) {
+                long upper = i + 1 < NUM_BUCKETS ? lowerBoundOf(i + 1) - 1 : mMaxMicros;
+                return Math.max(mMinMicros, Math.min(mMaxMicros, upper));
+            }
+        }
+        return mMaxMicros;
+    }
+
+    /**
+     * Returns the given percentile of a small set of exact samples, nearest rank
+     *
+     * @param sorted - samples in ascending order, must not be empty
+     * @param pct - percentile between 0 and 100
+     */
+    static long percentile(long[] sorted, double pct) {
+        int index = (int) Math.ceil(pct / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * Returns count, mean, percentiles and the non-empty buckets as JSON
+     */
+    public JSONObject toJson() {
+        JSONObject obj = new JSONObject();
+        try {
+            obj.put("Count", mCount);
+            if (mCount > 0) {
+                obj.put("MinMs", mMinMicros / MICROS_PER_MILLI);
+                obj.put("MeanMs", (double) mSumMicros / mCount / MICROS_PER_MILLI);
+                obj.put("P50Ms", percentileMicros(50) / MICROS_PER_MILLI);
+                obj.put("P90Ms", percentileMicros(90) / MICROS_PER_MILLI);
+                obj.put("P99Ms", percentileMicros(99) / MICROS_PER_MILLI);
+                obj.put("MaxMs", mMaxMicros / MICROS_PER_MILLI);
+            }
+            JSONArray buckets = new JSONArray();
+            for (int i = 0; i < NUM_BUCKETS; i++) {
+                if (mCounts[i] == 0) continue;
+                JSONObject bucket = new JSONObject();
+                bucket.put("FromUs", lowerBoundOf(i));
+                bucket.put("Count", mCounts[i]);
+                buckets.put(bucket);
+            }
+            obj.put("Buckets", buckets);
+        } catch (JSONException e) {
+            Log.e(DownloadWorkload.TAG, "Exception to put histogram into JSON object: " + e);
+        }
+        return obj;
+    }
+}
@@ -17,16 +17,11 @@
 package com.android.pmc;
 
 import android.app.Activity;
-import android.app.AlarmManager;
-import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.net.ConnectivityManager;
-import android.net.wifi.WifiScanner;
-import android.net.wifi.WifiScanner.ChannelSpec;
-import android.net.wifi.WifiScanner.ScanSettings;
 import android.os.Bundle;
 import android.os.PowerManager;
 import android.util.Log;
@@ -38,6 +33,22 @@ import android.widget.RadioGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.android.pmc.control.BroadcastDispatcher;
+import com.android.pmc.control.ControlServer;
+import com.android.pmc.hal.DownloadTransport;
+import com.android.pmc.hal.UploadTransport;
+import com.android.pmc.hal.WifiScanHal;
+import com.android.pmc.hal.platform.AndroidHal;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Locale;
+
 /**
  * Main class for PMC.
  */
@@ -49,39 +60,83 @@ public class PMCMainActivity extends Activity {
     public static final String SETTING_INTERVAL_KEY = "Interval";
     public static final String SETTING_IPERF_BANDWIDTH_KEY = "IperfBandwidth";
     public static final String SETTING_IPERF_LOGFILE_KEY = "IperfLogfile";
-    private static final String sConnScanAction = "ConnectionScan";
-    private static final String sGScanAction = "GScan";
-    private static final String sDownloadAction = "DownloadData";
+    public static final String SETTING_CONTROL_PORT_KEY = "ControlPort";
+    public static final String SETTING_UPLOAD_METHOD_KEY = "UploadMethod";
+    public static final String SETTING_UPLOAD_MODE_KEY = "UploadMode";
+    public static final String SETTING_DOWNLOAD_SCHEME_KEY = "DownloadScheme";
+    public static final String SETTING_TLS_PORT_KEY = "TlsPort";
+    public static final String SETTING_TLS_SESSION_CACHE_KEY = "TlsSessionCache";
+    public static final String SETTING_TLS_CA_FILE_KEY = "TlsCaFile";
+    public static final String SETTING_SAVE_DOWNLOADS_KEY = "SaveDownloads";
+    public static final String SETTING_FSYNC_POLICY_KEY = "FsyncPolicy";
+    public static final String SETTING_PREALLOCATE_KEY = "Preallocate";
+    public static final String SETTING_DOWNLOAD_DIGEST_KEY = "DownloadDigest";
+    public static final String SETTING_HASH_THREADS_KEY = "HashThreads";
+    public static final String SETTING_DOWNLOAD_ENCODING_KEY = "DownloadEncoding";
+    public static final String SETTING_DOWNLOAD_CONTENT_KEY = "DownloadContent";
+    public static final String SETTING_KEEPALIVE_CONNECTIONS_KEY = "KeepaliveConnections";
+    public static final String SETTING_KEEPALIVE_ALIGNED_KEY = "KeepaliveAligned";
+    public static final int DEFAULT_TLS_SESSION_CACHE = 16;
+    public static final int DEFAULT_HASH_THREADS = 2;
+    public static final int DEFAULT_CONTROL_PORT = 8700;
     private static final String SETPARAMS_INTENT_STRING = "com.android.pmc.action.SETPARAMS";
     private static final String AUTOPOWER_INTENT_STRING = "com.android.pmc.action.AUTOPOWER";
 
     TextView mTextView;
     Intent mSettingIntent;
-    private PendingIntent mPIGScan;
-    private PendingIntent mPIDownload;
-    private PendingIntent mPIConnScan;
     private String mServerIP = "10.10.10.1";
     private String mServerPort = "8080";
     private int mIntervalMillis = 60 * 1000;
     private String mIperfBandwidth = "1M";
     private String mIperfLogFile = "/sdcard/iperf.txt";
-    private WifiConnScanReceiver mConnSR = null;
-    private WifiGScanReceiver mGScanR = null;
-    private WifiDownloadReceiver mDR = null;
+    private WifiScanWorkload mConnSR = null;
+    private WifiScanWorkload mGScanR = null;
+    private DownloadWorkload mDR = null;
+    private UploadWorkload mUR = null;
+    private KeepaliveWorkload mKR = null;
+    private String mUploadMethod = "POST";
+    private int mUploadMode = UploadTransport.MODE_FIXED_LENGTH;
+    private boolean mHttps = false;
+    private String mTlsPort = "8443";
+    private int mTlsSessionCache = DEFAULT_TLS_SESSION_CACHE;
+    private String mTlsCaFile = null;
+    private boolean mSaveDownloads = false;
+    private int mSyncPolicy = DownloadTransport.SYNC_PER_FILE;
+    private long mSyncBytes = 0;
+    private boolean mPreallocate = false;
+    private int mDigest = DownloadTransport.DIGEST_NONE;
+    private int mHashThreads = DEFAULT_HASH_THREADS;
+    private int mEncoding = DownloadTransport.ENCODING_IDENTITY;
+    private String mDownloadContent = null;
+    private int mKeepaliveConnections = KeepaliveWorkload.DEFAULT_CONNECTIONS;
+    private boolean mKeepaliveAligned = true;
     private IperfClient mIperfClient = null;
+    private volatile ControlServer mControlServer = null;
     private boolean mTethered = false;
     private RadioGroup mRadioGroup;
     private Button mBtnStart;
     private Button mBtnStop;
     private PMCReceiver mPMCReceiver;
-    private BleScanReceiver mBleScanReceiver;
-    private GattPMCReceiver mGattPMCReceiver;
-    private A2dpReceiver mA2dpReceiver;
-    private AlarmManager mAlarmManager;
+    private SubsystemRegistry mSubsystems;
+    private AndroidHal mHal;
     private PowerManager.WakeLock mWakeLock;
     private ConnectivityManager mConnManager;
     private int mProvisionCheckSleep = 1250;
 
+    // Workloads report their progress from background threads
+    private final ProgressListener mProgressListener = new ProgressListener() {
+        @Override
+        public void onProgress(final String status) {
+            sendControlEvent("Progress", "Message", status);
+            runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    updateProgressStatus(status);
+                }
+            });
+        }
+    };
+
     class OnStartTetheringCallback extends ConnectivityManager.OnStartTetheringCallback {
         @Override
         public void onTetheringStarted() {
@@ -92,17 +147,11 @@ public class PMCMainActivity extends Activity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        //Initiate wifi service manger
-        mAlarmManager = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
+        mHal = new AndroidHal(this);
         mConnManager = (ConnectivityManager)
                 this.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
-        mPIGScan = PendingIntent.getBroadcast(this, 0, new Intent(sGScanAction), 0);
-        mPIDownload = PendingIntent.getBroadcast(this, 0, new Intent(sDownloadAction), 0);
-        mPIConnScan = PendingIntent.getBroadcast(this, 0, new Intent(sConnScanAction), 0);
         mPMCReceiver = new PMCReceiver();
-        mBleScanReceiver = new BleScanReceiver(this, mAlarmManager);
-        mGattPMCReceiver = new GattPMCReceiver(this, mAlarmManager);
-        mA2dpReceiver = new A2dpReceiver(this, mAlarmManager);
+        mSubsystems = createSubsystems();
         setContentView(R.layout.activity_linear);
         mTextView = (TextView) findViewById(R.id.text_content);
         mRadioGroup = (RadioGroup) findViewById(R.id.rb_dataselect);
@@ -111,15 +160,84 @@ public class PMCMainActivity extends Activity {
         addListenerOnButton();
         registerReceiver(mPMCReceiver, new IntentFilter(AUTOPOWER_INTENT_STRING));
         registerReceiver(mPMCReceiver, new IntentFilter(SETPARAMS_INTENT_STRING));
-        registerReceiver(mBleScanReceiver, new IntentFilter(BleScanReceiver.BLE_SCAN_INTENT));
-        registerReceiver(mGattPMCReceiver, new IntentFilter(GattPMCReceiver.GATTPMC_INTENT));
-        registerReceiver(mA2dpReceiver, new IntentFilter(A2dpReceiver.A2DP_INTENT));
+        mSubsystems.register(this);
+    }
+
+    /**
+     * Bluetooth subsystems are only created by their first intent, so that tests which
+     * don't use Bluetooth don't enable it.
+     */
+    private SubsystemRegistry createSubsystems() {
+        SubsystemRegistry subsystems = new SubsystemRegistry();
+        subsystems.add("BleScan", BleScanReceiver.BLE_SCAN_INTENT,
+                new SubsystemRegistry.Factory() {
+                    @Override
+                    public BroadcastReceiver create() {
+                        return new BleScanReceiver(mHal);
+                    }
+                });
+        subsystems.add("Gatt", GattPMCReceiver.GATTPMC_INTENT,
+                new SubsystemRegistry.Factory() {
+                    @Override
+                    public BroadcastReceiver create() {
+                        return new GattPMCReceiver(PMCMainActivity.this, mHal);
+                    }
+                });
+        subsystems.add("A2dp", A2dpReceiver.A2DP_INTENT,
+                new SubsystemRegistry.Factory() {
+                    @Override
+                    public BroadcastReceiver create() {
+                        return new A2dpReceiver(PMCMainActivity.this, mHal);
+                    }
+                });
+        return subsystems;
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        unregisterReceiver(mPMCReceiver);
+        // Workloads throw if they leak a wakelock or an alarm when stopped. Every
+        // workload is still stopped and the activity released before the first
+        // leak is rethrown, the others are attached to it as suppressed.
+        IllegalStateException leak = null;
+        try {
+            try {
+                stopConnectivityScan();
+            } catch (IllegalStateException e) {
+                leak = addLeak(leak, e);
+            }
+            try {
+                stopDownloadFile();
+            } catch (IllegalStateException e) {
+                leak = addLeak(leak, e);
+            }
+            try {
+                stopUploadFile();
+            } catch (IllegalStateException e) {
+                leak = addLeak(leak, e);
+            }
+            try {
+                stopKeepalive();
+            } catch (IllegalStateException e) {
+                leak = addLeak(leak, e);
+            }
+            stopGScan();
+            stopIperfClient();
+            stopControlServer();
+            turnScreenOff();
+        } finally {
+            unregisterReceiver(mPMCReceiver);
+            mSubsystems.unregister(this);
+            mHal.release();
+        }
+        if (leak != null) throw leak;
+    }
+
+    private static IllegalStateException addLeak(IllegalStateException first,
+            IllegalStateException leak) {
+        if (first == null) return leak;
+        first.addSuppressed(leak);
+        return first;
     }
 
     /**
@@ -148,11 +266,11 @@ public class PMCMainActivity extends Activity {
                         startConnectivityScan();
                         break;
                     case R.id.rb_gscan2g:
-                        Integer[] channelList = {2412, 2437, 2462};
-                        startGscan(WifiScanner.WIFI_BAND_UNSPECIFIED, channelList);
+                        int[] channelList = {2412, 2437, 2462};
+                        startGscan(WifiScanHal.BAND_UNSPECIFIED, channelList);
                         break;
                     case R.id.rb_gscan_without_dfs:
-                        startGscan(WifiScanner.WIFI_BAND_BOTH, null);
+                        startGscan(WifiScanHal.BAND_BOTH, null);
                         break;
                     case R.id.rb_iperf_client:
                         startIperfClient();
@@ -171,6 +289,8 @@ public class PMCMainActivity extends Activity {
             public void onClick(View v) {
                 stopConnectivityScan();
                 stopDownloadFile();
+                stopUploadFile();
+                stopKeepalive();
                 stopGScan();
                 stopIperfClient();
                 stopUSBTethering();
@@ -198,12 +318,22 @@ public class PMCMainActivity extends Activity {
             errorMsg.show();
             startSettingActivity();
         } else {
-            mDR = new WifiDownloadReceiver(PMCMainActivity.this,
-                    "http://" + mServerIP + ":" + mServerPort + "/" + filename, mIntervalMillis,
-                    mAlarmManager, mPIDownload);
-            registerReceiver(mDR, new IntentFilter(sDownloadAction));
+            String url = "http://" + mServerIP + ":" + mServerPort + "/" + filename;
+            if (mHttps) {
+                url = "https://" + mServerIP + ":" + mTlsPort + "/" + filename;
+                if (!mHal.getDownloadTransport().setTls(mTlsSessionCache, mTlsCaFile)) {
+                    mTextView.setText("Failed to set up TLS with CA " + mTlsCaFile);
+                    return;
+                }
+            }
+            if (mDownloadContent != null) url += "?content=" + mDownloadContent;
+            String dir = mSaveDownloads ? new File(getFilesDir(), "downloads").getPath() : null;
+            mHal.getDownloadTransport().setStorage(dir, mSyncPolicy, mSyncBytes, mPreallocate);
+            mHal.getDownloadTransport().setVerify(mDigest, mHashThreads);
+            mHal.getDownloadTransport().setEncoding(mEncoding);
+            mDR = new DownloadWorkload(mHal, url, mIntervalMillis, mProgressListener);
             Log.d(TAG, "Setting download data alarm. Interval: " + mIntervalMillis);
-            mDR.scheduleDownload();
+            mDR.start();
             mBtnStart.setEnabled(false);
             mRadioGroup.setFocusable(false);
             mTextView.setText("Started downloadng " + filename);
@@ -212,8 +342,8 @@ public class PMCMainActivity extends Activity {
 
     private void stopDownloadFile() {
         if (mDR != null) {
-            unregisterReceiver(mDR);
-            mDR.cancelDownload();
+            logDownloadPhases();
+            mDR.stop();
             mDR = null;
             mBtnStart.setEnabled(true);
             mRadioGroup.setFocusable(true);
@@ -221,13 +351,104 @@ public class PMCMainActivity extends Activity {
         }
     }
 
+    /**
+     * Write the per-phase histograms of the running download into the download log
+     *
+     * @return the histograms as JSON
+     */
+    private JSONObject logDownloadPhases() {
+        JSONObject phases = mDR.getPhaseStats();
+        PMCStatusLogger logger = new PMCStatusLogger(TAG + "_download.log", TAG);
+        logger.logResult("DownloadPhases", phases);
+        logger.flash();
+        return phases;
+    }
+
+    private void startUploadFile(String name, long size) {
+        // Stop any ongoing upload sessions before starting a new instance.
+        stopUploadFile();
+        Log.d(TAG, "serverIP ::" + mServerIP + " Port ::" + mServerPort
+                + ". Interval: " + mIntervalMillis);
+        if (mServerIP.length() == 0 || mServerPort.length() == 0) {
+            String msg = "Provide server IP and Port information in Setting";
+            Toast errorMsg = Toast.makeText(getBaseContext(), msg, Toast.LENGTH_LONG);
+            errorMsg.show();
+            startSettingActivity();
+        } else {
+            mUR = new UploadWorkload(mHal,
+                    "http://" + mServerIP + ":" + mServerPort + "/upload/" + name, mUploadMethod,
+                    size, mUploadMode, mIntervalMillis, mProgressListener);
+            Log.d(TAG, "Setting upload data alarm. Interval: " + mIntervalMillis);
+            mUR.start();
+            mBtnStart.setEnabled(false);
+            mRadioGroup.setFocusable(false);
+            mTextView.setText("Started uploading " + name);
+        }
+    }
+
+    private void stopUploadFile() {
+        if (mUR != null) {
+            mUR.stop();
+            mUR = null;
+            mBtnStart.setEnabled(true);
+            mRadioGroup.setFocusable(true);
+            mTextView.setText("Stopped upload");
+        }
+    }
+
+    private void startKeepalive() {
+        // Stop any ongoing keepalive sessions before starting a new instance.
+        stopKeepalive();
+        Log.d(TAG, "serverIP ::" + mServerIP + " Port ::" + mServerPort
+                + ". Interval: " + mIntervalMillis);
+        if (mServerIP.length() == 0 || mServerPort.length() == 0) {
+            String msg = "Provide server IP and Port information in Setting";
+            Toast errorMsg = Toast.makeText(getBaseContext(), msg, Toast.LENGTH_LONG);
+            errorMsg.show();
+            startSettingActivity();
+        } else {
+            mKR = new KeepaliveWorkload(mHal, mServerIP, Integer.parseInt(mServerPort),
+                    mKeepaliveConnections, mIntervalMillis, mKeepaliveAligned,
+                    mProgressListener);
+            Log.d(TAG, "Setting heartbeat alarms. Interval: " + mIntervalMillis);
+            mKR.start();
+            mBtnStart.setEnabled(false);
+            mRadioGroup.setFocusable(false);
+            mTextView.setText("Started " + mKeepaliveConnections + " keepalive connections");
+        }
+    }
+
+    private void stopKeepalive() {
+        if (mKR != null) {
+            logKeepaliveStats();
+            mKR.stop();
+            mKR = null;
+            mBtnStart.setEnabled(true);
+            mRadioGroup.setFocusable(true);
+            mTextView.setText("Stopped keepalive");
+        }
+    }
+
+    /**
+     * Write the heartbeat stats of the running keepalive workload into the keepalive log
+     *
+     * @return the stats as JSON
+     */
+    private JSONObject logKeepaliveStats() {
+        JSONObject stats = mKR.getStats();
+        PMCStatusLogger logger = new PMCStatusLogger(TAG + "_keepalive.log", TAG);
+        logger.logResult("Keepalive", stats);
+        logger.flash();
+        return stats;
+    }
+
     private void startConnectivityScan() {
         // Stop any ongoing scans before starting a new instance.
         stopConnectivityScan();
-        mConnSR = new WifiConnScanReceiver(this, mIntervalMillis, mAlarmManager, mPIConnScan);
-        registerReceiver(mConnSR, new IntentFilter(sConnScanAction));
+        mConnSR = new WifiScanWorkload(mHal, WifiScanWorkload.TYPE_CONNECTIVITY,
+                WifiScanHal.BAND_UNSPECIFIED, null, mIntervalMillis, mProgressListener);
         Log.d(TAG, "Setting connectivity scan alarm. Interval: " + mIntervalMillis);
-        mConnSR.scheduleConnScan();
+        mConnSR.start();
         mBtnStart.setEnabled(false);
         mRadioGroup.setFocusable(false);
         mTextView.setText("Started connectivity scan");
@@ -235,8 +456,7 @@ public class PMCMainActivity extends Activity {
 
     private void stopConnectivityScan() {
         if (mConnSR != null) {
-            unregisterReceiver(mConnSR);
-            mConnSR.cancelConnScan();
+            mConnSR.stop();
             mConnSR = null;
             mBtnStart.setEnabled(true);
             mRadioGroup.setFocusable(true);
@@ -244,27 +464,19 @@ public class PMCMainActivity extends Activity {
         }
     }
 
-    private void startGscan(int band, Integer[] channelList) {
+    private void startGscan(int band, int[] channelList) {
         // Stop any ongoing scans before starting a new instance.
         stopGScan();
-        ScanSettings scanSettings = new ScanSettings();
         String message;
-        if (band == WifiScanner.WIFI_BAND_UNSPECIFIED) {
-            ChannelSpec[] channels = new ChannelSpec[channelList.length];
-            for (int i = 0; i < channelList.length; i++) {
-                channels[i] = new ChannelSpec(channelList[i]);
-            }
-            scanSettings.channels = channels;
+        if (band == WifiScanHal.BAND_UNSPECIFIED) {
             message = "Started GScan for social channels";
         } else {
-            scanSettings.band = band;
             message = "Started Gscan for both band without DFS channel";
         }
-        mGScanR = new WifiGScanReceiver(
-                this, scanSettings, mIntervalMillis, mAlarmManager, mPIGScan);
-        registerReceiver(mGScanR, new IntentFilter(sGScanAction));
+        mGScanR = new WifiScanWorkload(mHal, WifiScanWorkload.TYPE_GSCAN, band, channelList,
+                mIntervalMillis, mProgressListener);
         Log.d(TAG, "Setting Gscan alarm. Interval: " + mIntervalMillis);
-        mGScanR.scheduleGscan();
+        mGScanR.start();
         mBtnStart.setEnabled(false);
         mRadioGroup.setFocusable(false);
         mTextView.setText(message);
@@ -272,8 +484,7 @@ public class PMCMainActivity extends Activity {
 
     private void stopGScan() {
         if (mGScanR != null) {
-            unregisterReceiver(mGScanR);
-            mGScanR.cancelGScan();
+            mGScanR.stop();
             mGScanR = null;
             mBtnStart.setEnabled(true);
             mRadioGroup.setFocusable(true);
@@ -302,6 +513,60 @@ public class PMCMainActivity extends Activity {
         }
     }
 
+    /**
+     * Start the control socket so a host can send commands and receive status without
+     * polling, e.g. after "adb forward tcp:8700 tcp:8700". Only loopback is bound.
+     *
+     * @return result data for the command
+     */
+    private String startControlServer(int port) {
+        if (mControlServer != null) {
+            return "Control server already on port " + mControlServer.getPort();
+        }
+        ControlServer server = new ControlServer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                new BroadcastDispatcher(this));
+        try {
+            server.start();
+        } catch (IOException e) {
+            Log.e(TAG, "Exception starting control server: " + e);
+            return "Failed to start control server: " + e;
+        }
+        mControlServer = server;
+        PMCStatusLogger.setListener(new PMCStatusLogger.Listener() {
+            @Override
+            public void onStatus(String fileName, String message) {
+                sendControlEvent("Status", fileName, message);
+            }
+
+            @Override
+            public void onResults(String fileName, JSONObject results) {
+                sendControlEvent("Results", fileName, results);
+            }
+        });
+        return "Control server on port " + server.getPort();
+    }
+
+    private void stopControlServer() {
+        if (mControlServer == null) return;
+        PMCStatusLogger.setListener(null);
+        mControlServer.stop();
+        mControlServer = null;
+    }
+
+    private void sendControlEvent(String event, String key, Object value) {
+        ControlServer server = mControlServer;
+        if (server == null) return;
+        JSONObject data = new JSONObject();
+        try {
+            data.put(key, value);
+        } catch (JSONException e) {
+            Log.e(TAG, "Exception to put " + key + " into control event: " + e);
+            return;
+        }
+        server.sendEvent(event, data);
+    }
+
     private void startUSBTethering() {
         OnStartTetheringCallback tetherCallback = new OnStartTetheringCallback();
         mConnManager.startTethering(ConnectivityManager.TETHERING_USB, true, tetherCallback);
@@ -363,6 +628,111 @@ public class PMCMainActivity extends Activity {
         }
     }
 
+    private void setTlsSessionCacheFromUser(String size) {
+        try {
+            int value = Integer.parseInt(size);
+            if (value >= 0) {
+                mTlsSessionCache = value;
+                return;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        Log.e(TAG, "Invalid TLS session cache size " + size);
+    }
+
+    /**
+     * Set how saved downloads are synced: "none", "file" to sync every file when it is
+     * complete, or a number N to sync after every N MB.
+     */
+    private void setFsyncPolicyFromUser(String policy) {
+        if ("none".equalsIgnoreCase(policy)) {
+            mSyncPolicy = DownloadTransport.SYNC_NONE;
+            return;
+        }
+        if ("file".equalsIgnoreCase(policy)) {
+            mSyncPolicy = DownloadTransport.SYNC_PER_FILE;
+            return;
+        }
+        try {
+            int megabytes = Integer.parseInt(policy);
+            if (megabytes > 0) {
+                mSyncPolicy = DownloadTransport.SYNC_EVERY_BYTES;
+                mSyncBytes = megabytes * 1024L * 1024L;
+                return;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        Log.e(TAG, "Invalid fsync policy " + policy);
+    }
+
+    /**
+     * Set the digest downloads are verified with: "none", "crc32c" or "sha-256"
+     */
+    private void setDigestFromUser(String digest) {
+        if ("none".equalsIgnoreCase(digest)) {
+            mDigest = DownloadTransport.DIGEST_NONE;
+        } else if ("crc32c".equalsIgnoreCase(digest)) {
+            mDigest = DownloadTransport.DIGEST_CRC32C;
+        } else if ("sha-256".equalsIgnoreCase(digest)) {
+            mDigest = DownloadTransport.DIGEST_SHA256;
+        } else {
+            Log.e(TAG, "Invalid download digest " + digest);
+        }
+    }
+
+    /**
+     * Set the encoding downloads ask for: "identity", "gzip" or "deflate"
+     */
+    private void setEncodingFromUser(String encoding) {
+        if ("identity".equalsIgnoreCase(encoding)) {
+            mEncoding = DownloadTransport.ENCODING_IDENTITY;
+        } else if ("gzip".equalsIgnoreCase(encoding)) {
+            mEncoding = DownloadTransport.ENCODING_GZIP;
+        } else if ("deflate".equalsIgnoreCase(encoding)) {
+            mEncoding = DownloadTransport.ENCODING_DEFLATE;
+        } else {
+            Log.e(TAG, "Invalid download encoding " + encoding);
+        }
+    }
+
+    private void setHashThreadsFromUser(String threads) {
+        try {
+            int value = Integer.parseInt(threads);
+            if (value >= 1) {
+                mHashThreads = value;
+                return;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        Log.e(TAG, "Invalid number of hash threads " + threads);
+    }
+
+    private void setKeepaliveConnectionsFromUser(String connections) {
+        try {
+            int value = Integer.parseInt(connections);
+            if (value >= 1) {
+                mKeepaliveConnections = value;
+                return;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        Log.e(TAG, "Invalid number of keepalive connections " + connections);
+    }
+
+    private int getControlPort(String port) {
+        if (port == null || port.isEmpty()) return DEFAULT_CONTROL_PORT;
+        try {
+            return Integer.parseInt(port);
+        } catch (NumberFormatException e) {
+            Log.e(TAG, "Invalid control port " + port + ", using " + DEFAULT_CONTROL_PORT);
+            return DEFAULT_CONTROL_PORT;
+        }
+    }
+
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         // Inflate the menu; this adds items to the action bar if it is present.
@@ -419,10 +789,10 @@ public class PMCMainActivity extends Activity {
                         } else if (actionstring.equalsIgnoreCase("StopDownload")) {
                             stopDownloadFile();
                         } else if (actionstring.equalsIgnoreCase("StartGScanChannel")) {
-                            Integer[] channelList = {2412, 2437, 2462};
-                            startGscan(WifiScanner.WIFI_BAND_UNSPECIFIED, channelList);
+                            int[] channelList = {2412, 2437, 2462};
+                            startGscan(WifiScanHal.BAND_UNSPECIFIED, channelList);
                         } else if (actionstring.equalsIgnoreCase("StartGScanBand")) {
-                            startGscan(WifiScanner.WIFI_BAND_BOTH, null);
+                            startGscan(WifiScanHal.BAND_BOTH, null);
                         } else if (actionstring.equalsIgnoreCase("StopGScan")) {
                             stopGScan();
                         } else if (actionstring.equalsIgnoreCase("GetDownloadRate")) {
@@ -433,6 +803,40 @@ public class PMCMainActivity extends Activity {
                             } else {
                                 this.setResultData("No download running");
                             }
+                        } else if (actionstring.equalsIgnoreCase("GetDownloadPhases")) {
+                            if (mDR != null) {
+                                this.setResultData(logDownloadPhases().toString());
+                            } else {
+                                this.setResultData("No download running");
+                            }
+                        } else if (actionstring.equalsIgnoreCase("Upload1KB")) {
+                            startUploadFile("1kb", 1024);
+                        } else if (actionstring.equalsIgnoreCase("Upload10KB")) {
+                            startUploadFile("10kb", 10 * 1024);
+                        } else if (actionstring.equalsIgnoreCase("Upload100KB")) {
+                            startUploadFile("100kb", 100 * 1024);
+                        } else if (actionstring.equalsIgnoreCase("Upload1MB")) {
+                            startUploadFile("1mb", 1024 * 1024);
+                        } else if (actionstring.equalsIgnoreCase("StopUpload")) {
+                            stopUploadFile();
+                        } else if (actionstring.equalsIgnoreCase("GetUploadRate")) {
+                            if (mUR != null) {
+                                String dataRateString = "Data Rate: "
+                                        + Integer.toString(mUR.getUploadRate()) + " bytes/sec";
+                                this.setResultData(dataRateString);
+                            } else {
+                                this.setResultData("No upload running");
+                            }
+                        } else if (actionstring.equalsIgnoreCase("StartKeepalive")) {
+                            startKeepalive();
+                        } else if (actionstring.equalsIgnoreCase("StopKeepalive")) {
+                            stopKeepalive();
+                        } else if (actionstring.equalsIgnoreCase("GetKeepaliveStats")) {
+                            if (mKR != null) {
+                                this.setResultData(logKeepaliveStats().toString());
+                            } else {
+                                this.setResultData("No keepalive running");
+                            }
                         } else if (actionstring.equalsIgnoreCase("StartIperfClient")) {
                             startIperfClient();
                         } else if (actionstring.equalsIgnoreCase("StopIperfClient")) {
@@ -445,6 +849,21 @@ public class PMCMainActivity extends Activity {
                             turnScreenOn(context);
                         } else if (actionstring.equalsIgnoreCase("TurnScreenOff")) {
                             turnScreenOff();
+                        } else if (actionstring.equalsIgnoreCase("StopSubsystem")) {
+                            // Tear down a subsystem before measuring a baseline
+                            String name = extras.getString("Subsystem", "All");
+                            if (name.equalsIgnoreCase("All")) {
+                                mSubsystems.teardownAll();
+                            } else {
+                                mSubsystems.teardown(name);
+                            }
+                        } else if (actionstring.equalsIgnoreCase("GetSubsystemStatus")) {
+                            this.setResultData(mSubsystems.getStatus().toString());
+                        } else if (actionstring.equalsIgnoreCase("StartControlServer")) {
+                            int port = getControlPort(extras.getString(SETTING_CONTROL_PORT_KEY));
+                            this.setResultData(startControlServer(port));
+                        } else if (actionstring.equalsIgnoreCase("StopControlServer")) {
+                            stopControlServer();
                         }
                         intent.removeExtra(key);
                     }
@@ -467,6 +886,75 @@ public class PMCMainActivity extends Activity {
                     if (extras.containsKey(SETTING_IPERF_LOGFILE_KEY)) {
                         mIperfLogFile = extras.getString(SETTING_IPERF_LOGFILE_KEY);
                     }
+                    if (extras.containsKey(SETTING_UPLOAD_METHOD_KEY)) {
+                        String method = extras.getString(SETTING_UPLOAD_METHOD_KEY)
+                                .toUpperCase(Locale.US);
+                        if (method.equals("POST") || method.equals("PUT")) {
+                            mUploadMethod = method;
+                        } else {
+                            Log.e(TAG, "Upload method must be POST or PUT: " + method);
+                        }
+                    }
+                    if (extras.containsKey(SETTING_DOWNLOAD_SCHEME_KEY)) {
+                        // "https" or "http"
+                        mHttps = "https".equalsIgnoreCase(
+                                extras.getString(SETTING_DOWNLOAD_SCHEME_KEY));
+                    }
+                    if (extras.containsKey(SETTING_TLS_PORT_KEY)) {
+                        mTlsPort = extras.getString(SETTING_TLS_PORT_KEY);
+                    }
+                    if (extras.containsKey(SETTING_TLS_SESSION_CACHE_KEY)) {
+                        // 0 disables session resumption, every handshake is a full one
+                        setTlsSessionCacheFromUser(
+                                extras.getString(SETTING_TLS_SESSION_CACHE_KEY));
+                    }
+                    if (extras.containsKey(SETTING_TLS_CA_FILE_KEY)) {
+                        String caFile = extras.getString(SETTING_TLS_CA_FILE_KEY);
+                        mTlsCaFile = caFile == null || caFile.isEmpty() ? null : caFile;
+                    }
+                    if (extras.containsKey(SETTING_SAVE_DOWNLOADS_KEY)) {
+                        // Files are deleted when the download is stopped
+                        mSaveDownloads = Boolean.parseBoolean(
+                                extras.getString(SETTING_SAVE_DOWNLOADS_KEY));
+                    }
+                    if (extras.containsKey(SETTING_FSYNC_POLICY_KEY)) {
+                        setFsyncPolicyFromUser(extras.getString(SETTING_FSYNC_POLICY_KEY));
+                    }
+                    if (extras.containsKey(SETTING_PREALLOCATE_KEY)) {
+                        mPreallocate = Boolean.parseBoolean(
+                                extras.getString(SETTING_PREALLOCATE_KEY));
+                    }
+                    if (extras.containsKey(SETTING_DOWNLOAD_DIGEST_KEY)) {
+                        setDigestFromUser(extras.getString(SETTING_DOWNLOAD_DIGEST_KEY));
+                    }
+                    if (extras.containsKey(SETTING_HASH_THREADS_KEY)) {
+                        // 1 hashes every download on the download thread
+                        setHashThreadsFromUser(extras.getString(SETTING_HASH_THREADS_KEY));
+                    }
+                    if (extras.containsKey(SETTING_DOWNLOAD_ENCODING_KEY)) {
+                        setEncodingFromUser(extras.getString(SETTING_DOWNLOAD_ENCODING_KEY));
+                    }
+                    if (extras.containsKey(SETTING_DOWNLOAD_CONTENT_KEY)) {
+                        // "random", "text" or "zeros", how well the content compresses
+                        String content = extras.getString(SETTING_DOWNLOAD_CONTENT_KEY);
+                        mDownloadContent = content == null || content.isEmpty() ? null : content;
+                    }
+                    if (extras.containsKey(SETTING_KEEPALIVE_CONNECTIONS_KEY)) {
+                        setKeepaliveConnectionsFromUser(
+                                extras.getString(SETTING_KEEPALIVE_CONNECTIONS_KEY));
+                    }
+                    if (extras.containsKey(SETTING_KEEPALIVE_ALIGNED_KEY)) {
+                        // "false" gives every connection its own exact heartbeat alarm
+                        mKeepaliveAligned = Boolean.parseBoolean(
+                                extras.getString(SETTING_KEEPALIVE_ALIGNED_KEY));
+                    }
+                    if (extras.containsKey(SETTING_UPLOAD_MODE_KEY)) {
+                        // "chunked" or "fixed"
+                        mUploadMode = "chunked".equalsIgnoreCase(
+                                extras.getString(SETTING_UPLOAD_MODE_KEY))
+                                ? UploadTransport.MODE_CHUNKED
+                                : UploadTransport.MODE_FIXED_LENGTH;
+                    }
                 }
             }
         }
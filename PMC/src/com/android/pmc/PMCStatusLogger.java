@@ -29,14 +29,37 @@ import java.io.IOException;
 
 
 /**
- * Logging class to log status so PMC can communicate the status back to client
+ * Logging class to log status so PMC can communicate the status back to client.
+ *
+ * Every logger keeps its own results, so workloads running at the same time, e.g. a
+ * GATT sweep and a download, don't mix or reset each other's logs. Results may be
+ * added and flushed from any thread.
  */
 public class PMCStatusLogger {
     private File mFile;
-    public static String TAG;
+    private final String mFileName;
+    private final String mTag;
     public static String LOG_DIR = "/mnt/sdcard/Download";
-    public static JSONObject mJObject;
-    public static JSONArray mJArray;
+    private final JSONObject mJObject = new JSONObject();
+    private final JSONArray mJArray = new JSONArray();
+    private static volatile Listener sListener;
+
+    /**
+     * Receives every status and result written by any logger, e.g. to stream them to
+     * a control client instead of having it poll the log files.
+     */
+    public interface Listener {
+        void onStatus(String fileName, String message);
+
+        void onResults(String fileName, JSONObject results);
+    }
+
+    /**
+     * Set the listener for status updates, null to remove it
+     */
+    public static void setListener(Listener listener) {
+        sListener = listener;
+    }
 
     /**
      * Construtor - check if the file exist. If it is delete and create a new.
@@ -44,17 +67,16 @@ public class PMCStatusLogger {
      * @param message - message to be logged
      */
     public PMCStatusLogger(String fileName, String tag) {
-        TAG = tag;
+        mTag = tag;
+        mFileName = fileName;
 
         try {
             mFile = new File(LOG_DIR + "/" + fileName);
             if (mFile.exists()) mFile.delete();
             mFile.createNewFile();
         } catch (IOException e) {
-            Log.e(TAG, "Exception creating log file: " + fileName + " " + e);
+            Log.e(mTag, "Exception creating log file: " + fileName + " " + e);
         }
-        mJObject = new JSONObject();
-        mJArray = new JSONArray();
     }
 
     /**
@@ -70,8 +92,10 @@ public class PMCStatusLogger {
             bw.newLine();
             bw.close();
         } catch (IOException e) {
-            Log.e(TAG, "Exception writing log: " + message + " " + e);
+            Log.e(mTag, "Exception writing log: " + message + " " + e);
         }
+        Listener listener = sListener;
+        if (listener != null) listener.onStatus(mFileName, message);
     }
 
     /**
@@ -80,14 +104,28 @@ public class PMCStatusLogger {
      * @param startTime - Start time for the cycle
      * @param endTime - End time for the cycle
      */
-    public void logAlarmTimes(double startTime, double endTime) {
+    public synchronized void logAlarmTimes(double startTime, double endTime) {
         JSONObject obj = new JSONObject();
         try {
             obj.put("StartTime", startTime);
             obj.put("EndTime", endTime);
             mJArray.put(obj);
         } catch (JSONException e) {
-            Log.e(TAG, "Exception to put Alarm Times into JSONArray: " + e);
+            Log.e(mTag, "Exception to put Alarm Times into JSONArray: " + e);
+        }
+    }
+
+    /**
+     * Function to add a named result into the main JSON object
+     *
+     * @param key - name of the result
+     * @param value - result value, e.g. JSONObject or JSONArray
+     */
+    public synchronized void logResult(String key, Object value) {
+        try {
+            mJObject.put(key, value);
+        } catch (JSONException e) {
+            Log.e(mTag, "Exception to put " + key + " into main JSON object: " + e);
         }
     }
 
@@ -96,19 +134,32 @@ public class PMCStatusLogger {
      *
      */
     public void flash() {
+        String json;
+        synchronized (this) {
+            try {
+                mJObject.put("AlarmTimes", mJArray);
+            } catch (JSONException e) {
+                Log.e(mTag, "Exception to put JSONArray into main JSON object: " + e);
+            }
+            json = mJObject.toString();
+        }
         try {
-            mJObject.put("AlarmTimes", mJArray);
-
             FileWriter fos = new FileWriter(mFile);
             BufferedWriter bw = new BufferedWriter(fos);
-            Log.v(TAG, "JSON: " + mJObject.toString());
-            bw.write(mJObject.toString());
+            Log.v(mTag, "JSON: " + json);
+            bw.write(json);
             bw.newLine();
             bw.close();
-        } catch (JSONException e) {
-            Log.e(TAG, "Exception to put JSONArray into main JSON object: " + e);
         } catch (IOException e) {
-            Log.e(TAG, "Exception writing JSON to log file: " + e);
+            Log.e(mTag, "Exception writing JSON to log file: " + e);
+        }
+        Listener listener = sListener;
+        if (listener == null) return;
+        try {
+            // A copy, results may still be added while the listener reads it
+            listener.onResults(mFileName, new JSONObject(json));
+        } catch (JSONException e) {
+            Log.e(mTag, "Exception to copy results for the listener: " + e);
         }
     }
 
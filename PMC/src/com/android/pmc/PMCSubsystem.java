@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+/**
+ * Part of PMC which holds device resources, e.g. Bluetooth profile proxies or a
+ * GATT server, and can give them back when it is no longer needed.
+ */
+public interface PMCSubsystem {
+    /**
+     * Stop everything the subsystem started and release its resources. The
+     * subsystem is not used again after this call.
+     */
+    void release();
+}
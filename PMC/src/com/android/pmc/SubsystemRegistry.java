@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Registry of the PMC subsystems driven by intents from the Python client.
+ *
+ * A subsystem is only created when the first intent for it arrives, so a test which
+ * doesn't use Bluetooth doesn't pay for enabling Bluetooth and its idle power. The
+ * time to create every subsystem is recorded, and a subsystem can be torn down
+ * before a baseline measurement.
+ */
+public class SubsystemRegistry extends BroadcastReceiver {
+    public static final String TAG = "PMC";
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    /**
+     * Creates the receiver of a subsystem, called on its first intent
+     */
+    public interface Factory {
+        BroadcastReceiver create();
+    }
+
+    private static class Entry {
+        final String mName;
+        final Factory mFactory;
+        BroadcastReceiver mReceiver;
+        long mStartupNanos;
+        int mStarts;
+        int mTeardowns;
+
+        Entry(String name, Factory factory) {
+            mName = name;
+            mFactory = factory;
+        }
+    }
+
+    // Subsystems by intent action, in registration order
+    private final Map<String, Entry> mEntries = new LinkedHashMap<>();
+
+    /**
+     * Add a subsystem, must be called before register()
+     *
+     * @param name - name of the subsystem, used to tear it down
+     * @param action - intent action handled by the subsystem
+     * @param factory - creates the receiver of the subsystem
+     */
+    public void add(String name, String action, Factory factory) {
+        mEntries.put(action, new Entry(name, factory));
+    }
+
+    /**
+     * Start receiving the intents of all subsystems
+     */
+    public void register(Context context) {
+        IntentFilter filter = new IntentFilter();
+        for (String action : mEntries.keySet()) {
+            filter.addAction(action);
+        }
+        context.registerReceiver(this, filter);
+    }
+
+    /**
+     * Stop receiving intents and tear down all subsystems
+     */
+    public void unregister(Context context) {
+        context.unregisterReceiver(this);
+        teardownAll();
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        BroadcastReceiver receiver;
+        synchronized (this) {
+            Entry entry = mEntries.get(intent.getAction());
+            if (entry == null) return;
+            if (entry.mReceiver == null) {
+                long start = SystemClock.elapsedRealtimeNanos();
+                entry.mReceiver = entry.mFactory.create();
+                entry.mStartupNanos = SystemClock.elapsedRealtimeNanos() - start;
+                entry.mStarts++;
+                Log.d(TAG, "Subsystem " + entry.mName + " created in "
+                        + entry.mStartupNanos / NANOS_PER_MILLI + " ms");
+            }
+            receiver = entry.mReceiver;
+        }
+        receiver.onReceive(context, intent);
+    }
+
+    /**
+     * Tear down a subsystem, it is created again by its next intent
+     *
+     * @param name - name of the subsystem
+     * @return false if there is no subsystem with this name
+     */
+    public synchronized boolean teardown(String name) {
+        for (Entry entry : mEntries.values()) {
+            if (entry.mName.equalsIgnoreCase(name)) {
+                teardown(entry);
+                return true;
+            }
+        }
+        Log.e(TAG, "Unknown subsystem " + name);
+        return false;
+    }
+
+    /**
+     * Tear down every subsystem which has been created
+     */
+    public synchronized void teardownAll() {
+        for (Entry entry : mEntries.values()) {
+            teardown(entry);
+        }
+    }
+
+    private void teardown(Entry entry) {
+        if (entry.mReceiver == null) return;
+        Log.d(TAG, "Tear down subsystem " + entry.mName);
+        if (entry.mReceiver instanceof PMCSubsystem) {
+            ((PMCSubsystem) entry.mReceiver).release();
+        }
+        entry.mReceiver = null;
+        entry.mTeardowns++;
+    }
+
+    /**
+     * Returns state and startup time of every subsystem as JSON
+     */
+    public synchronized JSONObject getStatus() {
+        JSONObject status = new JSONObject();
+        try {
+            for (Entry entry : mEntries.values()) {
+                JSONObject obj = new JSONObject();
+                obj.put("Active", entry.mReceiver != null);
+                obj.put("Starts", entry.mStarts);
+                obj.put("Teardowns", entry.mTeardowns);
+                obj.put("LastStartupMs", entry.mStartupNanos / NANOS_PER_MILLI);
+                status.put(entry.mName, obj);
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Exception to put subsystem status into JSON object: " + e);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.util.Log;
+
+import com.android.pmc.hal.Clock;
+import com.android.pmc.hal.PmcHal;
+import com.android.pmc.hal.UploadTransport;
+
+/**
+ * Upload a body of synthetic data to the PMC server whenever the alarm fires.
+ */
+public class UploadWorkload implements UploadTransport.Callback {
+    public static final String TAG = "PMC";
+    private static final String ALARM_NAME = "Upload";
+    // Wakelock is held for a while after every upload, like the device staying awake
+    private static final int HOLD_MILLIS = 10000;
+
+    private final Clock mClock;
+    private final WorkloadLifecycle mLifecycle;
+    private final UploadTransport mTransport;
+    private final String mUploadURL;
+    private final String mMethod;
+    private final long mSize;
+    private final int mMode;
+    private final int mAlarmInterval;
+    private final ProgressListener mListener;
+    private int mFileCount;
+    private long mBytesCount;
+    private long mUploadStartTime;
+    private boolean mRunning;
+    private boolean mUploading;
+
+    private final Runnable mAlarm = new Runnable() {
+        @Override
+        public void run() {
+            onAlarm();
+        }
+    };
+
+    private final Runnable mReleaseWakeLock = new Runnable() {
+        @Override
+        public void run() {
+            mLifecycle.releaseWakeLock();
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param hal - devices to be used for alarms, wakelocks and uploads
+     * @param url - URL to upload to
+     * @param method - HTTP method, POST or PUT
+     * @param size - size of every upload in bytes
+     * @param mode - UploadTransport.MODE_FIXED_LENGTH or UploadTransport.MODE_CHUNKED
+     * @param interval - time (ms) between two uploads
+     * @param listener - listener for the progress of the uploads
+     */
+    public UploadWorkload(PmcHal hal, String url, String method, long size, int mode,
+            int interval, ProgressListener listener) {
+        mClock = hal.getClock();
+        mLifecycle = new WorkloadLifecycle(hal, "Upload");
+        mTransport = hal.getUploadTransport();
+        mUploadURL = url;
+        mMethod = method;
+        mSize = size;
+        mMode = mode;
+        mAlarmInterval = interval;
+        mListener = listener;
+        mFileCount = 0;
+        mBytesCount = 0;
+        mUploadStartTime = -1;
+    }
+
+    /**
+     * Schedule the first upload.
+     */
+    public synchronized void start() {
+        mRunning = true;
+        scheduleUpload();
+    }
+
+    /**
+     * Cancel the uploads.
+     *
+     * @throws IllegalStateException if a wakelock or an alarm is leaked
+     */
+    public synchronized void stop() {
+        mRunning = false;
+        mLifecycle.cancelAlarm(ALARM_NAME);
+        mLifecycle.removeCallbacks(mReleaseWakeLock);
+        if (mUploading) mTransport.cancel();
+        mUploading = false;
+        mLifecycle.releaseWakeLock();
+        mLifecycle.close();
+    }
+
+    /**
+     * Schedule the next upload.
+     */
+    private void scheduleUpload() {
+        if (mUploadStartTime == -1) {
+            // Note down the start of all upload activity
+            mUploadStartTime = mClock.currentTimeMillis();
+        }
+        Log.i(TAG, "Scheduling the next upload after " + mAlarmInterval);
+        mLifecycle.setAlarm(ALARM_NAME, mClock.elapsedRealtime() + mAlarmInterval, false, mAlarm);
+    }
+
+    private synchronized void onAlarm() {
+        if (!mRunning) return;
+        if (mUploading) {
+            Log.e(TAG, "Previous upload still running.");
+        } else {
+            mLifecycle.removeCallbacks(mReleaseWakeLock);
+            mLifecycle.acquireWakeLock();
+            Log.i(TAG, "Starting Upload Task");
+            mUploading = true;
+            mTransport.send(mUploadURL, mMethod, mSize, mMode, this);
+        }
+        scheduleUpload();
+    }
+
+    @Override
+    public void onComplete(long bytesSent, String error) {
+        String status;
+        synchronized (this) {
+            if (!mRunning) return;
+            mUploading = false;
+            if (error == null && bytesSent != mSize) {
+                error = "Expected to send " + mSize + " bytes but only sent " + bytesSent;
+            }
+            if (error != null) {
+                Log.e(TAG, error);
+                status = error;
+                mLifecycle.releaseWakeLock();
+            } else {
+                Log.d(TAG, "Uploaded size " + bytesSent);
+                mFileCount += 1;
+                mBytesCount += bytesSent;
+                status = "Total file uploaded :: " + mFileCount + ", Data rate :: "
+                        + getUploadRate() + " bytes/sec";
+                mLifecycle.postDelayed(mReleaseWakeLock, HOLD_MILLIS);
+            }
+        }
+        if (mListener != null) mListener.onProgress(status);
+    }
+
+    /**
+     * Returns an approximate data rate at which we're uploading.
+     */
+    public synchronized int getUploadRate() {
+        long durationInMilliSeconds = mClock.currentTimeMillis() - mUploadStartTime;
+        int durationInSeconds = (int) (durationInMilliSeconds / 1000);
+        if (mUploadStartTime == -1 || durationInSeconds == 0) return 0;
+        return (int) (mBytesCount / durationInSeconds);
+    }
+
+    public synchronized int getFileCount() {
+        return mFileCount;
+    }
+
+    public WorkloadLifecycle getLifecycle() {
+        return mLifecycle;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Write loop for uploads. The body is synthetic data written again and again from one
+ * buffer, so an upload of any size never builds its body in memory.
+ *
+ * The buffer is filled once and reused for every upload. This class has no Android
+ * dependencies so that it can be benchmarked on the host.
+ */
+public class UploadWriter {
+    private final byte[] mBuffer;
+
+    /**
+     * Constructor
+     *
+     * @param bufferSize - size of the write buffer in bytes
+     */
+    public UploadWriter(int bufferSize) {
+        mBuffer = new byte[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            mBuffer[i] = (byte) i;
+        }
+    }
+
+    /**
+     * Write a body of the given size to the output stream
+     *
+     * @param outputStream - stream to be written to, not closed
+     * @param size - number of bytes to write
+     * @return total number of bytes written
+     */
+    public long write(OutputStream outputStream, long size) throws IOException {
+        long totalBytesWritten = 0;
+        while (totalBytesWritten < size) {
+            int count = (int) Math.min(mBuffer.length, size - totalBytesWritten);
+            outputStream.write(mBuffer, 0, count);
+            totalBytesWritten += count;
+        }
+        return totalBytesWritten;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.util.Log;
+
+import com.android.pmc.hal.Clock;
+import com.android.pmc.hal.PmcHal;
+import com.android.pmc.hal.WifiScanHal;
+
+/**
+ * Run a Wi-Fi connectivity scan or a Gscan whenever the alarm fires.
+ */
+public class WifiScanWorkload implements WifiScanHal.ScanListener {
+    public static final String TAG = "PMC";
+    public static final int TYPE_CONNECTIVITY = 0;
+    public static final int TYPE_GSCAN = 1;
+    private static final String ALARM_NAME = "WifiScan";
+    private static final String SCAN_REGISTRATION = "Scan";
+    private static final int SCAN_TIMEOUT_MILLIS = 10000;
+
+    private final Clock mClock;
+    private final WorkloadLifecycle mLifecycle;
+    private final WifiScanHal mScanner;
+    private final int mType;
+    private final int mBand;
+    private final int[] mChannels;
+    private final int mAlarmInterval;
+    private final ProgressListener mListener;
+    private int mScanCount = 0;
+    private boolean mRunning;
+    private boolean mScanning;
+
+    private final Runnable mAlarm = new Runnable() {
+        @Override
+        public void run() {
+            onAlarm();
+        }
+    };
+
+    private final Runnable mTimeout = new Runnable() {
+        @Override
+        public void run() {
+            onTimeout();
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param hal - devices to be used for alarms, wakelocks and scans
+     * @param type - TYPE_CONNECTIVITY or TYPE_GSCAN
+     * @param band - WifiScanHal.BAND_* of a Gscan
+     * @param channels - channels (MHz) of a Gscan when band is BAND_UNSPECIFIED
+     * @param interval - time (ms) between two scans
+     * @param listener - listener for the progress of the scans
+     */
+    public WifiScanWorkload(PmcHal hal, int type, int band, int[] channels, int interval,
+            ProgressListener listener) {
+        mClock = hal.getClock();
+        mLifecycle = new WorkloadLifecycle(hal,
+                type == TYPE_GSCAN ? "GScan" : "ConnectivityScan");
+        mScanner = hal.getWifiScanHal();
+        mType = type;
+        mBand = band;
+        mChannels = channels;
+        mAlarmInterval = interval;
+        mListener = listener;
+    }
+
+    /**
+     * Schedule the first scan.
+     */
+    public synchronized void start() {
+        mRunning = true;
+        scheduleScan();
+    }
+
+    /**
+     * Cancel the scans.
+     *
+     * @throws IllegalStateException if a wakelock, an alarm or a scan is leaked
+     */
+    public synchronized void stop() {
+        mRunning = false;
+        mLifecycle.cancelAlarm(ALARM_NAME);
+        finishScan();
+        mLifecycle.close();
+    }
+
+    /**
+     * Schedule the next scan.
+     */
+    private void scheduleScan() {
+        Log.i(TAG, "Scheduling the next " + getName() + " after " + mAlarmInterval);
+        mLifecycle.setAlarm(ALARM_NAME, mClock.elapsedRealtime() + mAlarmInterval, false, mAlarm);
+    }
+
+    private String getName() {
+        return mType == TYPE_GSCAN ? "Gscan" : "Connectivity scan";
+    }
+
+    private synchronized void onAlarm() {
+        if (!mRunning) return;
+        if (mScanning) {
+            Log.e(TAG, "Previous " + getName() + " still running.");
+        } else {
+            mLifecycle.acquireWakeLock();
+            Log.i(TAG, "Starting " + getName() + " Task");
+            mScanning = true;
+            boolean started = mType == TYPE_GSCAN
+                    ? mScanner.startBackgroundScan(mBand, mChannels, this)
+                    : mScanner.startConnectivityScan(this);
+            if (started) {
+                mLifecycle.addRegistration(SCAN_REGISTRATION, new WorkloadLifecycle.Registration() {
+                    @Override
+                    public void unregister() {
+                        if (mType == TYPE_GSCAN) {
+                            mScanner.stopBackgroundScan(WifiScanWorkload.this);
+                        } else {
+                            mScanner.stopConnectivityScan(WifiScanWorkload.this);
+                        }
+                    }
+                });
+                mLifecycle.postDelayed(mTimeout, SCAN_TIMEOUT_MILLIS);
+            } else {
+                finishScan();
+                report("Failed to start " + getName());
+            }
+        }
+        scheduleScan();
+    }
+
+    /**
+     * Stop the running scan and release its wakelock
+     */
+    private void finishScan() {
+        if (!mScanning) return;
+        mScanning = false;
+        mLifecycle.removeCallbacks(mTimeout);
+        mLifecycle.removeRegistration(SCAN_REGISTRATION);
+        mLifecycle.releaseWakeLock();
+    }
+
+    private void onTimeout() {
+        synchronized (this) {
+            if (!mScanning) return;
+            finishScan();
+        }
+        report("Timeout, scan results avaiable action didn't triggered");
+    }
+
+    @Override
+    public void onResults(int numResults) {
+        int count;
+        synchronized (this) {
+            if (!mScanning) return;
+            finishScan();
+            mScanCount += 1;
+            count = mScanCount;
+        }
+        Log.d(TAG, "Number of scan completed " + count);
+        if (mListener == null) return;
+        if (mType == TYPE_GSCAN) {
+            mListener.onProgress("Total Gscan completed :: " + count);
+        } else {
+            mListener.onProgress("Total Connectivity scan completed :: " + count);
+        }
+    }
+
+    @Override
+    public void onFailure(int reason, String description) {
+        Log.d(TAG, "onFailure called " + reason + " " + description);
+    }
+
+    private void report(String error) {
+        Log.e(TAG, error);
+        if (mListener != null) mListener.onProgress(error);
+    }
+
+    public synchronized int getScanCount() {
+        return mScanCount;
+    }
+
+    public WorkloadLifecycle getLifecycle() {
+        return mLifecycle;
+    }
+}
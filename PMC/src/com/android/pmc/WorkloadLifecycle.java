@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc;
+
+import android.util.Log;
+
+import com.android.pmc.hal.AlarmScheduler;
+import com.android.pmc.hal.Clock;
+import com.android.pmc.hal.PmcHal;
+import com.android.pmc.hal.PowerHal;
+import com.android.pmc.hal.WakeLock;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Owns the wakelock, alarms, delayed callbacks and listener registrations of one
+ * workload.
+ *
+ * A workload gets a single wakelock which is reused for every acquire, its held time
+ * and acquire count are accounted here. Alarm names are scoped by the workload name so
+ * that two workloads can't replace each other's alarms. close() is called when the
+ * workload is stopped, anything still held at that point is a leak: it is released
+ * and an IllegalStateException is thrown, since a leaked wakelock silently ruins a
+ * power measurement.
+ */
+public class WorkloadLifecycle {
+    public static final String TAG = "PMC";
+
+    /**
+     * Something a workload registered, e.g. a scan listener
+     */
+    public interface Registration {
+        void unregister();
+    }
+
+    private final String mName;
+    private final Clock mClock;
+    private final AlarmScheduler mAlarmScheduler;
+    private final PowerHal mPowerHal;
+    private WakeLock mWakeLock;
+    private boolean mWakeLockHeld;
+    private long mAcquireTime;
+    private long mHeldMillis;
+    private int mAcquireCount;
+    private int mAlarmCount;
+    private int mLeakCount;
+    private final Set<String> mAlarms = new HashSet<>();
+    private final Map<Runnable, Runnable> mCallbacks = new HashMap<>();
+    private final Map<String, Registration> mRegistrations = new LinkedHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param hal - devices providing the clock, alarms and wakelocks
+     * @param name - name of the workload, used for alarm names, wakelock tag and logs
+     */
+    public WorkloadLifecycle(PmcHal hal, String name) {
+        mName = name;
+        mClock = hal.getClock();
+        mAlarmScheduler = hal.getAlarmScheduler();
+        mPowerHal = hal.getPowerHal();
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Acquire the wakelock of the workload, does nothing if it is already held
+     */
+    public synchronized void acquireWakeLock() {
+        if (mWakeLockHeld) return;
+        if (mWakeLock == null) mWakeLock = mPowerHal.newWakeLock(mName);
+        mWakeLock.acquire();
+        mWakeLockHeld = true;
+        mAcquireTime = mClock.elapsedRealtime();
+        mAcquireCount++;
+    }
+
+    /**
+     * Release the wakelock of the workload, does nothing if it is not held
+     */
+    public synchronized void releaseWakeLock() {
+        if (!mWakeLockHeld) return;
+        mWakeLock.release();
+        mWakeLockHeld = false;
+        mHeldMillis += mClock.elapsedRealtime() - mAcquireTime;
+    }
+
+    public synchronized boolean isWakeLockHeld() {
+        return mWakeLockHeld;
+    }
+
+    /**
+     * Set an alarm, replacing a pending alarm with the same name
+     *
+     * @param name - name of the alarm within the workload
+     * @param triggerAtMillis - time of the alarm in Clock.elapsedRealtime() time base
+     * @param exact - true to fire at the exact time, false to allow batching
+     * @param action - action to run when the alarm fires
+     */
+    public synchronized void setAlarm(final String name, long triggerAtMillis, boolean exact,
+            final Runnable action) {
+        final String scopedName = mName + "." + name;
+        Runnable alarm = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (WorkloadLifecycle.this) {
+                    mAlarms.remove(name);
+                }
+                action.run();
+            }
+        };
+        mAlarms.add(name);
+        mAlarmCount++;
+        if (exact) {
+            mAlarmScheduler.setExact(scopedName, triggerAtMillis, alarm);
+        } else {
+            mAlarmScheduler.set(scopedName, triggerAtMillis, alarm);
+        }
+    }
+
+    public synchronized void cancelAlarm(String name) {
+        if (mAlarms.remove(name)) mAlarmScheduler.cancel(mName + "." + name);
+    }
+
+    /**
+     * Run action after delayMillis, replacing a pending run of the same action
+     */
+    public synchronized void postDelayed(final Runnable action, long delayMillis) {
+        removeCallbacks(action);
+        Runnable callback = new Runnable() {
+            @Override
+            public void run() {
+                synchronized (WorkloadLifecycle.this) {
+                    mCallbacks.remove(action);
+                }
+                action.run();
+            }
+        };
+        mCallbacks.put(action, callback);
+        mAlarmScheduler.postDelayed(callback, delayMillis);
+    }
+
+    public synchronized void removeCallbacks(Runnable action) {
+        Runnable callback = mCallbacks.remove(action);
+        if (callback != null) mAlarmScheduler.removeCallbacks(callback);
+    }
+
+    /**
+     * Keep track of a registration, it has to be removed before the workload is closed
+     */
+    public synchronized void addRegistration(String name, Registration registration) {
+        removeRegistration(name);
+        mRegistrations.put(name, registration);
+    }
+
+    /**
+     * Unregister a registration added by addRegistration(), does nothing if there is none
+     */
+    public void removeRegistration(String name) {
+        Registration registration;
+        synchronized (this) {
+            registration = mRegistrations.remove(name);
+        }
+        if (registration != null) registration.unregister();
+    }
+
+    /**
+     * Check that the workload released everything, to be called after the workload
+     * is stopped. Leaked resources are released before the exception is thrown.
+     *
+     * @throws IllegalStateException if a wakelock, alarm, callback or registration is
+     *         still held
+     */
+    public void close() {
+        List<String> leaks = new ArrayList<>();
+        List<Registration> registrations;
+        synchronized (this) {
+            if (mWakeLockHeld) {
+                leaks.add("wakelock");
+                releaseWakeLock();
+            }
+            for (String name : mAlarms) {
+                leaks.add("alarm " + name);
+                mAlarmScheduler.cancel(mName + "." + name);
+            }
+            mAlarms.clear();
+            for (Runnable callback : mCallbacks.values()) {
+                leaks.add("callback");
+                mAlarmScheduler.removeCallbacks(callback);
+            }
+            mCallbacks.clear();
+            for (String name : mRegistrations.keySet()) {
+                leaks.add("registration " + name);
+            }
+            registrations = new ArrayList<>(mRegistrations.values());
+            mRegistrations.clear();
+            mLeakCount += leaks.size();
+        }
+        for (Registration registration : registrations) {
+            registration.unregister();
+        }
+        Log.d(TAG, mName + " lifecycle: " + getStats());
+        if (!leaks.isEmpty()) {
+            String msg = mName + " still holds " + leaks + " after stop";
+            Log.e(TAG, msg);
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    public synchronized int getAcquireCount() {
+        return mAcquireCount;
+    }
+
+    /**
+     * Returns the total time the wakelock was held, including the current hold
+     */
+    public synchronized long getHeldMillis() {
+        long held = mHeldMillis;
+        if (mWakeLockHeld) held += mClock.elapsedRealtime() - mAcquireTime;
+        return held;
+    }
+
+    /**
+     * Returns wakelock and alarm accounting of the workload as JSON
+     */
+    public synchronized JSONObject getStats() {
+        JSONObject obj = new JSONObject();
+        try {
+            obj.put("Workload", mName);
+            obj.put("WakeLockAcquires", mAcquireCount);
+            obj.put("WakeLockHeldMs", getHeldMillis());
+            obj.put("WakeLockHeld", mWakeLockHeld);
+            obj.put("Alarms", mAlarmCount);
+            obj.put("Leaks", mLeakCount);
+        } catch (JSONException e) {
+            Log.e(TAG, "Exception to put lifecycle stats into JSON object: " + e);
+        }
+        return obj;
+    }
+}
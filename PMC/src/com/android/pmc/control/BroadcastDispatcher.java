@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.control;
+
+import android.app.Activity;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import java.util.Map;
+
+/**
+ * Dispatcher which runs control commands as ordered broadcasts inside PMC.
+ *
+ * A command is delivered exactly like the intent sent by "adb shell am broadcast", so
+ * every existing receiver works unchanged. The result data set by the receivers is
+ * returned to the client once the broadcast is finished.
+ */
+public class BroadcastDispatcher implements ControlServer.Dispatcher {
+    private final Context mContext;
+
+    public BroadcastDispatcher(Context context) {
+        mContext = context;
+    }
+
+    @Override
+    public void dispatch(String action, Map<String, String> extras,
+            final ControlServer.Responder responder) {
+        Intent intent = new Intent(action);
+        // Only PMC's own receivers may run commands of the control socket
+        intent.setPackage(mContext.getPackageName());
+        for (Map.Entry<String, String> extra : extras.entrySet()) {
+            intent.putExtra(extra.getKey(), extra.getValue());
+        }
+        BroadcastReceiver resultReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                responder.respond(getResultData());
+            }
+        };
+        mContext.sendOrderedBroadcast(intent, null, resultReceiver, null,
+                Activity.RESULT_OK, null, null);
+    }
+}
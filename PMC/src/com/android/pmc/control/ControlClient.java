@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.control;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+
+/**
+ * Blocking client of the PMC control server, for host tools and benchmarks.
+ *
+ * Commands are sent one at a time, events received while waiting for a response are
+ * passed to the EventListener.
+ */
+public class ControlClient {
+    /**
+     * Receives events streamed by the server
+     */
+    public interface EventListener {
+        void onEvent(String name, JSONObject data);
+    }
+
+    private final SocketChannel mChannel;
+    private final FrameDecoder mDecoder = new FrameDecoder();
+    private EventListener mEventListener;
+    private int mNextId = 1;
+
+    /**
+     * Connect to a control server, e.g. on a port forwarded with "adb forward"
+     */
+    public ControlClient(InetSocketAddress address) throws IOException {
+        mChannel = SocketChannel.open(address);
+        mChannel.socket().setTcpNoDelay(true);
+    }
+
+    public void setEventListener(EventListener listener) {
+        mEventListener = listener;
+    }
+
+    /**
+     * Send a command and wait for its result
+     *
+     * @param action - intent action of the command
+     * @param extras - string extras of the command, may be null
+     * @return result data of the command, null if the command has none
+     * @throws IOException if the connection fails or the command returns an error
+     */
+    public String call(String action, Map<String, String> extras) throws IOException {
+        int id = mNextId++;
+        write(ControlFrame.request(id, action, extras));
+        while (true) {
+            ControlFrame frame = readFrame();
+            try {
+                JSONObject body = new JSONObject(frame.getBody());
+                if (frame.getType() == ControlFrame.TYPE_EVENT) {
+                    if (mEventListener != null) {
+                        mEventListener.onEvent(body.getString("Event"),
+                                body.optJSONObject("Data"));
+                    }
+                    continue;
+                }
+                if (frame.getId() != id) {
+                    throw new ProtocolException("Unexpected response id " + frame.getId());
+                }
+                if (frame.getType() == ControlFrame.TYPE_ERROR) {
+                    throw new IOException(body.optString("Error"));
+                }
+                return body.isNull("Result") ? null : body.getString("Result");
+            } catch (JSONException e) {
+                throw new ProtocolException("Invalid frame: " + e);
+            }
+        }
+    }
+
+    private void write(ControlFrame frame) throws IOException {
+        ByteBuffer buffer = frame.encode();
+        while (buffer.hasRemaining()) {
+            mChannel.write(buffer);
+        }
+    }
+
+    private ControlFrame readFrame() throws IOException {
+        ControlFrame frame;
+        while ((frame = mDecoder.poll()) == null) {
+            if (mDecoder.readFrom(mChannel) < 0) {
+                throw new IOException("Connection closed by server");
+            }
+        }
+        return frame;
+    }
+
+    public void close() throws IOException {
+        mChannel.close();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.control;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * One message of the PMC control protocol.
+ *
+ * Every frame is a 4 byte big-endian length followed by that many bytes:
+ *
+ *   byte    type    TYPE_REQUEST, TYPE_RESPONSE, TYPE_ERROR or TYPE_EVENT
+ *   int32   id      request id chosen by the client, echoed in its response, 0 for events
+ *   bytes   body    UTF-8 JSON object
+ *
+ * Request bodies are {"Action": ACTION, "Extras": {KEY: VALUE, ...}} with the same
+ * action and string extras as the intents sent with "am broadcast". A response body
+ * is {"Result": RESULT_DATA}, an error body is {"Error": MESSAGE} and an event body
+ * is {"Event": NAME, "Data": {...}}.
+ */
+public final class ControlFrame {
+    public static final String TAG = "PMCCONTROL";
+    public static final byte TYPE_REQUEST = 1;
+    public static final byte TYPE_RESPONSE = 2;
+    public static final byte TYPE_ERROR = 3;
+    public static final byte TYPE_EVENT = 4;
+    // Length field of the frame
+    public static final int LENGTH_SIZE = 4;
+    // Type and id following the length field
+    public static final int HEADER_SIZE = 5;
+    public static final int MAX_BODY_SIZE = 1 << 20;
+
+    private final byte mType;
+    private final int mId;
+    private final String mBody;
+
+    public ControlFrame(byte type, int id, String body) {
+        mType = type;
+        mId = id;
+        mBody = body;
+    }
+
+    public byte getType() {
+        return mType;
+    }
+
+    public int getId() {
+        return mId;
+    }
+
+    public String getBody() {
+        return mBody;
+    }
+
+    /**
+     * Returns the frame ready to be written to a channel
+     */
+    public ByteBuffer encode() {
+        byte[] body = mBody.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH_SIZE + HEADER_SIZE + body.length);
+        buffer.putInt(HEADER_SIZE + body.length);
+        buffer.put(mType);
+        buffer.putInt(mId);
+        buffer.put(body);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Build a request frame
+     *
+     * @param id - id to match the response
+     * @param action - intent action of the command
+     * @param extras - string extras of the command, may be null
+     */
+    public static ControlFrame request(int id, String action, Map<String, String> extras) {
+        JSONObject obj = new JSONObject();
+        try {
+            obj.put("Action", action);
+            JSONObject extrasObj = new JSONObject();
+            if (extras != null) {
+                for (Map.Entry<String, String> entry : extras.entrySet()) {
+                    extrasObj.put(entry.getKey(), entry.getValue());
+                }
+            }
+            obj.put("Extras", extrasObj);
+        } catch (JSONException e) {
+            Log.e(TAG, "Exception to put request into JSON object: " + e);
+        }
+        return new ControlFrame(TYPE_REQUEST, id, obj.toString());
+    }
+
+    /**
+     * Build a response frame, result may be null if the command has no result data
+     */
+    public static ControlFrame response(int id, String result) {
+        JSONObject obj = new JSONObject();
+        try {
+            obj.put("Result", result == null ? JSONObject.NULL : result);
+        } catch (JSONException e) {
+            Log.e(TAG, "Exception to put response into JSON object: " + e);
+        }
+        return new ControlFrame(TYPE_RESPONSE, id, obj.toString());
+    }
+
+    public static ControlFrame error(int id, String message) {
+        JSONObject obj = new JSONObject();
+        try {
+            obj.put("Error", message);
+        } catch (JSONException e) {
+            Log.e(TAG, "Exception to put error into JSON object: " + e);
+        }
+        return new ControlFrame(TYPE_ERROR, id, obj.toString());
+    }
+
+    /**
+     * Build an event frame
+     *
+     * @param name - name of the event, e.g. "Status"
+     * @param data - data of the event
+     */
+    public static ControlFrame event(String name, JSONObject data) {
+        JSONObject obj = new JSONObject();
+        try {
+            obj.put("Event", name);
+            obj.put("Data", data);
+        } catch (JSONException e) {
+            Log.e(TAG, "Exception to put event into JSON object: " + e);
+        }
+        return new ControlFrame(TYPE_EVENT, 0, obj.toString());
+    }
+}
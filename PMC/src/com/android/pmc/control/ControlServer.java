@@ -0,0 +1,337 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.control;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Control server for PMC commands on a local TCP socket.
+ *
+ * A single thread runs an NIO selector for the listening socket and all clients.
+ * Requests are handed to the Dispatcher, which answers through a Responder from any
+ * thread; responses and events are queued and written by the selector thread. See
+ * ControlFrame for the protocol.
+ */
+public class ControlServer implements Runnable {
+    public static final String TAG = ControlFrame.TAG;
+    // Clients which don't read their events are dropped instead of buffering forever
+    private static final int MAX_QUEUED_FRAMES = 1024;
+
+    /**
+     * Runs the commands received from clients
+     */
+    public interface Dispatcher {
+        /**
+         * Run a command, the responder must be called exactly once
+         *
+         * @param action - intent action of the command
+         * @param extras - string extras of the command
+         * @param responder - callback for the result, may be called from any thread
+         */
+        void dispatch(String action, Map<String, String> extras, Responder responder);
+    }
+
+    /**
+     * Sends the result of one command back to its client
+     */
+    public interface Responder {
+        void respond(String result);
+
+        void fail(String message);
+    }
+
+    private final InetSocketAddress mAddress;
+    private final Dispatcher mDispatcher;
+    // Work for the selector thread, e.g. frames to send
+    private final ConcurrentLinkedQueue<Runnable> mPending = new ConcurrentLinkedQueue<>();
+    private final List<Connection> mConnections = new ArrayList<>();
+    private Selector mSelector;
+    private ServerSocketChannel mServerChannel;
+    private Thread mThread;
+    private volatile boolean mRunning;
+
+    /**
+     * Constructor
+     *
+     * @param address - address to listen on, port 0 to pick a free port
+     * @param dispatcher - runs the received commands
+     */
+    public ControlServer(InetSocketAddress address, Dispatcher dispatcher) {
+        mAddress = address;
+        mDispatcher = dispatcher;
+    }
+
+    /**
+     * Bind the socket and start the selector thread
+     */
+    public synchronized void start() throws IOException {
+        if (mRunning) return;
+        mSelector = Selector.open();
+        mServerChannel = ServerSocketChannel.open();
+        mServerChannel.socket().setReuseAddress(true);
+        mServerChannel.socket().bind(mAddress);
+        mServerChannel.configureBlocking(false);
+        mServerChannel.register(mSelector, SelectionKey.OP_ACCEPT);
+        mRunning = true;
+        mThread = new Thread(this, "PMCControl");
+        mThread.start();
+        Log.d(TAG, "Control server listening on " + getPort());
+    }
+
+    /**
+     * Close all connections and stop the selector thread
+     */
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            if (!mRunning) return;
+            mRunning = false;
+            mSelector.wakeup();
+            thread = mThread;
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the port the server listens on
+     */
+    public int getPort() {
+        return mServerChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Send an event to every connected client
+     *
+     * @param name - name of the event
+     * @param data - data of the event
+     */
+    public void sendEvent(String name, JSONObject data) {
+        if (!mRunning) return;
+        final ByteBuffer frame = ControlFrame.event(name, data).encode();
+        post(new Runnable() {
+            @Override
+            public void run() {
+                for (Connection connection : new ArrayList<>(mConnections)) {
+                    connection.send(frame.duplicate());
+                }
+            }
+        });
+    }
+
+    private void post(Runnable work) {
+        mPending.add(work);
+        mSelector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (mRunning) {
+                mSelector.select();
+                Runnable work;
+                while ((work = mPending.poll()) != null) {
+                    work.run();
+                }
+                Iterator<SelectionKey> keys = mSelector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) connection.read();
+                        if (key.isValid() && key.isWritable()) connection.write();
+                    } catch (IOException e) {
+                        Log.e(TAG, "Closing control connection: " + e);
+                        connection.close();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Control server failed: " + e);
+        } finally {
+            for (Connection connection : new ArrayList<>(mConnections)) {
+                connection.close();
+            }
+            try {
+                mServerChannel.close();
+                mSelector.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Exception closing control server: " + e);
+            }
+            mRunning = false;
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = mServerChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Connection connection = new Connection(channel);
+        connection.mKey = channel.register(mSelector, SelectionKey.OP_READ, connection);
+        mConnections.add(connection);
+        Log.d(TAG, "Control client connected: " + channel.socket().getRemoteSocketAddress());
+    }
+
+    /**
+     * State of one client, only touched by the selector thread
+     */
+    private class Connection {
+        private final SocketChannel mChannel;
+        private final FrameDecoder mDecoder = new FrameDecoder();
+        private final ArrayDeque<ByteBuffer> mOutput = new ArrayDeque<>();
+        private SelectionKey mKey;
+        private boolean mClosed;
+
+        Connection(SocketChannel channel) {
+            mChannel = channel;
+        }
+
+        void read() throws IOException {
+            if (mDecoder.readFrom(mChannel) < 0) {
+                close();
+                return;
+            }
+            ControlFrame frame;
+            while (!mClosed && (frame = mDecoder.poll()) != null) {
+                if (frame.getType() != ControlFrame.TYPE_REQUEST) {
+                    send(ControlFrame.error(frame.getId(), "Not a request").encode());
+                    continue;
+                }
+                handleRequest(frame);
+            }
+        }
+
+        private void handleRequest(ControlFrame frame) {
+            String action;
+            Map<String, String> extras = new HashMap<>();
+            try {
+                JSONObject request = new JSONObject(frame.getBody());
+                action = request.getString("Action");
+                JSONObject extrasObj = request.optJSONObject("Extras");
+                if (extrasObj != null) {
+                    Iterator<String> names = extrasObj.keys();
+                    while (names.hasNext()) {
+                        String name = names.next();
+                        extras.put(name, extrasObj.getString(name));
+                    }
+                }
+            } catch (JSONException e) {
+                send(ControlFrame.error(frame.getId(), "Invalid request: " + e).encode());
+                return;
+            }
+            mDispatcher.dispatch(action, extras, new FrameResponder(this, frame.getId()));
+        }
+
+        void send(ByteBuffer frame) {
+            if (mClosed) return;
+            if (mOutput.size() >= MAX_QUEUED_FRAMES) {
+                Log.e(TAG, "Control client doesn't read, closing");
+                close();
+                return;
+            }
+            mOutput.add(frame);
+            mKey.interestOps(mKey.interestOps() | SelectionKey.OP_WRITE);
+        }
+
+        void write() throws IOException {
+            while (!mOutput.isEmpty()) {
+                ByteBuffer buffer = mOutput.peek();
+                mChannel.write(buffer);
+                if (buffer.hasRemaining()) return;
+                mOutput.poll();
+            }
+            mKey.interestOps(SelectionKey.OP_READ);
+        }
+
+        void close() {
+            if (mClosed) return;
+            mClosed = true;
+            mConnections.remove(this);
+            mKey.cancel();
+            try {
+                mChannel.close();
+            } catch (IOException e) {
+                Log.e(TAG, "Exception closing control connection: " + e);
+            }
+        }
+    }
+
+    /**
+     * Responder of one request, hands the response to the selector thread
+     */
+    private class FrameResponder implements Responder {
+        private final Connection mConnection;
+        private final int mId;
+
+        FrameResponder(Connection connection, int id) {
+            mConnection = connection;
+            mId = id;
+        }
+
+        @Override
+        public void respond(String result) {
+            send(ControlFrame.response(mId, result));
+        }
+
+        @Override
+        public void fail(String message) {
+            send(ControlFrame.error(mId, message));
+        }
+
+        private void send(ControlFrame frame) {
+            final ByteBuffer buffer = frame.encode();
+            if (Thread.currentThread() == mThread) {
+                mConnection.send(buffer);
+                return;
+            }
+            post(new Runnable() {
+                @Override
+                public void run() {
+                    mConnection.send(buffer);
+                }
+            });
+        }
+    }
+}
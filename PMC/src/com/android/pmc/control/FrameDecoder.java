@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.control;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits the bytes received on one connection into ControlFrames. Bytes of an
+ * incomplete frame are kept until the rest arrives, the buffer grows up to the size
+ * of the largest allowed frame.
+ */
+public class FrameDecoder {
+    private static final int INITIAL_SIZE = 4096;
+    private static final int MAX_FRAME_SIZE =
+            ControlFrame.LENGTH_SIZE + ControlFrame.HEADER_SIZE + ControlFrame.MAX_BODY_SIZE;
+
+    // Always in write mode between calls
+    private ByteBuffer mBuffer = ByteBuffer.allocate(INITIAL_SIZE);
+
+    /**
+     * Read the available bytes of a channel
+     *
+     * @return number of bytes read, -1 at the end of the stream
+     */
+    public int readFrom(ReadableByteChannel channel) throws IOException {
+        ensureSpace();
+        return channel.read(mBuffer);
+    }
+
+    /**
+     * Append bytes received by other means than a channel
+     */
+    public void feed(ByteBuffer src) throws ProtocolException {
+        while (src.hasRemaining()) {
+            ensureSpace();
+            int count = Math.min(src.remaining(), mBuffer.remaining());
+            ByteBuffer slice = src.duplicate();
+            slice.limit(slice.position() + count);
+            mBuffer.put(slice);
+            src.position(src.position() + count);
+        }
+    }
+
+    private void ensureSpace() throws ProtocolException {
+        if (mBuffer.hasRemaining()) return;
+        if (mBuffer.capacity() >= MAX_FRAME_SIZE) {
+            throw new ProtocolException("Frame larger than " + MAX_FRAME_SIZE + " bytes");
+        }
+        ByteBuffer bigger = ByteBuffer.allocate(Math.min(MAX_FRAME_SIZE, mBuffer.capacity() * 2));
+        mBuffer.flip();
+        bigger.put(mBuffer);
+        mBuffer = bigger;
+    }
+
+    /**
+     * Returns the next complete frame, null if more bytes are needed
+     *
+     * @throws ProtocolException if the length of the next frame is invalid
+     */
+    public ControlFrame poll() throws ProtocolException {
+        mBuffer.flip();
+        try {
+            if (mBuffer.remaining() < ControlFrame.LENGTH_SIZE) return null;
+            int length = mBuffer.getInt(mBuffer.position());
+            if (length < ControlFrame.HEADER_SIZE
+                    || length > ControlFrame.HEADER_SIZE + ControlFrame.MAX_BODY_SIZE) {
+                throw new ProtocolException("Invalid frame length " + length);
+            }
+            if (mBuffer.remaining() < ControlFrame.LENGTH_SIZE + length) return null;
+            mBuffer.getInt();
+            byte type = mBuffer.get();
+            int id = mBuffer.getInt();
+            int bodySize = length - ControlFrame.HEADER_SIZE;
+            String body = new String(mBuffer.array(),
+                    mBuffer.arrayOffset() + mBuffer.position(), bodySize, StandardCharsets.UTF_8);
+            mBuffer.position(mBuffer.position() + bodySize);
+            return new ControlFrame(type, id, body);
+        } finally {
+            mBuffer.compact();
+        }
+    }
+}
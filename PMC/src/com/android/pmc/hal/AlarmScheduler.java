@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal;
+
+/**
+ * Alarms and delayed callbacks for PMC workloads.
+ *
+ * Alarms are identified by name, setting an alarm replaces a pending alarm with the
+ * same name. Trigger times use the Clock.elapsedRealtime() time base. All callbacks
+ * run on the same thread, one at a time.
+ */
+public interface AlarmScheduler {
+    /**
+     * Wake up the device at exactly triggerAtMillis and run action, also in idle mode
+     *
+     * @param name - name of the alarm
+     * @param triggerAtMillis - trigger time in Clock.elapsedRealtime() time base
+     * @param action - callback to be run when the alarm fires
+     */
+    void setExact(String name, long triggerAtMillis, Runnable action);
+
+    /**
+     * Wake up the device around triggerAtMillis and run action, also in idle mode. The
+     * system may defer the alarm to batch it with others.
+     *
+     * @param name - name of the alarm
+     * @param triggerAtMillis - trigger time in Clock.elapsedRealtime() time base
+     * @param action - callback to be run when the alarm fires
+     */
+    void set(String name, long triggerAtMillis, Runnable action);
+
+    /**
+     * Cancel a pending alarm, nothing happens if there is no such alarm
+     */
+    void cancel(String name);
+
+    /**
+     * Run action after delayMillis without waking up the device, the delay does not
+     * count time spent in sleep
+     */
+    void postDelayed(Runnable action, long delayMillis);
+
+    /**
+     * Remove pending callbacks posted with postDelayed()
+     */
+    void removeCallbacks(Runnable action);
+}
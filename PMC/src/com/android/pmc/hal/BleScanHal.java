@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal;
+
+/**
+ * Bluetooth LE scanner for PMC workloads, mirrors android.bluetooth.le.BluetoothLeScanner
+ */
+public interface BleScanHal {
+    // Same values as ScanSettings.SCAN_MODE_*
+    int SCAN_MODE_LOW_POWER = 0;
+    int SCAN_MODE_BALANCED = 1;
+    int SCAN_MODE_LOW_LATENCY = 2;
+
+    /**
+     * Callback of a running scan
+     */
+    interface ScanListener {
+        void onScanResult(String address, int rssi);
+
+        void onScanFailed(int errorCode);
+    }
+
+    /**
+     * Returns true if Bluetooth is enabled and scans can be started
+     */
+    boolean isReady();
+
+    /**
+     * Start a scan
+     *
+     * @param scanMode - one of SCAN_MODE_*
+     * @param deviceName - only report devices with this name, null to report all
+     * @param listener - callback for scan results
+     * @return true if the scan is started
+     */
+    boolean startScan(int scanMode, String deviceName, ScanListener listener);
+
+    void stopScan(ScanListener listener);
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal;
+
+/**
+ * Time source for PMC workloads, mirrors android.os.SystemClock
+ */
+public interface Clock {
+    /**
+     * Returns milliseconds since boot, including time spent in sleep
+     */
+    long elapsedRealtime();
+
+    /**
+     * Returns nanoseconds since boot, including time spent in sleep
+     */
+    long elapsedRealtimeNanos();
+
+    /**
+     * Returns wall clock time in milliseconds, used for the times reported to the client
+     */
+    long currentTimeMillis();
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal;
+
+import java.util.Arrays;
+
+/**
+ * Time spent in every phase of one download.
+ *
+ * Phases which were not reached, or which the transport can't see, e.g. TLS for plain
+ * HTTP or DNS on a reused connection, are NOT_MEASURED.
+ *
+ * When the download is saved to a file, the body phase is further split into time spent
+ * reading from the network, writing the file and syncing it to storage. A verified
+ * download also notes how much of the body phase went into hashing, a compressed one
+ * how much went into decompression and how many bytes compression saved.
+ */
+public class DownloadPhases {
+    public static final int PHASE_DNS = 0;
+    public static final int PHASE_CONNECT = 1;
+    public static final int PHASE_TLS = 2;
+    public static final int PHASE_TTFB = 3;
+    public static final int PHASE_BODY = 4;
+    public static final int NUM_PHASES = 5;
+    public static final long NOT_MEASURED = -1;
+    public static final int HANDSHAKE_NONE = 0;
+    public static final int HANDSHAKE_FULL = 1;
+    public static final int HANDSHAKE_RESUMED = 2;
+    // Result of verifying the body against the digest from the server
+    public static final int VERIFY_NONE = 0;
+    public static final int VERIFY_OK = 1;
+    public static final int VERIFY_NO_DIGEST = 2;
+    public static final int VERIFY_MISMATCH = 3;
+    private static final String[] NAMES = {"Dns", "Connect", "Tls", "Ttfb", "Body"};
+
+    private final long[] mNanos = new long[NUM_PHASES];
+    private int mHandshake;
+    private long mNetworkNanos;
+    private long mWriteNanos;
+    private long mSyncNanos;
+    private int mVerify;
+    private long mHashNanos;
+    private long mHashBlockedNanos;
+    private long mCompressedBytes;
+    private long mUncompressedBytes;
+    private long mDecompressCpuNanos;
+    private long mDecompressWallNanos;
+
+    public DownloadPhases() {
+        clear();
+    }
+
+    /**
+     * Returns the name of a phase, used as key of its results
+     */
+    public static String nameOf(int phase) {
+        return NAMES[phase];
+    }
+
+    /**
+     * Mark every phase as not measured
+     */
+    public void clear() {
+        Arrays.fill(mNanos, NOT_MEASURED);
+        mHandshake = HANDSHAKE_NONE;
+        mNetworkNanos = NOT_MEASURED;
+        mWriteNanos = NOT_MEASURED;
+        mSyncNanos = NOT_MEASURED;
+        mVerify = VERIFY_NONE;
+        mHashNanos = NOT_MEASURED;
+        mHashBlockedNanos = NOT_MEASURED;
+        mCompressedBytes = NOT_MEASURED;
+        mUncompressedBytes = NOT_MEASURED;
+        mDecompressCpuNanos = NOT_MEASURED;
+        mDecompressWallNanos = NOT_MEASURED;
+    }
+
+    public void set(int phase, long nanos) {
+        mNanos[phase] = nanos;
+    }
+
+    /**
+     * Returns the time spent in a phase in nanoseconds, NOT_MEASURED if unknown
+     */
+    public long get(int phase) {
+        return mNanos[phase];
+    }
+
+    /**
+     * Set the type of the TLS handshake, HANDSHAKE_*
+     */
+    public void setHandshake(int handshake) {
+        mHandshake = handshake;
+    }
+
+    /**
+     * Returns HANDSHAKE_FULL or HANDSHAKE_RESUMED for a TLS handshake, HANDSHAKE_NONE for
+     * plain HTTP or a reused connection
+     */
+    public int getHandshake() {
+        return mHandshake;
+    }
+
+    /**
+     * Set how the body phase of a saved download was spent
+     *
+     * @param networkNanos - time spent reading the body from the network
+     * @param writeNanos - time spent allocating and writing the file
+     * @param syncNanos - time spent syncing the file to storage
+     */
+    public void setStorage(long networkNanos, long writeNanos, long syncNanos) {
+        mNetworkNanos = networkNanos;
+        mWriteNanos = writeNanos;
+        mSyncNanos = syncNanos;
+    }
+
+    /**
+     * Returns true if the download was saved to a file
+     */
+    public boolean isSaved() {
+        return mWriteNanos != NOT_MEASURED;
+    }
+
+    public long getNetworkNanos() {
+        return mNetworkNanos;
+    }
+
+    public long getWriteNanos() {
+        return mWriteNanos;
+    }
+
+    public long getSyncNanos() {
+        return mSyncNanos;
+    }
+
+    /**
+     * Set the result of verifying the body
+     *
+     * @param result - VERIFY_*
+     * @param hashNanos - time spent hashing, summed over all hashing threads
+     * @param blockedNanos - part of the body phase the download thread spent hashing or
+     *                       waiting for hashing threads
+     */
+    public void setVerify(int result, long hashNanos, long blockedNanos) {
+        mVerify = result;
+        mHashNanos = hashNanos;
+        mHashBlockedNanos = blockedNanos;
+    }
+
+    public int getVerify() {
+        return mVerify;
+    }
+
+    public long getHashNanos() {
+        return mHashNanos;
+    }
+
+    public long getHashBlockedNanos() {
+        return mHashBlockedNanos;
+    }
+
+    /**
+     * Set the cost and savings of a compressed body
+     *
+     * @param compressedBytes - bytes received
+     * @param uncompressedBytes - bytes after decompression
+     * @param cpuNanos - CPU time spent decompressing
+     * @param wallNanos - wall time spent decompressing
+     */
+    public void setCompression(long compressedBytes, long uncompressedBytes, long cpuNanos,
+            long wallNanos) {
+        mCompressedBytes = compressedBytes;
+        mUncompressedBytes = uncompressedBytes;
+        mDecompressCpuNanos = cpuNanos;
+        mDecompressWallNanos = wallNanos;
+    }
+
+    /**
+     * Returns true if the body was compressed
+     */
+    public boolean isCompressed() {
+        return mCompressedBytes != NOT_MEASURED;
+    }
+
+    public long getCompressedBytes() {
+        return mCompressedBytes;
+    }
+
+    public long getUncompressedBytes() {
+        return mUncompressedBytes;
+    }
+
+    public long getDecompressCpuNanos() {
+        return mDecompressCpuNanos;
+    }
+
+    public long getDecompressWallNanos() {
+        return mDecompressWallNanos;
+    }
+
+    /**
+     * Returns the sum of all measured phases in nanoseconds
+     */
+    public long total() {
+        long total = 0;
+        for (long nanos : mNanos) {
+            if (nanos != NOT_MEASURED) total += nanos;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal;
+
+/**
+ * HTTP downloads for PMC workloads. Downloads run in the background, one at a time.
+ */
+public interface DownloadTransport {
+    // fsync policies of saved downloads
+    int SYNC_NONE = 0;
+    int SYNC_PER_FILE = 1;
+    int SYNC_EVERY_BYTES = 2;
+    // Digest algorithms for verifying downloads
+    int DIGEST_NONE = 0;
+    int DIGEST_CRC32C = 1;
+    int DIGEST_SHA256 = 2;
+    // Content encodings asked for with Accept-Encoding
+    int ENCODING_IDENTITY = 0;
+    int ENCODING_GZIP = 1;
+    int ENCODING_DEFLATE = 2;
+
+    /**
+     * Result of one download
+     */
+    interface Callback {
+        /**
+         * Called when the download is done
+         *
+         * @param contentLength - length reported by the server, -1 if not reported. For
+         *                        compressed downloads, the uncompressed length once the
+         *                        body decoded completely.
+         * @param bytesRead - number of bytes received, after decompression
+         * @param phases - time spent in every phase of the download, only valid during
+         *                 the call
+         * @param error - error message, null if the download succeeded
+         */
+        void onComplete(int contentLength, int bytesRead, DownloadPhases phases, String error);
+    }
+
+    /**
+     * Start downloading a URL, the bytes are read and discarded
+     *
+     * @param url - URL to be downloaded
+     * @param callback - callback for the result, called on a background thread
+     */
+    void fetch(String url, Callback callback);
+
+    /**
+     * Configure TLS for https:// downloads, takes effect with the next download
+     *
+     * @param sessionCacheSize - number of TLS sessions kept for resumption, 0 to disable
+     *                           resumption so that every handshake is a full handshake
+     * @param caCertPath - PEM or DER certificate of a CA to trust instead of the system
+     *                     CAs, e.g. the CA of a test server, null for the system CAs
+     * @return false if the CA certificate can't be loaded, the previous configuration
+     *         is kept then
+     */
+    boolean setTls(int sessionCacheSize, String caCertPath);
+
+    /**
+     * Save downloads to files instead of discarding them, takes effect with the next
+     * download
+     *
+     * @param dir - directory for the files, null to discard the downloads
+     * @param syncPolicy - SYNC_NONE, SYNC_PER_FILE or SYNC_EVERY_BYTES
+     * @param syncBytes - bytes written between two syncs for SYNC_EVERY_BYTES
+     * @param preallocate - true to allocate the file before writing it, when the server
+     *                      reports the length
+     */
+    void setStorage(String dir, int syncPolicy, long syncBytes, boolean preallocate);
+
+    /**
+     * Verify downloads against the Content-Digest the server sends, takes effect with the
+     * next download. A download whose digest doesn't match fails, one without a digest
+     * from the server is counted as unverified.
+     *
+     * @param algorithm - DIGEST_NONE, DIGEST_CRC32C or DIGEST_SHA256
+     * @param hashThreads - threads which checksum segments of large CRC32C downloads in
+     *                      parallel, 1 to hash on the download thread
+     */
+    void setVerify(int algorithm, int hashThreads);
+
+    /**
+     * Ask the server to compress downloads, takes effect with the next download. Bodies
+     * the server compresses are decompressed while they stream, digests are checked over
+     * the compressed bytes.
+     *
+     * @param encoding - ENCODING_IDENTITY, ENCODING_GZIP or ENCODING_DEFLATE
+     */
+    void setEncoding(int encoding);
+
+    /**
+     * Delete the files saved so far. Runs after the current download, if any.
+     */
+    void deleteFiles();
+
+    /**
+     * Cancel the running download, its callback is not called
+     */
+    void cancel();
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal;
+
+import java.util.UUID;
+
+/**
+ * GATT client connection for PMC workloads, mirrors android.bluetooth.BluetoothGatt.
+ *
+ * One transport holds at most one connection. The characteristic to be written is
+ * looked up once after service discovery and its handle is cached by the transport.
+ */
+public interface GattTransport {
+    // Same values as BluetoothGatt and BluetoothDevice constants
+    int GATT_SUCCESS = 0;
+    int GATT_FAILURE = 257;
+    int CONNECTION_PRIORITY_BALANCED = 0;
+    int CONNECTION_PRIORITY_HIGH = 1;
+    int CONNECTION_PRIORITY_LOW_POWER = 2;
+    int PHY_LE_1M = 1;
+    int PHY_LE_2M = 2;
+    int PHY_LE_CODED = 3;
+    int PHY_LE_1M_MASK = 1;
+    int PHY_LE_2M_MASK = 2;
+    int PHY_LE_CODED_MASK = 4;
+
+    /**
+     * Callbacks of the connection, see BluetoothGattCallback
+     */
+    interface Callback {
+        void onConnectionStateChange(int status, boolean connected);
+
+        void onServicesDiscovered(int status);
+
+        void onMtuChanged(int mtu, int status);
+
+        void onCharacteristicWrite(int status);
+
+        void onPhyRead(int txPhy, int rxPhy, int status);
+
+        void onConnectionUpdated(int interval, int latency, int timeout, int status);
+    }
+
+    /**
+     * Connect to a remote device over LE
+     *
+     * @param address - MAC address of the remote device
+     * @param autoConnect - connect as soon as the device becomes available
+     * @param callback - callback for the events of the connection
+     * @return true if the connection is initiated
+     */
+    boolean connect(String address, boolean autoConnect, Callback callback);
+
+    boolean discoverServices();
+
+    /**
+     * Look up the characteristic to be written by writeCharacteristic() in the
+     * discovered services and cache its handle until the connection is closed
+     *
+     * @return true if the characteristic is found
+     */
+    boolean findCharacteristic(UUID service, UUID characteristic);
+
+    boolean writeCharacteristic(byte[] value);
+
+    boolean requestMtu(int mtu);
+
+    boolean requestConnectionPriority(int priority);
+
+    void setPreferredPhy(int txPhyMask, int rxPhyMask);
+
+    void readPhy();
+
+    void disconnect();
+
+    /**
+     * Release the connection after it is disconnected
+     */
+    void close();
+}
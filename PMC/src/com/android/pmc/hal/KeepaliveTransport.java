@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal;
+
+/**
+ * Long-lived idle connections to the PMC server, kept open with small heartbeats.
+ * All connections are served by one background thread.
+ */
+public interface KeepaliveTransport {
+    /**
+     * Result of one heartbeat
+     */
+    interface Callback {
+        /**
+         * Called when the answer of a heartbeat arrived or the heartbeat failed
+         *
+         * @param connection - index of the connection, 0 to connections - 1
+         * @param rttNanos - time from sending the heartbeat to the end of its answer,
+         *                   including the connect if the connection had to be reopened
+         * @param error - error message, null if the server answered
+         */
+        void onHeartbeat(int connection, long rttNanos, String error);
+    }
+
+    /**
+     * Open idle connections, closing the ones opened before
+     *
+     * @param host - host of the server
+     * @param port - port of the server
+     * @param connections - number of connections to keep open
+     * @param path - path requested by every heartbeat, its answer should be small
+     * @param callback - callback for the heartbeats, called on a background thread
+     */
+    void open(String host, int port, int connections, String path, Callback callback);
+
+    /**
+     * Send a heartbeat on one connection. A closed connection, or one whose previous
+     * heartbeat was never answered, is reopened first.
+     */
+    void heartbeat(int connection);
+
+    /**
+     * Close all connections, pending heartbeats are not called back
+     */
+    void close();
+
+    /**
+     * Returns the number of times the background thread woke up, for a heartbeat or
+     * for network activity
+     */
+    int getWakeupCount();
+
+    /**
+     * Returns the number of connects, including the initial ones
+     */
+    int getConnectCount();
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal;
+
+/**
+ * Music playback for PMC workloads, mirrors android.media.MediaPlayer
+ */
+public interface MediaPlayerHal {
+    /**
+     * Create a player for the URL and start playing
+     *
+     * @param url - URL of the music to be played
+     * @param volume - volume of both channels, from 0.0 to 1.0
+     * @param looping - true to restart at the end of the music
+     * @return true if the music is playing
+     */
+    boolean start(String url, float volume, boolean looping);
+
+    boolean isPlaying();
+
+    /**
+     * Stop playing and release the player
+     */
+    void stop();
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal;
+
+/**
+ * Hardware abstraction used by PMC workloads.
+ *
+ * Workloads only talk to the device through these interfaces, so that the same
+ * workload runs on a device with the Android implementations in hal.platform and
+ * on a Linux JVM with the simulated implementations in hal.sim.
+ */
+public interface PmcHal {
+    Clock getClock();
+
+    AlarmScheduler getAlarmScheduler();
+
+    PowerHal getPowerHal();
+
+    WifiScanHal getWifiScanHal();
+
+    BleScanHal getBleScanHal();
+
+    GattTransport getGattTransport();
+
+    MediaPlayerHal getMediaPlayerHal();
+
+    DownloadTransport getDownloadTransport();
+
+    UploadTransport getUploadTransport();
+
+    KeepaliveTransport getKeepaliveTransport();
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal;
+
+/**
+ * HTTP uploads for PMC workloads. Uploads run in the background, one at a time.
+ */
+public interface UploadTransport {
+    // Body length is sent in Content-Length
+    int MODE_FIXED_LENGTH = 0;
+    // Body is sent with chunked transfer encoding
+    int MODE_CHUNKED = 1;
+
+    /**
+     * Result of one upload
+     */
+    interface Callback {
+        /**
+         * Called when the upload is done
+         *
+         * @param bytesSent - number of body bytes sent
+         * @param error - error message, null if the server accepted the upload
+         */
+        void onComplete(long bytesSent, String error);
+    }
+
+    /**
+     * Start uploading a body of synthetic data
+     *
+     * @param url - URL to upload to
+     * @param method - HTTP method, POST or PUT
+     * @param size - size of the body in bytes
+     * @param mode - MODE_FIXED_LENGTH or MODE_CHUNKED
+     * @param callback - callback for the result, called on a background thread
+     */
+    void send(String url, String method, long size, int mode, Callback callback);
+
+    /**
+     * Cancel the running upload, its callback is not called
+     */
+    void cancel();
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal;
+
+/**
+ * Wi-Fi scans for PMC workloads, covers the background scans of
+ * android.net.wifi.WifiScanner and the connectivity scan of WifiManager.
+ */
+public interface WifiScanHal {
+    // Same values as WifiScanner.WIFI_BAND_*
+    int BAND_UNSPECIFIED = 0;
+    int BAND_BOTH = 3;
+
+    /**
+     * Callback of a scan, called once per completed scan
+     */
+    interface ScanListener {
+        /**
+         * Called when a scan is complete
+         *
+         * @param numResults - number of access points found, -1 if not known
+         */
+        void onResults(int numResults);
+
+        void onFailure(int reason, String description);
+    }
+
+    /**
+     * Start a background scan
+     *
+     * @param band - BAND_* to scan, BAND_UNSPECIFIED to scan channelsMhz
+     * @param channelsMhz - channels to scan when band is BAND_UNSPECIFIED
+     * @param listener - callback for the results of the scan
+     * @return true if the scan is started
+     */
+    boolean startBackgroundScan(int band, int[] channelsMhz, ScanListener listener);
+
+    void stopBackgroundScan(ScanListener listener);
+
+    /**
+     * Start a single connectivity scan of all channels
+     *
+     * @param listener - callback for the results of the scan
+     * @return true if the scan is started
+     */
+    boolean startConnectivityScan(ScanListener listener);
+
+    void stopConnectivityScan(ScanListener listener);
+}
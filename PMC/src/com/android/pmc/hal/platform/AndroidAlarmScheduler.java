@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.platform;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.android.pmc.hal.AlarmScheduler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Alarms through AlarmManager. Every alarm is a broadcast to this receiver with the
+ * name of the alarm as extra, callbacks run on the main thread like onReceive() of
+ * the PMC receivers.
+ */
+public class AndroidAlarmScheduler extends BroadcastReceiver implements AlarmScheduler {
+    private static final String TAG = AndroidHal.TAG;
+    private static final String ALARM_ACTION = "com.android.pmc.hal.ALARM";
+    private static final String EXTRA_NAME = "com.android.pmc.hal.ALARM.Name";
+
+    private final Context mContext;
+    private final AlarmManager mAlarmManager;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, Runnable> mActions = new HashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param context - context to register the alarm receiver
+     * @param alarmManager - AlarmManager of the device
+     */
+    public AndroidAlarmScheduler(Context context, AlarmManager alarmManager) {
+        mContext = context;
+        mAlarmManager = alarmManager;
+        mContext.registerReceiver(this, new IntentFilter(ALARM_ACTION));
+    }
+
+    @Override
+    public void setExact(String name, long triggerAtMillis, Runnable action) {
+        synchronized (mActions) {
+            mActions.put(name, action);
+        }
+        mAlarmManager.setExactAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP,
+                triggerAtMillis, getPendingIntent(name));
+    }
+
+    @Override
+    public void set(String name, long triggerAtMillis, Runnable action) {
+        synchronized (mActions) {
+            mActions.put(name, action);
+        }
+        mAlarmManager.setAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP,
+                triggerAtMillis, getPendingIntent(name));
+    }
+
+    @Override
+    public void cancel(String name) {
+        synchronized (mActions) {
+            mActions.remove(name);
+        }
+        mAlarmManager.cancel(getPendingIntent(name));
+    }
+
+    @Override
+    public void postDelayed(Runnable action, long delayMillis) {
+        mHandler.postDelayed(action, delayMillis);
+    }
+
+    @Override
+    public void removeCallbacks(Runnable action) {
+        mHandler.removeCallbacks(action);
+    }
+
+    /**
+     * Unregister the alarm receiver, pending alarms are dropped
+     */
+    public void release() {
+        synchronized (mActions) {
+            for (String name : mActions.keySet()) {
+                mAlarmManager.cancel(getPendingIntent(name));
+            }
+            mActions.clear();
+        }
+        mContext.unregisterReceiver(this);
+    }
+
+    private PendingIntent getPendingIntent(String name) {
+        Intent intent = new Intent(ALARM_ACTION);
+        intent.setPackage(mContext.getPackageName());
+        intent.putExtra(EXTRA_NAME, name);
+        // Request code keeps the PendingIntents of different alarms apart
+        return PendingIntent.getBroadcast(mContext, name.hashCode(), intent,
+                PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String name = intent.getStringExtra(EXTRA_NAME);
+        Runnable action;
+        synchronized (mActions) {
+            action = mActions.remove(name);
+        }
+        if (action == null) {
+            Log.e(TAG, "Alarm " + name + " has no action, cancelled?");
+            return;
+        }
+        action.run();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.platform;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.le.BluetoothLeScanner;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanFilter;
+import android.bluetooth.le.ScanResult;
+import android.bluetooth.le.ScanSettings;
+import android.util.Log;
+
+import com.android.pmc.hal.BleScanHal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BLE scans through BluetoothLeScanner
+ */
+public class AndroidBleScanHal implements BleScanHal {
+    private static final String TAG = AndroidHal.TAG;
+
+    private final BluetoothAdapter mBluetoothAdapter;
+    private final Map<ScanListener, ScanCallback> mScans = new HashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param bluetoothAdapter - enabled Bluetooth adapter, null if Bluetooth is not available
+     */
+    public AndroidBleScanHal(BluetoothAdapter bluetoothAdapter) {
+        mBluetoothAdapter = bluetoothAdapter;
+    }
+
+    private BluetoothLeScanner getScanner() {
+        if (mBluetoothAdapter == null || !mBluetoothAdapter.isEnabled()) return null;
+        return mBluetoothAdapter.getBluetoothLeScanner();
+    }
+
+    @Override
+    public boolean isReady() {
+        return getScanner() != null;
+    }
+
+    @Override
+    public boolean startScan(int scanMode, String deviceName, final ScanListener listener) {
+        BluetoothLeScanner scanner = getScanner();
+        if (scanner == null) {
+            Log.e(TAG, "BLEScanner is null");
+            return false;
+        }
+        List<ScanFilter> filters = new ArrayList<ScanFilter>();
+        if (deviceName != null) {
+            filters.add(new ScanFilter.Builder().setDeviceName(deviceName).build());
+        }
+        ScanSettings settings = new ScanSettings.Builder().setScanMode(scanMode).build();
+        ScanCallback callback = new ScanCallback() {
+            @Override
+            public void onScanResult(int callbackType, ScanResult result) {
+                listener.onScanResult(result.getDevice().getAddress(), result.getRssi());
+            }
+
+            @Override
+            public void onScanFailed(int errorCode) {
+                listener.onScanFailed(errorCode);
+            }
+        };
+        synchronized (mScans) {
+            mScans.put(listener, callback);
+        }
+        scanner.startScan(filters, settings, callback);
+        return true;
+    }
+
+    @Override
+    public void stopScan(ScanListener listener) {
+        ScanCallback callback;
+        synchronized (mScans) {
+            callback = mScans.remove(listener);
+        }
+        BluetoothLeScanner scanner = getScanner();
+        if (callback != null && scanner != null) scanner.stopScan(callback);
+    }
+}
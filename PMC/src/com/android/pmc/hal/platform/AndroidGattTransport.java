@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.platform;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCallback;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattService;
+import android.bluetooth.BluetoothProfile;
+import android.content.Context;
+import android.util.Log;
+
+import com.android.pmc.hal.GattTransport;
+
+import java.util.UUID;
+
+/**
+ * GATT client connection through BluetoothGatt. Constants of GattTransport have the
+ * same values as the framework, so they are passed through as they are.
+ */
+public class AndroidGattTransport implements GattTransport {
+    private static final String TAG = AndroidHal.TAG;
+
+    private final Context mContext;
+    private final BluetoothAdapter mBluetoothAdapter;
+    private volatile BluetoothGatt mBluetoothGatt;
+    private volatile Callback mCallback;
+    // Characteristic handle of the current connection, filled after service discovery
+    private BluetoothGattCharacteristic mWriteCharacteristic;
+
+    private final BluetoothGattCallback mGattCallback = new BluetoothGattCallback() {
+        @Override
+        public void onConnectionStateChange(BluetoothGatt gatt, int status, int newState) {
+            Callback callback = mCallback;
+            if (callback == null) return;
+            if (newState == BluetoothProfile.STATE_CONNECTED) {
+                callback.onConnectionStateChange(status, true);
+            } else if (newState == BluetoothProfile.STATE_DISCONNECTED) {
+                callback.onConnectionStateChange(status, false);
+            }
+        }
+
+        @Override
+        public void onServicesDiscovered(BluetoothGatt gatt, int status) {
+            Callback callback = mCallback;
+            if (callback != null) callback.onServicesDiscovered(status);
+        }
+
+        @Override
+        public void onCharacteristicWrite(BluetoothGatt gatt,
+                BluetoothGattCharacteristic characteristic, int status) {
+            Callback callback = mCallback;
+            if (callback != null) callback.onCharacteristicWrite(status);
+        }
+
+        @Override
+        public void onMtuChanged(BluetoothGatt gatt, int mtu, int status) {
+            Callback callback = mCallback;
+            if (callback != null) callback.onMtuChanged(mtu, status);
+        }
+
+        @Override
+        public void onPhyRead(BluetoothGatt gatt, int txPhy, int rxPhy, int status) {
+            Callback callback = mCallback;
+            if (callback != null) callback.onPhyRead(txPhy, rxPhy, status);
+        }
+
+        @Override
+        public void onPhyUpdate(BluetoothGatt gatt, int txPhy, int rxPhy, int status) {
+            Log.d(TAG, "onPhyUpdate tx: " + txPhy + " rx: " + rxPhy + " status: " + status);
+        }
+
+        @Override
+        public void onConnectionUpdated(BluetoothGatt gatt, int interval, int latency,
+                int timeout, int status) {
+            Callback callback = mCallback;
+            if (callback != null) {
+                callback.onConnectionUpdated(interval, latency, timeout, status);
+            }
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param context - context for connectGatt()
+     * @param bluetoothAdapter - enabled Bluetooth adapter, null if Bluetooth is not available
+     */
+    public AndroidGattTransport(Context context, BluetoothAdapter bluetoothAdapter) {
+        mContext = context;
+        mBluetoothAdapter = bluetoothAdapter;
+    }
+
+    @Override
+    public boolean connect(String address, boolean autoConnect, Callback callback) {
+        if (mBluetoothAdapter == null) {
+            Log.e(TAG, "BluetoothAdapter is Null");
+            return false;
+        }
+        BluetoothDevice device = mBluetoothAdapter.getRemoteDevice(address);
+        mCallback = callback;
+        mBluetoothGatt = device.connectGatt(mContext, autoConnect, mGattCallback,
+                BluetoothDevice.TRANSPORT_LE);
+        return mBluetoothGatt != null;
+    }
+
+    @Override
+    public boolean discoverServices() {
+        BluetoothGatt gatt = mBluetoothGatt;
+        return gatt != null && gatt.discoverServices();
+    }
+
+    @Override
+    public boolean findCharacteristic(UUID serviceUuid, UUID characteristicUuid) {
+        mWriteCharacteristic = null;
+        BluetoothGatt gatt = mBluetoothGatt;
+        if (gatt == null) return false;
+        BluetoothGattService service = gatt.getService(serviceUuid);
+        if (service == null) {
+            Log.e(TAG, "service not found!");
+            return false;
+        }
+        BluetoothGattCharacteristic characteristic =
+                service.getCharacteristic(characteristicUuid);
+        if (characteristic == null) {
+            Log.e(TAG, "Characteristic not found!");
+            return false;
+        }
+        characteristic.setWriteType(BluetoothGattCharacteristic.WRITE_TYPE_DEFAULT);
+        mWriteCharacteristic = characteristic;
+        return true;
+    }
+
+    @Override
+    public boolean writeCharacteristic(byte[] value) {
+        BluetoothGatt gatt = mBluetoothGatt;
+        if (gatt == null || mWriteCharacteristic == null) {
+            Log.e(TAG, "Characteristic not found!");
+            return false;
+        }
+        mWriteCharacteristic.setValue(value);
+        return gatt.writeCharacteristic(mWriteCharacteristic);
+    }
+
+    @Override
+    public boolean requestMtu(int mtu) {
+        BluetoothGatt gatt = mBluetoothGatt;
+        return gatt != null && gatt.requestMtu(mtu);
+    }
+
+    @Override
+    public boolean requestConnectionPriority(int priority) {
+        BluetoothGatt gatt = mBluetoothGatt;
+        return gatt != null && gatt.requestConnectionPriority(priority);
+    }
+
+    @Override
+    public void setPreferredPhy(int txPhyMask, int rxPhyMask) {
+        BluetoothGatt gatt = mBluetoothGatt;
+        if (gatt != null) {
+            gatt.setPreferredPhy(txPhyMask, rxPhyMask, BluetoothDevice.PHY_OPTION_NO_PREFERRED);
+        }
+    }
+
+    @Override
+    public void readPhy() {
+        BluetoothGatt gatt = mBluetoothGatt;
+        if (gatt != null) gatt.readPhy();
+    }
+
+    @Override
+    public void disconnect() {
+        BluetoothGatt gatt = mBluetoothGatt;
+        if (gatt != null) gatt.disconnect();
+    }
+
+    @Override
+    public void close() {
+        BluetoothGatt gatt = mBluetoothGatt;
+        mBluetoothGatt = null;
+        mCallback = null;
+        // Handles are only valid for the connection they are discovered on
+        mWriteCharacteristic = null;
+        if (gatt == null) return;
+        try {
+            gatt.close();
+        } catch (Exception e) {
+            Log.e(TAG, "Close Gatt: " + e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.platform;
+
+import android.app.AlarmManager;
+import android.bluetooth.BluetoothAdapter;
+import android.content.Context;
+import android.os.Debug;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.util.Log;
+
+import com.android.pmc.DownloadDecoder;
+import com.android.pmc.DownloadFileWriter;
+import com.android.pmc.hal.AlarmScheduler;
+import com.android.pmc.hal.BleScanHal;
+import com.android.pmc.hal.Clock;
+import com.android.pmc.hal.DownloadTransport;
+import com.android.pmc.hal.GattTransport;
+import com.android.pmc.hal.KeepaliveTransport;
+import com.android.pmc.hal.MediaPlayerHal;
+import com.android.pmc.hal.PmcHal;
+import com.android.pmc.hal.PowerHal;
+import com.android.pmc.hal.UploadTransport;
+import com.android.pmc.hal.WifiScanHal;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Android implementations of the PMC hardware abstraction. Every implementation is
+ * created the first time it is asked for.
+ */
+public class AndroidHal implements PmcHal {
+    public static final String TAG = "PMCHAL";
+
+    // Allocates the blocks of saved downloads, unlike setLength() which leaves a sparse file
+    private static final DownloadFileWriter.Preallocator FALLOCATE =
+            new DownloadFileWriter.Preallocator() {
+                @Override
+                public void preallocate(RandomAccessFile file, long length) throws IOException {
+                    try {
+                        Os.posix_fallocate(file.getFD(), 0, length);
+                    } catch (ErrnoException e) {
+                        throw e.rethrowAsIOException();
+                    }
+                }
+            };
+
+    private static final DownloadDecoder.CpuClock THREAD_CPU = new DownloadDecoder.CpuClock() {
+        @Override
+        public long threadCpuNanos() {
+            return Debug.threadCpuTimeNanos();
+        }
+    };
+
+    private final Context mContext;
+    private Clock mClock;
+    private AndroidAlarmScheduler mAlarmScheduler;
+    private PowerHal mPowerHal;
+    private WifiScanHal mWifiScanHal;
+    private BleScanHal mBleScanHal;
+    private GattTransport mGattTransport;
+    private MediaPlayerHal mMediaPlayerHal;
+    private HttpDownloadTransport mDownloadTransport;
+    private HttpUploadTransport mUploadTransport;
+    private NioKeepaliveTransport mKeepaliveTransport;
+
+    public AndroidHal(Context context) {
+        mContext = context;
+    }
+
+    @Override
+    public synchronized Clock getClock() {
+        if (mClock == null) mClock = new AndroidClock();
+        return mClock;
+    }
+
+    @Override
+    public synchronized AlarmScheduler getAlarmScheduler() {
+        if (mAlarmScheduler == null) {
+            mAlarmScheduler = new AndroidAlarmScheduler(mContext,
+                    (AlarmManager) mContext.getSystemService(Context.ALARM_SERVICE));
+        }
+        return mAlarmScheduler;
+    }
+
+    @Override
+    public synchronized PowerHal getPowerHal() {
+        if (mPowerHal == null) mPowerHal = new AndroidPowerHal(mContext);
+        return mPowerHal;
+    }
+
+    @Override
+    public synchronized WifiScanHal getWifiScanHal() {
+        if (mWifiScanHal == null) mWifiScanHal = new AndroidWifiScanHal(mContext);
+        return mWifiScanHal;
+    }
+
+    @Override
+    public synchronized BleScanHal getBleScanHal() {
+        if (mBleScanHal == null) mBleScanHal = new AndroidBleScanHal(getBluetoothAdapter());
+        return mBleScanHal;
+    }
+
+    @Override
+    public synchronized GattTransport getGattTransport() {
+        if (mGattTransport == null) {
+            mGattTransport = new AndroidGattTransport(mContext, getBluetoothAdapter());
+        }
+        return mGattTransport;
+    }
+
+    @Override
+    public synchronized MediaPlayerHal getMediaPlayerHal() {
+        if (mMediaPlayerHal == null) mMediaPlayerHal = new AndroidMediaPlayerHal(mContext);
+        return mMediaPlayerHal;
+    }
+
+    @Override
+    public synchronized DownloadTransport getDownloadTransport() {
+        if (mDownloadTransport == null) {
+            mDownloadTransport = new HttpDownloadTransport(FALLOCATE, THREAD_CPU);
+        }
+        return mDownloadTransport;
+    }
+
+    @Override
+    public synchronized UploadTransport getUploadTransport() {
+        if (mUploadTransport == null) mUploadTransport = new HttpUploadTransport();
+        return mUploadTransport;
+    }
+
+    @Override
+    public synchronized KeepaliveTransport getKeepaliveTransport() {
+        if (mKeepaliveTransport == null) mKeepaliveTransport = new NioKeepaliveTransport();
+        return mKeepaliveTransport;
+    }
+
+    /**
+     * Returns the Bluetooth adapter, enabled if it was off. Null if Bluetooth is not
+     * available or can't be enabled.
+     */
+    public BluetoothAdapter getBluetoothAdapter() {
+        BluetoothAdapter bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
+        if (bluetoothAdapter == null) {
+            Log.e(TAG, "BluetoothAdapter is Null");
+            return null;
+        }
+        if (!bluetoothAdapter.isEnabled()) {
+            Log.d(TAG, "BluetoothAdapter is NOT enabled, enable now");
+            bluetoothAdapter.enable();
+            if (!bluetoothAdapter.isEnabled()) {
+                Log.e(TAG, "Can't enable Bluetooth");
+                return null;
+            }
+        }
+        return bluetoothAdapter;
+    }
+
+    /**
+     * Release the resources held by the implementations created so far
+     */
+    public synchronized void release() {
+        if (mAlarmScheduler != null) mAlarmScheduler.release();
+        if (mDownloadTransport != null) mDownloadTransport.shutdown();
+        if (mUploadTransport != null) mUploadTransport.shutdown();
+        if (mKeepaliveTransport != null) mKeepaliveTransport.shutdown();
+        if (mMediaPlayerHal != null) mMediaPlayerHal.stop();
+        mAlarmScheduler = null;
+        mDownloadTransport = null;
+        mUploadTransport = null;
+        mKeepaliveTransport = null;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.platform;
+
+import android.content.Context;
+import android.media.MediaPlayer;
+import android.net.Uri;
+import android.util.Log;
+
+import com.android.pmc.hal.MediaPlayerHal;
+
+/**
+ * Music playback through MediaPlayer
+ */
+public class AndroidMediaPlayerHal implements MediaPlayerHal {
+    private static final String TAG = AndroidHal.TAG;
+
+    private final Context mContext;
+    private MediaPlayer mPlayer;
+
+    public AndroidMediaPlayerHal(Context context) {
+        mContext = context;
+    }
+
+    @Override
+    public boolean start(String url, float volume, boolean looping) {
+        stop();
+        mPlayer = MediaPlayer.create(mContext, Uri.parse(url));
+        if (mPlayer == null) {
+            Log.e(TAG, "Failed to create Media Player");
+            return false;
+        }
+        mPlayer.setVolume(volume, volume);
+        mPlayer.start();
+        mPlayer.setLooping(looping);
+        return mPlayer.isPlaying();
+    }
+
+    @Override
+    public boolean isPlaying() {
+        return mPlayer != null && mPlayer.isPlaying();
+    }
+
+    @Override
+    public void stop() {
+        if (mPlayer == null) return;
+        mPlayer.stop();
+        // Release the Media Player
+        mPlayer.release();
+        mPlayer = null;
+    }
+}
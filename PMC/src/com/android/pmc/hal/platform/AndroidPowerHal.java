@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.platform;
+
+import android.content.Context;
+import android.os.PowerManager;
+
+import com.android.pmc.hal.PowerHal;
+import com.android.pmc.hal.WakeLock;
+
+/**
+ * Partial wakelocks of PowerManager
+ */
+public class AndroidPowerHal implements PowerHal {
+    private final PowerManager mPowerManager;
+
+    public AndroidPowerHal(Context context) {
+        mPowerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+    }
+
+    @Override
+    public WakeLock newWakeLock(String tag) {
+        final PowerManager.WakeLock wakeLock =
+                mPowerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, tag);
+        return new WakeLock() {
+            @Override
+            public void acquire() {
+                wakeLock.acquire();
+            }
+
+            @Override
+            public void release() {
+                wakeLock.release();
+            }
+
+            @Override
+            public boolean isHeld() {
+                return wakeLock.isHeld();
+            }
+        };
+    }
+}
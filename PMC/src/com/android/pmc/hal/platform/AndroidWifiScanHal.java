@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.platform;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiManager;
+import android.net.wifi.WifiScanner;
+import android.net.wifi.WifiScanner.ChannelSpec;
+import android.net.wifi.WifiScanner.ScanData;
+import android.net.wifi.WifiScanner.ScanSettings;
+import android.util.Log;
+
+import com.android.pmc.hal.WifiScanHal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Wi-Fi scans through WifiScanner for background scans and WifiManager for
+ * connectivity scans
+ */
+public class AndroidWifiScanHal implements WifiScanHal {
+    private static final String TAG = AndroidHal.TAG;
+
+    private final Context mContext;
+    private final Map<ScanListener, WifiScanner.ScanListener> mBackgroundScans =
+            new HashMap<>();
+    private final Map<ScanListener, BroadcastReceiver> mConnectivityScans = new HashMap<>();
+
+    public AndroidWifiScanHal(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    @Override
+    public boolean startBackgroundScan(int band, int[] channelsMhz,
+            final ScanListener listener) {
+        WifiScanner scanner =
+                (WifiScanner) mContext.getSystemService(Context.WIFI_SCANNING_SERVICE);
+        if (scanner == null) {
+            Log.e(TAG, "WifiScanner is null");
+            return false;
+        }
+        ScanSettings settings = new ScanSettings();
+        if (band == BAND_UNSPECIFIED) {
+            ChannelSpec[] channels = new ChannelSpec[channelsMhz.length];
+            for (int i = 0; i < channelsMhz.length; i++) {
+                channels[i] = new ChannelSpec(channelsMhz[i]);
+            }
+            settings.channels = channels;
+        } else {
+            settings.band = band;
+        }
+        WifiScanner.ScanListener scanListener = new WifiScanner.ScanListener() {
+            @Override
+            public void onSuccess() {
+                Log.d(TAG, "onSuccess called");
+            }
+
+            @Override
+            public void onFailure(int reason, String description) {
+                listener.onFailure(reason, description);
+            }
+
+            @Override
+            public void onPeriodChanged(int periodInMs) {
+                Log.d(TAG, "onPeriodChanged called");
+            }
+
+            @Override
+            public void onFullResult(ScanResult fullScanResult) {
+                Log.d(TAG, "onFullResult called");
+            }
+
+            @Override
+            public void onResults(ScanData[] results) {
+                listener.onResults(results != null ? results.length : 0);
+            }
+        };
+        synchronized (mBackgroundScans) {
+            mBackgroundScans.put(listener, scanListener);
+        }
+        scanner.startBackgroundScan(settings, scanListener);
+        return true;
+    }
+
+    @Override
+    public void stopBackgroundScan(ScanListener listener) {
+        WifiScanner.ScanListener scanListener;
+        synchronized (mBackgroundScans) {
+            scanListener = mBackgroundScans.remove(listener);
+        }
+        if (scanListener == null) return;
+        WifiScanner scanner =
+                (WifiScanner) mContext.getSystemService(Context.WIFI_SCANNING_SERVICE);
+        if (scanner != null) scanner.stopBackgroundScan(scanListener);
+    }
+
+    @Override
+    public boolean startConnectivityScan(final ScanListener listener) {
+        WifiManager wifiManager = (WifiManager) mContext.getSystemService(Context.WIFI_SERVICE);
+        if (wifiManager == null) {
+            Log.e(TAG, "WifiManager is null");
+            return false;
+        }
+        BroadcastReceiver receiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context c, Intent intent) {
+                if (WifiManager.SCAN_RESULTS_AVAILABLE_ACTION.equals(intent.getAction())) {
+                    Log.d(TAG, "Wifi connection scan finished, results available.");
+                    // Number of results is not known without location permission
+                    listener.onResults(-1);
+                }
+            }
+        };
+        synchronized (mConnectivityScans) {
+            mConnectivityScans.put(listener, receiver);
+        }
+        mContext.registerReceiver(receiver,
+                new IntentFilter(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION));
+        if (!wifiManager.startScan()) {
+            stopConnectivityScan(listener);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void stopConnectivityScan(ScanListener listener) {
+        BroadcastReceiver receiver;
+        synchronized (mConnectivityScans) {
+            receiver = mConnectivityScans.remove(listener);
+        }
+        if (receiver != null) mContext.unregisterReceiver(receiver);
+    }
+}
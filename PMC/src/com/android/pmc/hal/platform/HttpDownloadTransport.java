@@ -0,0 +1,402 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.platform;
+
+import android.util.Log;
+
+import com.android.pmc.DownloadDecoder;
+import com.android.pmc.DownloadFileWriter;
+import com.android.pmc.DownloadReader;
+import com.android.pmc.DownloadVerifier;
+import com.android.pmc.hal.DownloadPhases;
+import com.android.pmc.hal.DownloadTransport;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.util.Enumeration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * HTTP downloads through HttpURLConnection on a background thread. Only uses java.net,
+ * so it works against a real server both on the device and on the host.
+ *
+ * Every download is timed phase by phase: DNS lookup, TCP connect, TLS handshake,
+ * time to the response headers and body transfer.
+ *
+ * https:// downloads close their connection, so that every download pays for a TLS
+ * handshake like a periodic fetch after the keep-alive timeout does. Whether that
+ * handshake is full or resumed depends on the session cache set with setTls().
+ *
+ * Downloads are discarded, or saved to files after setStorage() to add the cost of
+ * writing them to storage. After setVerify() the body is hashed while it streams and
+ * checked against the Content-Digest header of the response.
+ *
+ * Accept-Encoding is always set, to identity unless setEncoding() asks for compression,
+ * so that the platform HTTP stack doesn't ask for gzip and decompress on its own. Bodies
+ * the server compresses are decompressed by a DownloadDecoder.
+ */
+public class HttpDownloadTransport implements DownloadTransport {
+    // Same tag as AndroidHal, which can't be referenced from host builds
+    private static final String TAG = "PMCHAL";
+    private static final int DOWNLOAD_BUFFER_SIZE = 1024 * 4;
+    private static final int FILE_BUFFER_SIZE = 1024 * 64;
+    private static final int DECODE_BUFFER_SIZE = 1024 * 64;
+
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    // Read buffer is shared by all downloads, one download runs at a time
+    private final DownloadReader mDownloadReader = new DownloadReader(DOWNLOAD_BUFFER_SIZE);
+    private final DownloadPhases mPhases = new DownloadPhases();
+    private final DownloadFileWriter.Preallocator mPreallocator;
+    private final DownloadDecoder.CpuClock mCpuClock;
+    // Only used by the download thread, null to discard downloads
+    private DownloadFileWriter mFileWriter;
+    // Only used by the download thread, null to not verify downloads
+    private DownloadVerifier mVerifier;
+    private ExecutorService mHashPool;
+    // Only used by the download thread
+    private int mEncoding = ENCODING_IDENTITY;
+    private DownloadDecoder mDecoder;
+    // TLS settings are changed by the caller and used by the download thread
+    private TlsTimingSocketFactory mTlsTiming;
+    private SSLContext mSslContext;
+    private int mSessionCacheSize = -1;
+    private Future<?> mCurrent;
+
+    public HttpDownloadTransport() {
+        this(DownloadFileWriter.SET_LENGTH, DownloadDecoder.NANO_TIME);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param preallocator - allocates files of saved downloads
+     * @param cpuClock - thread CPU clock for decompression time
+     */
+    public HttpDownloadTransport(DownloadFileWriter.Preallocator preallocator,
+            DownloadDecoder.CpuClock cpuClock) {
+        mPreallocator = preallocator;
+        mCpuClock = cpuClock;
+    }
+
+    @Override
+    public synchronized void fetch(final String url, final Callback callback) {
+        mCurrent = mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                download(url, callback);
+            }
+        });
+    }
+
+    @Override
+    public void setStorage(final String dir, final int syncPolicy, final long syncBytes,
+            final boolean preallocate) {
+        // Runs on the download thread after the current download
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mFileWriter != null) mFileWriter.deleteFiles();
+                mFileWriter = dir == null ? null : new DownloadFileWriter(new File(dir),
+                        FILE_BUFFER_SIZE, syncPolicy, syncBytes,
+                        preallocate ? mPreallocator : null);
+            }
+        });
+    }
+
+    @Override
+    public void setVerify(final int algorithm, final int hashThreads) {
+        // Runs on the download thread after the current download
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mHashPool != null) mHashPool.shutdown();
+                mHashPool = null;
+                mVerifier = null;
+                if (algorithm == DIGEST_NONE) return;
+                if (algorithm == DIGEST_CRC32C && hashThreads > 1) {
+                    mHashPool = Executors.newFixedThreadPool(hashThreads);
+                }
+                mVerifier = new DownloadVerifier(algorithm, mHashPool, hashThreads);
+            }
+        });
+    }
+
+    @Override
+    public void setEncoding(final int encoding) {
+        // Runs on the download thread after the current download
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mEncoding = encoding;
+                if (encoding != ENCODING_IDENTITY && mDecoder == null) {
+                    mDecoder = new DownloadDecoder(DECODE_BUFFER_SIZE, mCpuClock);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void deleteFiles() {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mFileWriter == null) return;
+                Log.d(TAG, "Deleted " + mFileWriter.deleteFiles() + " downloaded files");
+            }
+        });
+    }
+
+    @Override
+    public synchronized boolean setTls(int sessionCacheSize, String caCertPath) {
+        try {
+            TrustManager[] trustManagers = null;
+            if (caCertPath != null) trustManagers = loadTrustManagers(caCertPath);
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, trustManagers, null);
+            // Size 0 means no limit for SSLSessionContext, so resumption is disabled by
+            // invalidating the sessions after every download instead
+            context.getClientSessionContext().setSessionCacheSize(Math.max(1, sessionCacheSize));
+            mSslContext = context;
+            mSessionCacheSize = sessionCacheSize;
+            mTlsTiming = new TlsTimingSocketFactory(context.getSocketFactory());
+            Log.d(TAG, "TLS session cache " + sessionCacheSize + ", CA " + caCertPath);
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to set up TLS: " + e);
+            return false;
+        }
+    }
+
+    private static TrustManager[] loadTrustManagers(String caCertPath) throws Exception {
+        Certificate ca;
+        InputStream in = new FileInputStream(caCertPath);
+        try {
+            ca = CertificateFactory.getInstance("X.509").generateCertificate(in);
+        } finally {
+            in.close();
+        }
+        KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(null, null);
+        keyStore.setCertificateEntry("ca", ca);
+        TrustManagerFactory tmf =
+                TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(keyStore);
+        return tmf.getTrustManagers();
+    }
+
+    private synchronized TlsTimingSocketFactory getTlsTiming(HttpsURLConnection https) {
+        if (mTlsTiming == null) {
+            mTlsTiming = new TlsTimingSocketFactory(https.getSSLSocketFactory());
+        }
+        return mTlsTiming;
+    }
+
+    /**
+     * Forget the TLS sessions when resumption is disabled
+     */
+    private synchronized void dropTlsSessions() {
+        if (mSessionCacheSize != 0 || mSslContext == null) return;
+        SSLSessionContext sessions = mSslContext.getClientSessionContext();
+        for (Enumeration<byte[]> ids = sessions.getIds(); ids.hasMoreElements(); ) {
+            SSLSession session = sessions.getSession(ids.nextElement());
+            if (session != null) session.invalidate();
+        }
+    }
+
+    @Override
+    public synchronized void cancel() {
+        if (mCurrent != null) mCurrent.cancel(true);
+        mCurrent = null;
+    }
+
+    /**
+     * Stop the background thread and delete saved downloads, the transport can't be used
+     * afterwards
+     */
+    public void shutdown() {
+        cancel();
+        deleteFiles();
+        setVerify(DIGEST_NONE, 1);
+        mExecutor.shutdown();
+    }
+
+    private void download(String sUrl, Callback callback) {
+        Log.d(TAG, "Starting background task for downloading file");
+        HttpURLConnection connection = null;
+        int fileLength = -1;
+        int bytesRead = 0;
+        String error = null;
+        TlsTimingSocketFactory tlsTiming = null;
+        mPhases.clear();
+        try {
+            URL url = new URL(sUrl);
+            long start = System.nanoTime();
+            // Resolve on our own so that DNS is timed separately, the lookup done by
+            // connect() is then answered from the resolver cache
+            InetAddress.getAllByName(url.getHost());
+            long connectStart = System.nanoTime();
+            mPhases.set(DownloadPhases.PHASE_DNS, connectStart - start);
+            connection = (HttpURLConnection) url.openConnection();
+            if (connection instanceof HttpsURLConnection) {
+                HttpsURLConnection https = (HttpsURLConnection) connection;
+                tlsTiming = getTlsTiming(https);
+                tlsTiming.clear();
+                https.setSSLSocketFactory(tlsTiming);
+                connection.setRequestProperty("Connection", "close");
+            }
+            connection.setRequestProperty("Accept-Encoding", mEncoding == ENCODING_GZIP ? "gzip"
+                    : mEncoding == ENCODING_DEFLATE ? "deflate" : "identity");
+            if (mVerifier != null) {
+                connection.setRequestProperty("Want-Content-Digest",
+                        DownloadVerifier.nameOf(mVerifier.getAlgorithm()) + "=10");
+            }
+            long connectStartMillis = System.currentTimeMillis();
+            connection.connect();
+            long connected = System.nanoTime();
+            setConnectPhases(tlsTiming, connectStart, connected);
+            if (tlsTiming != null) setHandshake(tlsTiming.getLastSocket(), connectStartMillis);
+            // expect HTTP 200 OK, so we don't mistakenly save error report
+            // instead of the file
+            int responseCode = connection.getResponseCode();
+            long firstByte = System.nanoTime();
+            mPhases.set(DownloadPhases.PHASE_TTFB, firstByte - connected);
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                error = "Server returned HTTP " + responseCode
+                        + " " + connection.getResponseMessage();
+            } else {
+                // might be -1: server did not report the length
+                fileLength = connection.getContentLength();
+                if (mVerifier != null) mVerifier.start(fileLength);
+                int encoding = mDecoder != null
+                        ? DownloadDecoder.encodingOf(connection.getContentEncoding())
+                        : ENCODING_IDENTITY;
+                bytesRead = readBody(connection, fileLength, encoding);
+                mPhases.set(DownloadPhases.PHASE_BODY, System.nanoTime() - firstByte);
+                if (encoding != ENCODING_IDENTITY) {
+                    mPhases.setCompression(mDecoder.getCompressedBytes(),
+                            mDecoder.getUncompressedBytes(), mDecoder.getCpuNanos(),
+                            mDecoder.getWallNanos());
+                    if (!mDecoder.isFinished()) {
+                        error = "Compressed body ended early";
+                    } else if (fileLength >= 0 && mDecoder.getCompressedBytes() != fileLength) {
+                        error = "Expected " + fileLength + " compressed bytes but received "
+                                + mDecoder.getCompressedBytes();
+                    }
+                    // Report the uncompressed length, the compressed one is checked above
+                    fileLength = mDecoder.isFinished() ? bytesRead : -1;
+                }
+                if (mVerifier != null) {
+                    int result = mVerifier.verify(connection.getHeaderField("Content-Digest"));
+                    mPhases.setVerify(result, mVerifier.getHashNanos(),
+                            mVerifier.getBlockedNanos());
+                    if (result == DownloadPhases.VERIFY_MISMATCH) {
+                        error = "Content digest mismatch";
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, e.toString());
+            error = e.toString();
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+        if (tlsTiming != null) dropTlsSessions();
+        if (Thread.currentThread().isInterrupted()) return;
+        callback.onComplete(fileLength, bytesRead, mPhases, error);
+    }
+
+    /**
+     * Split the time spent in connect() into TCP connect and TLS handshake
+     */
+    private void setConnectPhases(TlsTimingSocketFactory tlsTiming, long connectStart,
+            long connected) {
+        long tlsStart = tlsTiming != null ? tlsTiming.getTlsStartNanos() : -1;
+        if (tlsStart < connectStart) {
+            mPhases.set(DownloadPhases.PHASE_CONNECT, connected - connectStart);
+        } else {
+            mPhases.set(DownloadPhases.PHASE_CONNECT, tlsStart - connectStart);
+            mPhases.set(DownloadPhases.PHASE_TLS, connected - tlsStart);
+        }
+    }
+
+    /**
+     * Note down whether the TLS handshake of connect() was full or resumed
+     *
+     * @param socket - socket created by connect(), null if a pooled connection was used
+     * @param connectStartMillis - wall time before connect()
+     */
+    private void setHandshake(SSLSocket socket, long connectStartMillis) {
+        if (socket == null) return;
+        // A resumed session was created by an earlier connection
+        SSLSession session = socket.getSession();
+        mPhases.setHandshake(session.getCreationTime() < connectStartMillis
+                ? DownloadPhases.HANDSHAKE_RESUMED : DownloadPhases.HANDSHAKE_FULL);
+    }
+
+    private int readBody(HttpURLConnection connection, int fileLength, int encoding) {
+        int totalBytesRead = 0;
+        InputStream inputStream = null;
+        try {
+            inputStream = connection.getInputStream();
+            InputStream body = inputStream;
+            // Digests are over the bytes as sent, the decoder hashes compressed bytes
+            DownloadVerifier verifier = mVerifier;
+            long length = fileLength;
+            if (encoding != ENCODING_IDENTITY) {
+                mDecoder.start(inputStream, encoding, mVerifier);
+                body = mDecoder;
+                verifier = null;
+                length = -1;
+            }
+            if (mFileWriter != null) {
+                totalBytesRead = mFileWriter.write(body, length, mPhases, verifier);
+            } else {
+                // Just read out the input file, not saving it anywhere in the device
+                totalBytesRead = mDownloadReader.read(body, verifier);
+            }
+            if (mVerifier != null) mVerifier.finish();
+        } catch (Exception e) {
+            Log.e(TAG, "Downloaded failed");
+        } finally {
+            try {
+                if (inputStream != null) inputStream.close();
+            } catch (Exception e) {
+                Log.e(TAG, "Downloaded close failed");
+            }
+        }
+        return totalBytesRead;
+    }
+}
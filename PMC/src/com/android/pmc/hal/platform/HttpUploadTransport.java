@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.platform;
+
+import android.util.Log;
+
+import com.android.pmc.DownloadReader;
+import com.android.pmc.UploadWriter;
+import com.android.pmc.hal.UploadTransport;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * HTTP uploads through HttpURLConnection on a background thread. The body is streamed
+ * in fixed-length or chunked mode, so HttpURLConnection doesn't buffer it. Only uses
+ * java.net, so it works against a real server both on the device and on the host.
+ */
+public class HttpUploadTransport implements UploadTransport {
+    // Same tag as AndroidHal, which can't be referenced from host builds
+    private static final String TAG = "PMCHAL";
+    private static final int UPLOAD_BUFFER_SIZE = 1024 * 4;
+    private static final int CHUNK_SIZE = 1024 * 16;
+
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    // Buffers are shared by all uploads, one upload runs at a time
+    private final UploadWriter mUploadWriter = new UploadWriter(UPLOAD_BUFFER_SIZE);
+    private final DownloadReader mResponseReader = new DownloadReader(UPLOAD_BUFFER_SIZE);
+    private Future<?> mCurrent;
+
+    @Override
+    public synchronized void send(final String url, final String method, final long size,
+            final int mode, final Callback callback) {
+        mCurrent = mExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                upload(url, method, size, mode, callback);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void cancel() {
+        if (mCurrent != null) mCurrent.cancel(true);
+        mCurrent = null;
+    }
+
+    /**
+     * Stop the background thread, the transport can't be used afterwards
+     */
+    public void shutdown() {
+        cancel();
+        mExecutor.shutdownNow();
+    }
+
+    private void upload(String sUrl, String method, long size, int mode, Callback callback) {
+        Log.d(TAG, "Starting background task for uploading " + size + " bytes");
+        HttpURLConnection connection = null;
+        long bytesSent = 0;
+        String error = null;
+        try {
+            URL url = new URL(sUrl);
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod(method);
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/octet-stream");
+            if (mode == MODE_CHUNKED) {
+                connection.setChunkedStreamingMode(CHUNK_SIZE);
+            } else {
+                connection.setFixedLengthStreamingMode(size);
+            }
+            OutputStream outputStream = connection.getOutputStream();
+            try {
+                bytesSent = mUploadWriter.write(outputStream, size);
+            } finally {
+                outputStream.close();
+            }
+            int responseCode = connection.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK
+                    && responseCode != HttpURLConnection.HTTP_CREATED
+                    && responseCode != HttpURLConnection.HTTP_NO_CONTENT) {
+                error = "Server returned HTTP " + responseCode + " "
+                        + connection.getResponseMessage();
+            } else {
+                readResponse(connection);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, e.toString());
+            error = e.toString();
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+        if (Thread.currentThread().isInterrupted()) return;
+        callback.onComplete(bytesSent, error);
+    }
+
+    private void readResponse(HttpURLConnection connection) {
+        InputStream inputStream = null;
+        // Read out the response so the connection can be reused
+        try {
+            inputStream = connection.getInputStream();
+            mResponseReader.read(inputStream);
+        } catch (Exception e) {
+            Log.e(TAG, "Upload response failed");
+        } finally {
+            try {
+                if (inputStream != null) inputStream.close();
+            } catch (Exception e) {
+                Log.e(TAG, "Upload response close failed");
+            }
+        }
+    }
+}
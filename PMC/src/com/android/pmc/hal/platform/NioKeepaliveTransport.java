@@ -0,0 +1,373 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.platform;
+
+import android.util.Log;
+
+import com.android.pmc.hal.KeepaliveTransport;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Idle HTTP/1.1 keep-alive connections served by one selector thread. A heartbeat is a
+ * GET of a small file on one connection, its round trip ends with the last byte of the
+ * answer. Between heartbeats the thread blocks in select() without a timeout, so it
+ * only wakes up for heartbeats and for the network. Only uses java.nio, so it works
+ * against the PMC content server both on the device and on the host.
+ */
+public class NioKeepaliveTransport implements KeepaliveTransport {
+    // Same tag as AndroidHal, which can't be referenced from host builds
+    private static final String TAG = "PMCHAL";
+    // Holds the head of a heartbeat answer, the body is counted and dropped
+    private static final int BUFFER_SIZE = 1024;
+
+    private final ConcurrentLinkedQueue<Runnable> mCommands = new ConcurrentLinkedQueue<>();
+    private Selector mSelector;
+    private Thread mThread;
+    private boolean mShutdown;
+    private volatile boolean mRunning;
+    private volatile int mWakeups;
+    private volatile int mConnects;
+
+    // Only used on the selector thread
+    private Connection[] mConnections = new Connection[0];
+    private InetSocketAddress mAddress;
+    private byte[] mRequest;
+    private Callback mCallback;
+
+    @Override
+    public void open(final String host, final int port, final int connections, String path,
+            final Callback callback) {
+        final byte[] request = ("GET " + path + " HTTP/1.1\r\nHost: " + host + ":" + port
+                + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        post(new Runnable() {
+            @Override
+            public void run() {
+                closeAll();
+                // Resolved once, heartbeats don't look up the host again
+                mAddress = new InetSocketAddress(host, port);
+                mRequest = request;
+                mCallback = callback;
+                mConnections = new Connection[connections];
+                for (int i = 0; i < connections; i++) {
+                    mConnections[i] = new Connection(i);
+                    try {
+                        mConnections[i].connect();
+                    } catch (IOException e) {
+                        // Retried by the first heartbeat of the connection
+                        Log.e(TAG, "Keepalive connection " + i + " failed: " + e);
+                        mConnections[i].close();
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public void heartbeat(final int connection) {
+        post(new Runnable() {
+            @Override
+            public void run() {
+                if (connection < mConnections.length) mConnections[connection].heartbeat();
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        post(new Runnable() {
+            @Override
+            public void run() {
+                closeAll();
+            }
+        });
+    }
+
+    @Override
+    public int getWakeupCount() {
+        return mWakeups;
+    }
+
+    @Override
+    public int getConnectCount() {
+        return mConnects;
+    }
+
+    /**
+     * Close the connections and stop the selector thread, the transport can't be used
+     * afterwards
+     */
+    public synchronized void shutdown() {
+        mShutdown = true;
+        if (mThread == null) return;
+        mRunning = false;
+        mSelector.wakeup();
+        mThread = null;
+    }
+
+    /**
+     * Run a command on the selector thread, starting the thread if needed
+     */
+    private synchronized void post(Runnable command) {
+        if (mShutdown) {
+            Log.e(TAG, "Keepalive transport is shut down");
+            return;
+        }
+        if (mThread == null) {
+            try {
+                mSelector = Selector.open();
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to open keepalive selector: " + e);
+                return;
+            }
+            mRunning = true;
+            mThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    loop();
+                }
+            }, "PMC keepalive");
+            mThread.start();
+        }
+        mCommands.add(command);
+        mSelector.wakeup();
+    }
+
+    private void loop() {
+        while (mRunning) {
+            try {
+                mSelector.select();
+            } catch (IOException e) {
+                Log.e(TAG, "Keepalive select failed: " + e);
+                break;
+            }
+            mWakeups++;
+            Runnable command;
+            while ((command = mCommands.poll()) != null) {
+                command.run();
+            }
+            Iterator<SelectionKey> keys = mSelector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (key.isValid()) ((Connection) key.attachment()).onReady(key.readyOps());
+            }
+        }
+        closeAll();
+        try {
+            mSelector.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to close keepalive selector: " + e);
+        }
+    }
+
+    private void closeAll() {
+        for (Connection connection : mConnections) {
+            connection.close();
+        }
+        mConnections = new Connection[0];
+        mCallback = null;
+    }
+
+    /**
+     * One connection and its heartbeat in flight, only used on the selector thread
+     */
+    private class Connection {
+        private final int mIndex;
+        private final ByteBuffer mIn = ByteBuffer.allocate(BUFFER_SIZE);
+        private SocketChannel mChannel;
+        private SelectionKey mKey;
+        private ByteBuffer mOut;
+        // Start of the pending heartbeat, -1 if there is none
+        private long mSentNanos = -1;
+        // Body bytes of the answer still to come, -1 while reading the head
+        private long mBodyLeft = -1;
+
+        Connection(int index) {
+            mIndex = index;
+        }
+
+        void connect() throws IOException {
+            if (mAddress.isUnresolved()) throw new IOException("Unknown host " + mAddress);
+            mChannel = SocketChannel.open();
+            mChannel.configureBlocking(false);
+            mChannel.socket().setTcpNoDelay(true);
+            mConnects++;
+            boolean connected = mChannel.connect(mAddress);
+            mKey = mChannel.register(mSelector,
+                    connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+        }
+
+        void heartbeat() {
+            if (mSentNanos >= 0) {
+                // No answer since the last heartbeat, the connection is as good as dead
+                Log.e(TAG, "Heartbeat on connection " + mIndex + " unanswered, reconnecting");
+                close();
+            }
+            mSentNanos = System.nanoTime();
+            mBodyLeft = -1;
+            mIn.clear();
+            mOut = ByteBuffer.wrap(mRequest);
+            try {
+                if (mChannel == null) connect();
+                if (mChannel.isConnected()) write();
+            } catch (IOException e) {
+                fail(e.toString());
+            }
+        }
+
+        void onReady(int readyOps) {
+            try {
+                if ((readyOps & SelectionKey.OP_CONNECT) != 0) {
+                    mChannel.finishConnect();
+                    mKey.interestOps(SelectionKey.OP_READ);
+                    if (mOut != null) write();
+                }
+                if ((readyOps & SelectionKey.OP_WRITE) != 0) write();
+                if ((readyOps & SelectionKey.OP_READ) != 0) read();
+            } catch (IOException e) {
+                fail(e.toString());
+            }
+        }
+
+        private void write() throws IOException {
+            mChannel.write(mOut);
+            if (mOut.hasRemaining()) {
+                mKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            mOut = null;
+            mKey.interestOps(SelectionKey.OP_READ);
+        }
+
+        private void read() throws IOException {
+            int n = mChannel.read(mIn);
+            if (n < 0) {
+                // An idle connection closed by the server is reopened by its next heartbeat
+                if (mSentNanos >= 0) {
+                    fail("Connection closed by server");
+                } else {
+                    close();
+                }
+                return;
+            }
+            if (mSentNanos < 0) {
+                mIn.clear();
+                return;
+            }
+            if (mBodyLeft < 0 && !readHead()) return;
+            mBodyLeft -= mIn.position();
+            mIn.clear();
+            if (mBodyLeft <= 0) complete();
+        }
+
+        /**
+         * Parse the head of the answer once it is complete, leaving the body bytes behind
+         * it in the buffer
+         *
+         * @return true if the head was parsed
+         */
+        private boolean readHead() {
+            byte[] buf = mIn.array();
+            int headEnd = -1;
+            for (int i = 3; i < mIn.position(); i++) {
+                if (buf[i] == '\n' && buf[i - 1] == '\r' && buf[i - 2] == '\n'
+                        && buf[i - 3] == '\r') {
+                    headEnd = i + 1;
+                    break;
+                }
+            }
+            if (headEnd < 0) {
+                if (!mIn.hasRemaining()) fail("Heartbeat answer head too large");
+                return false;
+            }
+            String head = new String(buf, 0, headEnd, StandardCharsets.ISO_8859_1);
+            if (!head.startsWith("HTTP/1.1 200 ")) {
+                fail("Server answered " + head.substring(0, head.indexOf('\r')));
+                return false;
+            }
+            mBodyLeft = contentLength(head);
+            if (mBodyLeft < 0) {
+                fail("Heartbeat answer without Content-Length");
+                return false;
+            }
+            mIn.flip().position(headEnd);
+            mIn.compact();
+            return true;
+        }
+
+        private void complete() {
+            long rttNanos = System.nanoTime() - mSentNanos;
+            mSentNanos = -1;
+            mBodyLeft = -1;
+            if (mCallback != null) mCallback.onHeartbeat(mIndex, rttNanos, null);
+        }
+
+        private void fail(String error) {
+            close();
+            if (mSentNanos < 0) {
+                Log.e(TAG, "Keepalive connection " + mIndex + ": " + error);
+                return;
+            }
+            long rttNanos = System.nanoTime() - mSentNanos;
+            mSentNanos = -1;
+            if (mCallback != null) mCallback.onHeartbeat(mIndex, rttNanos, error);
+        }
+
+        void close() {
+            if (mChannel != null) {
+                try {
+                    mChannel.close();
+                } catch (IOException e) {
+                    Log.e(TAG, "Failed to close keepalive connection: " + e);
+                }
+            }
+            mChannel = null;
+            mKey = null;
+            mOut = null;
+        }
+    }
+
+    /**
+     * Returns the Content-Length of a response head, -1 if it has none
+     */
+    private static long contentLength(String head) {
+        for (String line : head.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon < 0) continue;
+            if (!line.substring(0, colon).trim().toLowerCase(Locale.US)
+                    .equals("content-length")) {
+                continue;
+            }
+            try {
+                return Long.parseLong(line.substring(colon + 1).trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
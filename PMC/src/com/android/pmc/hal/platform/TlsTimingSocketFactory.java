@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.platform;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * SSLSocketFactory which notes down when TLS is layered over a connected TCP socket.
+ *
+ * HttpsURLConnection on Android connects the TCP socket first and then wraps it with
+ * createSocket(Socket, ...), right before the handshake. The time of that call splits
+ * connect() into TCP connect and TLS handshake. Stacks which create the SSL socket
+ * unconnected never call it, their handshake stays part of the connect time.
+ *
+ * The last socket created is kept, so that its session tells whether the handshake
+ * was full or resumed.
+ */
+class TlsTimingSocketFactory extends SSLSocketFactory {
+    private final SSLSocketFactory mDelegate;
+    private volatile long mTlsStartNanos;
+    private volatile SSLSocket mLastSocket;
+
+    TlsTimingSocketFactory(SSLSocketFactory delegate) {
+        mDelegate = delegate;
+        mTlsStartNanos = -1;
+    }
+
+    /**
+     * Forget the time of the previous connection
+     */
+    void clear() {
+        mTlsStartNanos = -1;
+        mLastSocket = null;
+    }
+
+    /**
+     * Returns System.nanoTime() when TLS was layered over the socket, -1 if it wasn't
+     */
+    long getTlsStartNanos() {
+        return mTlsStartNanos;
+    }
+
+    /**
+     * Returns the last socket created since clear(), null if none
+     */
+    SSLSocket getLastSocket() {
+        return mLastSocket;
+    }
+
+    private Socket track(Socket socket) {
+        if (socket instanceof SSLSocket) mLastSocket = (SSLSocket) socket;
+        return socket;
+    }
+
+    @Override
+    public Socket createSocket(Socket s, String host, int port, boolean autoClose)
+            throws IOException {
+        mTlsStartNanos = System.nanoTime();
+        return track(mDelegate.createSocket(s, host, port, autoClose));
+    }
+
+    @Override
+    public Socket createSocket() throws IOException {
+        return track(mDelegate.createSocket());
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        return track(mDelegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort)
+            throws IOException {
+        return track(mDelegate.createSocket(host, port, localHost, localPort));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+        return track(mDelegate.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress,
+            int localPort) throws IOException {
+        return track(mDelegate.createSocket(address, port, localAddress, localPort));
+    }
+
+    @Override
+    public String[] getDefaultCipherSuites() {
+        return mDelegate.getDefaultCipherSuites();
+    }
+
+    @Override
+    public String[] getSupportedCipherSuites() {
+        return mDelegate.getSupportedCipherSuites();
+    }
+}
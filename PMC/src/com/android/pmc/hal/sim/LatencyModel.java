@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.sim;
+
+import java.util.Random;
+
+/**
+ * Seeded latency and loss model for simulated devices.
+ *
+ * Every sample is base latency plus a uniformly distributed jitter. Runs with the same
+ * seed produce the same sequence of samples.
+ */
+public class LatencyModel {
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    private final long mBaseNanos;
+    private final long mJitterNanos;
+    private final double mLossRate;
+    private final Random mRandom;
+
+    /**
+     * Constructor
+     *
+     * @param baseMicros - minimum latency in microseconds
+     * @param jitterMicros - maximum latency added on top of baseMicros
+     * @param lossRate - probability from 0.0 to 1.0 that an operation fails
+     * @param seed - seed of the random generator
+     */
+    public LatencyModel(long baseMicros, long jitterMicros, double lossRate, long seed) {
+        mBaseNanos = baseMicros * NANOS_PER_MICRO;
+        mJitterNanos = jitterMicros * NANOS_PER_MICRO;
+        mLossRate = lossRate;
+        mRandom = new Random(seed);
+    }
+
+    /**
+     * Model with a fixed latency and no loss
+     */
+    public static LatencyModel fixed(long micros) {
+        return new LatencyModel(micros, 0, 0, 0);
+    }
+
+    /**
+     * Returns the next latency sample in nanoseconds
+     */
+    public long nextNanos() {
+        if (mJitterNanos <= 0) return mBaseNanos;
+        return mBaseNanos + (long) (mRandom.nextDouble() * mJitterNanos);
+    }
+
+    /**
+     * Returns true if the next operation is lost
+     */
+    public boolean nextLoss() {
+        return mLossRate > 0 && mRandom.nextDouble() < mLossRate;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.sim;
+
+import com.android.pmc.hal.BleScanHal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Simulated BLE scanner with a set of advertisers in range.
+ *
+ * Every advertiser is reported once per advertising interval drawn from the model.
+ * Lower duty cycle scan modes see only a part of the advertisements, so the interval
+ * between results is stretched by the duty cycle of the scan mode.
+ */
+public class SimBleScanHal implements BleScanHal {
+    // Scan window / scan interval of ScanSettings.SCAN_MODE_LOW_POWER, BALANCED, LOW_LATENCY
+    private static final int[] DUTY_CYCLE_PERCENT = {10, 25, 100};
+
+    private final SimClock mClock;
+    private final LatencyModel mAdvInterval;
+    private final String[] mAddresses;
+    private final String[] mNames;
+    private final Map<ScanListener, Scan> mScans = new HashMap<>();
+    private int mResultCount;
+
+    /**
+     * Constructor
+     *
+     * @param clock - virtual time of the simulation
+     * @param advInterval - model of the advertising interval of every advertiser
+     * @param addresses - MAC addresses of the advertisers
+     * @param names - device names of the advertisers, same order as addresses
+     */
+    public SimBleScanHal(SimClock clock, LatencyModel advInterval, String[] addresses,
+            String[] names) {
+        mClock = clock;
+        mAdvInterval = advInterval;
+        mAddresses = addresses;
+        mNames = names;
+    }
+
+    private class Scan {
+        final ScanListener mListener;
+        final int mDutyCyclePercent;
+
+        Scan(ScanListener listener, int scanMode) {
+            mListener = listener;
+            mDutyCyclePercent = DUTY_CYCLE_PERCENT[
+                    Math.max(0, Math.min(DUTY_CYCLE_PERCENT.length - 1, scanMode))];
+        }
+
+        void scheduleNext(final int advertiser) {
+            long delayNanos = mAdvInterval.nextNanos() * 100 / mDutyCyclePercent;
+            mClock.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (mScans.get(mListener) != Scan.this) return;
+                    mResultCount++;
+                    mListener.onScanResult(mAddresses[advertiser], -50 - advertiser);
+                    // The listener may have stopped the scan from the callback
+                    if (mScans.get(mListener) == Scan.this) scheduleNext(advertiser);
+                }
+            }, delayNanos);
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+
+    @Override
+    public boolean startScan(int scanMode, String deviceName, ScanListener listener) {
+        if (mScans.containsKey(listener)) return false;
+        Scan scan = new Scan(listener, scanMode);
+        mScans.put(listener, scan);
+        for (int i = 0; i < mAddresses.length; i++) {
+            if (deviceName == null || deviceName.equals(mNames[i])) scan.scheduleNext(i);
+        }
+        return true;
+    }
+
+    @Override
+    public void stopScan(ScanListener listener) {
+        mScans.remove(listener);
+    }
+
+    /**
+     * Returns number of scan results delivered to all listeners
+     */
+    public int getResultCount() {
+        return mResultCount;
+    }
+
+    /**
+     * Returns number of scans running right now
+     */
+    public int getActiveScanCount() {
+        return mScans.size();
+    }
+}
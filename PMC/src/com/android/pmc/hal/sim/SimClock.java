@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.sim;
+
+import com.android.pmc.hal.AlarmScheduler;
+import com.android.pmc.hal.Clock;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Virtual time and event loop for simulated workloads.
+ *
+ * Time only moves forward when the next event is run, so a workload which spans hours
+ * of alarms and device latencies completes as fast as its callbacks execute. The
+ * simulation is single threaded: every callback, including the ones of the simulated
+ * devices, runs on the thread calling run().
+ */
+public class SimClock implements Clock, AlarmScheduler {
+    private static final long NANOS_PER_MILLI = 1000000L;
+    // Wall clock at time zero of the simulation
+    private static final long EPOCH_MILLIS = 1500000000000L;
+
+    private final PriorityQueue<Event> mEvents = new PriorityQueue<>();
+    private final Map<String, Event> mAlarms = new HashMap<>();
+    private long mNowNanos;
+    private long mSequence;
+    private int mWakeups;
+    private int mEventsRun;
+
+    private static class Event implements Comparable<Event> {
+        final long mTimeNanos;
+        final long mSequence;
+        final Runnable mAction;
+        final String mAlarmName;
+        boolean mCancelled;
+
+        Event(long timeNanos, long sequence, Runnable action, String alarmName) {
+            mTimeNanos = timeNanos;
+            mSequence = sequence;
+            mAction = action;
+            mAlarmName = alarmName;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            if (mTimeNanos != other.mTimeNanos) return Long.compare(mTimeNanos, other.mTimeNanos);
+            return Long.compare(mSequence, other.mSequence);
+        }
+    }
+
+    @Override
+    public long elapsedRealtime() {
+        return mNowNanos / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public long elapsedRealtimeNanos() {
+        return mNowNanos;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return EPOCH_MILLIS + elapsedRealtime();
+    }
+
+    @Override
+    public void setExact(String name, long triggerAtMillis, Runnable action) {
+        cancel(name);
+        Event event = schedule(Math.max(mNowNanos, triggerAtMillis * NANOS_PER_MILLI),
+                action, name);
+        mAlarms.put(name, event);
+    }
+
+    @Override
+    public void set(String name, long triggerAtMillis, Runnable action) {
+        // No other alarms to batch with, inexact alarms fire on time
+        setExact(name, triggerAtMillis, action);
+    }
+
+    @Override
+    public void cancel(String name) {
+        Event event = mAlarms.remove(name);
+        if (event != null) event.mCancelled = true;
+    }
+
+    @Override
+    public void postDelayed(Runnable action, long delayMillis) {
+        post(action, delayMillis * NANOS_PER_MILLI);
+    }
+
+    @Override
+    public void removeCallbacks(Runnable action) {
+        for (Event event : mEvents) {
+            if (event.mAction == action && event.mAlarmName == null) event.mCancelled = true;
+        }
+    }
+
+    /**
+     * Run action after delayNanos of virtual time, used by the simulated devices to
+     * deliver their callbacks
+     */
+    public void post(Runnable action, long delayNanos) {
+        schedule(mNowNanos + Math.max(0, delayNanos), action, null);
+    }
+
+    private Event schedule(long timeNanos, Runnable action, String alarmName) {
+        Event event = new Event(timeNanos, mSequence++, action, alarmName);
+        mEvents.add(event);
+        return event;
+    }
+
+    /**
+     * Run events until there are no more events or the virtual time reaches
+     * untilMillis. Time is advanced to untilMillis if the queue runs dry earlier.
+     *
+     * @param untilMillis - end of the run in Clock.elapsedRealtime() time base
+     * @return number of events run
+     */
+    public int runUntil(long untilMillis) {
+        long untilNanos = untilMillis * NANOS_PER_MILLI;
+        int count = 0;
+        while (!mEvents.isEmpty() && mEvents.peek().mTimeNanos <= untilNanos) {
+            if (runNext()) count++;
+        }
+        mNowNanos = Math.max(mNowNanos, untilNanos);
+        return count;
+    }
+
+    /**
+     * Run events until none are left
+     *
+     * @param maxEvents - upper bound of events to run, for workloads that never end
+     * @return number of events run
+     */
+    public int runUntilIdle(int maxEvents) {
+        int count = 0;
+        while (!mEvents.isEmpty() && count < maxEvents) {
+            if (runNext()) count++;
+        }
+        return count;
+    }
+
+    private boolean runNext() {
+        Event event = mEvents.poll();
+        if (event.mCancelled) return false;
+        mNowNanos = event.mTimeNanos;
+        if (event.mAlarmName != null) {
+            mAlarms.remove(event.mAlarmName);
+            mWakeups++;
+        }
+        mEventsRun++;
+        event.mAction.run();
+        return true;
+    }
+
+    /**
+     * Returns number of alarms fired, every alarm is one wakeup of the device
+     */
+    public int getWakeupCount() {
+        return mWakeups;
+    }
+
+    public int getEventCount() {
+        return mEventsRun;
+    }
+
+    public boolean hasPendingAlarms() {
+        return !mAlarms.isEmpty();
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.sim;
+
+import com.android.pmc.DownloadVerifier;
+import com.android.pmc.hal.DownloadPhases;
+import com.android.pmc.hal.DownloadTransport;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Simulated HTTP downloads over a link with a fixed bandwidth.
+ *
+ * The size of a file is taken from its name, e.g. "100kb.txt", the same names as the
+ * files PMC downloads from its server. A download takes one round trip drawn from the
+ * model plus the transfer time at the link bandwidth. Half of the round trip is reported
+ * as connect time and half as time to first byte, there is no DNS.
+ *
+ * https:// downloads add a TLS handshake like TLS 1.2: two round trips for a full
+ * handshake and one for a resumed one. A session is resumed if the session cache set
+ * with setTls() isn't disabled and an earlier handshake succeeded.
+ *
+ * Saved downloads are written to simulated flash after they are read, which adds the
+ * write time at the flash bandwidth and a fixed time for every sync.
+ *
+ * Verified downloads are hashed at a fixed rate per algorithm. Hashing on the download
+ * thread adds all of it to the body, large CRC32C downloads hashed in parallel overlap
+ * it with the transfer and only wait for the last segment and for a pool which can't
+ * keep up with the link. The simulated server always sends a matching digest.
+ *
+ * Compressed downloads shrink by the ratio the content server gets for the kind of
+ * content in the "content=" query parameter, and add the time to inflate them.
+ */
+public class SimDownloadTransport implements DownloadTransport {
+    private static final long NANOS_PER_SEC = 1000000000L;
+    private static final int DEFAULT_SIZE = 1024;
+    private static final long FLASH_BYTES_PER_SEC = 100L * 1024 * 1024;
+    private static final long SYNC_NANOS = 5000000L;
+    private static final long CRC32C_BYTES_PER_SEC = 1000L * 1024 * 1024;
+    private static final long SHA256_BYTES_PER_SEC = 250L * 1024 * 1024;
+    // Compressed size per 1000 bytes and inflate rate of random, text and zeros
+    private static final String[] CONTENT_KINDS = {"random", "text", "zeros"};
+    private static final int[] COMPRESSED_PER_MILLE = {1001, 260, 1};
+    private static final long[] INFLATE_BYTES_PER_SEC = {
+            2000L * 1024 * 1024, 300L * 1024 * 1024, 1000L * 1024 * 1024};
+    private static final Pattern CONTENT_PATTERN = Pattern.compile("[?&]content=(\\w+)");
+    private static final Pattern SIZE_PATTERN =
+            Pattern.compile("(\\d+)(kb|mb)[^/]*$", Pattern.CASE_INSENSITIVE);
+
+    private final SimClock mClock;
+    private final LatencyModel mRoundTrip;
+    private final long mBytesPerSec;
+    private final DownloadPhases mPhases = new DownloadPhases();
+    private Object mCurrent;
+    private int mSessionCacheSize = 1;
+    private boolean mHasSession;
+    private boolean mSave;
+    private int mSyncPolicy;
+    private long mSyncBytes;
+    private int mSavedFiles;
+    private int mDigest = DIGEST_NONE;
+    private int mHashThreads = 1;
+    private int mEncoding = ENCODING_IDENTITY;
+    private int mDownloadCount;
+    private long mBytesRead;
+
+    /**
+     * Constructor
+     *
+     * @param clock - virtual time of the simulation
+     * @param roundTrip - model of the request round trip time and of failed downloads
+     * @param bytesPerSec - bandwidth of the link
+     */
+    public SimDownloadTransport(SimClock clock, LatencyModel roundTrip, long bytesPerSec) {
+        mClock = clock;
+        mRoundTrip = roundTrip;
+        mBytesPerSec = bytesPerSec;
+    }
+
+    /**
+     * Returns the size of the file named in url
+     */
+    public static int sizeOf(String url) {
+        Matcher matcher = SIZE_PATTERN.matcher(url);
+        if (!matcher.find()) return DEFAULT_SIZE;
+        int size = Integer.parseInt(matcher.group(1));
+        return matcher.group(2).equalsIgnoreCase("mb") ? size * 1024 * 1024 : size * 1024;
+    }
+
+    @Override
+    public boolean setTls(int sessionCacheSize, String caCertPath) {
+        mSessionCacheSize = sessionCacheSize;
+        mHasSession = false;
+        return true;
+    }
+
+    @Override
+    public void setStorage(String dir, int syncPolicy, long syncBytes, boolean preallocate) {
+        mSave = dir != null;
+        mSyncPolicy = syncPolicy;
+        mSyncBytes = syncBytes;
+    }
+
+    @Override
+    public void setVerify(int algorithm, int hashThreads) {
+        mDigest = algorithm;
+        mHashThreads = Math.max(1, hashThreads);
+    }
+
+    /**
+     * Returns the part of the hash time which holds up the download thread
+     */
+    private long blockedNanos(long size, long hash, long transfer) {
+        if (mDigest != DIGEST_CRC32C || mHashThreads < 2
+                || size < DownloadVerifier.PARALLEL_MIN_LENGTH) {
+            return hash;
+        }
+        long lastSegment = hash * DownloadVerifier.SEGMENT_SIZE / size;
+        return Math.max(0, hash / mHashThreads - transfer) + lastSegment;
+    }
+
+    @Override
+    public void setEncoding(int encoding) {
+        mEncoding = encoding;
+    }
+
+    /**
+     * Returns the index of the kind of content of a URL in CONTENT_KINDS, random if the
+     * URL doesn't name one
+     */
+    private static int contentKindOf(String url) {
+        Matcher matcher = CONTENT_PATTERN.matcher(url);
+        if (!matcher.find()) return 0;
+        for (int i = 0; i < CONTENT_KINDS.length; i++) {
+            if (CONTENT_KINDS[i].equals(matcher.group(1))) return i;
+        }
+        return 0;
+    }
+
+    @Override
+    public void deleteFiles() {
+        mSavedFiles = 0;
+    }
+
+    /**
+     * Returns the number of syncs of a saved file
+     */
+    private long syncsOf(int size) {
+        if (mSyncPolicy == SYNC_PER_FILE) return 1;
+        if (mSyncPolicy != SYNC_EVERY_BYTES || mSyncBytes <= 0) return 0;
+        // One sync every syncBytes, plus one for the rest
+        return (size + mSyncBytes - 1) / mSyncBytes;
+    }
+
+    @Override
+    public void fetch(String url, final Callback callback) {
+        final int size = sizeOf(url);
+        final boolean lost = mRoundTrip.nextLoss();
+        final Object download = new Object();
+        mCurrent = download;
+        mDownloadCount++;
+        final long roundTrip = mRoundTrip.nextNanos();
+        final boolean compressed = mEncoding != ENCODING_IDENTITY;
+        final int kind = contentKindOf(url);
+        final long wireSize = compressed
+                ? Math.max(1, (long) size * COMPRESSED_PER_MILLE[kind] / 1000) : size;
+        final long decompress = compressed
+                ? size * NANOS_PER_SEC / INFLATE_BYTES_PER_SEC[kind] : 0;
+        final long transfer = wireSize * NANOS_PER_SEC / mBytesPerSec;
+        final int handshake;
+        if (!url.startsWith("https:")) {
+            handshake = DownloadPhases.HANDSHAKE_NONE;
+        } else if (mSessionCacheSize > 0 && mHasSession) {
+            handshake = DownloadPhases.HANDSHAKE_RESUMED;
+        } else {
+            handshake = DownloadPhases.HANDSHAKE_FULL;
+        }
+        final long tls = handshake == DownloadPhases.HANDSHAKE_FULL ? 2 * roundTrip
+                : handshake == DownloadPhases.HANDSHAKE_RESUMED ? roundTrip : 0;
+        final boolean save = mSave;
+        final long write = save ? size * NANOS_PER_SEC / FLASH_BYTES_PER_SEC : 0;
+        final long sync = save ? syncsOf(size) * SYNC_NANOS : 0;
+        final int digest = mDigest;
+        // Digests are over the bytes as sent
+        final long hash = digest == DIGEST_NONE ? 0 : wireSize * NANOS_PER_SEC
+                / (digest == DIGEST_SHA256 ? SHA256_BYTES_PER_SEC : CRC32C_BYTES_PER_SEC);
+        final long blocked = digest == DIGEST_NONE ? 0
+                : blockedNanos(wireSize, hash, transfer);
+        mClock.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mCurrent != download) return;
+                mCurrent = null;
+                mPhases.clear();
+                mPhases.set(DownloadPhases.PHASE_CONNECT, roundTrip / 2);
+                if (lost) {
+                    callback.onComplete(size, 0, mPhases, "Simulated connection reset");
+                    return;
+                }
+                if (handshake != DownloadPhases.HANDSHAKE_NONE) {
+                    mPhases.set(DownloadPhases.PHASE_TLS, tls);
+                    mPhases.setHandshake(handshake);
+                    mHasSession = true;
+                }
+                mPhases.set(DownloadPhases.PHASE_TTFB, roundTrip - roundTrip / 2);
+                mPhases.set(DownloadPhases.PHASE_BODY,
+                        transfer + blocked + decompress + write + sync);
+                if (save) {
+                    // Compressed bodies are hashed and inflated while the writer reads them
+                    mPhases.setStorage(compressed ? transfer + blocked + decompress : transfer,
+                            write, sync);
+                    mSavedFiles++;
+                }
+                if (digest != DIGEST_NONE) {
+                    mPhases.setVerify(DownloadPhases.VERIFY_OK, hash, blocked);
+                }
+                if (compressed) {
+                    mPhases.setCompression(wireSize, size, decompress, decompress);
+                }
+                mBytesRead += size;
+                callback.onComplete(size, size, mPhases, null);
+            }
+        }, roundTrip + tls + transfer + blocked + decompress + write + sync);
+    }
+
+    @Override
+    public void cancel() {
+        mCurrent = null;
+    }
+
+    public int getDownloadCount() {
+        return mDownloadCount;
+    }
+
+    public long getBytesRead() {
+        return mBytesRead;
+    }
+
+    /**
+     * Returns the number of saved files which haven't been deleted
+     */
+    public int getSavedFiles() {
+        return mSavedFiles;
+    }
+}
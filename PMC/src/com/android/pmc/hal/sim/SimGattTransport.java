@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.sim;
+
+import com.android.pmc.hal.GattTransport;
+
+import java.util.UUID;
+
+/**
+ * Simulated GATT connection to the PMC GATT server.
+ *
+ * Every procedure completes on a connection event, so its latency is a number of
+ * connection intervals of the current connection priority plus the air time of the
+ * packets on the current PHY. The link model adds jitter and lost operations on top.
+ */
+public class SimGattTransport implements GattTransport {
+    private static final long NANOS_PER_SEC = 1000000000L;
+    // Connection interval in 1.25 ms units for BALANCED, HIGH and LOW_POWER priority
+    private static final int[] CONN_INTERVALS = {24, 6, 80};
+    private static final int[] CONN_LATENCIES = {0, 0, 2};
+    private static final int CONN_INTERVAL_UNIT_MICROS = 1250;
+    // Supervision timeout in 10 ms units
+    private static final int CONN_TIMEOUT = 500;
+    private static final int DEFAULT_MTU = 23;
+    private static final int MAX_MTU = 517;
+    // LL header, MIC and CRC plus L2CAP and ATT write request headers
+    private static final int PACKET_OVERHEAD_BYTES = 17;
+    private static final int CONNECT_EVENTS = 3;
+    private static final int DISCOVERY_EVENTS = 6;
+
+    private final SimClock mClock;
+    private final LatencyModel mLink;
+    private final LatencyModel mConnect;
+    private Callback mCallback;
+    private boolean mConnected;
+    private boolean mServicesDiscovered;
+    private boolean mCharacteristicFound;
+    private int mPriority;
+    private int mTxPhy;
+    private int mRxPhy;
+    private int mMtu;
+    private int mConnectCount;
+    private int mWriteCount;
+    private long mBytesWritten;
+
+    /**
+     * Constructor
+     *
+     * @param clock - virtual time of the simulation
+     * @param connect - model of the time to establish a connection
+     * @param link - jitter added to every procedure and rate of lost procedures
+     */
+    public SimGattTransport(SimClock clock, LatencyModel connect, LatencyModel link) {
+        mClock = clock;
+        mConnect = connect;
+        mLink = link;
+    }
+
+    @Override
+    public boolean connect(String address, boolean autoConnect, Callback callback) {
+        if (mCallback != null) return false;
+        mCallback = callback;
+        mConnectCount++;
+        mPriority = CONNECTION_PRIORITY_BALANCED;
+        mTxPhy = PHY_LE_1M;
+        mRxPhy = PHY_LE_1M;
+        mMtu = DEFAULT_MTU;
+        final boolean lost = mConnect.nextLoss();
+        deliver(mConnect.nextNanos() + CONNECT_EVENTS * intervalNanos(), new Runnable() {
+            @Override
+            public void run() {
+                mConnected = !lost;
+                mCallback.onConnectionStateChange(lost ? GATT_FAILURE : GATT_SUCCESS,
+                        mConnected);
+                if (mConnected) reportConnectionParams();
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean discoverServices() {
+        if (!mConnected) return false;
+        deliver(DISCOVERY_EVENTS * intervalNanos() + mLink.nextNanos(), new Runnable() {
+            @Override
+            public void run() {
+                mServicesDiscovered = true;
+                mCallback.onServicesDiscovered(GATT_SUCCESS);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean findCharacteristic(UUID service, UUID characteristic) {
+        // The simulated server has every service the client looks for
+        mCharacteristicFound = mServicesDiscovered;
+        return mCharacteristicFound;
+    }
+
+    @Override
+    public boolean writeCharacteristic(byte[] value) {
+        if (!mConnected || !mCharacteristicFound) return false;
+        final int length = Math.min(value.length, mMtu - 3);
+        final boolean lost = mLink.nextLoss();
+        // Write request on one connection event, write response on the next one
+        long nanos = intervalNanos() + airTimeNanos(length + PACKET_OVERHEAD_BYTES, mTxPhy)
+                + airTimeNanos(PACKET_OVERHEAD_BYTES, mRxPhy) + mLink.nextNanos();
+        deliver(nanos, new Runnable() {
+            @Override
+            public void run() {
+                mWriteCount++;
+                if (!lost) mBytesWritten += length;
+                mCallback.onCharacteristicWrite(lost ? GATT_FAILURE : GATT_SUCCESS);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean requestMtu(final int mtu) {
+        if (!mConnected) return false;
+        deliver(2 * intervalNanos() + mLink.nextNanos(), new Runnable() {
+            @Override
+            public void run() {
+                mMtu = Math.max(DEFAULT_MTU, Math.min(MAX_MTU, mtu));
+                mCallback.onMtuChanged(mMtu, GATT_SUCCESS);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean requestConnectionPriority(final int priority) {
+        if (!mConnected || priority < 0 || priority >= CONN_INTERVALS.length) return false;
+        deliver(intervalNanos() + mLink.nextNanos(), new Runnable() {
+            @Override
+            public void run() {
+                mPriority = priority;
+                reportConnectionParams();
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public void setPreferredPhy(final int txPhyMask, final int rxPhyMask) {
+        if (!mConnected) return;
+        deliver(intervalNanos() + mLink.nextNanos(), new Runnable() {
+            @Override
+            public void run() {
+                mTxPhy = maskToPhy(txPhyMask);
+                mRxPhy = maskToPhy(rxPhyMask);
+            }
+        });
+    }
+
+    @Override
+    public void readPhy() {
+        if (!mConnected) return;
+        deliver(intervalNanos(), new Runnable() {
+            @Override
+            public void run() {
+                mCallback.onPhyRead(mTxPhy, mRxPhy, GATT_SUCCESS);
+            }
+        });
+    }
+
+    @Override
+    public void disconnect() {
+        if (!mConnected) return;
+        mConnected = false;
+        deliver(intervalNanos(), new Runnable() {
+            @Override
+            public void run() {
+                mCallback.onConnectionStateChange(GATT_SUCCESS, false);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        mCallback = null;
+        mConnected = false;
+        mServicesDiscovered = false;
+        mCharacteristicFound = false;
+    }
+
+    private void deliver(long delayNanos, final Runnable event) {
+        final Callback callback = mCallback;
+        final int connection = mConnectCount;
+        mClock.post(new Runnable() {
+            @Override
+            public void run() {
+                // Drop events of a connection that is closed in the meantime, even if
+                // a new one is opened with the same callback
+                if (mCallback == callback && callback != null
+                        && mConnectCount == connection) {
+                    event.run();
+                }
+            }
+        }, delayNanos);
+    }
+
+    private void reportConnectionParams() {
+        mCallback.onConnectionUpdated(CONN_INTERVALS[mPriority], CONN_LATENCIES[mPriority],
+                CONN_TIMEOUT, GATT_SUCCESS);
+    }
+
+    private long intervalNanos() {
+        return CONN_INTERVALS[mPriority] * CONN_INTERVAL_UNIT_MICROS * 1000L;
+    }
+
+    private static long airTimeNanos(int bytes, int phy) {
+        long bitsPerSec;
+        switch (phy) {
+            case PHY_LE_2M:
+                bitsPerSec = 2000000;
+                break;
+            case PHY_LE_CODED:
+                bitsPerSec = 125000;
+                break;
+            default:
+                bitsPerSec = 1000000;
+        }
+        return bytes * 8L * NANOS_PER_SEC / bitsPerSec;
+    }
+
+    private static int maskToPhy(int mask) {
+        if ((mask & PHY_LE_2M_MASK) != 0) return PHY_LE_2M;
+        if ((mask & PHY_LE_CODED_MASK) != 0) return PHY_LE_CODED;
+        return PHY_LE_1M;
+    }
+
+    public int getConnectCount() {
+        return mConnectCount;
+    }
+
+    public int getWriteCount() {
+        return mWriteCount;
+    }
+
+    public long getBytesWritten() {
+        return mBytesWritten;
+    }
+}
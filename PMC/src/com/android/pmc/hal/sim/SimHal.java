@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.sim;
+
+import com.android.pmc.hal.AlarmScheduler;
+import com.android.pmc.hal.BleScanHal;
+import com.android.pmc.hal.Clock;
+import com.android.pmc.hal.DownloadTransport;
+import com.android.pmc.hal.GattTransport;
+import com.android.pmc.hal.KeepaliveTransport;
+import com.android.pmc.hal.MediaPlayerHal;
+import com.android.pmc.hal.PmcHal;
+import com.android.pmc.hal.PowerHal;
+import com.android.pmc.hal.UploadTransport;
+import com.android.pmc.hal.WifiScanHal;
+
+/**
+ * Simulated devices sharing one virtual clock, to run PMC workloads on a Linux JVM.
+ *
+ * Latencies default to typical values of a device in a quiet lab. Every model gets
+ * its own seed derived from the seed of the simulation, so a run is reproducible.
+ */
+public class SimHal implements PmcHal {
+    public static final String ADVERTISER_ADDRESS = "00:1A:7D:DA:71:13";
+    public static final String ADVERTISER_NAME = "PMC";
+
+    private final SimClock mClock;
+    private final SimPowerHal mPowerHal;
+    private final SimWifiScanHal mWifiScanHal;
+    private final SimBleScanHal mBleScanHal;
+    private final SimGattTransport mGattTransport;
+    private final SimMediaPlayerHal mMediaPlayerHal;
+    private final SimDownloadTransport mDownloadTransport;
+    private final SimUploadTransport mUploadTransport;
+    private final SimKeepaliveTransport mKeepaliveTransport;
+
+    /**
+     * Constructor
+     *
+     * @param seed - seed of all latency models
+     * @param lossRate - probability that a scan, connection, write, download, upload or
+     *                   heartbeat fails
+     */
+    public SimHal(long seed, double lossRate) {
+        mClock = new SimClock();
+        mPowerHal = new SimPowerHal(mClock);
+        // Scans take 2 to 4 seconds with results from 20 access points
+        mWifiScanHal = new SimWifiScanHal(mClock,
+                new LatencyModel(2000000, 2000000, lossRate, seed + 1), 20);
+        // Advertising interval of 100 ms plus the 0 to 10 ms advDelay of the spec
+        mBleScanHal = new SimBleScanHal(mClock, new LatencyModel(100000, 10000, 0, seed + 2),
+                new String[] {ADVERTISER_ADDRESS}, new String[] {ADVERTISER_NAME});
+        mGattTransport = new SimGattTransport(mClock,
+                new LatencyModel(20000, 80000, lossRate, seed + 3),
+                new LatencyModel(0, 1000, lossRate, seed + 4));
+        mMediaPlayerHal = new SimMediaPlayerHal(mClock);
+        // 20 ms round trip and 20 Mbit/s link
+        mDownloadTransport = new SimDownloadTransport(mClock,
+                new LatencyModel(20000, 10000, lossRate, seed + 5), 2500000);
+        // Same round trip and a 5 Mbit/s uplink
+        mUploadTransport = new SimUploadTransport(mClock,
+                new LatencyModel(20000, 10000, lossRate, seed + 6), 625000);
+        // Heartbeats are small enough to take a single round trip
+        mKeepaliveTransport = new SimKeepaliveTransport(mClock,
+                new LatencyModel(20000, 10000, lossRate, seed + 7));
+    }
+
+    @Override
+    public Clock getClock() {
+        return mClock;
+    }
+
+    @Override
+    public AlarmScheduler getAlarmScheduler() {
+        return mClock;
+    }
+
+    @Override
+    public PowerHal getPowerHal() {
+        return mPowerHal;
+    }
+
+    @Override
+    public WifiScanHal getWifiScanHal() {
+        return mWifiScanHal;
+    }
+
+    @Override
+    public BleScanHal getBleScanHal() {
+        return mBleScanHal;
+    }
+
+    @Override
+    public GattTransport getGattTransport() {
+        return mGattTransport;
+    }
+
+    @Override
+    public MediaPlayerHal getMediaPlayerHal() {
+        return mMediaPlayerHal;
+    }
+
+    @Override
+    public DownloadTransport getDownloadTransport() {
+        return mDownloadTransport;
+    }
+
+    @Override
+    public UploadTransport getUploadTransport() {
+        return mUploadTransport;
+    }
+
+    @Override
+    public KeepaliveTransport getKeepaliveTransport() {
+        return mKeepaliveTransport;
+    }
+
+    public SimClock getSimClock() {
+        return mClock;
+    }
+
+    public SimPowerHal getSimPowerHal() {
+        return mPowerHal;
+    }
+
+    public SimWifiScanHal getSimWifiScanHal() {
+        return mWifiScanHal;
+    }
+
+    public SimBleScanHal getSimBleScanHal() {
+        return mBleScanHal;
+    }
+
+    public SimGattTransport getSimGattTransport() {
+        return mGattTransport;
+    }
+
+    public SimMediaPlayerHal getSimMediaPlayerHal() {
+        return mMediaPlayerHal;
+    }
+
+    public SimDownloadTransport getSimDownloadTransport() {
+        return mDownloadTransport;
+    }
+
+    public SimUploadTransport getSimUploadTransport() {
+        return mUploadTransport;
+    }
+
+    public SimKeepaliveTransport getSimKeepaliveTransport() {
+        return mKeepaliveTransport;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.sim;
+
+import com.android.pmc.hal.KeepaliveTransport;
+
+/**
+ * Simulated idle connections with heartbeats.
+ *
+ * Connecting and every heartbeat take one round trip drawn from the model. A lost
+ * heartbeat resets its connection, the next heartbeat on it pays for the reconnect.
+ * Every connect and every answer is one wakeup of the network thread.
+ */
+public class SimKeepaliveTransport implements KeepaliveTransport {
+    private final SimClock mClock;
+    private final LatencyModel mRoundTrip;
+    // Replaced by every open() and close(), events of an older session are dropped
+    private Object mSession;
+    private Callback mCallback;
+    private boolean[] mConnected;
+    // Pending heartbeat of every connection, null if there is none
+    private Object[] mHeartbeats;
+    private int mWakeups;
+    private int mConnects;
+    private int mHeartbeatCount;
+
+    /**
+     * Constructor
+     *
+     * @param clock - virtual time of the simulation
+     * @param roundTrip - model of the round trip time and of lost heartbeats
+     */
+    public SimKeepaliveTransport(SimClock clock, LatencyModel roundTrip) {
+        mClock = clock;
+        mRoundTrip = roundTrip;
+    }
+
+    @Override
+    public void open(String host, int port, int connections, String path, Callback callback) {
+        final Object session = new Object();
+        mSession = session;
+        mCallback = callback;
+        mConnected = new boolean[connections];
+        mHeartbeats = new Object[connections];
+        for (int i = 0; i < connections; i++) {
+            final int index = i;
+            mConnects++;
+            mClock.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (mSession != session) return;
+                    mWakeups++;
+                    mConnected[index] = true;
+                }
+            }, mRoundTrip.nextNanos());
+        }
+    }
+
+    @Override
+    public void heartbeat(final int connection) {
+        if (mSession == null || connection >= mConnected.length) return;
+        long nanos = mRoundTrip.nextNanos();
+        // An unanswered heartbeat means a dead connection, like a lost one
+        if (!mConnected[connection] || mHeartbeats[connection] != null) {
+            mConnects++;
+            nanos += mRoundTrip.nextNanos();
+            mConnected[connection] = true;
+        }
+        final boolean lost = mRoundTrip.nextLoss();
+        final Object session = mSession;
+        final Object heartbeat = new Object();
+        final long rttNanos = nanos;
+        mHeartbeats[connection] = heartbeat;
+        mClock.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mSession != session || mHeartbeats[connection] != heartbeat) return;
+                mHeartbeats[connection] = null;
+                mWakeups++;
+                if (lost) {
+                    mConnected[connection] = false;
+                    mCallback.onHeartbeat(connection, rttNanos, "Simulated connection reset");
+                    return;
+                }
+                mHeartbeatCount++;
+                mCallback.onHeartbeat(connection, rttNanos, null);
+            }
+        }, nanos);
+    }
+
+    @Override
+    public void close() {
+        mSession = null;
+        mCallback = null;
+    }
+
+    @Override
+    public int getWakeupCount() {
+        return mWakeups;
+    }
+
+    @Override
+    public int getConnectCount() {
+        return mConnects;
+    }
+
+    public int getHeartbeatCount() {
+        return mHeartbeatCount;
+    }
+}
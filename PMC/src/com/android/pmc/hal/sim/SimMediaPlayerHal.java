@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.sim;
+
+import com.android.pmc.hal.MediaPlayerHal;
+
+/**
+ * Simulated media player, accounts the time spent playing in virtual time
+ */
+public class SimMediaPlayerHal implements MediaPlayerHal {
+    private final SimClock mClock;
+    private boolean mPlaying;
+    private long mStartMillis;
+    private long mPlayedMillis;
+    private float mVolume;
+
+    public SimMediaPlayerHal(SimClock clock) {
+        mClock = clock;
+    }
+
+    @Override
+    public boolean start(String url, float volume, boolean looping) {
+        if (url == null || url.isEmpty()) return false;
+        mVolume = volume;
+        if (!mPlaying) {
+            mPlaying = true;
+            mStartMillis = mClock.elapsedRealtime();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isPlaying() {
+        return mPlaying;
+    }
+
+    @Override
+    public void stop() {
+        if (!mPlaying) return;
+        mPlaying = false;
+        mPlayedMillis += mClock.elapsedRealtime() - mStartMillis;
+    }
+
+    public float getVolume() {
+        return mVolume;
+    }
+
+    /**
+     * Returns total time spent playing in milliseconds
+     */
+    public long getPlayedMillis() {
+        long millis = mPlayedMillis;
+        if (mPlaying) millis += mClock.elapsedRealtime() - mStartMillis;
+        return millis;
+    }
+}
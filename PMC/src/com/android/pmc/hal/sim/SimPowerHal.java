@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.sim;
+
+import com.android.pmc.hal.PowerHal;
+import com.android.pmc.hal.WakeLock;
+
+/**
+ * Simulated wakelocks, accounts how long the CPU is kept awake in virtual time
+ */
+public class SimPowerHal implements PowerHal {
+    private final SimClock mClock;
+    private int mAcquireCount;
+    private int mHeldCount;
+    private long mHeldSinceNanos;
+    private long mHeldNanos;
+
+    public SimPowerHal(SimClock clock) {
+        mClock = clock;
+    }
+
+    @Override
+    public WakeLock newWakeLock(String tag) {
+        return new SimWakeLock();
+    }
+
+    private class SimWakeLock implements WakeLock {
+        // Reference counted like PowerManager.WakeLock
+        private int mCount;
+
+        @Override
+        public void acquire() {
+            if (mCount++ == 0) lockAcquired();
+        }
+
+        @Override
+        public void release() {
+            if (mCount == 0) throw new RuntimeException("WakeLock under-locked");
+            if (--mCount == 0) lockReleased();
+        }
+
+        @Override
+        public boolean isHeld() {
+            return mCount > 0;
+        }
+    }
+
+    private void lockAcquired() {
+        mAcquireCount++;
+        if (mHeldCount++ == 0) mHeldSinceNanos = mClock.elapsedRealtimeNanos();
+    }
+
+    private void lockReleased() {
+        if (--mHeldCount == 0) mHeldNanos += mClock.elapsedRealtimeNanos() - mHeldSinceNanos;
+    }
+
+    public int getAcquireCount() {
+        return mAcquireCount;
+    }
+
+    /**
+     * Returns number of wakelocks held right now
+     */
+    public int getHeldCount() {
+        return mHeldCount;
+    }
+
+    /**
+     * Returns total time at least one wakelock was held in milliseconds
+     */
+    public long getHeldMillis() {
+        long nanos = mHeldNanos;
+        if (mHeldCount > 0) nanos += mClock.elapsedRealtimeNanos() - mHeldSinceNanos;
+        return nanos / 1000000L;
+    }
+}
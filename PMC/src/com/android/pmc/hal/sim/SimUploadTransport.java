@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.sim;
+
+import com.android.pmc.hal.UploadTransport;
+
+/**
+ * Simulated HTTP uploads over a link with a fixed uplink bandwidth.
+ *
+ * An upload takes one round trip drawn from the model plus the transfer time of the
+ * body at the link bandwidth.
+ */
+public class SimUploadTransport implements UploadTransport {
+    private static final long NANOS_PER_SEC = 1000000000L;
+
+    private final SimClock mClock;
+    private final LatencyModel mRoundTrip;
+    private final long mBytesPerSec;
+    private Object mCurrent;
+    private int mUploadCount;
+    private long mBytesSent;
+
+    /**
+     * Constructor
+     *
+     * @param clock - virtual time of the simulation
+     * @param roundTrip - model of the request round trip time and of failed uploads
+     * @param bytesPerSec - uplink bandwidth of the link
+     */
+    public SimUploadTransport(SimClock clock, LatencyModel roundTrip, long bytesPerSec) {
+        mClock = clock;
+        mRoundTrip = roundTrip;
+        mBytesPerSec = bytesPerSec;
+    }
+
+    @Override
+    public void send(String url, String method, final long size, int mode,
+            final Callback callback) {
+        final boolean lost = mRoundTrip.nextLoss();
+        final Object upload = new Object();
+        mCurrent = upload;
+        mUploadCount++;
+        long nanos = mRoundTrip.nextNanos() + size * NANOS_PER_SEC / mBytesPerSec;
+        mClock.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mCurrent != upload) return;
+                mCurrent = null;
+                if (lost) {
+                    callback.onComplete(0, "Simulated connection reset");
+                    return;
+                }
+                mBytesSent += size;
+                callback.onComplete(size, null);
+            }
+        }, nanos);
+    }
+
+    @Override
+    public void cancel() {
+        mCurrent = null;
+    }
+
+    public int getUploadCount() {
+        return mUploadCount;
+    }
+
+    public long getBytesSent() {
+        return mBytesSent;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.pmc.hal.sim;
+
+import com.android.pmc.hal.WifiScanHal;
+
+/**
+ * Simulated Wi-Fi scanner. Every scan completes after a latency drawn from the model,
+ * a lost scan is reported as a failure.
+ */
+public class SimWifiScanHal implements WifiScanHal {
+    private static final int REASON_LOST = -1;
+
+    private final SimClock mClock;
+    private final LatencyModel mLatency;
+    private final int mNumResults;
+    private ScanListener mListener;
+    private int mScanCount;
+
+    /**
+     * Constructor
+     *
+     * @param clock - virtual time of the simulation
+     * @param latency - model of the time one scan takes
+     * @param numResults - number of access points found by every scan
+     */
+    public SimWifiScanHal(SimClock clock, LatencyModel latency, int numResults) {
+        mClock = clock;
+        mLatency = latency;
+        mNumResults = numResults;
+    }
+
+    @Override
+    public boolean startBackgroundScan(int band, int[] channelsMhz, ScanListener listener) {
+        return startScan(listener);
+    }
+
+    @Override
+    public void stopBackgroundScan(ScanListener listener) {
+        stopScan(listener);
+    }
+
+    @Override
+    public boolean startConnectivityScan(ScanListener listener) {
+        return startScan(listener);
+    }
+
+    @Override
+    public void stopConnectivityScan(ScanListener listener) {
+        stopScan(listener);
+    }
+
+    private boolean startScan(final ScanListener listener) {
+        if (mListener != null) return false;
+        mListener = listener;
+        mScanCount++;
+        final boolean lost = mLatency.nextLoss();
+        mClock.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mListener != listener) return;
+                if (lost) {
+                    listener.onFailure(REASON_LOST, "Simulated scan failure");
+                } else {
+                    listener.onResults(mNumResults);
+                }
+            }
+        }, mLatency.nextNanos());
+        return true;
+    }
+
+    private void stopScan(ScanListener listener) {
+        if (mListener == listener) mListener = null;
+    }
+
+    public int getScanCount() {
+        return mScanCount;
+    }
+}
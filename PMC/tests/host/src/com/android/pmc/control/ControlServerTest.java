@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.android.pmc.control;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Round trips between ControlClient and ControlServer over loopback
+ */
+public class ControlServerTest {
+    private static final String ACTION_ECHO = "com.android.pmc.test.ECHO";
+    private static final String ACTION_STREAM = "com.android.pmc.test.STREAM";
+    private static final String ACTION_NO_RESULT = "com.android.pmc.test.NO_RESULT";
+
+    private ControlServer mServer;
+    private ControlClient mClient;
+    // Answers commands off the selector thread like PMCMainActivity does
+    private ExecutorService mExecutor;
+    private final List<String> mEvents = new ArrayList<>();
+
+    /**
+     * Fake dispatcher: echoes the "Value" extra, streams one "Status" event before
+     * answering ACTION_STREAM and fails every other action
+     */
+    private class FakeDispatcher implements ControlServer.Dispatcher {
+        @Override
+        public void dispatch(final String action, final Map<String, String> extras,
+                final ControlServer.Responder responder) {
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (ACTION_ECHO.equals(action)) {
+                        responder.respond(extras.get("Value"));
+                    } else if (ACTION_STREAM.equals(action)) {
+                        JSONObject data = new JSONObject();
+                        try {
+                            data.put("Progress", extras.get("Progress"));
+                        } catch (JSONException e) {
+                            responder.fail(e.toString());
+                            return;
+                        }
+                        // Queued before the response, so it reaches the client first
+                        mServer.sendEvent("Status", data);
+                        responder.respond("streamed");
+                    } else if (ACTION_NO_RESULT.equals(action)) {
+                        responder.respond(null);
+                    } else {
+                        responder.fail("Unknown action " + action);
+                    }
+                }
+            });
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        mExecutor = Executors.newSingleThreadExecutor();
+        mServer = new ControlServer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), new FakeDispatcher());
+        mServer.start();
+        mClient = new ControlClient(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), mServer.getPort()));
+        mClient.setEventListener(new ControlClient.EventListener() {
+            @Override
+            public void onEvent(String name, JSONObject data) {
+                mEvents.add(name + ":" + data.optString("Progress"));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mClient.close();
+        mServer.stop();
+        mExecutor.shutdownNow();
+    }
+
+    private static Map<String, String> extras(String key, String value) {
+        Map<String, String> extras = new HashMap<>();
+        extras.put(key, value);
+        return extras;
+    }
+
+    @Test
+    public void requestAndResponse() throws Exception {
+        assertEquals("hello", mClient.call(ACTION_ECHO, extras("Value", "hello")));
+        // The connection stays usable for the next command
+        assertEquals("again", mClient.call(ACTION_ECHO, extras("Value", "again")));
+        assertNull(mClient.call(ACTION_NO_RESULT, null));
+    }
+
+    @Test
+    public void eventStreamedBeforeResponse() throws Exception {
+        assertEquals("streamed", mClient.call(ACTION_STREAM, extras("Progress", "50")));
+        assertEquals(1, mEvents.size());
+        assertEquals("Status:50", mEvents.get(0));
+    }
+
+    @Test
+    public void errorResponse() throws Exception {
+        try {
+            mClient.call("com.android.pmc.test.UNKNOWN", null);
+            fail("Error response not thrown");
+        } catch (IOException e) {
+            assertEquals("Unknown action com.android.pmc.test.UNKNOWN", e.getMessage());
+        }
+        assertEquals("ok", mClient.call(ACTION_ECHO, extras("Value", "ok")));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.android.pmc.control;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Tests of splitting received bytes into ControlFrames
+ */
+public class FrameDecoderTest {
+    private static final int MAX_FRAME_SIZE =
+            ControlFrame.LENGTH_SIZE + ControlFrame.HEADER_SIZE + ControlFrame.MAX_BODY_SIZE;
+
+    private static ByteBuffer encode(byte type, int id, String body) {
+        return new ControlFrame(type, id, body).encode();
+    }
+
+    /**
+     * Returns the bytes of a frame header with the given length field
+     */
+    private static ByteBuffer header(int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(ControlFrame.LENGTH_SIZE + 1);
+        buffer.putInt(length);
+        buffer.put(ControlFrame.TYPE_REQUEST);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void assertFrame(ControlFrame frame, byte type, int id, String body) {
+        assertEquals(type, frame.getType());
+        assertEquals(id, frame.getId());
+        assertEquals(body, frame.getBody());
+    }
+
+    @Test
+    public void frameSplitAcrossReads() throws Exception {
+        FrameDecoder decoder = new FrameDecoder();
+        ByteBuffer frame = encode(ControlFrame.TYPE_REQUEST, 7, "{\"Action\":\"Test\"}");
+        while (frame.remaining() > 1) {
+            ByteBuffer oneByte = frame.duplicate();
+            oneByte.limit(oneByte.position() + 1);
+            decoder.feed(oneByte);
+            frame.position(frame.position() + 1);
+            assertNull(decoder.poll());
+        }
+        decoder.feed(frame);
+        assertFrame(decoder.poll(), ControlFrame.TYPE_REQUEST, 7, "{\"Action\":\"Test\"}");
+        assertNull(decoder.poll());
+    }
+
+    @Test
+    public void severalFramesInOneRead() throws Exception {
+        ByteBuffer first = encode(ControlFrame.TYPE_RESPONSE, 1, "{\"Result\":\"a\"}");
+        ByteBuffer second = encode(ControlFrame.TYPE_EVENT, 0, "{\"Event\":\"Status\"}");
+        ByteBuffer third = encode(ControlFrame.TYPE_ERROR, 2, "{\"Error\":\"b\"}");
+        ByteBuffer all = ByteBuffer.allocate(
+                first.remaining() + second.remaining() + third.remaining());
+        all.put(first).put(second).put(third);
+        all.flip();
+
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.feed(all);
+        assertFrame(decoder.poll(), ControlFrame.TYPE_RESPONSE, 1, "{\"Result\":\"a\"}");
+        assertFrame(decoder.poll(), ControlFrame.TYPE_EVENT, 0, "{\"Event\":\"Status\"}");
+        assertFrame(decoder.poll(), ControlFrame.TYPE_ERROR, 2, "{\"Error\":\"b\"}");
+        assertNull(decoder.poll());
+    }
+
+    @Test
+    public void frameLargerThanInitialBuffer() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            body.append((char) ('a' + i % 26));
+        }
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.feed(encode(ControlFrame.TYPE_RESPONSE, 3, body.toString()));
+        assertFrame(decoder.poll(), ControlFrame.TYPE_RESPONSE, 3, body.toString());
+    }
+
+    @Test
+    public void readFromChannel() throws Exception {
+        ByteBuffer frame = encode(ControlFrame.TYPE_REQUEST, 5, "{}");
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(bytes));
+
+        FrameDecoder decoder = new FrameDecoder();
+        assertEquals(bytes.length, decoder.readFrom(channel));
+        assertFrame(decoder.poll(), ControlFrame.TYPE_REQUEST, 5, "{}");
+        assertEquals(-1, decoder.readFrom(channel));
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void zeroLength() throws Exception {
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.feed(header(0));
+        decoder.poll();
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void lengthShorterThanHeader() throws Exception {
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.feed(header(ControlFrame.HEADER_SIZE - 1));
+        decoder.poll();
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void oversizedLength() throws Exception {
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.feed(header(ControlFrame.HEADER_SIZE + ControlFrame.MAX_BODY_SIZE + 1));
+        decoder.poll();
+    }
+
+    @Test
+    public void truncatedLength() throws Exception {
+        FrameDecoder decoder = new FrameDecoder();
+        ByteBuffer frame = encode(ControlFrame.TYPE_REQUEST, 1, "{}");
+        frame.limit(ControlFrame.LENGTH_SIZE - 1);
+        decoder.feed(frame);
+        assertNull(decoder.poll());
+    }
+
+    @Test
+    public void truncatedBody() throws Exception {
+        FrameDecoder decoder = new FrameDecoder();
+        ByteBuffer frame = encode(ControlFrame.TYPE_REQUEST, 1, "{\"Action\":\"Test\"}");
+        int size = frame.remaining();
+        frame.limit(size - 1);
+        decoder.feed(frame);
+        assertNull(decoder.poll());
+        // Nothing is lost when the rest arrives later
+        frame.limit(size);
+        decoder.feed(frame);
+        assertFrame(decoder.poll(), ControlFrame.TYPE_REQUEST, 1, "{\"Action\":\"Test\"}");
+    }
+
+    @Test(expected = ProtocolException.class)
+    public void bytesBeyondLargestFrame() throws Exception {
+        // Garbage which is never polled must not grow the buffer forever
+        FrameDecoder decoder = new FrameDecoder();
+        decoder.feed(ByteBuffer.allocate(MAX_FRAME_SIZE + 1));
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tests.connectivity.uid;
+
+import android.app.DownloadManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.database.Cursor;
+import android.net.TrafficStats;
+import android.net.Uri;
+import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.MimeTypeMap;
+import android.webkit.URLUtil;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Bulk DownloadManager workload.
+ *
+ * Every URL is enqueued at once and followed until it completes. Completions come from
+ * ACTION_DOWNLOAD_COMPLETE, and the progress of all downloads is read with one query
+ * filtered by all ids, once a second and at the end. Throughput is computed from the
+ * enqueue and completion times seen by this app.
+ *
+ * The download provider moves the bytes on behalf of the app, so TrafficStats of both
+ * the provider's UID and our own UID are sampled before and after the workload.
+ *
+ * All methods run on the main thread.
+ */
+class BulkDownload {
+    public static final String TAG = ConnectivityTestActivity.TAG;
+    public static final String DOWNLOAD_PROVIDER_PACKAGE = "com.android.providers.downloads";
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final int UNKNOWN = -1;
+
+    /**
+     * Called once when all downloads completed or the workload timed out
+     */
+    interface Listener {
+        void onFinished(JSONObject results);
+    }
+
+    private final Context mContext;
+    private final DownloadManager mDownloadManager;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Listener mListener;
+    private final long mTimeoutMs;
+    // Downloads by id, in the order they were enqueued
+    private final LinkedHashMap<Long, Entry> mEntries = new LinkedHashMap<Long, Entry>();
+    private long[] mIds;
+    private int mRemaining;
+    private boolean mFinished;
+    private long mStartNanos;
+    private long mEndNanos;
+    private final TrafficSample mProviderTraffic = new TrafficSample();
+    private final TrafficSample mOwnTraffic = new TrafficSample();
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            onComplete(intent.getLongExtra(DownloadManager.EXTRA_DOWNLOAD_ID, UNKNOWN));
+        }
+    };
+
+    private final Runnable mProgress = new Runnable() {
+        @Override
+        public void run() {
+            queryAll();
+            mHandler.postDelayed(this, PROGRESS_INTERVAL_MS);
+        }
+    };
+
+    private final Runnable mTimeout = new Runnable() {
+        @Override
+        public void run() {
+            Log.e(TAG, mRemaining + " downloads did not complete in " + mTimeoutMs + " ms");
+            finish();
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param context - context to register the completion receiver with
+     * @param downloadManager - DownloadManager to enqueue the downloads to
+     * @param timeoutMs - time after which the workload is finished without waiting for
+     *                    the remaining downloads
+     * @param listener - receives the results
+     */
+    BulkDownload(Context context, DownloadManager downloadManager, long timeoutMs,
+            Listener listener) {
+        mContext = context;
+        mDownloadManager = downloadManager;
+        mTimeoutMs = timeoutMs;
+        mListener = listener;
+    }
+
+    /**
+     * Enqueue every URL
+     *
+     * @param urls - URLs to download, the same URL may be listed several times
+     */
+    void start(List<String> urls) {
+        mContext.registerReceiver(mReceiver,
+                new IntentFilter(DownloadManager.ACTION_DOWNLOAD_COMPLETE));
+        mProviderTraffic.start(getProviderUid());
+        mOwnTraffic.start(Process.myUid());
+        mStartNanos = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < urls.size(); i++) {
+            String url = urls.get(i);
+            DownloadManager.Request request = new DownloadManager.Request(Uri.parse(url));
+            request.setNotificationVisibility(DownloadManager.Request.VISIBILITY_HIDDEN);
+            // Copies of one URL must not overwrite each other
+            String name = i + "-" + URLUtil.guessFileName(
+                    url, null, MimeTypeMap.getFileExtensionFromUrl(url));
+            request.setDestinationInExternalFilesDir(
+                    mContext, Environment.DIRECTORY_DOWNLOADS, name);
+            Entry entry = new Entry(url, SystemClock.elapsedRealtimeNanos());
+            entry.id = mDownloadManager.enqueue(request);
+            mEntries.put(entry.id, entry);
+        }
+        mIds = new long[mEntries.size()];
+        int i = 0;
+        for (long id : mEntries.keySet()) {
+            mIds[i++] = id;
+        }
+        mRemaining = mEntries.size();
+        Log.d(TAG, "Enqueued " + mRemaining + " downloads");
+        if (mRemaining == 0) {
+            finish();
+            return;
+        }
+        mHandler.postDelayed(mProgress, PROGRESS_INTERVAL_MS);
+        mHandler.postDelayed(mTimeout, mTimeoutMs);
+    }
+
+    private void onComplete(long id) {
+        Entry entry = mEntries.get(id);
+        if (mFinished || entry == null || entry.completeNanos != UNKNOWN) return;
+        entry.completeNanos = SystemClock.elapsedRealtimeNanos();
+        if (--mRemaining == 0) finish();
+    }
+
+    /**
+     * Read status and bytes of all downloads with a single query
+     */
+    private void queryAll() {
+        Cursor cursor = mDownloadManager.query(new DownloadManager.Query().setFilterById(mIds));
+        if (cursor == null) return;
+        try {
+            int idColumn = cursor.getColumnIndexOrThrow(DownloadManager.COLUMN_ID);
+            int statusColumn = cursor.getColumnIndexOrThrow(DownloadManager.COLUMN_STATUS);
+            int reasonColumn = cursor.getColumnIndexOrThrow(DownloadManager.COLUMN_REASON);
+            int bytesColumn =
+                    cursor.getColumnIndexOrThrow(DownloadManager.COLUMN_BYTES_DOWNLOADED_SO_FAR);
+            int totalColumn = cursor.getColumnIndexOrThrow(DownloadManager.COLUMN_TOTAL_SIZE_BYTES);
+            while (cursor.moveToNext()) {
+                Entry entry = mEntries.get(cursor.getLong(idColumn));
+                if (entry == null) continue;
+                entry.status = cursor.getInt(statusColumn);
+                entry.reason = cursor.getInt(reasonColumn);
+                entry.bytes = cursor.getLong(bytesColumn);
+                entry.totalBytes = cursor.getLong(totalColumn);
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void finish() {
+        if (mFinished) return;
+        mFinished = true;
+        mEndNanos = SystemClock.elapsedRealtimeNanos();
+        mHandler.removeCallbacks(mProgress);
+        mHandler.removeCallbacks(mTimeout);
+        mContext.unregisterReceiver(mReceiver);
+        mProviderTraffic.stop();
+        mOwnTraffic.stop();
+        if (mIds.length > 0) queryAll();
+        JSONObject results = getResults();
+        Log.d(TAG, "Bulk download results: " + results.toString());
+        mListener.onFinished(results);
+    }
+
+    private int getProviderUid() {
+        try {
+            return mContext.getPackageManager()
+                    .getApplicationInfo(DOWNLOAD_PROVIDER_PACKAGE, 0).uid;
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.e(TAG, "Download provider not found: " + e);
+            return UNKNOWN;
+        }
+    }
+
+    private JSONObject getResults() {
+        JSONObject obj = new JSONObject();
+        JSONArray downloads = new JSONArray();
+        long bytes = 0;
+        int completed = 0;
+        int failed = 0;
+        long lastCompleteNanos = mStartNanos;
+        for (Entry entry : mEntries.values()) {
+            downloads.put(entry.toJson());
+            bytes += Math.max(0, entry.bytes);
+            if (entry.status == DownloadManager.STATUS_SUCCESSFUL) completed++;
+            if (entry.status == DownloadManager.STATUS_FAILED) failed++;
+            if (entry.completeNanos != UNKNOWN) {
+                lastCompleteNanos = Math.max(lastCompleteNanos, entry.completeNanos);
+            }
+        }
+        // Until the last completion, or until the timeout if some didn't complete
+        long durationNanos = (mRemaining == 0 ? lastCompleteNanos : mEndNanos) - mStartNanos;
+        try {
+            obj.put("Downloads", mEntries.size());
+            obj.put("Completed", completed);
+            obj.put("Failed", failed);
+            obj.put("Incomplete", mRemaining);
+            obj.put("Bytes", bytes);
+            obj.put("DurationMs", durationNanos / NANOS_PER_MILLI);
+            obj.put("ThroughputBytesPerSec", durationNanos > 0 ? bytes * 1e9 / durationNanos : 0);
+            obj.put("ProviderTraffic", mProviderTraffic.toJson());
+            obj.put("OwnTraffic", mOwnTraffic.toJson());
+            obj.put("PerDownload", downloads);
+        } catch (JSONException e) {
+            Log.e(TAG, "Exception to put bulk download results into JSON object: " + e);
+        }
+        return obj;
+    }
+
+    /**
+     * One enqueued download
+     */
+    private static class Entry {
+        final String url;
+        final long enqueueNanos;
+        long id;
+        long completeNanos = UNKNOWN;
+        int status = UNKNOWN;
+        int reason = UNKNOWN;
+        long bytes = UNKNOWN;
+        long totalBytes = UNKNOWN;
+
+        Entry(String url, long enqueueNanos) {
+            this.url = url;
+            this.enqueueNanos = enqueueNanos;
+        }
+
+        JSONObject toJson() {
+            JSONObject obj = new JSONObject();
+            try {
+                obj.put("Id", id);
+                obj.put("Url", url);
+                obj.put("Status", status);
+                obj.put("Reason", reason);
+                obj.put("Bytes", bytes);
+                obj.put("TotalBytes", totalBytes);
+                if (completeNanos != UNKNOWN) {
+                    long durationNanos = completeNanos - enqueueNanos;
+                    obj.put("DurationMs", durationNanos / NANOS_PER_MILLI);
+                    obj.put("ThroughputBytesPerSec",
+                            durationNanos > 0 ? Math.max(0, bytes) * 1e9 / durationNanos : 0);
+                }
+            } catch (JSONException e) {
+                Log.e(TAG, "Exception to put download into JSON object: " + e);
+            }
+            return obj;
+        }
+    }
+
+    /**
+     * TrafficStats byte counters of one UID between start() and stop()
+     */
+    private static class TrafficSample {
+        private int mUid = UNKNOWN;
+        private long mRxStart;
+        private long mTxStart;
+        private long mRxBytes = UNKNOWN;
+        private long mTxBytes = UNKNOWN;
+
+        void start(int uid) {
+            mUid = uid;
+            mRxStart = TrafficStats.getUidRxBytes(uid);
+            mTxStart = TrafficStats.getUidTxBytes(uid);
+        }
+
+        void stop() {
+            if (mUid == UNKNOWN) return;
+            long rx = TrafficStats.getUidRxBytes(mUid);
+            long tx = TrafficStats.getUidTxBytes(mUid);
+            // Counters of other UIDs may not be readable
+            if (rx != TrafficStats.UNSUPPORTED && mRxStart != TrafficStats.UNSUPPORTED) {
+                mRxBytes = rx - mRxStart;
+            }
+            if (tx != TrafficStats.UNSUPPORTED && mTxStart != TrafficStats.UNSUPPORTED) {
+                mTxBytes = tx - mTxStart;
+            }
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject obj = new JSONObject();
+            obj.put("Uid", mUid);
+            obj.put("RxBytes", mRxBytes);
+            obj.put("TxBytes", mTxBytes);
+            return obj;
+        }
+    }
+}
@@ -22,17 +22,19 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Environment;
-import android.os.StrictMode;
 import android.util.Log;
 import android.webkit.MimeTypeMap;
 import android.webkit.URLUtil;
 import java.io.*;
-import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
 
 public class ConnectivityTestActivity extends Activity {
@@ -40,17 +42,23 @@ public class ConnectivityTestActivity extends Activity {
     Context mContext;
     ConnectivityManager mConnectivityManager;
     DownloadManager mDownloadManager;
+    boolean mProbing;
 
     public static final String TAG = "ConnectivityUIDTest";
     private static final String RESULT = "result";
+    private static final String PROBES = "probes";
     private static final String URL = "url";
+    private static final String PROBE_URL = "probe_url";
+    private static final String CONNECT_TIMEOUT = "connect_timeout_ms";
+    private static final String READ_TIMEOUT = "read_timeout_ms";
+    private static final String DOWNLOADS = "downloads";
+    private static final String BULK_URLS = "bulk_urls";
+    private static final String BULK_REPEAT = "bulk_repeat";
+    private static final String BULK_TIMEOUT = "bulk_timeout_s";
+    private static final int DEFAULT_BULK_TIMEOUT_S = 600;
 
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        StrictMode.ThreadPolicy policy =
-                new StrictMode.ThreadPolicy.Builder().permitAll().build();
-        StrictMode.setThreadPolicy(policy);
-
         mContext = this.getApplicationContext();
         mConnectivityManager = (ConnectivityManager)
                 mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
@@ -60,42 +68,94 @@ public class ConnectivityTestActivity extends Activity {
 
     public void onResume() {
         super.onResume();
-        boolean conn = checkNow();
+        if (mProbing) return;
+        mProbing = true;
+        final Bundle extras = getIntent().getExtras();
+        // Probes block on the network, they run off the UI thread
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final Intent returnIntent = checkNow(extras);
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        setResult(RESULT_OK, returnIntent);
+                        if (!bulkDownload(extras, returnIntent)) {
+                            downloadData(extras);
+                            finish();
+                        }
+                    }
+                });
+            }
+        }, "ConnectivityProbe").start();
+    }
+
+    /**
+     * Probe all networks. The result is true if the probe over the active network
+     * succeeded, the probes of all networks are returned as a JSON array string.
+     */
+    private Intent checkNow(Bundle extras) {
         Intent returnIntent = new Intent();
+        boolean conn = false;
+        JSONArray probes = new JSONArray();
+        try {
+            NetworkProber prober = new NetworkProber(mConnectivityManager,
+                    new URL(stringExtra(extras, PROBE_URL, NetworkProber.DEFAULT_PROBE_URL)),
+                    intExtra(extras, CONNECT_TIMEOUT, NetworkProber.DEFAULT_CONNECT_TIMEOUT_MS),
+                    intExtra(extras, READ_TIMEOUT, NetworkProber.DEFAULT_READ_TIMEOUT_MS));
+            List<NetworkProber.Result> results = prober.probeAll();
+            for (NetworkProber.Result result : results) {
+                if (result.active) conn = result.isConnected();
+                probes.put(result.toJson());
+            }
+        } catch (MalformedURLException e) {
+            Log.e(TAG, "Invalid probe URL: ", e);
+        } catch (InterruptedException e) {
+            Log.e(TAG, "CheckConnectivity interrupted: ", e);
+        }
         returnIntent.putExtra(RESULT, conn);
-        setResult(RESULT_OK, returnIntent);
-        Bundle extras = getIntent().getExtras();
-        downloadData(extras);
-        finish();
+        returnIntent.putExtra(PROBES, probes.toString());
+        return returnIntent;
     }
 
-    private boolean checkNow() {
-        try{
-            NetworkInfo netInfo = mConnectivityManager.getActiveNetworkInfo();
-            return netInfo.isConnected() && httpRequest();
-        } catch(Exception e) {
-            Log.e(TAG, "CheckConnectivity exception: ", e);
-        }
+    private static String stringExtra(Bundle extras, String key, String defaultValue) {
+        String value = extras == null ? null : extras.getString(key);
+        return value == null ? defaultValue : value;
+    }
 
-        return false;
+    private static int intExtra(Bundle extras, String key, int defaultValue) {
+        return extras == null ? defaultValue : extras.getInt(key, defaultValue);
     }
 
-    private boolean httpRequest() {
-        HttpURLConnection urlConnection = null;
-        try {
-            URL targetURL = new URL("http://www.google.com/generate_204");
-            urlConnection = (HttpURLConnection) targetURL.openConnection();
-            urlConnection.connect();
-            int respCode = urlConnection.getResponseCode();
-            return (respCode == 204);
-        } catch (Exception e) {
-            Log.e(TAG, "Checkconnectivity exception: ", e);
+    /**
+     * Download every URL of the comma separated bulk_urls extra, bulk_repeat times each,
+     * and finish once all completed. Per-download and aggregate throughput are returned
+     * as a JSON object string. Returns false if no bulk download is requested.
+     */
+    private boolean bulkDownload(Bundle extras, final Intent returnIntent) {
+        String bulkUrls = stringExtra(extras, BULK_URLS, "");
+        int repeat = intExtra(extras, BULK_REPEAT, 1);
+        List<String> urls = new ArrayList<String>();
+        for (int i = 0; i < repeat; i++) {
+            for (String url : bulkUrls.split(",")) {
+                if (!url.trim().isEmpty()) urls.add(url.trim());
+            }
         }
-        return false;
+        if (urls.isEmpty()) return false;
+        long timeoutMs = intExtra(extras, BULK_TIMEOUT, DEFAULT_BULK_TIMEOUT_S) * 1000L;
+        new BulkDownload(mContext, mDownloadManager, timeoutMs, new BulkDownload.Listener() {
+            @Override
+            public void onFinished(JSONObject results) {
+                returnIntent.putExtra(DOWNLOADS, results.toString());
+                setResult(RESULT_OK, returnIntent);
+                finish();
+            }
+        }).start(urls);
+        return true;
     }
 
     private void downloadData(Bundle extras) {
-        if(extras == null)
+        if(extras == null || extras.getString(URL) == null)
             return;
         String url = extras.getString(URL);
         Log.d(TAG, "URL IS: " + url);
@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tests.connectivity.uid;
+
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Probes a URL over every network with internet capability at the same time.
+ *
+ * Each probe resolves the host, connects and sends the request on sockets bound to its
+ * Network, so it measures that network rather than the default one. DNS lookup, TCP
+ * connect, TLS handshake (https only) and the time from the request to the first byte
+ * of the response are timed separately.
+ */
+class NetworkProber {
+    public static final String TAG = ConnectivityTestActivity.TAG;
+    public static final String DEFAULT_PROBE_URL = "http://www.google.com/generate_204";
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 5000;
+    public static final int DEFAULT_READ_TIMEOUT_MS = 5000;
+    private static final int HTTP_NO_CONTENT = 204;
+    private static final int MAX_STATUS_LINE = 1024;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final long NOT_MEASURED = -1;
+    // Time for the callbacks of the networks which are already connected
+    private static final long COLLECT_NETWORKS_MS = 500;
+
+    private final ConnectivityManager mConnectivityManager;
+    private final URL mUrl;
+    private final int mConnectTimeoutMs;
+    private final int mReadTimeoutMs;
+
+    /**
+     * Constructor
+     *
+     * @param connectivityManager - to find the networks
+     * @param url - http or https URL which answers 204 No Content
+     * @param connectTimeoutMs - timeout of the TCP connect to one address
+     * @param readTimeoutMs - timeout of every read, including the TLS handshake
+     */
+    NetworkProber(ConnectivityManager connectivityManager, URL url, int connectTimeoutMs,
+            int readTimeoutMs) {
+        mConnectivityManager = connectivityManager;
+        mUrl = url;
+        mConnectTimeoutMs = connectTimeoutMs;
+        mReadTimeoutMs = readTimeoutMs;
+    }
+
+    /**
+     * Probe every network in parallel and wait for all probes to finish
+     */
+    List<Result> probeAll() throws InterruptedException {
+        Map<Network, NetworkCapabilities> networks = findNetworks();
+        Network active = mConnectivityManager.getActiveNetwork();
+        List<Result> results = new ArrayList<Result>();
+        List<Future<Result>> futures = new ArrayList<Future<Result>>();
+        if (networks.isEmpty()) return results;
+
+        ExecutorService executor = Executors.newFixedThreadPool(networks.size());
+        try {
+            for (Map.Entry<Network, NetworkCapabilities> entry : networks.entrySet()) {
+                final Network network = entry.getKey();
+                final String transport = transportName(entry.getValue());
+                final boolean isActive = network.equals(active);
+                futures.add(executor.submit(new Callable<Result>() {
+                    @Override
+                    public Result call() {
+                        return probe(network, transport, isActive);
+                    }
+                }));
+            }
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    Log.e(TAG, "Probe failed: ", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Returns the networks with internet capability and their capabilities. A network
+     * callback is called for every network which already matches its request right
+     * after it is registered, so it is kept registered for a short time only.
+     */
+    private Map<Network, NetworkCapabilities> findNetworks() throws InterruptedException {
+        final Map<Network, NetworkCapabilities> networks =
+                new LinkedHashMap<Network, NetworkCapabilities>();
+        NetworkRequest request = new NetworkRequest.Builder()
+                .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .build();
+        ConnectivityManager.NetworkCallback callback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onCapabilitiesChanged(Network network, NetworkCapabilities caps) {
+                synchronized (networks) {
+                    networks.put(network, caps);
+                }
+            }
+
+            @Override
+            public void onLost(Network network) {
+                synchronized (networks) {
+                    networks.remove(network);
+                }
+            }
+        };
+        mConnectivityManager.registerNetworkCallback(request, callback);
+        try {
+            Thread.sleep(COLLECT_NETWORKS_MS);
+        } finally {
+            mConnectivityManager.unregisterNetworkCallback(callback);
+        }
+        synchronized (networks) {
+            return new LinkedHashMap<Network, NetworkCapabilities>(networks);
+        }
+    }
+
+    private static String transportName(NetworkCapabilities caps) {
+        // A VPN also has the transport of its underlying network, name it first
+        if (caps.hasTransport(NetworkCapabilities.TRANSPORT_VPN)) return "vpn";
+        if (caps.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) return "wifi";
+        if (caps.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) return "cellular";
+        if (caps.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) return "ethernet";
+        if (caps.hasTransport(NetworkCapabilities.TRANSPORT_BLUETOOTH)) return "bluetooth";
+        return "other";
+    }
+
+    /**
+     * Probe one network, errors are reported in the result
+     */
+    Result probe(Network network, String transport, boolean active) {
+        Result result = new Result(network, transport, active);
+        String host = mUrl.getHost();
+        int port = mUrl.getPort() != -1 ? mUrl.getPort() : mUrl.getDefaultPort();
+        long start = SystemClock.elapsedRealtimeNanos();
+        Socket socket = null;
+        try {
+            long phase = start;
+            InetAddress[] addresses = network.getAllByName(host);
+            long now = SystemClock.elapsedRealtimeNanos();
+            result.dnsMs = toMillis(now - phase);
+
+            phase = now;
+            socket = connect(network, addresses, port, result);
+            now = SystemClock.elapsedRealtimeNanos();
+            result.connectMs = toMillis(now - phase);
+
+            if ("https".equals(mUrl.getProtocol())) {
+                phase = now;
+                socket = startTls(socket, host, port);
+                now = SystemClock.elapsedRealtimeNanos();
+                result.tlsMs = toMillis(now - phase);
+            }
+
+            phase = now;
+            sendRequest(socket.getOutputStream(), host, port);
+            InputStream in = socket.getInputStream();
+            int first = in.read();
+            now = SystemClock.elapsedRealtimeNanos();
+            if (first < 0) throw new IOException("Connection closed without a response");
+            result.firstByteMs = toMillis(now - phase);
+            result.responseCode = readStatusCode(first, in);
+        } catch (IOException e) {
+            result.error = e.toString();
+        } finally {
+            result.totalMs = toMillis(SystemClock.elapsedRealtimeNanos() - start);
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    Log.e(TAG, "Failed to close the probe socket: " + e);
+                }
+            }
+        }
+        Log.d(TAG, "Probe: " + result.toJson().toString());
+        return result;
+    }
+
+    /**
+     * Connect to the first address which accepts, every attempt with the connect timeout
+     */
+    private Socket connect(Network network, InetAddress[] addresses, int port, Result result)
+            throws IOException {
+        IOException failure = new IOException("No address for " + mUrl.getHost());
+        for (InetAddress address : addresses) {
+            Socket socket = network.getSocketFactory().createSocket();
+            try {
+                socket.setSoTimeout(mReadTimeoutMs);
+                socket.connect(new InetSocketAddress(address, port), mConnectTimeoutMs);
+                result.address = address.getHostAddress();
+                return socket;
+            } catch (IOException e) {
+                failure = e;
+                socket.close();
+            }
+        }
+        throw failure;
+    }
+
+    private static Socket startTls(Socket socket, String host, int port) throws IOException {
+        SSLSocketFactory factory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+        SSLSocket sslSocket = (SSLSocket) factory.createSocket(socket, host, port, true);
+        try {
+            sslSocket.startHandshake();
+            if (!HttpsURLConnection.getDefaultHostnameVerifier().verify(
+                    host, sslSocket.getSession())) {
+                throw new IOException("Certificate does not match " + host);
+            }
+        } catch (IOException e) {
+            sslSocket.close();
+            throw e;
+        }
+        return sslSocket;
+    }
+
+    private void sendRequest(OutputStream out, String host, int port) throws IOException {
+        String path = mUrl.getFile().isEmpty() ? "/" : mUrl.getFile();
+        String hostHeader = port == mUrl.getDefaultPort() ? host : host + ":" + port;
+        String request = "GET " + path + " HTTP/1.1\r\n"
+                + "Host: " + hostHeader + "\r\n"
+                + "Connection: close\r\n"
+                + "\r\n";
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    /**
+     * Parse the code of the status line, e.g. "HTTP/1.1 204 No Content"
+     */
+    private static int readStatusCode(int first, InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c = first;
+        while (c >= 0 && c != '\n' && line.length() < MAX_STATUS_LINE) {
+            line.append((char) c);
+            c = in.read();
+        }
+        String[] parts = line.toString().trim().split(" ");
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+            throw new IOException("Invalid status line: " + line);
+        }
+        try {
+            return Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid status line: " + line);
+        }
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Outcome of the probe of one network. Phases which weren't reached are -1.
+     */
+    static class Result {
+        final String transport;
+        final long networkHandle;
+        final boolean active;
+        String address;
+        long dnsMs = NOT_MEASURED;
+        long connectMs = NOT_MEASURED;
+        long tlsMs = NOT_MEASURED;
+        long firstByteMs = NOT_MEASURED;
+        long totalMs = NOT_MEASURED;
+        int responseCode = (int) NOT_MEASURED;
+        String error;
+
+        Result(Network network, String transport, boolean active) {
+            this.transport = transport;
+            this.networkHandle = network.getNetworkHandle();
+            this.active = active;
+        }
+
+        boolean isConnected() {
+            return responseCode == HTTP_NO_CONTENT;
+        }
+
+        JSONObject toJson() {
+            JSONObject obj = new JSONObject();
+            try {
+                obj.put("Transport", transport);
+                obj.put("NetworkHandle", networkHandle);
+                obj.put("Active", active);
+                obj.put("Address", address);
+                obj.put("DnsMs", dnsMs);
+                obj.put("ConnectMs", connectMs);
+                obj.put("TlsMs", tlsMs);
+                obj.put("FirstByteMs", firstByteMs);
+                obj.put("TotalMs", totalMs);
+                obj.put("ResponseCode", responseCode);
+                obj.put("Connected", isConnected());
+                obj.put("Error", error);
+            } catch (JSONException e) {
+                Log.e(TAG, "Exception to put probe result into JSON object: " + e);
+            }
+            return obj;
+        }
+    }
+}
@@ -28,17 +28,24 @@
 #include <base/macros.h>
 
 namespace sl4n {
+const char kAsyncStr[] = "async";
+const char kBatchStr[] = "batch";
 const char kCmdStr[] = "cmd";
 const char kDeviceNameStr[] = "deviceName";
+const char kDoneStr[] = "done";
 const char kErrorStr[] = "error";
 const char kFailStr[] = "fail";
+const char kInvalidJsonStr[] = "Invalid JSON";
 const char kInvalidParamStr[] = "Invalid parameter";
 const char kMethodStr[] = "method";
 const char kParamsStr[] = "params";
+const char kPendingStr[] = "pending";
 const char kResultStr[] = "result";
 const char kStatusStr[] = "status";
 const char kSuccessStr[] = "success";
 const char kTagStr[] = "SL4N";
+const char kTooManyAsyncStr[] = "Too many pending async calls";
+const char kUnknownTicketStr[] = "Unknown ticket";
 const int kFailedCounterInt = -1;
 }
 
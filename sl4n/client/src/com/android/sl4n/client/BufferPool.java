@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sl4n.client;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of equally sized heap buffers for socket reads.
+ *
+ * Connections take a buffer when they open and give it back when they close, so
+ * opening connection after connection does not allocate new buffers every time.
+ */
+public class BufferPool {
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final BufferPool DEFAULT = new BufferPool(DEFAULT_BUFFER_SIZE, 64);
+
+    private final int mBufferSize;
+    private final int mMaxPooled;
+    private final ConcurrentLinkedQueue<ByteBuffer> mFree = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger mPooled = new AtomicInteger();
+
+    /**
+     * Constructor
+     *
+     * @param bufferSize - size of every buffer
+     * @param maxPooled - number of free buffers kept, more are left to the GC
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        mBufferSize = bufferSize;
+        mMaxPooled = maxPooled;
+    }
+
+    /**
+     * Returns a cleared buffer
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = mFree.poll();
+        if (buffer == null) return ByteBuffer.allocate(mBufferSize);
+        mPooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() != mBufferSize) return;
+        if (mPooled.incrementAndGet() > mMaxPooled) {
+            mPooled.decrementAndGet();
+            return;
+        }
+        mFree.add(buffer);
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sl4n.client;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parser for one JSON document in a UTF-8 byte range, e.g. one response line.
+ *
+ * Objects become LinkedHashMap so members keep the order of the document, arrays
+ * become ArrayList, integral numbers Long and other numbers Double.
+ */
+public class JsonParser {
+    private final byte[] mBuf;
+    private final int mEnd;
+    private int mPos;
+
+    private JsonParser(byte[] buf, int offset, int length) {
+        mBuf = buf;
+        mPos = offset;
+        mEnd = offset + length;
+    }
+
+    /**
+     * Parse the document in buf[offset, offset + length)
+     *
+     * @throws ParseException if the range does not hold exactly one JSON value
+     */
+    public static Object parse(byte[] buf, int offset, int length) throws ParseException {
+        JsonParser parser = new JsonParser(buf, offset, length);
+        Object value = parser.readValue();
+        parser.skipWhitespace();
+        if (parser.mPos != parser.mEnd) throw parser.error("Trailing data");
+        return value;
+    }
+
+    public static Object parse(String json) throws ParseException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return parse(bytes, 0, bytes.length);
+    }
+
+    private Object readValue() throws ParseException {
+        skipWhitespace();
+        if (mPos >= mEnd) throw error("Unexpected end");
+        byte b = mBuf[mPos];
+        switch (b) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                expect("true");
+                return Boolean.TRUE;
+            case 'f':
+                expect("false");
+                return Boolean.FALSE;
+            case 'n':
+                expect("null");
+                return null;
+            default:
+                if (b == '-' || (b >= '0' && b <= '9')) return readNumber();
+                throw error("Unexpected character");
+        }
+    }
+
+    private Map<String, Object> readObject() throws ParseException {
+        mPos++;
+        Map<String, Object> map = new LinkedHashMap<>();
+        skipWhitespace();
+        if (peek() == '}') {
+            mPos++;
+            return map;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') throw error("Expected member name");
+            String name = readString();
+            skipWhitespace();
+            if (peek() != ':') throw error("Expected ':'");
+            mPos++;
+            map.put(name, readValue());
+            skipWhitespace();
+            byte b = peek();
+            mPos++;
+            if (b == '}') return map;
+            if (b != ',') throw error("Expected ',' or '}'");
+        }
+    }
+
+    private List<Object> readArray() throws ParseException {
+        mPos++;
+        List<Object> list = new ArrayList<>();
+        skipWhitespace();
+        if (peek() == ']') {
+            mPos++;
+            return list;
+        }
+        while (true) {
+            list.add(readValue());
+            skipWhitespace();
+            byte b = peek();
+            mPos++;
+            if (b == ']') return list;
+            if (b != ',') throw error("Expected ',' or ']'");
+        }
+    }
+
+    private String readString() throws ParseException {
+        int start = ++mPos;
+        // Fast path: no escapes, decode the UTF-8 bytes in place
+        while (mPos < mEnd) {
+            byte b = mBuf[mPos];
+            if (b == '"') {
+                String s = new String(mBuf, start, mPos - start, StandardCharsets.UTF_8);
+                mPos++;
+                return s;
+            }
+            if (b == '\\') break;
+            mPos++;
+        }
+        if (mPos >= mEnd) throw error("Unterminated string");
+        StringBuilder sb = new StringBuilder(
+                new String(mBuf, start, mPos - start, StandardCharsets.UTF_8));
+        int runStart = mPos;
+        while (true) {
+            if (mPos >= mEnd) throw error("Unterminated string");
+            byte b = mBuf[mPos];
+            if (b == '"') {
+                sb.append(new String(mBuf, runStart, mPos - runStart, StandardCharsets.UTF_8));
+                mPos++;
+                return sb.toString();
+            }
+            if (b != '\\') {
+                mPos++;
+                continue;
+            }
+            sb.append(new String(mBuf, runStart, mPos - runStart, StandardCharsets.UTF_8));
+            if (mPos + 1 >= mEnd) throw error("Unterminated escape");
+            byte e = mBuf[mPos + 1];
+            mPos += 2;
+            switch (e) {
+                case '"':
+                case '\\':
+                case '/':
+                    sb.append((char) e);
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    if (mPos + 4 > mEnd) throw error("Invalid unicode escape");
+                    try {
+                        sb.append((char) Integer.parseInt(
+                                new String(mBuf, mPos, 4, StandardCharsets.US_ASCII), 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("Invalid unicode escape");
+                    }
+                    mPos += 4;
+                    break;
+                default:
+                    throw error("Invalid escape");
+            }
+            runStart = mPos;
+        }
+    }
+
+    private Number readNumber() throws ParseException {
+        int start = mPos;
+        boolean integral = true;
+        while (mPos < mEnd) {
+            byte b = mBuf[mPos];
+            if (b == '.' || b == 'e' || b == 'E') {
+                integral = false;
+            } else if (!(b == '-' || b == '+' || (b >= '0' && b <= '9'))) {
+                break;
+            }
+            mPos++;
+        }
+        String s = new String(mBuf, start, mPos - start, StandardCharsets.US_ASCII);
+        try {
+            if (integral && mPos - start < 19) return Long.parseLong(s);
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw error("Invalid number " + s);
+        }
+    }
+
+    private void expect(String literal) throws ParseException {
+        int n = literal.length();
+        if (mPos + n > mEnd) throw error("Unexpected end");
+        for (int i = 0; i < n; i++) {
+            if (mBuf[mPos + i] != literal.charAt(i)) throw error("Expected " + literal);
+        }
+        mPos += n;
+    }
+
+    private byte peek() throws ParseException {
+        if (mPos >= mEnd) throw error("Unexpected end");
+        return mBuf[mPos];
+    }
+
+    private void skipWhitespace() {
+        while (mPos < mEnd) {
+            byte b = mBuf[mPos];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') return;
+            mPos++;
+        }
+    }
+
+    private ParseException error(String message) {
+        return new ParseException(message, mPos);
+    }
+}
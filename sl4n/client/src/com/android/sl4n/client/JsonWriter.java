@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sl4n.client;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming JSON encoder which writes UTF-8 directly into a reusable byte array.
+ *
+ * No intermediate document or String is built, and after reset() the same array is
+ * filled again, so an encoder kept in a pool does not allocate per request once its
+ * array has grown to the size of the largest request.
+ */
+public class JsonWriter {
+    private static final int INITIAL_SIZE = 256;
+    private static final int MAX_DEPTH = 64;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private byte[] mBuf = new byte[INITIAL_SIZE];
+    private int mPos;
+    // mFirst[depth] is true until the first member of the open object or array
+    private final boolean[] mFirst = new boolean[MAX_DEPTH];
+    private int mDepth;
+    private boolean mAfterName;
+
+    /**
+     * Forget the encoded document and keep the array for the next one
+     */
+    public JsonWriter reset() {
+        mPos = 0;
+        mDepth = 0;
+        mAfterName = false;
+        return this;
+    }
+
+    public int size() {
+        return mPos;
+    }
+
+    /**
+     * Returns the encoded bytes, valid until the next reset()
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(mBuf, 0, mPos);
+    }
+
+    @Override
+    public String toString() {
+        return new String(mBuf, 0, mPos, StandardCharsets.UTF_8);
+    }
+
+    public JsonWriter beginObject() {
+        return open('{');
+    }
+
+    public JsonWriter endObject() {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() {
+        return open('[');
+    }
+
+    public JsonWriter endArray() {
+        return close(']');
+    }
+
+    /**
+     * Write the name of the next object member
+     */
+    public JsonWriter name(String name) {
+        separate();
+        writeString(name);
+        put((byte) ':');
+        mAfterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        if (value == null) return nullValue();
+        separate();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separate();
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return this;
+        }
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        // Digits are written backwards into their final place
+        int digits = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            digits++;
+        }
+        ensure(digits);
+        for (int i = mPos + digits - 1; i >= mPos; i--) {
+            mBuf[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        mPos += digits;
+        return this;
+    }
+
+    public JsonWriter value(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("JSON has no " + value);
+        }
+        if (value == (long) value) return value((long) value);
+        separate();
+        writeAscii(Double.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        separate();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() {
+        separate();
+        writeAscii("null");
+        return this;
+    }
+
+    /**
+     * Write a value of the types returned by JsonParser: null, String, Number, Boolean,
+     * Map with String keys and List, or an array of those.
+     */
+    public JsonWriter value(Object value) {
+        if (value == null) return nullValue();
+        if (value instanceof String) return value((String) value);
+        if (value instanceof Boolean) return value(((Boolean) value).booleanValue());
+        if (value instanceof Double || value instanceof Float) {
+            return value(((Number) value).doubleValue());
+        }
+        if (value instanceof Number) return value(((Number) value).longValue());
+        if (value instanceof Map) {
+            beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                name(String.valueOf(entry.getKey()));
+                value(entry.getValue());
+            }
+            return endObject();
+        }
+        if (value instanceof List) {
+            beginArray();
+            for (Object item : (List<?>) value) {
+                value(item);
+            }
+            return endArray();
+        }
+        if (value instanceof Object[]) {
+            return value(Arrays.asList((Object[]) value));
+        }
+        throw new IllegalArgumentException("Can't encode " + value.getClass().getName());
+    }
+
+    /**
+     * Append a raw byte, e.g. the newline which ends a request
+     */
+    public JsonWriter raw(char c) {
+        put((byte) c);
+        return this;
+    }
+
+    private JsonWriter open(char c) {
+        if (mDepth + 1 >= MAX_DEPTH) throw new IllegalStateException("Nesting too deep");
+        separate();
+        put((byte) c);
+        mFirst[++mDepth] = true;
+        return this;
+    }
+
+    private JsonWriter close(char c) {
+        if (mDepth == 0) throw new IllegalStateException("Nothing to close");
+        mDepth--;
+        put((byte) c);
+        return this;
+    }
+
+    private void separate() {
+        if (mAfterName) {
+            mAfterName = false;
+            return;
+        }
+        if (mDepth == 0) return;
+        if (mFirst[mDepth]) {
+            mFirst[mDepth] = false;
+        } else {
+            put((byte) ',');
+        }
+    }
+
+    private void writeAscii(String s) {
+        int n = s.length();
+        ensure(n);
+        for (int i = 0; i < n; i++) {
+            mBuf[mPos++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void writeString(String s) {
+        int n = s.length();
+        // Worst case is 6 bytes per char for \\u escapes, plus the quotes
+        ensure(n * 6 + 2);
+        byte[] buf = mBuf;
+        int pos = mPos;
+        buf[pos++] = '"';
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                buf[pos++] = (byte) c;
+            } else if (c == '"' || c == '\\') {
+                buf[pos++] = '\\';
+                buf[pos++] = (byte) c;
+            } else if (c == '\n') {
+                buf[pos++] = '\\';
+                buf[pos++] = 'n';
+            } else if (c < 0x20) {
+                buf[pos++] = '\\';
+                buf[pos++] = 'u';
+                buf[pos++] = '0';
+                buf[pos++] = '0';
+                buf[pos++] = HEX[c >> 4];
+                buf[pos++] = HEX[c & 0xf];
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xf0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3f));
+            } else {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        buf[pos++] = '"';
+        mPos = pos;
+    }
+
+    private void put(byte b) {
+        ensure(1);
+        mBuf[mPos++] = b;
+    }
+
+    private void ensure(int bytes) {
+        if (mPos + bytes > mBuf.length) {
+            mBuf = Arrays.copyOf(mBuf, Math.max(mBuf.length * 2, mPos + bytes));
+        }
+    }
+}
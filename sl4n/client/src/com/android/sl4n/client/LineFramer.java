@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sl4n.client;
+
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+import java.util.Arrays;
+
+/**
+ * Splits a byte stream into newline terminated JSON documents.
+ *
+ * sl4n ends every response with "\n" followed by the NUL of the C string, so NUL
+ * and carriage return bytes around the newline are ignored. Lines which are complete
+ * in the read buffer are passed on without copying.
+ */
+class LineFramer {
+    private static final int MAX_LINE = 16 * 1024 * 1024;
+
+    /**
+     * Receives every complete line, the bytes are only valid during the call
+     */
+    interface Callback {
+        void onLine(byte[] buf, int offset, int length) throws ParseException;
+    }
+
+    private byte[] mPartial = new byte[1024];
+    private int mPartialLength;
+
+    /**
+     * Consume all bytes of a heap buffer in read mode
+     */
+    void feed(ByteBuffer buffer, Callback callback) throws ParseException {
+        byte[] buf = buffer.array();
+        int pos = buffer.arrayOffset() + buffer.position();
+        int end = buffer.arrayOffset() + buffer.limit();
+        int start = pos;
+        for (; pos < end; pos++) {
+            if (buf[pos] != '\n') continue;
+            if (mPartialLength == 0) {
+                emit(buf, start, pos - start, callback);
+            } else {
+                append(buf, start, pos - start);
+                emit(mPartial, 0, mPartialLength, callback);
+                mPartialLength = 0;
+            }
+            start = pos + 1;
+        }
+        append(buf, start, end - start);
+        buffer.position(buffer.limit());
+    }
+
+    private void append(byte[] buf, int offset, int length) throws ParseException {
+        if (length == 0) return;
+        if (mPartialLength + length > MAX_LINE) {
+            throw new ParseException("Line longer than " + MAX_LINE + " bytes", 0);
+        }
+        if (mPartialLength + length > mPartial.length) {
+            mPartial = Arrays.copyOf(mPartial,
+                    Math.max(mPartial.length * 2, mPartialLength + length));
+        }
+        System.arraycopy(buf, offset, mPartial, mPartialLength, length);
+        mPartialLength += length;
+    }
+
+    private static void emit(byte[] buf, int offset, int length, Callback callback)
+            throws ParseException {
+        int end = offset + length;
+        while (offset < end && (buf[offset] == 0 || buf[offset] == '\r')) offset++;
+        while (end > offset && (buf[end - 1] == 0 || buf[end - 1] == '\r')) end--;
+        if (end > offset) callback.onLine(buf, offset, end - offset);
+    }
+}
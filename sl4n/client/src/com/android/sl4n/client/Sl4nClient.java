@@ -0,0 +1,296 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sl4n.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Client for the JSON commands served by sl4n.
+ *
+ * One connection is kept open and shared by all threads. Requests are written as
+ * newline terminated JSON documents without waiting for earlier responses, up to
+ * maxInFlight requests at a time; a reader thread matches every response to its
+ * request by the echoed "id".
+ *
+ * sl4n runs the requests of one connection in order, so pipelining saves the round
+ * trips between requests but does not run them in parallel; use several clients
+ * for that.
+ *
+ * After subscribe() sl4n also pushes facade events on the connection; they carry
+ * no "id" and are handed to the EventListener instead.
+ */
+public class Sl4nClient implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+    public static final String EVENT = "event";
+    public static final String EVENT_DATA = "data";
+    public static final String EVENT_TIME = "time";
+
+    /**
+     * Receives the events pushed by sl4n, on the reader thread
+     */
+    public interface EventListener {
+        /**
+         * @param name - name of the event, e.g. "BtAdapterStateChanged"
+         * @param data - members of the event, see JsonParser
+         * @param timeMillis - elapsed realtime of the device when it was published
+         */
+        void onEvent(String name, Object data, long timeMillis);
+    }
+
+    private final SocketChannel mChannel;
+    private final Semaphore mInFlight;
+    private final BufferPool mBufferPool;
+    // Encoders are reused, one per concurrently sending thread
+    private final ConcurrentLinkedQueue<JsonWriter> mEncoders = new ConcurrentLinkedQueue<>();
+    private final Object mWriteLock = new Object();
+    // Requests waiting for their response, in the order they were sent
+    private final LinkedHashMap<Long, CompletableFuture<Sl4nResponse>> mPending =
+            new LinkedHashMap<>();
+    private final Thread mReader;
+    private long mNextId = 1;
+    private IOException mFailure;
+    private volatile EventListener mEventListener;
+
+    public Sl4nClient(String host, int port) throws IOException {
+        this(host, port, DEFAULT_MAX_IN_FLIGHT, BufferPool.DEFAULT);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param host - host of sl4n, e.g. localhost with "adb forward tcp:8080 tcp:8080"
+     * @param port - port of sl4n
+     * @param maxInFlight - number of requests sent before their responses arrive
+     * @param bufferPool - pool for the read buffer of the connection
+     */
+    public Sl4nClient(String host, int port, int maxInFlight, BufferPool bufferPool)
+            throws IOException {
+        if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight < 1");
+        mInFlight = new Semaphore(maxInFlight);
+        mBufferPool = bufferPool;
+        mChannel = SocketChannel.open(new InetSocketAddress(host, port));
+        mChannel.socket().setTcpNoDelay(true);
+        mReader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                readLoop();
+            }
+        }, "sl4n-reader");
+        mReader.setDaemon(true);
+        mReader.start();
+    }
+
+    /**
+     * Send a command and wait for its response
+     *
+     * @param method - name of the command, e.g. "TestBoolTrueReturn"
+     * @param params - parameters of the command, see JsonWriter.value(Object)
+     * @throws IOException if the connection fails
+     */
+    public Sl4nResponse call(String method, Object... params) throws IOException {
+        try {
+            return callAsync(method, params).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for " + method);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Send a command without waiting for its response. Blocks while maxInFlight
+     * requests are outstanding.
+     *
+     * @param method - name of the command
+     * @param params - parameters of the command
+     * @return future which completes with the response, or with an IOException when
+     *         the connection fails
+     */
+    public CompletableFuture<Sl4nResponse> callAsync(String method, Object... params)
+            throws IOException {
+        try {
+            mInFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted sending " + method);
+        }
+        JsonWriter encoder = mEncoders.poll();
+        if (encoder == null) encoder = new JsonWriter();
+        CompletableFuture<Sl4nResponse> future = new CompletableFuture<>();
+        boolean pending = false;
+        try {
+            synchronized (mWriteLock) {
+                long id;
+                synchronized (mPending) {
+                    if (mFailure != null) throw new IOException(mFailure.getMessage(), mFailure);
+                    id = mNextId++;
+                    mPending.put(id, future);
+                    pending = true;
+                }
+                encodeRequest(encoder.reset(), id, method, params);
+                ByteBuffer buffer = encoder.toByteBuffer();
+                while (buffer.hasRemaining()) {
+                    mChannel.write(buffer);
+                }
+            }
+        } catch (IOException e) {
+            // Once in mPending the permit is released by fail() with the other requests
+            if (!pending) mInFlight.release();
+            fail(e);
+            throw e;
+        } finally {
+            mEncoders.add(encoder);
+        }
+        return future;
+    }
+
+    /**
+     * Subscribe to events of the facades. A later subscription replaces this one.
+     *
+     * @param listener - receives the events
+     * @param names - names of the events, none for every event
+     */
+    public Sl4nResponse subscribe(EventListener listener, String... names)
+            throws IOException {
+        mEventListener = listener;
+        return call("EventSubscribe", Arrays.asList((Object[]) names));
+    }
+
+    public Sl4nResponse unsubscribe() throws IOException {
+        Sl4nResponse response = call("EventUnsubscribe");
+        mEventListener = null;
+        return response;
+    }
+
+    private static void encodeRequest(JsonWriter encoder, long id, String method,
+            Object[] params) {
+        encoder.beginObject()
+                .name(Sl4nResponse.ID).value(id)
+                .name("method").value(method)
+                .name("params").beginArray();
+        for (Object param : params) {
+            encoder.value(param);
+        }
+        encoder.endArray().endObject().raw('\n');
+    }
+
+    private void readLoop() {
+        ByteBuffer buffer = mBufferPool.acquire();
+        LineFramer framer = new LineFramer();
+        LineFramer.Callback callback = new LineFramer.Callback() {
+            @Override
+            public void onLine(byte[] buf, int offset, int length) throws ParseException {
+                onResponse(JsonParser.parse(buf, offset, length));
+            }
+        };
+        try {
+            while (true) {
+                buffer.clear();
+                if (mChannel.read(buffer) < 0) {
+                    throw new IOException("Connection closed by sl4n");
+                }
+                buffer.flip();
+                framer.feed(buffer, callback);
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (ParseException e) {
+            fail(new IOException("Invalid response from sl4n: " + e.getMessage(), e));
+        } finally {
+            mBufferPool.release(buffer);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onResponse(Object document) throws ParseException {
+        if (!(document instanceof Map)) throw new ParseException("Response not an object", 0);
+        Map<String, Object> members = (Map<String, Object>) document;
+        Object id = members.get(Sl4nResponse.ID);
+        if (id == null && members.get(EVENT) instanceof String) {
+            onEvent(members);
+            return;
+        }
+        CompletableFuture<Sl4nResponse> future;
+        synchronized (mPending) {
+            if (id instanceof Number) {
+                future = mPending.remove(((Number) id).longValue());
+            } else {
+                // Without an id the server answers in order, take the oldest request
+                Iterator<CompletableFuture<Sl4nResponse>> it = mPending.values().iterator();
+                future = it.hasNext() ? it.next() : null;
+                if (future != null) it.remove();
+            }
+        }
+        if (future == null) throw new ParseException("Response to unknown request " + id, 0);
+        mInFlight.release();
+        future.complete(new Sl4nResponse(members));
+    }
+
+    private void onEvent(Map<String, Object> members) {
+        EventListener listener = mEventListener;
+        if (listener == null) return;
+        Object time = members.get(EVENT_TIME);
+        listener.onEvent((String) members.get(EVENT), members.get(EVENT_DATA),
+                time instanceof Number ? ((Number) time).longValue() : 0);
+    }
+
+    private void fail(IOException e) {
+        List<CompletableFuture<Sl4nResponse>> failed;
+        synchronized (mPending) {
+            if (mFailure == null) mFailure = e;
+            failed = new ArrayList<>(mPending.values());
+            mPending.clear();
+        }
+        for (CompletableFuture<Sl4nResponse> future : failed) {
+            mInFlight.release();
+            future.completeExceptionally(e);
+        }
+        try {
+            mChannel.close();
+        } catch (IOException ignored) {
+            // Already failed, nothing more to report
+        }
+    }
+
+    @Override
+    public void close() {
+        fail(new IOException("Client closed"));
+        try {
+            mReader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
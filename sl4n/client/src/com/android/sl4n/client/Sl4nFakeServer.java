@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sl4n.client;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process stand-in for sl4n, to use Sl4nClient without a device.
+ *
+ * Serves the commands of CommandReceiver and facades/test/test_facade.cpp with the
+ * same response documents: the request minus "method" and "params", plus "result"
+ * and "error", or "status" for the session commands. Unknown commands are echoed
+ * without result like CommandReceiver::Call does.
+ *
+ * Every connection has its own thread. Requests are split at newlines, and the
+ * responses to all requests found in one read are written together, so pipelined
+ * requests are answered in batches.
+ */
+public class Sl4nFakeServer implements AutoCloseable {
+    private static final String METHOD = "method";
+    private static final String CMD = "cmd";
+    private static final String PARAMS = "params";
+    private static final String FAIL = "fail";
+    private static final String INVALID_PARAM = "Invalid parameter";
+
+    private final ServerSocketChannel mServerChannel;
+    private final BufferPool mBufferPool;
+    private final List<SocketChannel> mClients = new ArrayList<>();
+    private final Thread mAcceptThread;
+    private volatile boolean mRunning = true;
+
+    /**
+     * Start a server on a free loopback port
+     */
+    public Sl4nFakeServer() throws IOException {
+        this(0, BufferPool.DEFAULT);
+    }
+
+    public Sl4nFakeServer(int port, BufferPool bufferPool) throws IOException {
+        mBufferPool = bufferPool;
+        mServerChannel = ServerSocketChannel.open();
+        mServerChannel.socket().setReuseAddress(true);
+        mServerChannel.socket().bind(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        mAcceptThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                acceptLoop();
+            }
+        }, "sl4n-fake-accept");
+        mAcceptThread.setDaemon(true);
+        mAcceptThread.start();
+    }
+
+    public int getPort() {
+        return mServerChannel.socket().getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (mRunning) {
+            final SocketChannel client;
+            try {
+                client = mServerChannel.accept();
+                client.socket().setTcpNoDelay(true);
+            } catch (IOException e) {
+                if (mRunning) System.err.println("sl4n fake server accept failed: " + e);
+                return;
+            }
+            synchronized (mClients) {
+                mClients.add(client);
+            }
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    serve(client);
+                }
+            }, "sl4n-fake-client");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        ByteBuffer buffer = mBufferPool.acquire();
+        LineFramer framer = new LineFramer();
+        final JsonWriter out = new JsonWriter();
+        LineFramer.Callback callback = new LineFramer.Callback() {
+            @Override
+            public void onLine(byte[] buf, int offset, int length) throws ParseException {
+                handle(JsonParser.parse(buf, offset, length), out);
+            }
+        };
+        try {
+            while (true) {
+                buffer.clear();
+                if (client.read(buffer) < 0) break;
+                buffer.flip();
+                out.reset();
+                framer.feed(buffer, callback);
+                ByteBuffer response = out.toByteBuffer();
+                while (response.hasRemaining()) {
+                    client.write(response);
+                }
+            }
+        } catch (IOException | ParseException e) {
+            if (mRunning) System.err.println("sl4n fake server connection failed: " + e);
+        } finally {
+            mBufferPool.release(buffer);
+            synchronized (mClients) {
+                mClients.remove(client);
+            }
+            try {
+                client.close();
+            } catch (IOException e) {
+                System.err.println("sl4n fake server close failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * Run one request and append its response line to out
+     */
+    @SuppressWarnings("unchecked")
+    private static void handle(Object document, JsonWriter out) throws ParseException {
+        if (!(document instanceof Map)) throw new ParseException("Request not an object", 0);
+        Map<String, Object> doc = new LinkedHashMap<>((Map<String, Object>) document);
+        Object cmd = doc.containsKey(CMD) ? doc.get(CMD) : doc.get(METHOD);
+        Object params = doc.get(PARAMS);
+        List<Object> paramList = params instanceof List
+                ? (List<Object>) params : new ArrayList<Object>();
+        doc.remove(METHOD);
+        doc.remove(PARAMS);
+        if (cmd instanceof String) call((String) cmd, paramList, doc);
+        out.value(doc).raw('\n');
+    }
+
+    private static void call(String cmd, List<Object> params, Map<String, Object> doc) {
+        switch (cmd) {
+            case "initiate":
+            case "continue":
+                doc.put(Sl4nResponse.STATUS, "success");
+                return;
+            case "TestBoolTrueReturn":
+                if (checkParams(params, 0, doc)) pass(doc, true);
+                return;
+            case "TestBoolFalseReturn":
+                // The wrapper stores the bool in an int, so sl4n returns 0
+                if (checkParams(params, 0, doc)) pass(doc, 0L);
+                return;
+            case "TestNullReturn":
+                if (checkParams(params, 0, doc)) pass(doc, 0L);
+                return;
+            case "TestStringEmptyReturn":
+                if (checkParams(params, 0, doc)) pass(doc, "");
+                return;
+            case "TestStringMaxReturn":
+                if (!checkParams(params, 1, doc)) return;
+                if (!(params.get(0) instanceof String)) {
+                    fail(doc, FAIL);
+                    return;
+                }
+                pass(doc, params.get(0));
+                return;
+            case "TestSpecificParamNaming":
+                if (!checkParams(params, 1, doc)) return;
+                testSpecificParamNaming(params.get(0), doc);
+                return;
+            default:
+                return;
+        }
+    }
+
+    /**
+     * The wrapper expects params [[{"string_test": String, "int_test": int}]]
+     */
+    @SuppressWarnings("unchecked")
+    private static void testSpecificParamNaming(Object param, Map<String, Object> doc) {
+        Object inner = param instanceof List && !((List<Object>) param).isEmpty()
+                ? ((List<Object>) param).get(0) : null;
+        if (!(inner instanceof Map)) {
+            fail(doc, FAIL);
+            return;
+        }
+        Map<String, Object> members = (Map<String, Object>) inner;
+        if (!(members.get("string_test") instanceof String)
+                || !(members.get("int_test") instanceof Long)) {
+            fail(doc, FAIL);
+            return;
+        }
+        pass(doc, true);
+    }
+
+    private static boolean checkParams(List<Object> params, int expected,
+            Map<String, Object> doc) {
+        if (params.size() == expected) return true;
+        fail(doc, INVALID_PARAM);
+        return false;
+    }
+
+    private static void pass(Map<String, Object> doc, Object result) {
+        doc.put(Sl4nResponse.RESULT, result);
+        // The wrappers add NULL, which rapidjson stores as the integer 0
+        doc.put(Sl4nResponse.ERROR, 0L);
+    }
+
+    private static void fail(Map<String, Object> doc, String error) {
+        doc.put(Sl4nResponse.RESULT, false);
+        doc.put(Sl4nResponse.ERROR, error);
+    }
+
+    @Override
+    public void close() throws IOException {
+        mRunning = false;
+        mServerChannel.close();
+        synchronized (mClients) {
+            for (SocketChannel client : mClients) {
+                client.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sl4n.client;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Response of one sl4n command.
+ *
+ * sl4n answers with the request document minus "method" and "params", plus the
+ * members added by the command, usually "result" and "error".
+ */
+public class Sl4nResponse {
+    public static final String ID = "id";
+    public static final String RESULT = "result";
+    public static final String ERROR = "error";
+    public static final String STATUS = "status";
+
+    private final Map<String, Object> mMembers;
+
+    Sl4nResponse(Map<String, Object> members) {
+        mMembers = members;
+    }
+
+    public Object getResult() {
+        return mMembers.get(RESULT);
+    }
+
+    /**
+     * Returns the error of the command, see isError()
+     */
+    public Object getError() {
+        return mMembers.get(ERROR);
+    }
+
+    /**
+     * Returns true if the command failed. The facade wrappers add NULL as the integer
+     * 0 on success, so like the Python clients any false value means no error.
+     */
+    public boolean isError() {
+        Object error = mMembers.get(ERROR);
+        if (error == null || Boolean.FALSE.equals(error) || "".equals(error)) return false;
+        return !(error instanceof Number) || ((Number) error).doubleValue() != 0;
+    }
+
+    /**
+     * Returns the status of session commands such as "initiate"
+     */
+    public Object getStatus() {
+        return mMembers.get(STATUS);
+    }
+
+    public Object get(String name) {
+        return mMembers.get(name);
+    }
+
+    public Map<String, Object> getMembers() {
+        return Collections.unmodifiableMap(mMembers);
+    }
+
+    @Override
+    public String toString() {
+        return new JsonWriter().value(mMembers).toString();
+    }
+}
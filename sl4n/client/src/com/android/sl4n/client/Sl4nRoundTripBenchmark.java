@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.sl4n.client;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * Round trip latency and throughput of sl4n commands.
+ *
+ * Usage: Sl4nRoundTripBenchmark [--host HOST --port PORT] [--calls N]
+ *                               [--depths 1,4,16] [--method NAME] [--reconnect]
+ *
+ * Without --port an in-process Sl4nFakeServer is started. Every depth runs N calls
+ * on one connection with up to depth requests in flight; with --reconnect a baseline
+ * which opens a new connection for every call is run first. One JSON line is printed
+ * per run. For many concurrent clients use sl4n_load_test.
+ */
+public class Sl4nRoundTripBenchmark {
+    private static final int DEFAULT_CALLS = 20000;
+    private static final String DEFAULT_DEPTHS = "1,4,16,64";
+    private static final String DEFAULT_METHOD = "TestBoolTrueReturn";
+    // Reconnecting is slow, the baseline runs fewer calls
+    private static final int RECONNECT_DIVISOR = 10;
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    public static void main(String[] args) throws Exception {
+        String host = "localhost";
+        int port = -1;
+        int calls = DEFAULT_CALLS;
+        String depths = DEFAULT_DEPTHS;
+        String method = DEFAULT_METHOD;
+        boolean reconnect = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--reconnect")) {
+                reconnect = true;
+                continue;
+            }
+            if (i + 1 >= args.length) usage("Missing value for " + arg);
+            String value = args[++i];
+            switch (arg) {
+                case "--host":
+                    host = value;
+                    break;
+                case "--port":
+                    port = Integer.parseInt(value);
+                    break;
+                case "--calls":
+                    calls = Integer.parseInt(value);
+                    break;
+                case "--depths":
+                    depths = value;
+                    break;
+                case "--method":
+                    method = value;
+                    break;
+                default:
+                    usage("Unknown option " + arg);
+            }
+        }
+        if (calls < 1) usage("Invalid number of calls");
+
+        Sl4nFakeServer fake = null;
+        if (port < 0) {
+            fake = new Sl4nFakeServer();
+            host = "localhost";
+            port = fake.getPort();
+        }
+        try {
+            if (reconnect) {
+                print(runReconnect(host, port, method, Math.max(1, calls / RECONNECT_DIVISOR)));
+            }
+            for (String depth : depths.split(",")) {
+                print(runPipelined(host, port, method, calls, Integer.parseInt(depth.trim())));
+            }
+        } finally {
+            if (fake != null) fake.close();
+        }
+    }
+
+    private static Map<String, Object> runReconnect(String host, int port, String method,
+            int calls) throws IOException {
+        long[] latencies = new long[calls];
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            long callStart = System.nanoTime();
+            try (Sl4nClient client = new Sl4nClient(host, port)) {
+                check(client.call(method));
+            }
+            latencies[i] = System.nanoTime() - callStart;
+        }
+        return summary("reconnect", 1, latencies, System.nanoTime() - start);
+    }
+
+    private static Map<String, Object> runPipelined(String host, int port, String method,
+            int calls, int depth) throws Exception {
+        try (Sl4nClient client = new Sl4nClient(host, port, depth, BufferPool.DEFAULT)) {
+            // Warm up the connection, the encoders and the JIT before measuring
+            runCalls(client, method, Math.max(1, calls / 10));
+            long start = System.nanoTime();
+            long[] latencies = runCalls(client, method, calls);
+            return summary("pipelined", depth, latencies, System.nanoTime() - start);
+        }
+    }
+
+    private static long[] runCalls(Sl4nClient client, String method, int calls)
+            throws Exception {
+        final long[] latencies = new long[calls];
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[calls];
+        for (int i = 0; i < calls; i++) {
+            final int index = i;
+            final long callStart = System.nanoTime();
+            futures[i] = client.callAsync(method).whenComplete(
+                    new BiConsumer<Sl4nResponse, Throwable>() {
+                        @Override
+                        public void accept(Sl4nResponse response, Throwable error) {
+                            latencies[index] = System.nanoTime() - callStart;
+                        }
+                    });
+        }
+        for (CompletableFuture<?> future : futures) {
+            check((Sl4nResponse) future.get());
+        }
+        return latencies;
+    }
+
+    private static void check(Sl4nResponse response) throws IOException {
+        if (response.isError()) throw new IOException("Command failed: " + response);
+    }
+
+    private static Map<String, Object> summary(String mode, int depth, long[] latencies,
+            long elapsedNanos) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("Mode", mode);
+        result.put("Depth", depth);
+        result.put("Calls", sorted.length);
+        result.put("CallsPerSec", sorted.length * 1e9 / elapsedNanos);
+        result.put("P50Us", percentile(sorted, 50) / NANOS_PER_MICRO);
+        result.put("P90Us", percentile(sorted, 90) / NANOS_PER_MICRO);
+        result.put("P99Us", percentile(sorted, 99) / NANOS_PER_MICRO);
+        result.put("MaxUs", sorted[sorted.length - 1] / NANOS_PER_MICRO);
+        return result;
+    }
+
+    private static long percentile(long[] sorted, int pct) {
+        int index = (int) Math.ceil(pct / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static void print(Map<String, Object> result) {
+        System.out.println(new JsonWriter().value(result).toString());
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: Sl4nRoundTripBenchmark [--host HOST --port PORT] "
+                + "[--calls N] [--depths 1,4,16] [--method NAME] [--reconnect]");
+        System.exit(1);
+    }
+}
@@ -29,6 +29,7 @@
 #include <rapidjson/document.h>
 #include <rapidjson/writer.h>
 #include <rapidjson/stringbuffer.h>
+#include <android/bluetooth/BnBluetoothCallback.h>
 #include <android/bluetooth/IBluetooth.h>
 #include <android/bluetooth/IBluetoothCallback.h>
 #include <android/bluetooth/IBluetoothLowEnergy.h>
@@ -36,6 +37,7 @@
 #include <tuple>
 #include <utils/command_receiver.h>
 #include <utils/common_utils.h>
+#include <utils/event_bus.h>
 
 using android::bluetooth::IBluetooth;
 using android::bluetooth::IBluetoothLowEnergy;
@@ -50,6 +52,25 @@ std::atomic_int ble_client_id(0);
 
 std::string kServiceName = "bluetooth-service";
 
+const char kBtAdapterStateChangedStr[] = "BtAdapterStateChanged";
+const char kBleRegisteredStr[] = "BleRegistered";
+
+// Publishes adapter state changes of the Bluetooth service, so that clients
+// wait for the adapter to come up instead of polling it
+class AdapterStateCallback : public android::bluetooth::BnBluetoothCallback {
+ public:
+  android::binder::Status OnBluetoothStateChange(int32_t prev_state,
+    int32_t new_state) override {
+
+    rapidjson::Document data;
+    data.SetObject();
+    data.AddMember("prevState", prev_state, data.GetAllocator());
+    data.AddMember("newState", new_state, data.GetAllocator());
+    EventBus::Publish(kBtAdapterStateChangedStr, data);
+    return android::binder::Status::ok();
+  }
+};
+
 bool BtBinderFacade::SharedValidator() {
   if (bt_iface == NULL) {
     LOG(ERROR) << sl4n::kTagStr << " IBluetooth interface not initialized";
@@ -127,6 +148,12 @@ std::tuple<bool, int> BtBinderFacade::BtBinderInitInterface() {
                << "' status=" << status;
     return std::make_tuple(false, sl4n_error_codes::kFailInt);
   }
+  if (bt_callback == NULL) {
+    // Binder callbacks arrive on the binder thread pool
+    android::ProcessState::self()->startThreadPool();
+    bt_callback = new AdapterStateCallback();
+  }
+  bt_iface->RegisterCallback(bt_callback);
   return std::make_tuple(true, sl4n_error_codes::kPassInt);
 }
 
@@ -135,11 +162,14 @@ std::tuple<bool, int> BtBinderFacade::BtBinderRegisterBLE() {
   if (!SharedValidator()) {
     return std::make_tuple(false, sl4n_error_codes::kFailInt);
   }
+  ble_registering = true;
   bt_iface->GetLowEnergyInterface(&ble_iface);
+  ble_registering = false;
   if(!ble_iface.get()) {
     LOG(ERROR) << sl4n::kTagStr << ": Failed to register BLE";
     return std::make_tuple(false, sl4n_error_codes::kFailInt);
   }
+  EventBus::Publish(kBleRegisteredStr);
   return std::make_tuple(true, sl4n_error_codes::kPassInt);
 }
 
@@ -204,7 +234,7 @@ std::tuple<int, int> BtBinderFacade::BtBinderSetAdvSettings(
 
 static BtBinderFacade facade;  // triggers registration with CommandReceiver
 
-void bt_binder_get_local_name_wrapper(rapidjson::Document &doc) {
+void bt_binder_get_local_name_wrapper(JsonDocument &doc) {
   int expected_param_size = 0;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -225,7 +255,7 @@ void bt_binder_get_local_name_wrapper(rapidjson::Document &doc) {
   return;
 }
 
-void bt_binder_init_interface_wapper(rapidjson::Document &doc) {
+void bt_binder_init_interface_wapper(JsonDocument &doc) {
   int expected_param_size = 0;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -242,7 +272,7 @@ void bt_binder_init_interface_wapper(rapidjson::Document &doc) {
   return;
 }
 
-void bt_binder_set_local_name_wrapper(rapidjson::Document &doc) {
+void bt_binder_set_local_name_wrapper(JsonDocument &doc) {
   int expected_param_size = 1;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -269,7 +299,7 @@ void bt_binder_set_local_name_wrapper(rapidjson::Document &doc) {
   return;
 }
 
-void bt_binder_get_local_address_wrapper(rapidjson::Document &doc) {
+void bt_binder_get_local_address_wrapper(JsonDocument &doc) {
   int expected_param_size = 0;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -290,7 +320,7 @@ void bt_binder_get_local_address_wrapper(rapidjson::Document &doc) {
   return;
 }
 
-void bt_binder_enable_wrapper(rapidjson::Document &doc) {
+void bt_binder_enable_wrapper(JsonDocument &doc) {
   int expected_param_size = 0;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -307,7 +337,7 @@ void bt_binder_enable_wrapper(rapidjson::Document &doc) {
   }
 }
 
-void bt_binder_register_ble_wrapper(rapidjson::Document &doc) {
+void bt_binder_register_ble_wrapper(JsonDocument &doc) {
   int expected_param_size = 0;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -325,7 +355,7 @@ void bt_binder_register_ble_wrapper(rapidjson::Document &doc) {
   }
 }
 
-void bt_binder_set_adv_settings_wrapper(rapidjson::Document &doc) {
+void bt_binder_set_adv_settings_wrapper(JsonDocument &doc) {
   int expected_param_size = 4;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
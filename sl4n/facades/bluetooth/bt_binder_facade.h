@@ -18,6 +18,7 @@
 
 #include <rapidjson/document.h>
 #include <android/bluetooth/IBluetooth.h>
+#include <android/bluetooth/IBluetoothCallback.h>
 #include <android/bluetooth/IBluetoothLowEnergy.h>
 #include <tuple>
 
@@ -52,6 +53,9 @@ class BtBinderFacade {
   // Binder client code can use this to make calls to the service.
   android::sp<android::bluetooth::IBluetooth> bt_iface;
 
+  // Registered with the IBluetooth service to publish adapter state events.
+  android::sp<android::bluetooth::IBluetoothCallback> bt_callback;
+
   // Returns a handle to the IBluetoothLowEnergy Binder from the Android
   // ServiceManager. Binder client code can use this to make calls to the
   // service.
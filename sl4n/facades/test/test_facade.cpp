@@ -23,6 +23,7 @@
 #include <tuple>
 #include <utils/command_receiver.h>
 #include <utils/common_utils.h>
+#include <utils/event_bus.h>
 
 std::tuple<bool, int> TestFacade::TestBoolTrueReturn() {
   return std::make_tuple(true, sl4n_error_codes::kPassInt);
@@ -56,13 +57,29 @@ std::tuple<bool, int> TestFacade::TestSpecificParamNaming(
   return std::make_tuple(true, sl4n_error_codes::kPassInt);
 }
 
+std::tuple<int, int> TestFacade::TestPublishEvent(std::string name,
+  int count) {
+
+  if (count < 0) {
+    return std::make_tuple(sl4n::kFailedCounterInt, sl4n_error_codes::kFailInt);
+  }
+  rapidjson::Document data;
+  data.SetObject();
+  data.AddMember("seq", 0, data.GetAllocator());
+  for (int i = 0; i < count; i++) {
+    data["seq"].SetInt(i);
+    EventBus::Publish(name.c_str(), data);
+  }
+  return std::make_tuple(count, sl4n_error_codes::kPassInt);
+}
+
 //////////////////
 // wrappers
 //////////////////
 
 static TestFacade facade;  // triggers registration with CommandReceiver
 
-void test_bool_true_return_wrapper(rapidjson::Document &doc) {
+void test_bool_true_return_wrapper(JsonDocument &doc) {
   int expected_param_size = 0;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -79,7 +96,7 @@ void test_bool_true_return_wrapper(rapidjson::Document &doc) {
   }
 }
 
-void test_bool_false_return_wrapper(rapidjson::Document &doc) {
+void test_bool_false_return_wrapper(JsonDocument &doc) {
   int expected_param_size = 0;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -96,7 +113,7 @@ void test_bool_false_return_wrapper(rapidjson::Document &doc) {
   }
 }
 
-void test_null_return_wrapper(rapidjson::Document &doc) {
+void test_null_return_wrapper(JsonDocument &doc) {
   int expected_param_size = 0;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -113,7 +130,7 @@ void test_null_return_wrapper(rapidjson::Document &doc) {
   }
 }
 
-void test_string_empty_return_wrapper(rapidjson::Document &doc) {
+void test_string_empty_return_wrapper(JsonDocument &doc) {
   int expected_param_size = 0;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -132,7 +149,7 @@ void test_string_empty_return_wrapper(rapidjson::Document &doc) {
   }
 }
 
-void test_string_max_return_wrapper(rapidjson::Document &doc) {
+void test_string_max_return_wrapper(JsonDocument &doc) {
   int expected_param_size = 1;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -160,7 +177,7 @@ void test_string_max_return_wrapper(rapidjson::Document &doc) {
   }
 }
 
-void test_specific_param_naming_wrapper(rapidjson::Document &doc) {
+void test_specific_param_naming_wrapper(JsonDocument &doc) {
   int expected_param_size = 1;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -212,23 +229,61 @@ void test_specific_param_naming_wrapper(rapidjson::Document &doc) {
   }
 }
 
+void test_publish_event_wrapper(JsonDocument &doc) {
+  int expected_param_size = 2;
+  if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
+    return;
+  }
+  std::string name;
+  int count;
+  if (!doc[sl4n::kParamsStr][0].IsString()) {
+    LOG(ERROR) << sl4n::kTagStr << ": Expected String input for name";
+    doc.AddMember(sl4n::kResultStr, false, doc.GetAllocator());
+    doc.AddMember(sl4n::kErrorStr, sl4n::kInvalidParamStr, doc.GetAllocator());
+    return;
+  } else {
+    name = doc[sl4n::kParamsStr][0].GetString();
+  }
+  if (!doc[sl4n::kParamsStr][1].IsInt()) {
+    LOG(ERROR) << sl4n::kTagStr << ": Expected Int input for count";
+    doc.AddMember(sl4n::kResultStr, false, doc.GetAllocator());
+    doc.AddMember(sl4n::kErrorStr, sl4n::kInvalidParamStr, doc.GetAllocator());
+    return;
+  } else {
+    count = doc[sl4n::kParamsStr][1].GetInt();
+  }
+  int result;
+  int error_code;
+  std::tie(result, error_code) = facade.TestPublishEvent(name, count);
+  if (error_code == sl4n_error_codes::kFailInt) {
+    doc.AddMember(sl4n::kResultStr, false, doc.GetAllocator());
+    doc.AddMember(sl4n::kErrorStr, sl4n::kFailStr, doc.GetAllocator());
+  } else {
+    doc.AddMember(sl4n::kResultStr, result, doc.GetAllocator());
+    doc.AddMember(sl4n::kErrorStr, NULL, doc.GetAllocator());
+  }
+}
+
 ////////////////
 // constructor
 ////////////////
 
 TestFacade::TestFacade() {
 
+  // The test facade has no state, its commands can run in parallel
   CommandReceiver::RegisterCommand("TestBoolTrueReturn",
-    &test_bool_true_return_wrapper);
+    &test_bool_true_return_wrapper, true);
   CommandReceiver::RegisterCommand("TestBoolFalseReturn",
-    &test_bool_false_return_wrapper);
+    &test_bool_false_return_wrapper, true);
   CommandReceiver::RegisterCommand("TestNullReturn",
-    &test_null_return_wrapper);
+    &test_null_return_wrapper, true);
   CommandReceiver::RegisterCommand("TestStringEmptyReturn",
-    &test_string_empty_return_wrapper);
+    &test_string_empty_return_wrapper, true);
   CommandReceiver::RegisterCommand("TestStringMaxReturn",
-    &test_string_max_return_wrapper);
+    &test_string_max_return_wrapper, true);
   CommandReceiver::RegisterCommand("TestSpecificParamNaming",
-    &test_specific_param_naming_wrapper);
+    &test_specific_param_naming_wrapper, true);
+  CommandReceiver::RegisterCommand("TestPublishEvent",
+    &test_publish_event_wrapper, true);
 }
 
@@ -31,6 +31,7 @@ class TestFacade {
     std::string max_string);
   std::tuple<bool, int> TestSpecificParamNaming(
     std::string string_test, int int_test);
+  std::tuple<int, int> TestPublishEvent(std::string name, int count);
 
 };
 
@@ -0,0 +1,86 @@
+//
+//  Copyright (C) 2026 The Android Open Source Project
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at:
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+//
+
+#pragma once
+
+#include <stdint.h>
+
+#include <chrono>
+#include <functional>
+#include <string>
+#include <thread>
+#include <utility>
+#include <vector>
+
+#include "wifi_hal_cache.h"
+
+// Wi-Fi HAL stand-in for exercising WifiHalCache on the host. Every call
+// takes a configurable time, like the HAL's round trip to the driver, and is
+// counted. A hook set with SetCallHook() runs in the middle of every call,
+// e.g. to invalidate the cache while the call is in flight.
+class FakeWifiHal : public WifiHalBackend {
+ public:
+  explicit FakeWifiHal(std::chrono::microseconds call_time =
+    std::chrono::microseconds(0)) : call_time_(call_time) {}
+
+  void AddInterface(const std::string& name, int64_t features) {
+    interfaces_.push_back(std::make_pair(name, features));
+  }
+
+  void RemoveInterface(const std::string& name) {
+    for (auto it = interfaces_.begin(); it != interfaces_.end(); ++it) {
+      if (it->first == name) {
+        interfaces_.erase(it);
+        return;
+      }
+    }
+  }
+
+  bool GetInterfaces(std::vector<std::string>* names) override {
+    Call();
+    names->clear();
+    for (const auto& iface : interfaces_) {
+      names->push_back(iface.first);
+    }
+    return true;
+  }
+
+  bool GetSupportedFeatureSet(int iface_index, int64_t* features) override {
+    Call();
+    if (iface_index < 0 || iface_index >= (int) interfaces_.size()) {
+      return false;
+    }
+    *features = interfaces_[iface_index].second;
+    return true;
+  }
+
+  // hook runs with the number of the call, starting at 1
+  void SetCallHook(std::function<void(int)> hook) { hook_ = hook; }
+
+  int calls() const { return calls_; }
+
+ private:
+  void Call() {
+    calls_++;
+    if (call_time_.count() > 0) std::this_thread::sleep_for(call_time_);
+    if (hook_) hook_(calls_);
+  }
+
+  std::chrono::microseconds call_time_;
+  std::vector<std::pair<std::string, int64_t>> interfaces_;
+  std::function<void(int)> hook_;
+  int calls_ = 0;
+};
@@ -62,7 +62,7 @@ bool WifiFacade::WifiStartHal() {
       return false;
     }
 
-    res = hal_fn.wifi_initialize(&wifi_hal_handle);
+    wifi_error res = hal_fn.wifi_initialize(&wifi_hal_handle);
     return res == WIFI_SUCCESS;
   } else {
     return if_tool.SetWifiUpState(true);
@@ -154,7 +154,7 @@ std::tuple<int, int> WifiFacade::WifiGetSupportedFeatureSet() {
 
 static WifiFacade facade;  // triggers registration with CommandReceiver
 
-void wifi_init_wrapper(rapidjson::Document &doc) {
+void wifi_init_wrapper(JsonDocument &doc) {
   int expected_param_size = 0;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -171,7 +171,7 @@ void wifi_init_wrapper(rapidjson::Document &doc) {
   }
 }
 
-void wifi_get_supported_feature_set_wrapper(rapidjson::Document &doc) {
+void wifi_get_supported_feature_set_wrapper(JsonDocument &doc) {
   int expected_param_size = 0;
   if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
     return;
@@ -0,0 +1,143 @@
+//
+//  Copyright (C) 2026 The Android Open Source Project
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at:
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+//
+
+#include "wifi_hal_cache.h"
+
+#include <algorithm>
+#include <chrono>
+
+namespace {
+
+int64_t NowNs() {
+  return std::chrono::duration_cast<std::chrono::nanoseconds>(
+    std::chrono::steady_clock::now().time_since_epoch()).count();
+}
+
+}  // namespace
+
+WifiHalCache::WifiHalCache(WifiHalBackend* backend) : backend_(backend) {}
+
+bool WifiHalCache::FillInterfaces(std::unique_lock<std::mutex>* lock,
+  std::vector<std::string>* names, bool* hit) {
+
+  if (have_interfaces_) {
+    *hit = true;
+    *names = interfaces_;
+    return true;
+  }
+  *hit = false;
+  uint64_t generation = generation_;
+  lock->unlock();
+  bool ok = backend_->GetInterfaces(names);
+  lock->lock();
+  if (ok && generation == generation_) {
+    interfaces_ = *names;
+    have_interfaces_ = true;
+  }
+  return ok;
+}
+
+bool WifiHalCache::GetInterfaces(std::vector<std::string>* names,
+  Lookup* lookup) {
+
+  int64_t start_ns = NowNs();
+  std::unique_lock<std::mutex> lock(mutex_);
+  bool hit;
+  bool ok = FillInterfaces(&lock, names, &hit);
+  Record(&interface_stats_, ok, hit, start_ns, lookup);
+  return ok;
+}
+
+bool WifiHalCache::GetSupportedFeatureSet(const std::string& iface,
+  int64_t* features, Lookup* lookup) {
+
+  int64_t start_ns = NowNs();
+  std::unique_lock<std::mutex> lock(mutex_);
+  std::map<std::string, int64_t>::const_iterator cached =
+    feature_sets_.find(iface);
+  if (cached != feature_sets_.end()) {
+    *features = cached->second;
+    Record(&feature_set_stats_, true, true, start_ns, lookup);
+    return true;
+  }
+
+  // Interface indexes are only valid until the next invalidation. The
+  // generation is taken before the interfaces are resolved, so an
+  // invalidation during the enumeration or the feature set call keeps a
+  // result for a stale index out of the cache.
+  uint64_t generation = generation_;
+  std::vector<std::string> names;
+  bool interfaces_hit;
+  bool ok = FillInterfaces(&lock, &names, &interfaces_hit);
+  std::vector<std::string>::const_iterator it =
+    std::find(names.begin(), names.end(), iface);
+  if (ok && it != names.end()) {
+    lock.unlock();
+    ok = backend_->GetSupportedFeatureSet(it - names.begin(), features);
+    lock.lock();
+    if (ok && generation == generation_) feature_sets_[iface] = *features;
+  } else {
+    ok = false;
+  }
+  Record(&feature_set_stats_, ok, false, start_ns, lookup);
+  return ok;
+}
+
+void WifiHalCache::Invalidate() {
+  std::lock_guard<std::mutex> lock(mutex_);
+  generation_++;
+  invalidations_++;
+  have_interfaces_ = false;
+  interfaces_.clear();
+  feature_sets_.clear();
+}
+
+void WifiHalCache::InvalidateInterface(const std::string& iface) {
+  std::lock_guard<std::mutex> lock(mutex_);
+  generation_++;
+  invalidations_++;
+  have_interfaces_ = false;
+  interfaces_.clear();
+  feature_sets_.erase(iface);
+}
+
+void WifiHalCache::GetStats(Stats* interfaces, Stats* feature_set,
+  uint64_t* invalidations) {
+
+  std::lock_guard<std::mutex> lock(mutex_);
+  *interfaces = interface_stats_;
+  *feature_set = feature_set_stats_;
+  *invalidations = invalidations_;
+}
+
+void WifiHalCache::Record(Stats* stats, bool ok, bool hit, int64_t start_ns,
+  Lookup* lookup) {
+
+  int64_t latency_ns = NowNs() - start_ns;
+  if (!ok) {
+    stats->errors++;
+  } else if (hit) {
+    stats->hits++;
+  } else {
+    stats->misses++;
+  }
+  stats->total_ns += latency_ns;
+  stats->max_ns = std::max(stats->max_ns, latency_ns);
+  if (lookup != NULL) {
+    lookup->hit = hit;
+    lookup->latency_ns = latency_ns;
+  }
+}
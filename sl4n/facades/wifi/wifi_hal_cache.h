@@ -0,0 +1,99 @@
+//
+//  Copyright (C) 2026 The Android Open Source Project
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at:
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+//
+
+#pragma once
+
+#include <stdint.h>
+
+#include <map>
+#include <mutex>
+#include <string>
+#include <vector>
+
+// The Wi-Fi HAL calls which WifiHalCache puts a cache in front of. The tests
+// and the perftest pass FakeWifiHal; WifiFacade is not in any build target and
+// does not implement it.
+class WifiHalBackend {
+ public:
+  virtual ~WifiHalBackend() {}
+
+  // Enumerates the HAL interfaces. Indexes into names are the interface
+  // indexes of the other calls, until the next enumeration.
+  virtual bool GetInterfaces(std::vector<std::string>* names) = 0;
+
+  virtual bool GetSupportedFeatureSet(int iface_index, int64_t* features) = 0;
+};
+
+// Caches the interface list and the feature sets of the Wi-Fi HAL.
+//
+// Both only change when the HAL restarts or an interface comes or goes, so
+// repeated capability queries are answered without a HAL round trip. Callers
+// invalidate the cache on those events; an invalidation which races with a
+// HAL call in progress keeps that call's result out of the cache.
+//
+// Every lookup counts a hit or a miss and its latency.
+class WifiHalCache {
+ public:
+  struct Lookup {
+    bool hit = false;
+    int64_t latency_ns = 0;
+  };
+
+  struct Stats {
+    uint64_t hits = 0;
+    uint64_t misses = 0;
+    uint64_t errors = 0;
+    int64_t total_ns = 0;
+    int64_t max_ns = 0;
+  };
+
+  explicit WifiHalCache(WifiHalBackend* backend);
+
+  bool GetInterfaces(std::vector<std::string>* names, Lookup* lookup);
+
+  // Feature set of the named interface, e.g. "wlan0"
+  bool GetSupportedFeatureSet(const std::string& iface, int64_t* features,
+    Lookup* lookup);
+
+  // Forgets everything, e.g. when the HAL restarts.
+  void Invalidate();
+
+  // Forgets the interface list and what is cached for the interface, when
+  // it is added, removed or changed.
+  void InvalidateInterface(const std::string& iface);
+
+  void GetStats(Stats* interfaces, Stats* feature_set,
+    uint64_t* invalidations);
+
+ private:
+  // Copies the interface list to names, enumerating the interfaces if they
+  // aren't cached. lock holds mutex_ on entry and exit.
+  bool FillInterfaces(std::unique_lock<std::mutex>* lock,
+    std::vector<std::string>* names, bool* hit);
+  void Record(Stats* stats, bool ok, bool hit, int64_t start_ns,
+    Lookup* lookup);
+
+  WifiHalBackend* backend_;
+  std::mutex mutex_;
+  // Bumped by every invalidation, results of older HAL calls aren't cached
+  uint64_t generation_ = 0;
+  bool have_interfaces_ = false;
+  std::vector<std::string> interfaces_;
+  std::map<std::string, int64_t> feature_sets_;
+  Stats interface_stats_;
+  Stats feature_set_stats_;
+  uint64_t invalidations_ = 0;
+};
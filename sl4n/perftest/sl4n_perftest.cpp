@@ -0,0 +1,118 @@
+//
+//  Copyright (C) 2026 The Android Open Source Project
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at:
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+//
+
+// Compares the request path of the first sl4n server with RequestSession, on
+// the PerfTest fixture of rapidjson/test/perftest. Run from sl4n/rapidjson so
+// that the fixture finds bin/data/sample.json, which is sent as the string
+// parameter of the large request.
+
+#include "perftest.h"
+
+#include <rapidjson/document.h>
+#include <rapidjson/stringbuffer.h>
+#include <rapidjson/writer.h>
+
+#include <string>
+
+#include "base.h"
+#include "utils/command_receiver.h"
+#include "utils/request_session.h"
+
+namespace {
+
+const char kSmallRequest[] =
+    "{\"id\":1,\"method\":\"TestBoolTrueReturn\",\"params\":[]}";
+// Small requests take far less time than sample.json, run more of them
+const size_t kSmallTrialFactor = 100;
+const size_t kSockBufLen = 4096;
+
+}  // namespace
+
+class Sl4nRequest : public PerfTest {
+ public:
+  virtual void SetUp() {
+    PerfTest::SetUp();
+    // sample.json as the string parameter of TestStringMaxReturn
+    rapidjson::StringBuffer buffer;
+    rapidjson::Writer<rapidjson::StringBuffer> writer(buffer);
+    writer.StartObject();
+    writer.String("id");
+    writer.Int(1);
+    writer.String("method");
+    writer.String("TestStringMaxReturn");
+    writer.String("params");
+    writer.StartArray();
+    writer.String(json_, length_);
+    writer.EndArray();
+    writer.EndObject();
+    large_request_.assign(buffer.GetString(), buffer.GetSize());
+  }
+
+ protected:
+  // The loop of the first sl4n server: one long lived document whose allocator
+  // is never reset, a StringBuffer, a std::string copy and a copy into the
+  // socket buffer.
+  void LegacyLoop(const std::string& request, size_t trials) {
+    JsonDocument d;
+    rapidjson::StringBuffer buffer;
+    std::vector<char> str(request.size() + 1);
+    char out[kSockBufLen];
+    for (size_t i = 0; i < trials; i++) {
+      memcpy(str.data(), request.c_str(), request.size() + 1);
+      d.Parse(str.data());
+      cr_.Call(d);
+      rapidjson::Writer<rapidjson::StringBuffer> writer(buffer);
+      d.Accept(writer);
+      std::string str2 = buffer.GetString();
+      str2 += '\n';
+      strncpy(out, str2.c_str(), sizeof(out) - 1);
+      d.RemoveAllMembers();
+      buffer.Clear();
+    }
+  }
+
+  void SessionLoop(const std::string& request, size_t trials) {
+    RequestSession session(&cr_);
+    std::string str;
+    std::string response;
+    for (size_t i = 0; i < trials; i++) {
+      // assign() reuses the capacity, like the recycled strings of the server
+      str.assign(request);
+      response.clear();
+      session.Handle(&str, &response);
+    }
+    EXPECT_EQ('}', response[response.size() - 1]);
+  }
+
+  CommandReceiver cr_;
+  std::string large_request_;
+};
+
+TEST_F(Sl4nRequest, LegacyLoop_Small) {
+  LegacyLoop(kSmallRequest, kTrialCount * kSmallTrialFactor);
+}
+
+TEST_F(Sl4nRequest, RequestSession_Small) {
+  SessionLoop(kSmallRequest, kTrialCount * kSmallTrialFactor);
+}
+
+TEST_F(Sl4nRequest, LegacyLoop_Large) {
+  LegacyLoop(large_request_, kTrialCount);
+}
+
+TEST_F(Sl4nRequest, RequestSession_Large) {
+  SessionLoop(large_request_, kTrialCount);
+}
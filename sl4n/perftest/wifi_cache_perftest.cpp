@@ -0,0 +1,103 @@
+//
+//  Copyright (C) 2026 The Android Open Source Project
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at:
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+//
+
+// WifiHalCache against FakeWifiHal, whose calls take about as long as a HAL
+// round trip to the driver. Shows the cost of a capability query answered by
+// the cache and of one which goes to the HAL every time.
+
+#include "perftest.h"
+
+#include <chrono>
+#include <string>
+#include <vector>
+
+#include "wifi/fake_wifi_hal.h"
+#include "wifi/wifi_hal_cache.h"
+
+namespace {
+
+const std::chrono::microseconds kHalCallTime(50);
+const int64_t kWlanFeatures = 0x1234;
+const int64_t kP2pFeatures = 0x10;
+const size_t kHalTrialCount = 1000;
+// Cached queries take far less time than HAL calls, run more of them
+const size_t kCachedTrialFactor = 1000;
+
+}  // namespace
+
+class WifiHalCacheTest : public ::testing::Test {
+ public:
+  WifiHalCacheTest() : hal_(kHalCallTime), cache_(&hal_) {
+    hal_.AddInterface("wlan0", kWlanFeatures);
+    hal_.AddInterface("p2p0", kP2pFeatures);
+  }
+
+ protected:
+  FakeWifiHal hal_;
+  WifiHalCache cache_;
+};
+
+TEST_F(WifiHalCacheTest, FeatureSet_Uncached) {
+  int64_t features = 0;
+  for (size_t i = 0; i < kHalTrialCount; i++) {
+    cache_.Invalidate();
+    ASSERT_TRUE(cache_.GetSupportedFeatureSet("wlan0", &features, NULL));
+  }
+  EXPECT_EQ(kWlanFeatures, features);
+  EXPECT_EQ((int) kHalTrialCount * 2, hal_.calls());
+}
+
+TEST_F(WifiHalCacheTest, FeatureSet_Cached) {
+  int64_t features = 0;
+  WifiHalCache::Lookup lookup;
+  for (size_t i = 0; i < kHalTrialCount * kCachedTrialFactor; i++) {
+    ASSERT_TRUE(cache_.GetSupportedFeatureSet("wlan0", &features, &lookup));
+  }
+  EXPECT_TRUE(lookup.hit);
+  EXPECT_EQ(kWlanFeatures, features);
+  // One enumeration and one feature set query
+  EXPECT_EQ(2, hal_.calls());
+
+  WifiHalCache::Stats interfaces;
+  WifiHalCache::Stats feature_set;
+  uint64_t invalidations;
+  cache_.GetStats(&interfaces, &feature_set, &invalidations);
+  EXPECT_EQ(1u, feature_set.misses);
+  EXPECT_EQ(kHalTrialCount * kCachedTrialFactor - 1, feature_set.hits);
+}
+
+TEST_F(WifiHalCacheTest, InterfaceEvents) {
+  int64_t features = 0;
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("p2p0", &features, NULL));
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("wlan0", &features, NULL));
+
+  // p2p0 goes away, wlan0 moves to index 0 of the new enumeration
+  hal_.RemoveInterface("wlan0");
+  hal_.RemoveInterface("p2p0");
+  hal_.AddInterface("wlan0", kWlanFeatures);
+  cache_.InvalidateInterface("p2p0");
+  EXPECT_FALSE(cache_.GetSupportedFeatureSet("p2p0", &features, NULL));
+
+  WifiHalCache::Lookup lookup;
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("wlan0", &features, &lookup));
+  EXPECT_TRUE(lookup.hit);
+  EXPECT_EQ(kWlanFeatures, features);
+
+  std::vector<std::string> names;
+  ASSERT_TRUE(cache_.GetInterfaces(&names, &lookup));
+  EXPECT_TRUE(lookup.hit);
+  EXPECT_EQ(1u, names.size());
+}
@@ -0,0 +1,164 @@
+//
+//  Copyright (C) 2026 The Android Open Source Project
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at:
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+//
+
+#include <gtest/gtest.h>
+
+#include <stdint.h>
+
+#include <string>
+#include <vector>
+
+#include "wifi/fake_wifi_hal.h"
+#include "wifi/wifi_hal_cache.h"
+
+namespace {
+
+const int64_t kWlanFeatures = 0x1234;
+const int64_t kP2pFeatures = 0x10;
+
+}  // namespace
+
+class WifiHalCacheTest : public ::testing::Test {
+ public:
+  WifiHalCacheTest() : cache_(&hal_) {
+    hal_.AddInterface("wlan0", kWlanFeatures);
+    hal_.AddInterface("p2p0", kP2pFeatures);
+  }
+
+ protected:
+  void GetStats() {
+    cache_.GetStats(&interface_stats_, &feature_set_stats_, &invalidations_);
+  }
+
+  FakeWifiHal hal_;
+  WifiHalCache cache_;
+  WifiHalCache::Stats interface_stats_;
+  WifiHalCache::Stats feature_set_stats_;
+  uint64_t invalidations_ = 0;
+};
+
+TEST_F(WifiHalCacheTest, Interfaces_MissThenHit) {
+  std::vector<std::string> names;
+  WifiHalCache::Lookup lookup;
+  ASSERT_TRUE(cache_.GetInterfaces(&names, &lookup));
+  EXPECT_FALSE(lookup.hit);
+  ASSERT_TRUE(cache_.GetInterfaces(&names, &lookup));
+  EXPECT_TRUE(lookup.hit);
+  EXPECT_EQ(2u, names.size());
+  EXPECT_EQ("wlan0", names[0]);
+  EXPECT_EQ(1, hal_.calls());
+  GetStats();
+  EXPECT_EQ(1u, interface_stats_.hits);
+  EXPECT_EQ(1u, interface_stats_.misses);
+  EXPECT_EQ(0u, interface_stats_.errors);
+}
+
+TEST_F(WifiHalCacheTest, FeatureSet_MissThenHit) {
+  int64_t features = 0;
+  WifiHalCache::Lookup lookup;
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("p2p0", &features, &lookup));
+  EXPECT_FALSE(lookup.hit);
+  EXPECT_EQ(kP2pFeatures, features);
+  features = 0;
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("p2p0", &features, &lookup));
+  EXPECT_TRUE(lookup.hit);
+  EXPECT_EQ(kP2pFeatures, features);
+  // One enumeration and one feature set call
+  EXPECT_EQ(2, hal_.calls());
+  GetStats();
+  EXPECT_EQ(1u, feature_set_stats_.hits);
+  EXPECT_EQ(1u, feature_set_stats_.misses);
+}
+
+TEST_F(WifiHalCacheTest, FeatureSet_UnknownInterface) {
+  int64_t features = 0;
+  EXPECT_FALSE(cache_.GetSupportedFeatureSet("wlan1", &features, NULL));
+  GetStats();
+  EXPECT_EQ(1u, feature_set_stats_.errors);
+  EXPECT_EQ(0u, feature_set_stats_.misses);
+}
+
+TEST_F(WifiHalCacheTest, Invalidate_ForgetsEverything) {
+  int64_t features = 0;
+  WifiHalCache::Lookup lookup;
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("wlan0", &features, NULL));
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("p2p0", &features, NULL));
+  cache_.Invalidate();
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("wlan0", &features, &lookup));
+  EXPECT_FALSE(lookup.hit);
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("p2p0", &features, &lookup));
+  EXPECT_FALSE(lookup.hit);
+  // Enumeration and both feature set calls, before and after
+  EXPECT_EQ(6, hal_.calls());
+  GetStats();
+  EXPECT_EQ(1u, invalidations_);
+}
+
+TEST_F(WifiHalCacheTest, InvalidateInterface_KeepsOtherInterfaces) {
+  int64_t features = 0;
+  WifiHalCache::Lookup lookup;
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("wlan0", &features, NULL));
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("p2p0", &features, NULL));
+  hal_.RemoveInterface("p2p0");
+  cache_.InvalidateInterface("p2p0");
+
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("wlan0", &features, &lookup));
+  EXPECT_TRUE(lookup.hit);
+  EXPECT_EQ(kWlanFeatures, features);
+  EXPECT_FALSE(cache_.GetSupportedFeatureSet("p2p0", &features, NULL));
+
+  // The lookup of p2p0 enumerated the interfaces again
+  std::vector<std::string> names;
+  ASSERT_TRUE(cache_.GetInterfaces(&names, &lookup));
+  EXPECT_TRUE(lookup.hit);
+  EXPECT_EQ(1u, names.size());
+  EXPECT_EQ(4, hal_.calls());
+  GetStats();
+  EXPECT_EQ(1u, invalidations_);
+  EXPECT_EQ(1u, feature_set_stats_.errors);
+}
+
+TEST_F(WifiHalCacheTest, InvalidateDuringEnumeration_NotCached) {
+  // An interface appears while the enumeration of a feature set lookup is
+  // in flight, the indexes of that enumeration may be stale
+  hal_.SetCallHook([this](int call) {
+    if (call == 1) cache_.InvalidateInterface("wlan1");
+  });
+  int64_t features = 0;
+  WifiHalCache::Lookup lookup;
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("wlan0", &features, &lookup));
+  EXPECT_FALSE(lookup.hit);
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("wlan0", &features, &lookup));
+  EXPECT_FALSE(lookup.hit);
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("wlan0", &features, &lookup));
+  EXPECT_TRUE(lookup.hit);
+  EXPECT_EQ(kWlanFeatures, features);
+}
+
+TEST_F(WifiHalCacheTest, InvalidateDuringFeatureSetCall_NotCached) {
+  // The HAL restarts while the feature set call is in flight
+  hal_.SetCallHook([this](int call) {
+    if (call == 2) cache_.Invalidate();
+  });
+  int64_t features = 0;
+  WifiHalCache::Lookup lookup;
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("wlan0", &features, &lookup));
+  EXPECT_EQ(kWlanFeatures, features);
+  ASSERT_TRUE(cache_.GetSupportedFeatureSet("wlan0", &features, &lookup));
+  EXPECT_FALSE(lookup.hit);
+  // Enumeration and feature set call of both lookups
+  EXPECT_EQ(4, hal_.calls());
+}
@@ -0,0 +1,266 @@
+//
+//  Copyright (C) 2026 The Android Open Source Project
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at:
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+//
+
+// Load test for the sl4n server. Every client thread keeps one connection with
+// a fixed number of requests in flight for the duration of the test, then the
+// request rate and latency percentiles over all clients are printed as JSON.
+//
+// Usage: sl4n_load_test [--host 127.0.0.1] [--port 8080] [--clients 8]
+//                       [--depth 16] [--seconds 10] [--method NAME]
+
+#include <rapidjson/document.h>
+
+#include <arpa/inet.h>
+#include <errno.h>
+#include <netinet/in.h>
+#include <netinet/tcp.h>
+#include <stdint.h>
+#include <stdlib.h>
+#include <string.h>
+#include <sys/socket.h>
+#include <unistd.h>
+
+#include <algorithm>
+#include <chrono>
+#include <iostream>
+#include <string>
+#include <thread>
+#include <vector>
+
+namespace {
+
+typedef std::chrono::steady_clock Clock;
+
+struct Options {
+  std::string host = "127.0.0.1";
+  int port = 8080;
+  int clients = 8;
+  int depth = 16;
+  int seconds = 10;
+  std::string method = "TestBoolTrueReturn";
+};
+
+struct ClientResult {
+  uint64_t requests = 0;
+  uint64_t errors = 0;
+  std::vector<uint32_t> latencies_us;
+  std::string failure;
+};
+
+// The facade wrappers add NULL as the integer 0 on success
+bool HasError(const rapidjson::Document& d) {
+  if (!d.HasMember("error")) return false;
+  const rapidjson::Value& error = d["error"];
+  if (error.IsNull() || error.IsFalse()) return false;
+  if (error.IsNumber()) return error.GetDouble() != 0;
+  return !error.IsString() || error.GetStringLength() > 0;
+}
+
+class LoadClient {
+ public:
+  LoadClient(const Options& options, Clock::time_point deadline)
+      : options_(options), deadline_(deadline), sent_at_(options.depth) {}
+
+  void Run(ClientResult* result) {
+    result_ = result;
+    if (!Connect()) return;
+    std::string batch;
+    for (int i = 0; i < options_.depth; i++) {
+      AppendRequest(&batch);
+    }
+    if (!SendAll(batch)) return;
+
+    std::string pending;
+    char chunk[64 * 1024];
+    while (next_id_ > next_response_id_) {
+      ssize_t n = read(fd_, chunk, sizeof(chunk));
+      if (n <= 0) {
+        if (n < 0 && errno == EINTR) continue;
+        Fail(n == 0 ? "connection closed by server" : strerror(errno));
+        return;
+      }
+      pending.append(chunk, n);
+      batch.clear();
+      size_t start = 0;
+      size_t end;
+      while ((end = pending.find('\n', start)) != std::string::npos) {
+        OnResponse(pending.substr(start, end - start));
+        start = end + 1;
+        if (Clock::now() < deadline_) AppendRequest(&batch);
+      }
+      pending.erase(0, start);
+      if (!batch.empty() && !SendAll(batch)) return;
+    }
+    close(fd_);
+  }
+
+ private:
+  bool Connect() {
+    fd_ = socket(AF_INET, SOCK_STREAM, 0);
+    struct sockaddr_in addr;
+    memset(&addr, 0, sizeof(addr));
+    addr.sin_family = AF_INET;
+    addr.sin_port = htons(options_.port);
+    if (fd_ < 0 || inet_pton(AF_INET, options_.host.c_str(), &addr.sin_addr) != 1
+        || connect(fd_, (struct sockaddr*) &addr, sizeof(addr)) != 0) {
+      Fail(strerror(errno));
+      return false;
+    }
+    int nodelay = 1;
+    setsockopt(fd_, IPPROTO_TCP, TCP_NODELAY, &nodelay, sizeof(nodelay));
+    return true;
+  }
+
+  void AppendRequest(std::string* batch) {
+    uint64_t id = next_id_++;
+    sent_at_[id % options_.depth] = Clock::now();
+    *batch += "{\"id\":" + std::to_string(id) + ",\"method\":\"" + options_.method
+        + "\",\"params\":[]}\n";
+  }
+
+  void OnResponse(const std::string& line) {
+    // Responses end with "\n" and a NUL, which lands at the start of the next
+    size_t first = line.find_first_not_of(std::string("\0\r", 2));
+    if (first == std::string::npos) return;
+    uint64_t id = next_response_id_++;
+    auto latency = Clock::now() - sent_at_[id % options_.depth];
+    result_->latencies_us.push_back(static_cast<uint32_t>(
+        std::chrono::duration_cast<std::chrono::microseconds>(latency).count()));
+    result_->requests++;
+
+    rapidjson::Document d;
+    d.Parse(line.c_str() + first);
+    // Responses come back in order, the id tells if one was lost
+    if (d.HasParseError() || !d.IsObject() || !d.HasMember("id")
+        || !d["id"].IsUint64() || d["id"].GetUint64() != id
+        || HasError(d)) {
+      result_->errors++;
+    }
+  }
+
+  bool SendAll(const std::string& data) {
+    size_t pos = 0;
+    while (pos < data.size()) {
+      ssize_t n = send(fd_, data.data() + pos, data.size() - pos, MSG_NOSIGNAL);
+      if (n < 0) {
+        if (errno == EINTR) continue;
+        Fail(strerror(errno));
+        return false;
+      }
+      pos += n;
+    }
+    return true;
+  }
+
+  void Fail(const std::string& message) {
+    result_->failure = message;
+    if (fd_ >= 0) close(fd_);
+  }
+
+  const Options& options_;
+  Clock::time_point deadline_;
+  std::vector<Clock::time_point> sent_at_;
+  ClientResult* result_ = NULL;
+  int fd_ = -1;
+  uint64_t next_id_ = 1;
+  uint64_t next_response_id_ = 1;
+};
+
+bool ParseOptions(int argc, char** argv, Options* options) {
+  for (int i = 1; i < argc; i += 2) {
+    if (i + 1 >= argc) return false;
+    std::string name = argv[i];
+    std::string value = argv[i + 1];
+    if (name == "--host") {
+      options->host = value;
+    } else if (name == "--port") {
+      options->port = atoi(value.c_str());
+    } else if (name == "--clients") {
+      options->clients = atoi(value.c_str());
+    } else if (name == "--depth") {
+      options->depth = atoi(value.c_str());
+    } else if (name == "--seconds") {
+      options->seconds = atoi(value.c_str());
+    } else if (name == "--method") {
+      options->method = value;
+    } else {
+      return false;
+    }
+  }
+  return options->port > 0 && options->clients > 0 && options->depth > 0
+      && options->seconds > 0;
+}
+
+uint32_t Percentile(const std::vector<uint32_t>& sorted, int pct) {
+  if (sorted.empty()) return 0;
+  size_t index = (pct * sorted.size() + 99) / 100;
+  return sorted[std::min(sorted.size() - 1, index > 0 ? index - 1 : 0)];
+}
+
+}  // namespace
+
+int main(int argc, char** argv) {
+  Options options;
+  if (!ParseOptions(argc, argv, &options)) {
+    std::cerr << "Usage: sl4n_load_test [--host 127.0.0.1] [--port 8080]"
+        << " [--clients 8] [--depth 16] [--seconds 10] [--method NAME]"
+        << std::endl;
+    return EXIT_FAILURE;
+  }
+
+  Clock::time_point start = Clock::now();
+  Clock::time_point deadline = start + std::chrono::seconds(options.seconds);
+  std::vector<ClientResult> results(options.clients);
+  std::vector<std::thread> threads;
+  for (int i = 0; i < options.clients; i++) {
+    threads.emplace_back([&options, deadline, &results, i] {
+      LoadClient client(options, deadline);
+      client.Run(&results[i]);
+    });
+  }
+  for (auto& thread : threads) {
+    thread.join();
+  }
+  double elapsed = std::chrono::duration<double>(Clock::now() - start).count();
+
+  uint64_t requests = 0;
+  uint64_t errors = 0;
+  int failed_clients = 0;
+  std::vector<uint32_t> latencies;
+  for (auto& result : results) {
+    requests += result.requests;
+    errors += result.errors;
+    if (!result.failure.empty()) {
+      failed_clients++;
+      std::cerr << "Client failed: " << result.failure << std::endl;
+    }
+    latencies.insert(latencies.end(), result.latencies_us.begin(),
+                     result.latencies_us.end());
+  }
+  std::sort(latencies.begin(), latencies.end());
+
+  std::cout << "{\"clients\":" << options.clients
+      << ",\"depth\":" << options.depth
+      << ",\"requests\":" << requests
+      << ",\"errors\":" << errors
+      << ",\"failed_clients\":" << failed_clients
+      << ",\"requests_per_sec\":" << requests / elapsed
+      << ",\"p50_us\":" << Percentile(latencies, 50)
+      << ",\"p99_us\":" << Percentile(latencies, 99)
+      << ",\"max_us\":" << (latencies.empty() ? 0 : latencies.back())
+      << "}" << std::endl;
+  return errors == 0 && failed_clients == 0 ? 0 : EXIT_FAILURE;
+}
@@ -17,53 +17,325 @@
 #include <rapidjson/document.h>
 #include <rapidjson/writer.h>
 #include <rapidjson/stringbuffer.h>
+#include <algorithm>
+#include <chrono>
+#include <condition_variable>
 #include <map>
+#include <memory>
+#include <mutex>
 #include <string>
 #include <tuple>
+#include <vector>
 
 #include <base.h>
 #include <utils/command_receiver.h>
 #include <utils/common_utils.h>
+#include <utils/worker_pool.h>
 
-typedef std::map<std::string, MFP> function_map;
+struct Command {
+  MFP function;
+  bool thread_safe;
+};
+
+typedef std::map<std::string, Command> function_map;
 function_map* _funcMap = NULL;
+std::mutex _serialMutex;
+
+// Calls of batch requests run here
+const int kCallWorkers = 4;
+std::once_flag _callPoolOnce;
+WorkerPool* _callPool = NULL;
+
+// Async calls get their own pool, so that batches blocked on their results
+// can't keep them from running
+const int kAsyncWorkers = 4;
+std::once_flag _asyncPoolOnce;
+WorkerPool* _asyncPool = NULL;
+
+// Set on the threads of both pools. WaitAsyncResult doesn't wait there, a
+// call waiting for another call of the same pools could hold up every thread.
+thread_local bool _onCallPool = false;
 
-void _clean_result(rapidjson::Document &doc) {
+// Results of async calls by ticket, NULL while the call is running. A result
+// is dropped once it has been fetched. Unfetched results beyond the limit are
+// dropped oldest first, new async calls are rejected while all are running.
+const size_t kMaxAsyncResults = 1024;
+const int kMaxAsyncWaitMs = 60000;
+typedef std::map<uint64_t, std::shared_ptr<JsonDocument>> result_map;
+result_map _asyncResults;
+uint64_t _nextTicket = 1;
+std::mutex _asyncMutex;
+std::condition_variable _asyncCv;
+
+void _clean_result(JsonDocument &doc) {
   doc.RemoveMember(sl4n::kMethodStr);
   doc.RemoveMember(sl4n::kParamsStr);
 }
 
-void initiate(rapidjson::Document &doc) {
+void initiate(JsonDocument &doc) {
   doc.AddMember(sl4n::kStatusStr, sl4n::kSuccessStr, doc.GetAllocator());
 }
 
-CommandReceiver::CommandReceiver() {
-  if (_funcMap == NULL) {
-    _funcMap = new function_map();
-  }
-  _funcMap->insert(std::make_pair("initiate", &initiate));
-  _funcMap->insert(std::make_pair("continue", &initiate));
+WorkerPool* _call_pool() {
+  std::call_once(_callPoolOnce, [] { _callPool = new WorkerPool(kCallWorkers); });
+  return _callPool;
+}
+
+WorkerPool* _async_pool() {
+  std::call_once(_asyncPoolOnce, [] { _asyncPool = new WorkerPool(kAsyncWorkers); });
+  return _asyncPool;
 }
 
-void CommandReceiver::Call(rapidjson::Document& doc) {
-  std::string cmd;
-  if (doc.HasMember(sl4n::kCmdStr)) {
+const Command* _find_command(const rapidjson::Value& doc) {
+  const char* cmd = NULL;
+  if (doc.HasMember(sl4n::kCmdStr) && doc[sl4n::kCmdStr].IsString()) {
     cmd = doc[sl4n::kCmdStr].GetString();
-  } else if (doc.HasMember(sl4n::kMethodStr)) {
+  } else if (doc.HasMember(sl4n::kMethodStr)
+      && doc[sl4n::kMethodStr].IsString()) {
     cmd = doc[sl4n::kMethodStr].GetString();
   }
-
+  if (cmd == NULL) return NULL;
   function_map::const_iterator iter = _funcMap->find(cmd);
-  if (iter != _funcMap->end()) {
-    iter->second(doc);
+  return iter != _funcMap->end() ? &iter->second : NULL;
+}
+
+// Runs a single command request
+void _invoke(JsonDocument& doc) {
+  const Command* command = _find_command(doc);
+  if (command != NULL) {
+    if (command->thread_safe) {
+      command->function(doc);
+    } else {
+      std::lock_guard<std::mutex> lock(_serialMutex);
+      command->function(doc);
+    }
   }
   _clean_result(doc);
 }
 
-void CommandReceiver::RegisterCommand(std::string name, MFP command) {
+void _add_invalid_param(JsonDocument& doc) {
+  doc.AddMember(sl4n::kResultStr, false, doc.GetAllocator());
+  doc.AddMember(sl4n::kErrorStr, sl4n::kInvalidParamStr, doc.GetAllocator());
+}
+
+// Runs the calls of {"batch": [call, ...]} and answers with their responses
+// in the same order. Calls to thread safe commands are independent of each
+// other and run concurrently. Calls to the other commands change facade
+// state, so they run one after the other in batch order, e.g. enabling the
+// adapter before advertising.
+void _run_batch(JsonDocument& doc) {
+  if (!doc[sl4n::kBatchStr].IsArray()) {
+    LOG(ERROR) << sl4n::kTagStr << ": Expected array for " << sl4n::kBatchStr;
+    doc.RemoveMember(sl4n::kBatchStr);
+    _add_invalid_param(doc);
+    return;
+  }
+  const rapidjson::Value& calls = doc[sl4n::kBatchStr];
+  size_t num_calls = calls.Size();
+  // Strings of the calls may point into the request buffer, which stays
+  // valid until the response is written
+  std::vector<std::unique_ptr<JsonDocument>> subdocs(num_calls);
+  std::vector<size_t> ordered;
+  std::vector<size_t> independent;
+  for (size_t i = 0; i < num_calls; i++) {
+    subdocs[i].reset(new JsonDocument());
+    if (!calls[i].IsObject()) continue;
+    subdocs[i]->CopyFrom(calls[i], subdocs[i]->GetAllocator());
+    const Command* command = _find_command(*subdocs[i]);
+    if (command != NULL && command->thread_safe) {
+      independent.push_back(i);
+    } else {
+      ordered.push_back(i);
+    }
+  }
+
+  int num_tasks = independent.size() + (ordered.empty() ? 0 : 1);
+  CountDownLatch latch(num_tasks);
+  WorkerPool* pool = _call_pool();
+  if (!ordered.empty()) {
+    pool->Post([&subdocs, &ordered, &latch] {
+      _onCallPool = true;
+      for (size_t i : ordered) {
+        _invoke(*subdocs[i]);
+      }
+      latch.CountDown();
+    });
+  }
+  for (size_t i : independent) {
+    JsonDocument* subdoc = subdocs[i].get();
+    pool->Post([subdoc, &latch] {
+      _onCallPool = true;
+      _invoke(*subdoc);
+      latch.CountDown();
+    });
+  }
+  latch.Wait();
+
+  rapidjson::Value results(rapidjson::kArrayType);
+  for (size_t i = 0; i < num_calls; i++) {
+    if (subdocs[i]->IsObject()) {
+      rapidjson::Value result(*subdocs[i], doc.GetAllocator());
+      results.PushBack(result, doc.GetAllocator());
+    } else {
+      JsonDocument invalid;
+      invalid.SetObject();
+      _add_invalid_param(invalid);
+      rapidjson::Value result(invalid, doc.GetAllocator());
+      results.PushBack(result, doc.GetAllocator());
+    }
+  }
+  doc.RemoveMember(sl4n::kBatchStr);
+  doc.AddMember(sl4n::kResultStr, results, doc.GetAllocator());
+  doc.AddMember(sl4n::kErrorStr, NULL, doc.GetAllocator());
+}
+
+// Starts a request with "async": true on the async pool and answers with its
+// ticket right away
+void _run_async(JsonDocument& doc) {
+  doc.RemoveMember(sl4n::kAsyncStr);
+  uint64_t ticket;
+  {
+    std::lock_guard<std::mutex> lock(_asyncMutex);
+    if (_asyncResults.size() >= kMaxAsyncResults) {
+      result_map::iterator oldest = std::find_if(_asyncResults.begin(),
+        _asyncResults.end(), [](const result_map::value_type& entry) {
+          return entry.second != NULL;
+        });
+      if (oldest == _asyncResults.end()) {
+        LOG(ERROR) << sl4n::kTagStr << ": " << sl4n::kTooManyAsyncStr;
+        _clean_result(doc);
+        doc.AddMember(sl4n::kResultStr, false, doc.GetAllocator());
+        doc.AddMember(sl4n::kErrorStr, sl4n::kTooManyAsyncStr,
+          doc.GetAllocator());
+        return;
+      }
+      _asyncResults.erase(oldest);
+    }
+    ticket = _nextTicket++;
+    _asyncResults[ticket] = NULL;
+  }
+
+  // The call outlives the request buffer, so it gets a deep copy
+  rapidjson::StringBuffer buffer;
+  rapidjson::Writer<rapidjson::StringBuffer> writer(buffer);
+  doc.Accept(writer);
+  std::shared_ptr<JsonDocument> call(new JsonDocument());
+  call->Parse(buffer.GetString());
+  call->RemoveMember("id");
+
+  _async_pool()->Post([call, ticket] {
+    _onCallPool = true;
+    _invoke(*call);
+    {
+      std::lock_guard<std::mutex> lock(_asyncMutex);
+      result_map::iterator iter = _asyncResults.find(ticket);
+      if (iter != _asyncResults.end()) iter->second = call;
+    }
+    _asyncCv.notify_all();
+  });
+
+  _clean_result(doc);
+  rapidjson::Value result(static_cast<uint64_t>(ticket));
+  doc.AddMember(sl4n::kResultStr, result, doc.GetAllocator());
+  doc.AddMember(sl4n::kErrorStr, NULL, doc.GetAllocator());
+}
+
+// Answers with the response of an async call, waiting up to timeout_ms for
+// it to finish. The status is "pending" if it hasn't finished yet.
+void _fetch_async_result(JsonDocument& doc, uint64_t ticket, int timeout_ms) {
+  std::shared_ptr<JsonDocument> call;
+  {
+    std::unique_lock<std::mutex> lock(_asyncMutex);
+    std::chrono::steady_clock::time_point deadline =
+      std::chrono::steady_clock::now() + std::chrono::milliseconds(timeout_ms);
+    result_map::iterator iter = _asyncResults.find(ticket);
+    while (iter != _asyncResults.end() && iter->second == NULL
+        && _asyncCv.wait_until(lock, deadline) != std::cv_status::timeout) {
+      iter = _asyncResults.find(ticket);
+    }
+    if (iter == _asyncResults.end()) {
+      doc.AddMember(sl4n::kResultStr, false, doc.GetAllocator());
+      doc.AddMember(sl4n::kErrorStr, sl4n::kUnknownTicketStr, doc.GetAllocator());
+      return;
+    }
+    call = iter->second;
+    if (call != NULL) _asyncResults.erase(iter);
+  }
+  if (call == NULL) {
+    doc.AddMember(sl4n::kStatusStr, sl4n::kPendingStr, doc.GetAllocator());
+    doc.AddMember(sl4n::kResultStr, false, doc.GetAllocator());
+  } else {
+    doc.AddMember(sl4n::kStatusStr, sl4n::kDoneStr, doc.GetAllocator());
+    rapidjson::Value result(*call, doc.GetAllocator());
+    doc.AddMember(sl4n::kResultStr, result, doc.GetAllocator());
+  }
+  doc.AddMember(sl4n::kErrorStr, NULL, doc.GetAllocator());
+}
+
+bool _get_ticket(JsonDocument& doc, int expected_param_size, uint64_t* ticket) {
+  if (!CommonUtils::IsParamLengthMatching(doc, expected_param_size)) {
+    return false;
+  }
+  if (!doc[sl4n::kParamsStr][0].IsUint64()) {
+    LOG(ERROR) << sl4n::kTagStr << ": Expected Int input for ticket";
+    _add_invalid_param(doc);
+    return false;
+  }
+  *ticket = doc[sl4n::kParamsStr][0].GetUint64();
+  return true;
+}
+
+// GetAsyncResult [ticket]: polls an async call without waiting
+void get_async_result(JsonDocument& doc) {
+  uint64_t ticket;
+  if (!_get_ticket(doc, 1, &ticket)) return;
+  _fetch_async_result(doc, ticket, 0);
+}
+
+// WaitAsyncResult [ticket, timeout_ms]: waits for an async call to finish.
+// Within a batch or an async call it only polls, like GetAsyncResult.
+void wait_async_result(JsonDocument& doc) {
+  uint64_t ticket;
+  if (!_get_ticket(doc, 2, &ticket)) return;
+  if (!doc[sl4n::kParamsStr][1].IsInt()) {
+    LOG(ERROR) << sl4n::kTagStr << ": Expected Int input for timeout";
+    _add_invalid_param(doc);
+    return;
+  }
+  int timeout_ms = _onCallPool ? 0 : std::max(0,
+    std::min(kMaxAsyncWaitMs, doc[sl4n::kParamsStr][1].GetInt()));
+  _fetch_async_result(doc, ticket, timeout_ms);
+}
+
+CommandReceiver::CommandReceiver() {
+  if (_funcMap == NULL) {
+    _funcMap = new function_map();
+  }
+  _funcMap->insert(std::make_pair("initiate", Command{&initiate, true}));
+  _funcMap->insert(std::make_pair("continue", Command{&initiate, true}));
+  _funcMap->insert(std::make_pair("GetAsyncResult",
+    Command{&get_async_result, true}));
+  _funcMap->insert(std::make_pair("WaitAsyncResult",
+    Command{&wait_async_result, true}));
+}
+
+CommandReceiver::~CommandReceiver() {}
+
+void CommandReceiver::Call(JsonDocument& doc) {
+  if (doc.HasMember(sl4n::kBatchStr)) {
+    _run_batch(doc);
+  } else if (doc.HasMember(sl4n::kAsyncStr) && doc[sl4n::kAsyncStr].IsTrue()) {
+    _run_async(doc);
+  } else {
+    _invoke(doc);
+  }
+}
+
+void CommandReceiver::RegisterCommand(std::string name, MFP command,
+  bool thread_safe) {
   if (_funcMap == NULL) {
     _funcMap = new function_map();
   }
 
-  _funcMap->insert(std::make_pair(name, command));
+  _funcMap->insert(std::make_pair(name, Command{command, thread_safe}));
 }
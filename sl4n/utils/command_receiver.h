@@ -18,7 +18,13 @@
 
 #include <rapidjson/document.h>
 
-typedef void (*MFP)(rapidjson::Document&);
+// Request documents take both their values and their parse stack from memory
+// pools, so that a connection can reuse the same memory for every request.
+typedef rapidjson::GenericDocument<rapidjson::UTF8<>,
+  rapidjson::MemoryPoolAllocator<>, rapidjson::MemoryPoolAllocator<>>
+  JsonDocument;
+
+typedef void (*MFP)(JsonDocument&);
 
 // This class defines the functions that interact with the input JSON and
 // correspondingly calls the facade associated with the input JSON doc. This
@@ -32,10 +38,22 @@ class CommandReceiver {
   CommandReceiver();
   ~CommandReceiver();
 
-  static void RegisterCommand(std::string name, MFP command);
+  // Commands may be called by several clients at the same time. Unless a
+  // command is registered as thread safe, calls to it are serialized with all
+  // other such commands, since most facades keep state.
+  static void RegisterCommand(std::string name, MFP command,
+    bool thread_safe = false);
 
   // Function that extracts the method/cmd parameter from the JSON doc and
   // passes the document to the corresponding wrapper function.
-  void Call(rapidjson::Document& doc);
+  //
+  // {"batch": [{"method": ..., "params": [...]}, ...]} runs several calls in
+  // one request and answers with the array of their responses as result.
+  // Calls to thread safe commands run concurrently, the others in order.
+  //
+  // With "async": true the call is started in the background and the ticket
+  // is answered as result. Its response is fetched with GetAsyncResult
+  // [ticket], or waited for with WaitAsyncResult [ticket, timeout_ms].
+  void Call(JsonDocument& doc);
 
 };
@@ -19,9 +19,16 @@
 #include "common_utils.h"
 #include <rapidjson/document.h>
 
-bool CommonUtils::IsParamLengthMatching(rapidjson::Document& doc,
+bool CommonUtils::IsParamLengthMatching(JsonDocument& doc,
   int expected_param_size) {
 
+  // A malformed request must not take the server down for every client
+  if (!doc.HasMember(sl4n::kParamsStr) || !doc[sl4n::kParamsStr].IsArray()) {
+    LOG(ERROR) << sl4n::kTagStr << ": Missing parameter array";
+    doc.AddMember(sl4n::kResultStr, false, doc.GetAllocator());
+    doc.AddMember(sl4n::kErrorStr, sl4n::kInvalidParamStr, doc.GetAllocator());
+    return false;
+  }
   if ((int)doc[sl4n::kParamsStr].Size() != expected_param_size) {
     LOG(ERROR) << sl4n::kTagStr << ": Invalid parameter length - found: "
       << doc[sl4n::kParamsStr].Size();
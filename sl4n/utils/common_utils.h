@@ -17,12 +17,13 @@
 #pragma once
 
 #include <rapidjson/document.h>
+#include <utils/command_receiver.h>
 
 // This class defines common utils to be used by SL4N.
 class CommonUtils {
  public:
 
   // Returns true if parameters from JSON matches the expected parameter size.
-  static bool IsParamLengthMatching(rapidjson::Document& doc,
+  static bool IsParamLengthMatching(JsonDocument& doc,
     int expected_param_size);
 };
@@ -0,0 +1,152 @@
+//
+//  Copyright (C) 2026 The Android Open Source Project
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at:
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+//
+
+#include "base.h"
+#include "utils/event_bus.h"
+
+#include <rapidjson/stringbuffer.h>
+#include <rapidjson/writer.h>
+#include <time.h>
+
+#include <algorithm>
+
+namespace {
+
+const size_t kQueueCapacity = 1024;
+const char kEventStr[] = "event";
+const char kDataStr[] = "data";
+const char kTimeStr[] = "time";
+const char kEventsDroppedStr[] = "EventsDropped";
+
+// Same clock as SystemClock.elapsedRealtime() on the host side of a test
+int64_t ElapsedRealtimeMs() {
+  struct timespec ts;
+  clock_gettime(CLOCK_BOOTTIME, &ts);
+  return (int64_t) ts.tv_sec * 1000 + ts.tv_nsec / 1000000;
+}
+
+template <typename Writer>
+void WriteEvent(Writer* writer, const char* name, const rapidjson::Value& data) {
+  writer->StartObject();
+  writer->Key(kEventStr);
+  writer->String(name);
+  writer->Key(kDataStr);
+  data.Accept(*writer);
+  writer->Key(kTimeStr);
+  writer->Int64(ElapsedRealtimeMs());
+  writer->EndObject();
+}
+
+}  // namespace
+
+std::mutex EventBus::mutex_;
+std::shared_ptr<const EventBus::SubscriberList> EventBus::subscribers_(
+    new EventBus::SubscriberList());
+
+EventBus::Subscriber::Subscriber(std::vector<std::string> names,
+                                 std::function<void()> notify)
+    : names_(std::move(names)),
+      notify_(std::move(notify)),
+      queue_(kQueueCapacity),
+      dropped_(0),
+      closed_(false) {}
+
+bool EventBus::Subscriber::Wants(const char* name) const {
+  return names_.empty()
+      || std::find(names_.begin(), names_.end(), name) != names_.end();
+}
+
+void EventBus::Subscriber::Push(const Event& event) {
+  if (!queue_.Push(event)) dropped_++;
+  // A publisher holding an older snapshot may still get here after
+  // Unsubscribe; the queued event is harmless, the callback is not
+  std::lock_guard<std::mutex> lock(notify_mutex_);
+  if (!closed_) notify_();
+}
+
+void EventBus::Subscriber::Close() {
+  std::lock_guard<std::mutex> lock(notify_mutex_);
+  closed_ = true;
+}
+
+bool EventBus::Subscriber::Next(std::string* out) {
+  // Report lost events in order, before the ones queued after them
+  uint64_t dropped = dropped_.exchange(0);
+  if (dropped > 0) {
+    LOG(ERROR) << sl4n::kTagStr << ": Dropped " << dropped << " events";
+    rapidjson::Document data;
+    data.SetObject();
+    data.AddMember("count", dropped, data.GetAllocator());
+    rapidjson::StringBuffer buffer;
+    rapidjson::Writer<rapidjson::StringBuffer> writer(buffer);
+    WriteEvent(&writer, kEventsDroppedStr, data);
+    out->append(buffer.GetString(), buffer.GetSize());
+    return true;
+  }
+  Event event;
+  if (!queue_.Pop(&event)) return false;
+  out->append(*event);
+  return true;
+}
+
+std::shared_ptr<EventBus::Subscriber> EventBus::Subscribe(
+    std::vector<std::string> names, std::function<void()> notify) {
+  std::shared_ptr<Subscriber> subscriber(
+    new Subscriber(std::move(names), std::move(notify)));
+  std::lock_guard<std::mutex> lock(mutex_);
+  std::shared_ptr<SubscriberList> list(
+    new SubscriberList(*std::atomic_load(&subscribers_)));
+  list->push_back(subscriber);
+  std::atomic_store(&subscribers_,
+                    std::shared_ptr<const SubscriberList>(std::move(list)));
+  return subscriber;
+}
+
+void EventBus::Unsubscribe(const std::shared_ptr<Subscriber>& subscriber) {
+  {
+    std::lock_guard<std::mutex> lock(mutex_);
+    std::shared_ptr<SubscriberList> list(
+      new SubscriberList(*std::atomic_load(&subscribers_)));
+    list->erase(std::remove(list->begin(), list->end(), subscriber),
+                list->end());
+    std::atomic_store(&subscribers_,
+                      std::shared_ptr<const SubscriberList>(std::move(list)));
+  }
+  subscriber->Close();
+}
+
+void EventBus::Publish(const char* name, const rapidjson::Value& data) {
+  // Subscription changes from here on don't affect this event
+  std::shared_ptr<const SubscriberList> subscribers =
+    std::atomic_load(&subscribers_);
+  Event event;
+  for (auto& subscriber : *subscribers) {
+    if (!subscriber->Wants(name)) continue;
+    // Serialized once, and only if someone listens
+    if (event == NULL) {
+      rapidjson::StringBuffer buffer;
+      rapidjson::Writer<rapidjson::StringBuffer> writer(buffer);
+      WriteEvent(&writer, name, data);
+      event.reset(new std::string(buffer.GetString(), buffer.GetSize()));
+    }
+    subscriber->Push(event);
+  }
+}
+
+void EventBus::Publish(const char* name) {
+  rapidjson::Value data(rapidjson::kObjectType);
+  Publish(name, data);
+}
@@ -0,0 +1,92 @@
+//
+//  Copyright (C) 2026 The Android Open Source Project
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at:
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+//
+
+#pragma once
+
+#include <rapidjson/document.h>
+#include <stdint.h>
+
+#include <atomic>
+#include <functional>
+#include <memory>
+#include <mutex>
+#include <string>
+#include <vector>
+
+#include "utils/bounded_queue.h"
+
+// Delivers callback events of the facades to subscribed clients.
+//
+// A facade publishes an event from whatever thread its callback runs on. The
+// event is serialized once as {"event": name, "data": {...}, "time": ms} and
+// put into the queue of every interested subscriber. Queues are bounded and
+// lock free, so a publisher never waits for a client; events which don't fit
+// are counted and reported to the client as an "EventsDropped" event.
+//
+// Publishers read an immutable snapshot of the subscriber list, which
+// Subscribe and Unsubscribe replace under mutex_, so publishers don't
+// serialize with each other or with subscription changes. The only lock on the
+// publish path is the one of each subscriber around its notify callback, which
+// keeps Unsubscribe from returning while the callback runs.
+class EventBus {
+ public:
+  typedef std::shared_ptr<const std::string> Event;
+
+  class Subscriber {
+   public:
+    // Subscribes to the named events, or to every event if names is empty.
+    // notify is called after events were queued, on the publishing thread.
+    Subscriber(std::vector<std::string> names, std::function<void()> notify);
+
+    // Appends the next event to out. Returns false if there is none. Only one
+    // thread may take events of a subscriber.
+    bool Next(std::string* out);
+
+   private:
+    friend class EventBus;
+
+    bool Wants(const char* name) const;
+    void Push(const Event& event);
+
+    // Called by Unsubscribe, no notify callback runs after this returns
+    void Close();
+
+    std::vector<std::string> names_;
+    std::function<void()> notify_;
+    BoundedQueue<Event> queue_;
+    std::atomic<uint64_t> dropped_;
+    std::mutex notify_mutex_;
+    bool closed_;
+  };
+
+  static std::shared_ptr<Subscriber> Subscribe(std::vector<std::string> names,
+    std::function<void()> notify);
+
+  // No events are queued or notified for the subscriber after this returns.
+  static void Unsubscribe(const std::shared_ptr<Subscriber>& subscriber);
+
+  static void Publish(const char* name, const rapidjson::Value& data);
+  static void Publish(const char* name);
+
+ private:
+  typedef std::vector<std::shared_ptr<Subscriber>> SubscriberList;
+
+  // Serializes Subscribe and Unsubscribe, publishers only load subscribers_
+  static std::mutex mutex_;
+  // Replaced as a whole and never modified, accessed with std::atomic_load
+  // and std::atomic_store
+  static std::shared_ptr<const SubscriberList> subscribers_;
+};
@@ -0,0 +1,472 @@
+//
+//  Copyright (C) 2026 The Android Open Source Project
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at:
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+//
+
+#include "base.h"
+#include "utils/event_server.h"
+
+#include <arpa/inet.h>
+#include <errno.h>
+#include <fcntl.h>
+#include <netinet/in.h>
+#include <netinet/tcp.h>
+#include <string.h>
+#include <sys/epoll.h>
+#include <sys/eventfd.h>
+#include <sys/socket.h>
+#include <unistd.h>
+
+namespace {
+
+const int kBacklogInt = 128;
+const int kMaxEventsInt = 64;
+const size_t kReadChunkSize = 64 * 1024;
+const size_t kMaxMessageSize = 16 * 1024 * 1024;
+// A client which sends faster than it reads is paused at these limits
+const size_t kMaxQueuedRequests = 1024;
+const size_t kMaxQueuedOutput = 4 * 1024 * 1024;
+// Recycled strings per connection, larger ones are left to the heap
+const size_t kMaxFreeStrings = 16;
+const size_t kMaxFreeStringCapacity = 64 * 1024;
+
+// Responses end with a newline and the NUL byte the first sl4n server sent
+const char kResponseEnd[] = {'\n', '\0'};
+
+bool IsSeparator(char c) {
+  return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\0';
+}
+
+}  // namespace
+
+MessageFramer::MessageFramer(size_t max_message_size)
+    : max_message_size_(max_message_size) {}
+
+bool MessageFramer::Feed(const char* data, size_t size) {
+  // Drop consumed requests before the buffer grows
+  if (start_ > 0) {
+    buffer_.erase(0, start_);
+    scan_pos_ -= start_;
+    start_ = 0;
+  }
+  buffer_.append(data, size);
+  return buffer_.size() <= max_message_size_;
+}
+
+bool MessageFramer::Next(std::string* message) {
+  while (scan_pos_ < buffer_.size()) {
+    char c = buffer_[scan_pos_++];
+    if (depth_ == 0 && !in_string_) {
+      if (scan_pos_ - 1 == start_ && IsSeparator(c)) {
+        start_ = scan_pos_;
+        continue;
+      }
+      if (c == '\n') {
+        // A top level scalar, ends at the newline
+        message->assign(buffer_, start_, scan_pos_ - 1 - start_);
+        start_ = scan_pos_;
+        return true;
+      }
+    }
+    if (in_string_) {
+      if (escape_) {
+        escape_ = false;
+      } else if (c == '\\') {
+        escape_ = true;
+      } else if (c == '"') {
+        in_string_ = false;
+      }
+      continue;
+    }
+    if (c == '"') {
+      in_string_ = true;
+    } else if (c == '{' || c == '[') {
+      depth_++;
+    } else if ((c == '}' || c == ']') && depth_ > 0 && --depth_ == 0) {
+      message->assign(buffer_, start_, scan_pos_ - start_);
+      start_ = scan_pos_;
+      return true;
+    }
+  }
+  return false;
+}
+
+struct EventServer::Connection {
+  Connection(int fd, uint64_t id, std::unique_ptr<Session> session)
+      : fd(fd), id(id), framer(kMaxMessageSize), session(std::move(session)) {}
+
+  // Returns an empty string, with the capacity of an earlier request or
+  // response if there is one
+  std::string TakeString() {
+    if (free_strings.empty()) return std::string();
+    std::string s = std::move(free_strings.back());
+    free_strings.pop_back();
+    return s;
+  }
+
+  void RecycleString(std::string s) {
+    if (free_strings.size() >= kMaxFreeStrings
+        || s.capacity() > kMaxFreeStringCapacity) {
+      return;
+    }
+    s.clear();
+    free_strings.push_back(std::move(s));
+  }
+
+  int fd;
+  uint64_t id;
+  MessageFramer framer;
+  // Shared with a worker which may still run a request after a close
+  std::shared_ptr<Session> session;
+  std::vector<std::string> free_strings;
+  std::deque<std::string> requests;
+  bool busy = false;         // a request of this connection is on a worker
+  bool peer_closed = false;  // no more requests, answer the pending ones
+  std::string out;
+  size_t out_pos = 0;
+  bool registered = false;
+  uint32_t events = 0;
+  bool events_pending = false;  // session events left for after a flush
+};
+
+EventServer::EventServer(int port, int num_workers,
+                         SessionFactory session_factory)
+    : port_(port),
+      num_workers_(num_workers),
+      session_factory_(session_factory),
+      stopping_(false) {}
+
+EventServer::~EventServer() {
+  if (listen_fd_ >= 0) close(listen_fd_);
+  if (epoll_fd_ >= 0) close(epoll_fd_);
+  if (wake_fd_ >= 0) close(wake_fd_);
+}
+
+bool EventServer::Listen() {
+  listen_fd_ = socket(AF_INET, SOCK_STREAM | SOCK_NONBLOCK | SOCK_CLOEXEC, 0);
+  if (listen_fd_ < 0) {
+    LOG(ERROR) << sl4n::kTagStr << ": Failed to create the socket."
+      << " Error: " << strerror(errno) << ", " << errno;
+    return false;
+  }
+  int reuse = 1;
+  setsockopt(listen_fd_, SOL_SOCKET, SO_REUSEADDR, &reuse, sizeof(reuse));
+
+  struct sockaddr_in servaddr;
+  memset(&servaddr, 0, sizeof(servaddr));
+  servaddr.sin_family = AF_INET;
+  servaddr.sin_addr.s_addr = INADDR_ANY;
+  servaddr.sin_port = htons(port_);
+  if (bind(listen_fd_, (struct sockaddr*) &servaddr, sizeof(servaddr)) != 0) {
+    LOG(ERROR) << sl4n::kTagStr <<
+      ": Failed to assign the address to the socket."
+      << " Error: " << strerror(errno) << ", " << errno;
+    return false;
+  }
+  if (listen(listen_fd_, kBacklogInt) != 0) {
+    LOG(ERROR) << sl4n::kTagStr << ": Failed to setup the passive socket."
+      << " Error: " << strerror(errno) << ", " << errno;
+    return false;
+  }
+
+  epoll_fd_ = epoll_create1(EPOLL_CLOEXEC);
+  wake_fd_ = eventfd(0, EFD_NONBLOCK | EFD_CLOEXEC);
+  if (epoll_fd_ < 0 || wake_fd_ < 0) {
+    LOG(ERROR) << sl4n::kTagStr << ": Failed to create epoll."
+      << " Error: " << strerror(errno) << ", " << errno;
+    return false;
+  }
+  // Connection ids start at 1, 0 marks the listening socket and UINT64_MAX
+  // the wake up event
+  struct epoll_event ev;
+  ev.events = EPOLLIN;
+  ev.data.u64 = 0;
+  epoll_ctl(epoll_fd_, EPOLL_CTL_ADD, listen_fd_, &ev);
+  ev.data.u64 = UINT64_MAX;
+  epoll_ctl(epoll_fd_, EPOLL_CTL_ADD, wake_fd_, &ev);
+  return true;
+}
+
+bool EventServer::Run() {
+  if (!Listen()) return false;
+  for (int i = 0; i < num_workers_; i++) {
+    workers_.emplace_back(&EventServer::WorkerLoop, this);
+  }
+
+  struct epoll_event events[kMaxEventsInt];
+  while (!stopping_) {
+    int n = epoll_wait(epoll_fd_, events, kMaxEventsInt, -1);
+    if (n < 0) {
+      if (errno == EINTR) continue;
+      LOG(ERROR) << sl4n::kTagStr << ": Failed to wait for events."
+        << " Error: " << strerror(errno) << ", " << errno;
+      break;
+    }
+    for (int i = 0; i < n; i++) {
+      uint64_t key = events[i].data.u64;
+      if (key == 0) {
+        Accept();
+        continue;
+      }
+      if (key == UINT64_MAX) {
+        uint64_t count;
+        if (read(wake_fd_, &count, sizeof(count)) < 0 && errno != EAGAIN) {
+          LOG(ERROR) << sl4n::kTagStr << ": Failed to read the wake up event."
+            << " Error: " << strerror(errno) << ", " << errno;
+        }
+        DrainCompletions();
+        DrainEvents();
+        continue;
+      }
+      auto it = connections_.find(key);
+      if (it == connections_.end()) continue;  // closed earlier in this batch
+      Connection* conn = it->second.get();
+      if (events[i].events & (EPOLLIN | EPOLLHUP | EPOLLERR)) {
+        OnReadable(conn);
+        if (connections_.count(key) == 0) continue;
+      }
+      if (events[i].events & EPOLLOUT) Flush(conn);
+    }
+  }
+
+  {
+    std::lock_guard<std::mutex> lock(jobs_mutex_);
+    workers_stopping_ = true;
+  }
+  jobs_cv_.notify_all();
+  for (auto& worker : workers_) {
+    worker.join();
+  }
+  workers_.clear();
+  for (auto& entry : connections_) {
+    close(entry.second->fd);
+  }
+  connections_.clear();
+  return true;
+}
+
+void EventServer::Stop() {
+  stopping_ = true;
+  Wake();
+}
+
+void EventServer::Wake() {
+  uint64_t one = 1;
+  if (write(wake_fd_, &one, sizeof(one)) < 0) {
+    LOG(ERROR) << sl4n::kTagStr << ": Failed to signal the event loop."
+      << " Error: " << strerror(errno) << ", " << errno;
+  }
+}
+
+void EventServer::Accept() {
+  while (true) {
+    int fd = accept4(listen_fd_, NULL, NULL, SOCK_NONBLOCK | SOCK_CLOEXEC);
+    if (fd < 0) {
+      if (errno != EAGAIN && errno != EWOULDBLOCK && errno != EINTR) {
+        LOG(ERROR) << sl4n::kTagStr << ": Failed to accept the socket."
+          << " Error: " << strerror(errno) << ", " << errno;
+      }
+      return;
+    }
+    int nodelay = 1;
+    setsockopt(fd, IPPROTO_TCP, TCP_NODELAY, &nodelay, sizeof(nodelay));
+    uint64_t id = next_conn_id_++;
+    Connection* conn = new Connection(fd, id, session_factory_());
+    connections_[id].reset(conn);
+    conn->session->SetEventNotifier([this, id] {
+      {
+        std::lock_guard<std::mutex> lock(events_mutex_);
+        event_conns_.push_back(id);
+      }
+      Wake();
+    });
+    UpdateEvents(conn);
+  }
+}
+
+void EventServer::OnReadable(Connection* conn) {
+  char chunk[kReadChunkSize];
+  while (!conn->peer_closed && conn->requests.size() < kMaxQueuedRequests) {
+    ssize_t n = read(conn->fd, chunk, sizeof(chunk));
+    if (n < 0) {
+      if (errno == EINTR) continue;
+      if (errno == EAGAIN || errno == EWOULDBLOCK) break;
+      LOG(ERROR) << sl4n::kTagStr << ": Failed to read from the socket."
+        << " Error: " << strerror(errno) << ", " << errno;
+      Close(conn);
+      return;
+    }
+    if (n == 0) {
+      conn->peer_closed = true;
+      break;
+    }
+    if (!conn->framer.Feed(chunk, n)) {
+      LOG(ERROR) << sl4n::kTagStr << ": Request larger than "
+        << kMaxMessageSize << " bytes, closing the connection";
+      Close(conn);
+      return;
+    }
+    std::string message = conn->TakeString();
+    while (conn->framer.Next(&message)) {
+      conn->requests.push_back(std::move(message));
+      message = conn->TakeString();
+    }
+    conn->RecycleString(std::move(message));
+  }
+  Dispatch(conn);
+  UpdateEvents(conn);
+  MaybeClose(conn);
+}
+
+void EventServer::Dispatch(Connection* conn) {
+  if (conn->busy || conn->requests.empty()) return;
+  conn->busy = true;
+  {
+    std::lock_guard<std::mutex> lock(jobs_mutex_);
+    jobs_.push_back(Job{conn->id, conn->session,
+                        std::move(conn->requests.front()), conn->TakeString()});
+  }
+  conn->requests.pop_front();
+  jobs_cv_.notify_one();
+}
+
+void EventServer::Flush(Connection* conn) {
+  while (conn->out_pos < conn->out.size()) {
+    ssize_t n = send(conn->fd, conn->out.data() + conn->out_pos,
+                     conn->out.size() - conn->out_pos, MSG_NOSIGNAL);
+    if (n < 0) {
+      if (errno == EINTR) continue;
+      if (errno == EAGAIN || errno == EWOULDBLOCK) break;
+      LOG(ERROR) << sl4n::kTagStr << ": Failed to write to the socket."
+        << " Error: " << strerror(errno) << ", " << errno;
+      Close(conn);
+      return;
+    }
+    conn->out_pos += n;
+  }
+  if (conn->out_pos == conn->out.size()) {
+    conn->out.clear();
+    conn->out_pos = 0;
+    // Events held back while the client was not reading
+    if (conn->events_pending) PushEvents(conn);
+  }
+  UpdateEvents(conn);
+  MaybeClose(conn);
+}
+
+void EventServer::PushEvents(Connection* conn) {
+  conn->events_pending = false;
+  while (conn->out.size() - conn->out_pos < kMaxQueuedOutput) {
+    if (!conn->session->NextEvent(&conn->out)) return;
+    conn->out.append(kResponseEnd, sizeof(kResponseEnd));
+  }
+  conn->events_pending = true;
+}
+
+void EventServer::DrainEvents() {
+  {
+    std::lock_guard<std::mutex> lock(events_mutex_);
+    draining_event_conns_.swap(event_conns_);
+  }
+  for (uint64_t conn_id : draining_event_conns_) {
+    auto it = connections_.find(conn_id);
+    if (it == connections_.end()) continue;
+    Connection* conn = it->second.get();
+    size_t queued = conn->out.size();
+    PushEvents(conn);
+    if (conn->out.size() != queued) Flush(conn);
+  }
+  draining_event_conns_.clear();
+}
+
+void EventServer::UpdateEvents(Connection* conn) {
+  uint32_t events = 0;
+  bool backlogged = conn->requests.size() >= kMaxQueuedRequests
+      || conn->out.size() - conn->out_pos >= kMaxQueuedOutput;
+  if (!conn->peer_closed && !backlogged) events |= EPOLLIN;
+  if (conn->out_pos < conn->out.size()) events |= EPOLLOUT;
+  if (conn->registered && events == conn->events) return;
+
+  struct epoll_event ev;
+  ev.events = events;
+  ev.data.u64 = conn->id;
+  int op = conn->registered ? EPOLL_CTL_MOD : EPOLL_CTL_ADD;
+  if (epoll_ctl(epoll_fd_, op, conn->fd, &ev) != 0) {
+    LOG(ERROR) << sl4n::kTagStr << ": Failed to watch the socket."
+      << " Error: " << strerror(errno) << ", " << errno;
+  }
+  conn->registered = true;
+  conn->events = events;
+}
+
+void EventServer::MaybeClose(Connection* conn) {
+  if (conn->peer_closed && !conn->busy && conn->requests.empty()
+      && conn->out.empty()) {
+    Close(conn);
+  }
+}
+
+void EventServer::Close(Connection* conn) {
+  epoll_ctl(epoll_fd_, EPOLL_CTL_DEL, conn->fd, NULL);
+  close(conn->fd);
+  // A response still on a worker finds no connection and is dropped
+  connections_.erase(conn->id);
+}
+
+void EventServer::DrainCompletions() {
+  // Swapping keeps the capacity of both vectors
+  {
+    std::lock_guard<std::mutex> lock(completions_mutex_);
+    draining_.swap(completions_);
+  }
+  for (auto& completion : draining_) {
+    auto it = connections_.find(completion.conn_id);
+    if (it == connections_.end()) continue;
+    Connection* conn = it->second.get();
+    if (conn->out.empty()) {
+      // Nothing queued, the response becomes the send buffer
+      conn->out.swap(completion.response);
+    } else {
+      conn->out.append(completion.response);
+    }
+    conn->RecycleString(std::move(completion.response));
+    conn->RecycleString(std::move(completion.request));
+    conn->busy = false;
+    Dispatch(conn);
+    // Also resumes reading if it was paused at the request limit
+    Flush(conn);
+  }
+  draining_.clear();
+}
+
+void EventServer::WorkerLoop() {
+  while (true) {
+    Job job;
+    {
+      std::unique_lock<std::mutex> lock(jobs_mutex_);
+      jobs_cv_.wait(lock, [this] { return workers_stopping_ || !jobs_.empty(); });
+      if (workers_stopping_) return;
+      job = std::move(jobs_.front());
+      jobs_.pop_front();
+    }
+    job.session->Handle(&job.request, &job.response);
+    job.response.append(kResponseEnd, sizeof(kResponseEnd));
+    job.session.reset();
+    {
+      std::lock_guard<std::mutex> lock(completions_mutex_);
+      completions_.push_back(std::move(job));
+    }
+    Wake();
+  }
+}
@@ -0,0 +1,152 @@
+//
+//  Copyright (C) 2026 The Android Open Source Project
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at:
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+//
+
+#pragma once
+
+#include <stddef.h>
+#include <stdint.h>
+
+#include <atomic>
+#include <condition_variable>
+#include <deque>
+#include <functional>
+#include <map>
+#include <memory>
+#include <mutex>
+#include <string>
+#include <thread>
+#include <vector>
+
+// Splits a byte stream into JSON requests. A request ends when its top level
+// object or array is closed, or at a newline, so newline delimited clients and
+// clients which send one bare document per write are both served. Whitespace
+// and NUL bytes between requests are skipped.
+class MessageFramer {
+ public:
+  explicit MessageFramer(size_t max_message_size);
+
+  // Appends received bytes. Returns false if a request grows beyond the
+  // maximum size, the stream can't be recovered after that.
+  bool Feed(const char* data, size_t size);
+
+  // Moves the next complete request into message. Returns false if there is
+  // none yet.
+  bool Next(std::string* message);
+
+ private:
+  std::string buffer_;
+  size_t max_message_size_;
+  size_t start_ = 0;     // first byte of the current request
+  size_t scan_pos_ = 0;  // bytes before this are already scanned
+  int depth_ = 0;
+  bool in_string_ = false;
+  bool escape_ = false;
+};
+
+// Multi-client server for JSON requests.
+//
+// One thread runs an epoll loop for the listening socket and every connection,
+// with growable per-connection input and output buffers. Requests are run on a
+// pool of worker threads. The requests of one connection are run one after the
+// other and answered in order, while different connections run in parallel, so
+// a slow facade call only holds up its own client.
+//
+// Request and response strings are recycled per connection, and a response is
+// swapped into the send buffer instead of copied when nothing else is queued.
+//
+// Sessions may also push events which are not answers to a request. Events are
+// written between responses, and are held back while the client doesn't read.
+class EventServer {
+ public:
+  // State of one connection for running its requests. Only one request of a
+  // connection runs at a time, so a session needs no locking.
+  class Session {
+   public:
+    virtual ~Session() {}
+
+    // Runs one request on a worker thread. The request may be modified, e.g.
+    // parsed in place. The response document is appended to response.
+    virtual void Handle(std::string* request, std::string* response) = 0;
+
+    // Called on the event loop thread when the connection is accepted. The
+    // session calls notify, from any thread, when it has events to push.
+    virtual void SetEventNotifier(std::function<void()> notify) {}
+
+    // Called on the event loop thread. Appends the next event to push to out,
+    // returns false if there is none.
+    virtual bool NextEvent(std::string* out) { return false; }
+  };
+
+  typedef std::function<std::unique_ptr<Session>()> SessionFactory;
+
+  EventServer(int port, int num_workers, SessionFactory session_factory);
+  ~EventServer();
+
+  // Serves clients until Stop() is called. Returns false if the listening
+  // socket can't be set up.
+  bool Run();
+
+  // Makes Run() return. Safe to call from any thread.
+  void Stop();
+
+ private:
+  struct Connection;
+  struct Job {
+    uint64_t conn_id;
+    std::shared_ptr<Session> session;
+    std::string request;
+    std::string response;
+  };
+
+  bool Listen();
+  void Accept();
+  void OnReadable(Connection* conn);
+  void Dispatch(Connection* conn);
+  void Flush(Connection* conn);
+  void UpdateEvents(Connection* conn);
+  void MaybeClose(Connection* conn);
+  void Close(Connection* conn);
+  void DrainCompletions();
+  void DrainEvents();
+  void PushEvents(Connection* conn);
+  void Wake();
+  void WorkerLoop();
+
+  int port_;
+  int num_workers_;
+  SessionFactory session_factory_;
+  int listen_fd_ = -1;
+  int epoll_fd_ = -1;
+  int wake_fd_ = -1;  // eventfd signalled by workers and Stop()
+  std::atomic<bool> stopping_;
+  uint64_t next_conn_id_ = 1;
+  std::map<uint64_t, std::unique_ptr<Connection>> connections_;
+
+  std::vector<std::thread> workers_;
+  std::mutex jobs_mutex_;
+  std::condition_variable jobs_cv_;
+  std::deque<Job> jobs_;
+  bool workers_stopping_ = false;
+
+  std::mutex completions_mutex_;
+  std::vector<Job> completions_;
+  std::vector<Job> draining_;  // only used by the event loop
+
+  // Connections whose sessions have events to push
+  std::mutex events_mutex_;
+  std::vector<uint64_t> event_conns_;
+  std::vector<uint64_t> draining_event_conns_;  // only used by the event loop
+};
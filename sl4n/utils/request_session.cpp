@@ -0,0 +1,151 @@
+//
+//  Copyright (C) 2026 The Android Open Source Project
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at:
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+//
+
+#include "base.h"
+#include "utils/request_session.h"
+
+#include <rapidjson/writer.h>
+
+#include <algorithm>
+#include <vector>
+
+namespace {
+
+const char kEventSubscribeStr[] = "EventSubscribe";
+const char kEventUnsubscribeStr[] = "EventUnsubscribe";
+
+// Output stream for rapidjson::Writer which appends to a std::string. The
+// string is grown in steps and trimmed by Flush(), so that Put() is a plain
+// store for almost every character.
+class StringAppendStream {
+ public:
+  typedef char Ch;
+
+  explicit StringAppendStream(std::string* out)
+      : out_(out), size_(out->size()) {}
+
+  void Put(char c) {
+    if (size_ == out_->size()) out_->resize(std::max<size_t>(256, size_ * 2));
+    (*out_)[size_++] = c;
+  }
+
+  void Flush() { out_->resize(size_); }
+
+ private:
+  std::string* out_;
+  size_t size_;
+};
+
+}  // namespace
+
+RequestSession::RequestSession(CommandReceiver* cr)
+    : cr_(cr),
+      value_allocator_(value_buffer_, sizeof(value_buffer_)),
+      stack_allocator_(stack_buffer_, sizeof(stack_buffer_)),
+      notified_(false) {}
+
+RequestSession::~RequestSession() {
+  if (subscriber_ != NULL) EventBus::Unsubscribe(subscriber_);
+}
+
+void RequestSession::SetEventNotifier(std::function<void()> notify) {
+  notify_ = std::move(notify);
+}
+
+bool RequestSession::NextEvent(std::string* out) {
+  std::lock_guard<std::mutex> lock(subscriber_mutex_);
+  // Events published from here on notify again
+  notified_ = false;
+  return subscriber_ != NULL && subscriber_->Next(out);
+}
+
+void RequestSession::Subscribe(JsonDocument& doc) {
+  std::vector<std::string> names;
+  if (doc.HasMember(sl4n::kParamsStr) && doc[sl4n::kParamsStr].IsArray()
+      && doc[sl4n::kParamsStr].Size() > 0) {
+    const rapidjson::Value& list = doc[sl4n::kParamsStr][0];
+    bool valid = list.IsArray();
+    for (rapidjson::SizeType i = 0; valid && i < list.Size(); i++) {
+      valid = list[i].IsString();
+      if (valid) names.push_back(list[i].GetString());
+    }
+    if (!valid) {
+      LOG(ERROR) << sl4n::kTagStr << ": Expected String array for event names";
+      doc.AddMember(sl4n::kResultStr, false, doc.GetAllocator());
+      doc.AddMember(sl4n::kErrorStr, sl4n::kInvalidParamStr, doc.GetAllocator());
+      return;
+    }
+  }
+  std::shared_ptr<EventBus::Subscriber> subscriber = EventBus::Subscribe(
+    std::move(names), [this] {
+      if (!notified_.exchange(true) && notify_) notify_();
+    });
+  std::shared_ptr<EventBus::Subscriber> old;
+  {
+    std::lock_guard<std::mutex> lock(subscriber_mutex_);
+    old.swap(subscriber_);
+    subscriber_ = subscriber;
+  }
+  // Events still queued for the old subscription are dropped
+  if (old != NULL) EventBus::Unsubscribe(old);
+  doc.AddMember(sl4n::kResultStr, true, doc.GetAllocator());
+  doc.AddMember(sl4n::kErrorStr, NULL, doc.GetAllocator());
+}
+
+void RequestSession::Unsubscribe(JsonDocument& doc) {
+  std::shared_ptr<EventBus::Subscriber> old;
+  {
+    std::lock_guard<std::mutex> lock(subscriber_mutex_);
+    old.swap(subscriber_);
+  }
+  if (old != NULL) EventBus::Unsubscribe(old);
+  doc.AddMember(sl4n::kResultStr, old != NULL, doc.GetAllocator());
+  doc.AddMember(sl4n::kErrorStr, NULL, doc.GetAllocator());
+}
+
+void RequestSession::Handle(std::string* request, std::string* response) {
+  // Nothing from the previous request is referenced any more
+  value_allocator_.Clear();
+  stack_allocator_.Clear();
+
+  JsonDocument d(&value_allocator_, kParseStackCapacity, &stack_allocator_);
+  // std::string keeps a NUL after its data, as ParseInsitu needs
+  d.ParseInsitu(&(*request)[0]);
+  if (d.HasParseError() || !d.IsObject()) {
+    LOG(ERROR) << sl4n::kTagStr << ": Invalid JSON request";
+    d.SetObject();
+    d.AddMember(sl4n::kResultStr, false, d.GetAllocator());
+    d.AddMember(sl4n::kErrorStr, sl4n::kInvalidJsonStr, d.GetAllocator());
+  } else if (d.HasMember(sl4n::kMethodStr) && d[sl4n::kMethodStr].IsString()
+      && strcmp(d[sl4n::kMethodStr].GetString(), kEventSubscribeStr) == 0) {
+    Subscribe(d);
+    d.RemoveMember(sl4n::kMethodStr);
+    d.RemoveMember(sl4n::kParamsStr);
+  } else if (d.HasMember(sl4n::kMethodStr) && d[sl4n::kMethodStr].IsString()
+      && strcmp(d[sl4n::kMethodStr].GetString(), kEventUnsubscribeStr) == 0) {
+    Unsubscribe(d);
+    d.RemoveMember(sl4n::kMethodStr);
+    d.RemoveMember(sl4n::kParamsStr);
+  } else {
+    cr_->Call(d);
+  }
+
+  StringAppendStream out(response);
+  rapidjson::Writer<StringAppendStream, rapidjson::UTF8<>, rapidjson::UTF8<>,
+    rapidjson::MemoryPoolAllocator<>> writer(out, &stack_allocator_);
+  d.Accept(writer);
+  out.Flush();
+}
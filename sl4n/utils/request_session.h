@@ -0,0 +1,74 @@
+//
+//  Copyright (C) 2026 The Android Open Source Project
+//
+//  Licensed under the Apache License, Version 2.0 (the "License");
+//  you may not use this file except in compliance with the License.
+//  You may obtain a copy of the License at:
+//
+//  http://www.apache.org/licenses/LICENSE-2.0
+//
+//  Unless required by applicable law or agreed to in writing, software
+//  distributed under the License is distributed on an "AS IS" BASIS,
+//  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//  See the License for the specific language governing permissions and
+//  limitations under the License.
+//
+
+#pragma once
+
+#include <rapidjson/document.h>
+
+#include <atomic>
+#include <functional>
+#include <memory>
+#include <mutex>
+#include <string>
+
+#include "utils/command_receiver.h"
+#include "utils/event_bus.h"
+#include "utils/event_server.h"
+
+// Runs the JSON requests of one connection without allocating memory for
+// typical requests.
+//
+// The request is parsed in place, so strings of the document point into the
+// request buffer instead of being copied. Values and the parse stack come from
+// two memory pools which start in fixed buffers of the session and are reset
+// after every request; only requests which outgrow the buffers allocate, and
+// that memory is released by the next reset. The response is written by the
+// rapidjson Writer straight into the buffer which the server sends.
+//
+// Event subscriptions belong to the connection, so the session answers
+// EventSubscribe [[names]] and EventUnsubscribe [] itself. Subscribed events
+// are pushed to the client as they are published.
+class RequestSession : public EventServer::Session {
+ public:
+  explicit RequestSession(CommandReceiver* cr);
+  ~RequestSession();
+  RequestSession(const RequestSession&) = delete;
+  RequestSession& operator=(const RequestSession&) = delete;
+
+  void Handle(std::string* request, std::string* response) override;
+  void SetEventNotifier(std::function<void()> notify) override;
+  bool NextEvent(std::string* out) override;
+
+ private:
+  void Subscribe(JsonDocument& doc);
+  void Unsubscribe(JsonDocument& doc);
+
+  static const size_t kValueBufferSize = 8 * 1024;
+  static const size_t kStackBufferSize = 4 * 1024;
+  static const size_t kParseStackCapacity = 1024;
+
+  CommandReceiver* cr_;
+  char value_buffer_[kValueBufferSize];
+  char stack_buffer_[kStackBufferSize];
+  rapidjson::MemoryPoolAllocator<> value_allocator_;
+  rapidjson::MemoryPoolAllocator<> stack_allocator_;
+
+  std::function<void()> notify_;
+  // The event loop is notified once until it takes the next event
+  std::atomic<bool> notified_;
+  std::mutex subscriber_mutex_;
+  std::shared_ptr<EventBus::Subscriber> subscriber_;
+};